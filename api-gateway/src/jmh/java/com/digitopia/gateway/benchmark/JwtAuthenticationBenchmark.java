@@ -0,0 +1,107 @@
+package com.digitopia.gateway.benchmark;
+
+import com.digitopia.gateway.security.InternalCallSecret;
+import com.digitopia.gateway.security.jwt.JwtAuthenticationFilter;
+import com.digitopia.gateway.security.jwt.JwtTokenProvider;
+import com.digitopia.gateway.security.jwt.RevokedUsers;
+import com.digitopia.gateway.security.jwt.VerifiedTokenCache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a repeat token, before (full verification)
+ * and after (verified claims cache) on the thread that runs the filter, and of
+ * rejecting expired and malformed tokens, which are never cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private static final String SECRET = "digitopia-secret-key-for-jwt-token-min-32-characters-required";
+    private static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+    private static final String MALFORMED_BEARER = "Bearer eyJhbGciOiJIUzI1NiJ9.not-base64!.c2ln";
+
+    private String bearer;
+    private String expiredBearer;
+    private GatewayFilter cachedFilter;
+    private GatewayFilter uncachedFilter;
+
+    @Setup
+    public void setUp() {
+        var key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        var now = System.currentTimeMillis();
+        bearer = "Bearer " + token(key, now, now + TimeUnit.HOURS.toMillis(24));
+        expiredBearer = "Bearer " + token(key, now - TimeUnit.HOURS.toMillis(25), now - TimeUnit.HOURS.toMillis(1));
+
+        // A busy day's worth of deactivations, none of them the benchmark user.
+        var revokedUsers = new RevokedUsers(Duration.ofHours(24), 1_000_000, new SimpleMeterRegistry());
+        for (int i = 0; i < 10_000; i++) {
+            revokedUsers.revoke(UUID.randomUUID().toString());
+        }
+
+        var provider = new JwtTokenProvider(SECRET);
+        cachedFilter = new JwtAuthenticationFilter(
+            provider, new VerifiedTokenCache(10_000, new SimpleMeterRegistry()), revokedUsers, new InternalCallSecret(),
+            new SimpleMeterRegistry()
+        ).apply(new JwtAuthenticationFilter.Config());
+        uncachedFilter = new JwtAuthenticationFilter(
+            provider, new VerifiedTokenCache(0, new SimpleMeterRegistry()), revokedUsers, new InternalCallSecret(),
+            new SimpleMeterRegistry()
+        ).apply(new JwtAuthenticationFilter.Config());
+    }
+
+    @Benchmark
+    public Void verifyEveryRequest() {
+        return uncachedFilter.filter(exchange(bearer), CHAIN).block();
+    }
+
+    @Benchmark
+    public Void cachedVerifiedToken() {
+        return cachedFilter.filter(exchange(bearer), CHAIN).block();
+    }
+
+    @Benchmark
+    public Void expiredToken() {
+        return cachedFilter.filter(exchange(expiredBearer), CHAIN).block();
+    }
+
+    @Benchmark
+    public Void malformedToken() {
+        return cachedFilter.filter(exchange(MALFORMED_BEARER), CHAIN).block();
+    }
+
+    private static String token(SecretKey key, long issuedAt, long expiresAt) {
+        return Jwts.builder()
+            .subject(UUID.randomUUID().toString())
+            .claim("email", "bench@digitopia.com")
+            .claim("role", "USER")
+            .issuedAt(new Date(issuedAt))
+            .expiration(new Date(expiresAt))
+            .signWith(key)
+            .compact();
+    }
+
+    private static MockServerWebExchange exchange(String authorization) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/organizations/42")
+            .header(HttpHeaders.AUTHORIZATION, authorization));
+    }
+}
@@ -0,0 +1,32 @@
+package com.digitopia.gateway.benchmark;
+
+import com.digitopia.gateway.security.jwt.JwtAuthenticationFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link JwtAuthenticationFilter#isPublicEndpoint}, which runs for every request on an
+ * authenticated route. Protected paths are the worst case: every prefix is searched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublicEndpointBenchmark {
+
+    @Param({
+        "/api/auth/login",
+        "/actuator/health",
+        "/api/organizations/3f2b8c1e-7a4d-4e59-9b61-0c8d2e5f7a13/users",
+        "/api/invitations/user/3f2b8c1e-7a4d-4e59-9b61-0c8d2e5f7a13?status=PENDING&page=0&size=20"
+    })
+    public String path;
+
+    @Benchmark
+    public boolean isPublicEndpoint() {
+        return JwtAuthenticationFilter.isPublicEndpoint(path);
+    }
+}
@@ -0,0 +1,130 @@
+package com.digitopia.gateway.benchmark;
+
+import com.digitopia.common.security.JwtCodec;
+import com.digitopia.gateway.hotkeys.HeavyHitters;
+import com.digitopia.gateway.hotkeys.HotKeys;
+import com.digitopia.gateway.security.InternalCallSecret;
+import com.digitopia.gateway.security.jwt.BearerTokens;
+import com.digitopia.gateway.security.jwt.JwtTokenProvider;
+import com.digitopia.gateway.security.jwt.VerifiedTokenCache;
+import com.digitopia.gateway.security.ratelimit.ClusterRateLimiter;
+import com.digitopia.gateway.security.ratelimit.GatewayRateLimiter;
+import com.digitopia.gateway.security.ratelimit.GlobalRateLimitWebFilter;
+import com.digitopia.gateway.security.ratelimit.RateLimitBucketTable;
+import com.digitopia.gateway.security.ratelimit.RateLimitPolicies;
+import com.digitopia.gateway.security.ratelimit.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link GlobalRateLimitWebFilter} with the local bucket table and heavy-hitter
+ * tracking as configured by default: one client on one thread, 100,000 clients in turn, and one
+ * client shared by four threads, which contend on its bucket and hot-key counters. Clients are told
+ * apart by their bearer tokens, all verified and cached during warmup as in steady state.
+ *
+ * <p>Buckets refill within a millisecond, faster than the threads can drain them, so no request is
+ * rejected. {@code exchangeOnly} measures building the mock exchange, which every other benchmark
+ * includes.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    private static final WebFilterChain CHAIN = exchange -> Mono.empty();
+    private static final int CLIENTS = 100_000;
+
+    private static final String SECRET = "digitopia-secret-key-for-jwt-token-min-32-characters-required";
+
+    private String hotUser;
+    private final String[] users = new String[CLIENTS];
+
+    private GlobalRateLimitWebFilter filter;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        var codec = new JwtCodec(SECRET.getBytes(StandardCharsets.UTF_8));
+        var now = System.currentTimeMillis() / 1000;
+        hotUser = codec.sign(UUID.randomUUID().toString(), "hot@digitopia.test", "USER", now, now + 3600);
+        for (int i = 0; i < CLIENTS; i++) {
+            users[i] = codec.sign(UUID.randomUUID().toString(), i + "@digitopia.test", "USER", now, now + 3600);
+        }
+
+        var route = new RouteDefinition();
+        route.setId("organization-service");
+        route.setPredicates(List.of(new PredicateDefinition("Path=/api/organizations/**")));
+        var policy = new RateLimitProperties.Policy(
+            null, null, RateLimitBucketTable.MAX_CAPACITY, Duration.ofMillis(1), 1, Map.of()
+        );
+        var properties = new RateLimitProperties(262_144, Duration.ofMinutes(2), policy, List.of());
+        var rateLimiter = new GatewayRateLimiter(
+            new RateLimitBucketTable(
+                properties.tableSlots(), properties.idleTimeout().toMillis(), () -> System.nanoTime() / 1_000_000
+            ),
+            RateLimitPolicies.compile(properties, List.of(route)),
+            new StaticListableBeanFactory().getBeanProvider(ClusterRateLimiter.class)
+        );
+        var hotKeys = new HotKeys(true, heavyHitters(), heavyHitters());
+        var meterRegistry = new SimpleMeterRegistry();
+        var bearerTokens = new BearerTokens(
+            new JwtTokenProvider(SECRET), new VerifiedTokenCache(2L * CLIENTS, meterRegistry)
+        );
+        filter = new GlobalRateLimitWebFilter(rateLimiter, bearerTokens, new InternalCallSecret(), hotKeys, meterRegistry);
+    }
+
+    @Benchmark
+    public MockServerWebExchange exchangeOnly() {
+        return exchange(hotUser);
+    }
+
+    @Benchmark
+    public Void hotKey() {
+        return filter.filter(exchange(hotUser), CHAIN).block();
+    }
+
+    @Benchmark
+    public Void manyKeys(Cursor cursor) {
+        var user = users[cursor.next];
+        cursor.next = cursor.next + 1 == CLIENTS ? 0 : cursor.next + 1;
+        return filter.filter(exchange(user), CHAIN).block();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Void contendedKey() {
+        return filter.filter(exchange(hotUser), CHAIN).block();
+    }
+
+    private static MockServerWebExchange exchange(String token) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/organizations/42")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+    }
+
+    /** As {@code HeavyHittersProperties} defaults. */
+    private static HeavyHitters heavyHitters() {
+        return new HeavyHitters(100, 8192, 4, Duration.ofMinutes(1).toNanos(), System::nanoTime);
+    }
+}
@@ -0,0 +1,298 @@
+package com.digitopia.gateway.batch;
+
+import com.digitopia.gateway.logging.LogSampler;
+import com.digitopia.gateway.security.ratelimit.GatewayRateLimiter;
+import com.digitopia.gateway.security.ratelimit.RateLimitBucketTable;
+import com.digitopia.gateway.web.ErrorResponses;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serves {@code POST /api/batch}: runs several GET sub-requests through the gateway's own routes
+ * and answers with all of their statuses and bodies in one response.
+ *
+ * <p>List it after {@code JwtAuthenticationFilter}. The caller's token is verified once for the
+ * whole batch, and the batch is charged against the rate limiter in one step, one GET's cost per
+ * item. Sub-requests go through {@link GatewayLoopback}, so they skip token verification and rate
+ * limiting but otherwise get the route's usual caching, load balancing, timeouts and retries. Up to
+ * {@code concurrency} sub-requests of a batch are in flight at a time.</p>
+ *
+ * <pre>
+ * filters:
+ *   - JwtAuthenticationFilter
+ *   - name: BatchFilter
+ *     args:
+ *       max-requests: 20
+ *       concurrency: 6
+ * </pre>
+ */
+@Component
+public class BatchFilter extends AbstractGatewayFilterFactory<BatchFilter.Config> {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchFilter.class);
+
+    public static final String PATH = "/api/batch";
+
+    /** Headers a sub-request may set for itself, lower-cased. */
+    private static final Set<String> ITEM_HEADERS = Set.of("if-none-match", "accept-language");
+    private static final List<String> RETURNED_HEADERS = List.of(
+        HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG, HttpHeaders.CACHE_CONTROL, HttpHeaders.RETRY_AFTER, "X-Cache"
+    );
+
+    private final WebClient.Builder webClientBuilder;
+    private final GatewayRateLimiter rateLimiter;
+    private final GatewayLoopback loopback;
+    private final ObjectMapper objectMapper;
+    private final LogSampler rejectedLogs = new LogSampler(10);
+
+    public BatchFilter(
+        WebClient.Builder webClientBuilder,
+        GatewayRateLimiter rateLimiter,
+        GatewayLoopback loopback,
+        ObjectMapper objectMapper
+    ) {
+        super(Config.class);
+        this.webClientBuilder = webClientBuilder;
+        this.rateLimiter = rateLimiter;
+        this.loopback = loopback;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        var client = webClientBuilder.clone()
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) config.getMaxItemBodySize().toBytes()))
+            .build();
+
+        return (exchange, chain) -> {
+            if (exchange.getRequest().getMethod() != HttpMethod.POST) {
+                return ErrorResponses.write(exchange, "Batch requests must be POSTed", HttpStatus.METHOD_NOT_ALLOWED);
+            }
+
+            return DataBufferUtils.join(exchange.getRequest().getBody(), (int) config.getMaxBodySize().toBytes())
+                .map(buffer -> {
+                    try {
+                        var bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        return bytes;
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .flatMap(body -> handle(exchange, client, config, body))
+                .switchIfEmpty(Mono.defer(() -> ErrorResponses.write(exchange, "Request body is required", HttpStatus.BAD_REQUEST)))
+                .onErrorResume(DataBufferLimitException.class,
+                    e -> ErrorResponses.write(exchange, "Batch body exceeds " + config.getMaxBodySize(), HttpStatus.PAYLOAD_TOO_LARGE));
+        };
+    }
+
+    private Mono<Void> handle(ServerWebExchange exchange, WebClient client, Config config, byte[] body) {
+        BatchRequest batch;
+        try {
+            batch = objectMapper.readValue(body, BatchRequest.class);
+        } catch (Exception e) {
+            return ErrorResponses.write(exchange, "Malformed batch body", HttpStatus.BAD_REQUEST);
+        }
+        var items = batch.requests();
+        if (items == null || items.isEmpty()) {
+            return ErrorResponses.write(exchange, "Batch must contain at least one request", HttpStatus.BAD_REQUEST);
+        }
+        if (items.size() > config.getMaxRequests()) {
+            return ErrorResponses.write(exchange, "Batch exceeds " + config.getMaxRequests() + " requests", HttpStatus.BAD_REQUEST);
+        }
+
+        var request = exchange.getRequest();
+        var policy = rateLimiter.resolve(PATH, request.getHeaders().getFirst("X-User-Role"));
+        var key = GatewayRateLimiter.clientKey(request);
+
+        return rateLimiter.tryConsume(key, policy, policy.cost(HttpMethod.GET) * items.size())
+            .flatMap(remaining -> {
+                if (remaining == RateLimitBucketTable.REJECTED) {
+                    if (rejectedLogs.tryAcquire()) {
+                        log.warn("[{}] Rate Limit EXCEEDED for batch of {} ({} more not logged)",
+                            key, items.size(), rejectedLogs.suppressed());
+                    }
+                    exchange.getResponse().getHeaders().add("X-RateLimit-Retry-After-Seconds", "10");
+                    return ErrorResponses.write(exchange, "Rate limit exceeded. Please try again later.", HttpStatus.TOO_MANY_REQUESTS);
+                }
+                exchange.getResponse().getHeaders().set("X-RateLimit-Remaining", String.valueOf(remaining));
+
+                return Flux.range(0, items.size())
+                    .flatMapSequential(i -> dispatch(client, request, config, items.get(i), i), config.getConcurrency())
+                    .collectList()
+                    .flatMap(responses -> write(exchange, new BatchResponse(responses)));
+            });
+    }
+
+    private Mono<BatchResponse.Item> dispatch(
+        WebClient client, ServerHttpRequest parent, Config config, BatchRequest.Item item, int index
+    ) {
+        var id = item.id() != null ? item.id() : String.valueOf(index);
+
+        if (item.method() != null && !item.method().equalsIgnoreCase("GET")) {
+            return Mono.just(error(id, HttpStatus.METHOD_NOT_ALLOWED, "Only GET requests can be batched"));
+        }
+        var invalid = validatePath(item.path());
+        if (invalid != null) {
+            return Mono.just(error(id, HttpStatus.BAD_REQUEST, invalid));
+        }
+        if (!loopback.isReady()) {
+            return Mono.just(error(id, HttpStatus.SERVICE_UNAVAILABLE, "Gateway is starting up"));
+        }
+
+        var headers = new LinkedHashMap<String, String>();
+        if (item.headers() != null) {
+            item.headers().forEach((name, value) -> {
+                if (name != null && value != null && ITEM_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.put(name, value);
+                }
+            });
+        }
+
+        return loopback.get(client, parent, item.path(), headers)
+            .map(response -> toItem(id, response))
+            .timeout(config.getItemTimeout())
+            .onErrorResume(e -> {
+                log.debug("Batch item {} {} failed: {}", id, item.path(), e.toString());
+                if (e instanceof TimeoutException) {
+                    return Mono.just(error(id, HttpStatus.GATEWAY_TIMEOUT, "Request timed out"));
+                }
+                if (e instanceof DataBufferLimitException) {
+                    return Mono.just(error(id, HttpStatus.BAD_GATEWAY, "Response exceeds " + config.getMaxItemBodySize()));
+                }
+                return Mono.just(error(id, HttpStatus.BAD_GATEWAY, "Request failed"));
+            });
+    }
+
+    /** Returns why {@code path} cannot be batched, or {@code null} if it can. */
+    static String validatePath(String path) {
+        if (path == null || !path.startsWith("/api/")) {
+            return "Path must start with /api/";
+        }
+        URI uri;
+        try {
+            uri = URI.create(path);
+        } catch (IllegalArgumentException e) {
+            return "Path is not a valid URI";
+        }
+        var rawPath = uri.getRawPath();
+        var lower = path.toLowerCase(Locale.ROOT);
+        if (uri.getScheme() != null || uri.getRawAuthority() != null || rawPath == null
+            || rawPath.contains("//") || rawPath.contains("..") || lower.contains("%2e") || lower.contains("%2f")
+            || path.contains("\\")) {
+            return "Path must be a plain absolute path";
+        }
+        if (rawPath.startsWith(PATH) || rawPath.equals("/api/auth") || rawPath.startsWith("/api/auth/")) {
+            return "Path cannot be batched";
+        }
+        return null;
+    }
+
+    private BatchResponse.Item toItem(String id, GatewayLoopback.Response response) {
+        var headers = new LinkedHashMap<String, String>();
+        for (var name : RETURNED_HEADERS) {
+            var value = response.headers().getFirst(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        return new BatchResponse.Item(id, response.status(), headers, response.json(objectMapper));
+    }
+
+    private BatchResponse.Item error(String id, HttpStatus status, String message) {
+        var body = objectMapper.createObjectNode()
+            .put("success", false)
+            .put("message", message)
+            .put("timestamp", LocalDateTime.now().toString());
+        return new BatchResponse.Item(id, status.value(), Map.of(HttpHeaders.CONTENT_TYPE, "application/json"), body);
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, BatchResponse batch) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(batch);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        var response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(json)));
+    }
+
+    public static class Config {
+
+        private int maxRequests = 20;
+        private int concurrency = 6;
+        private DataSize maxBodySize = DataSize.ofKilobytes(64);
+        private DataSize maxItemBodySize = DataSize.ofKilobytes(256);
+        private Duration itemTimeout = Duration.ofSeconds(10);
+
+        public int getMaxRequests() {
+            return maxRequests;
+        }
+
+        public void setMaxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public DataSize getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(DataSize maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+
+        public DataSize getMaxItemBodySize() {
+            return maxItemBodySize;
+        }
+
+        public void setMaxItemBodySize(DataSize maxItemBodySize) {
+            this.maxItemBodySize = maxItemBodySize;
+        }
+
+        public Duration getItemTimeout() {
+            return itemTimeout;
+        }
+
+        public void setItemTimeout(Duration itemTimeout) {
+            this.itemTimeout = itemTimeout;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.digitopia.gateway.batch;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Body of {@code POST /api/batch}. Items without an {@code id} are answered under their index,
+ * and {@code method} defaults to GET.
+ */
+public record BatchRequest(List<Item> requests) {
+
+    public record Item(String id, String method, String path, Map<String, String> headers) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.digitopia.gateway.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One entry per sub-request, in request order. JSON bodies are embedded as-is, anything else as a
+ * string.
+ */
+public record BatchResponse(List<Item> responses) {
+
+    public record Item(String id, int status, Map<String, String> headers, JsonNode body) {
+    }
+}
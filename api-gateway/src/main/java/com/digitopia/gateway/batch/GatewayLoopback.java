@@ -0,0 +1,100 @@
+package com.digitopia.gateway.batch;
+
+import com.digitopia.gateway.security.InternalCallSecret;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends GETs back into this gateway over loopback on behalf of an already authenticated request.
+ *
+ * <p>The parent's verified {@code X-User-*} headers are copied over and the {@link InternalCallSecret}
+ * is attached, so the calls skip token verification and rate limiting but otherwise go through the
+ * route's usual filters. Used by the filters that answer one client request with several route calls.</p>
+ */
+@Component
+public class GatewayLoopback {
+
+    private static final Logger log = LoggerFactory.getLogger(GatewayLoopback.class);
+
+    private static final List<String> FORWARDED_HEADERS = List.of(
+        "X-User-Id", "X-User-Role", "X-User-Email", HttpHeaders.ACCEPT_LANGUAGE
+    );
+
+    private final InternalCallSecret internalCallSecret;
+
+    private volatile int port = -1;
+
+    public GatewayLoopback(InternalCallSecret internalCallSecret) {
+        this.internalCallSecret = internalCallSecret;
+    }
+
+    @EventListener
+    public void onServerStarted(ReactiveWebServerInitializedEvent event) {
+        // A separate management server publishes its own event under the "management" namespace.
+        if (event.getApplicationContext().getServerNamespace() == null) {
+            port = event.getWebServer().getPort();
+        }
+    }
+
+    public boolean isReady() {
+        return port >= 0;
+    }
+
+    /**
+     * GETs {@code pathAndQuery} from this gateway as {@code parent}'s user. {@code headers} are
+     * added on top of the forwarded ones; the body is read with {@code client}'s codec limits.
+     */
+    public Mono<Response> get(WebClient client, ServerHttpRequest parent, String pathAndQuery, Map<String, String> headers) {
+        return client.get()
+            .uri(URI.create("http://127.0.0.1:" + port + pathAndQuery))
+            .headers(outgoing -> {
+                for (var name : FORWARDED_HEADERS) {
+                    var value = parent.getHeaders().getFirst(name);
+                    if (value != null) {
+                        outgoing.set(name, value);
+                    }
+                }
+                headers.forEach(outgoing::set);
+                outgoing.set(InternalCallSecret.HEADER, internalCallSecret.value());
+            })
+            .exchangeToMono(response -> response.bodyToMono(byte[].class)
+                .defaultIfEmpty(new byte[0])
+                .map(body -> new Response(response.statusCode().value(), response.headers().asHttpHeaders(), body)));
+    }
+
+    public record Response(int status, HttpHeaders headers, byte[] body) {
+
+        /** The body as JSON when it is declared and parses as such, otherwise as a string; {@code null} if empty. */
+        public JsonNode json(ObjectMapper objectMapper) {
+            if (body.length == 0) {
+                return null;
+            }
+            var contentType = headers.getContentType();
+            if (contentType != null && (contentType.isCompatibleWith(MediaType.APPLICATION_JSON)
+                || contentType.getSubtype().endsWith("+json"))) {
+                try {
+                    return objectMapper.readTree(body);
+                } catch (Exception e) {
+                    log.debug("Loopback response declared JSON but could not be parsed, returning it as text");
+                }
+            }
+            return TextNode.valueOf(new String(body, StandardCharsets.UTF_8));
+        }
+    }
+}
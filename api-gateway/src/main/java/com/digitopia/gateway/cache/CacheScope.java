@@ -0,0 +1,32 @@
+package com.digitopia.gateway.cache;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+/**
+ * Who may share a response, judged from the {@code X-User-Id} and {@code X-User-Role} headers
+ * set by {@code JwtAuthenticationFilter}.
+ */
+public enum CacheScope {
+    /** Responses that do not depend on the caller. */
+    SHARED,
+    /** Responses that depend on the caller's role. */
+    ROLE,
+    /** Responses that depend on the caller. */
+    USER;
+
+    /**
+     * @return the value requests must agree on to share a response, or null if the request
+     *         lacks the header this scope needs
+     */
+    public String resolve(ServerHttpRequest request) {
+        return switch (this) {
+            case SHARED -> "";
+            case ROLE -> nonBlank(request.getHeaders().getFirst("X-User-Role"));
+            case USER -> nonBlank(request.getHeaders().getFirst("X-User-Id"));
+        };
+    }
+
+    private static String nonBlank(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
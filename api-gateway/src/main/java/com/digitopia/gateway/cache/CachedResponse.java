@@ -0,0 +1,34 @@
+package com.digitopia.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * A downstream response held by {@link ResponseCacheStore}.
+ *
+ * @param headers downstream headers, including the {@code ETag}
+ * @param tags identifiers this response depends on (path ids and the body {@code id});
+ *             an event mentioning any of them invalidates the entry
+ */
+public record CachedResponse(
+    HttpStatusCode status,
+    HttpHeaders headers,
+    byte[] body,
+    String etag,
+    Set<String> tags,
+    Duration ttl
+) {
+
+    public boolean taggedWithAny(Collection<String> ids) {
+        for (var id : ids) {
+            if (tags.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,311 @@
+package com.digitopia.gateway.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collapses identical concurrent GETs into one downstream call (single-flight).
+ *
+ * <p>The first request for a route, path, query and {@link CacheScope} becomes the leader and goes
+ * downstream; identical requests arriving while it is in flight wait for its response and get a
+ * copy of its status, headers and body. Followers beyond {@code maxWaiters}, and all followers of
+ * a response larger than {@code maxBodySize} or one that does not arrive within
+ * {@code waitTimeout}, make their own downstream call instead. A failed leader fails its
+ * followers too, so an outage does not turn into a retry stampede.</p>
+ *
+ * <p>List it after {@code ResponseCacheFilter} so that only cache misses are coalesced.</p>
+ */
+@Component
+public class RequestCoalescingFilter extends AbstractGatewayFilterFactory<RequestCoalescingFilter.Config> {
+
+    private final ConcurrentHashMap<FlightKey, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter leaders;
+    private final Counter collapsed;
+    private final Counter bypassed;
+
+    public RequestCoalescingFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.leaders = Counter.builder("gateway.coalescing.leaders")
+            .description("Requests that went downstream on behalf of identical concurrent requests")
+            .register(meterRegistry);
+        this.collapsed = Counter.builder("gateway.coalescing.collapsed")
+            .description("Requests answered with another request's downstream response")
+            .register(meterRegistry);
+        this.bypassed = Counter.builder("gateway.coalescing.bypassed")
+            .description("Identical requests that went downstream themselves (waiter or body size limit, timeout)")
+            .register(meterRegistry);
+        Gauge.builder("gateway.coalescing.in-flight", inFlight, ConcurrentHashMap::size)
+            .description("Downstream calls currently shared by waiting requests")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        var patterns = config.getPaths().stream()
+            .map(PathPatternParser.defaultInstance::parse)
+            .toList();
+        var maxBodyBytes = config.getMaxBodySize().toBytes();
+
+        return (exchange, chain) -> {
+            var request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET || !ResponseCacheFilter.matches(patterns, request)) {
+                return chain.filter(exchange);
+            }
+
+            var scope = config.getScope().resolve(request);
+            if (scope == null) {
+                return chain.filter(exchange);
+            }
+
+            var key = new FlightKey(
+                new ResponseCacheKey(
+                    ResponseCacheFilter.routeId(exchange), scope, request.getPath().value(), request.getURI().getRawQuery()
+                ),
+                request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH)
+            );
+
+            var flight = new Flight(config.getMaxWaiters());
+            var existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                return lead(exchange, chain, key, flight, maxBodyBytes);
+            }
+            if (!existing.join()) {
+                bypassed.increment();
+                return chain.filter(exchange);
+            }
+            return follow(exchange, chain, existing, config.getWaitTimeout());
+        };
+    }
+
+    private Mono<Void> lead(
+        ServerWebExchange exchange,
+        GatewayFilterChain chain,
+        FlightKey key,
+        Flight flight,
+        long maxBodyBytes
+    ) {
+        leaders.increment();
+        var capturing = new SharingResponse(exchange, key, flight, maxBodyBytes);
+        return chain.filter(exchange.mutate().response(capturing).build())
+            .doOnError(error -> {
+                inFlight.remove(key, flight);
+                flight.fail(error);
+            })
+            .doFinally(signal -> {
+                inFlight.remove(key, flight);
+                flight.abandon();
+            });
+    }
+
+    private Mono<Void> follow(
+        ServerWebExchange exchange,
+        GatewayFilterChain chain,
+        Flight flight,
+        Duration waitTimeout
+    ) {
+        return flight.result()
+            .timeout(waitTimeout, Mono.empty())
+            .flatMap(shared -> {
+                collapsed.increment();
+                return write(exchange, shared).thenReturn(Boolean.TRUE);
+            })
+            .switchIfEmpty(Mono.defer(() -> {
+                bypassed.increment();
+                return chain.filter(exchange).thenReturn(Boolean.TRUE);
+            }))
+            .then();
+    }
+
+    private static Mono<Void> write(ServerWebExchange exchange, SharedResponse shared) {
+        var response = exchange.getResponse();
+        response.setStatusCode(shared.status());
+        response.getHeaders().addAll(shared.headers());
+        if (shared.body().length == 0) {
+            return response.setComplete();
+        }
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    private record FlightKey(ResponseCacheKey request, String ifNoneMatch) {
+    }
+
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    /** One downstream call and the requests waiting for it. */
+    private static final class Flight {
+
+        private final Sinks.One<SharedResponse> result = Sinks.one();
+        private final AtomicInteger waiters = new AtomicInteger();
+        private final int maxWaiters;
+
+        Flight(int maxWaiters) {
+            this.maxWaiters = maxWaiters;
+        }
+
+        boolean join() {
+            return waiters.incrementAndGet() <= maxWaiters;
+        }
+
+        Mono<SharedResponse> result() {
+            return result.asMono();
+        }
+
+        void share(SharedResponse response) {
+            result.tryEmitValue(response);
+        }
+
+        void fail(Throwable error) {
+            result.tryEmitError(error);
+        }
+
+        /** Sends followers downstream themselves; no-op once a result or error was emitted. */
+        void abandon() {
+            result.tryEmitEmpty();
+        }
+    }
+
+    /**
+     * Buffers the leader's response, hands a copy to the followers, then writes it as usual.
+     */
+    private final class SharingResponse extends ServerHttpResponseDecorator {
+
+        private final FlightKey key;
+        private final Flight flight;
+        private final long maxBodyBytes;
+        private final Set<String> gatewayHeaders;
+
+        SharingResponse(ServerWebExchange exchange, FlightKey key, Flight flight, long maxBodyBytes) {
+            super(exchange.getResponse());
+            this.key = key;
+            this.flight = flight;
+            this.maxBodyBytes = maxBodyBytes;
+            // Headers added by the gateway itself (rate limit, tracing) belong to the leader only.
+            this.gatewayHeaders = Set.copyOf(exchange.getResponse().getHeaders().keySet());
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return Flux.from(body).collectList().flatMap(buffers -> {
+                var size = buffers.stream().mapToLong(DataBuffer::readableByteCount).sum();
+                if (size > maxBodyBytes) {
+                    inFlight.remove(key, flight);
+                    flight.abandon();
+                    return super.writeWith(Flux.fromIterable(buffers));
+                }
+
+                var bytes = new byte[(int) size];
+                var position = 0;
+                for (var buffer : buffers) {
+                    var length = buffer.readableByteCount();
+                    buffer.read(bytes, position, length);
+                    position += length;
+                    DataBufferUtils.release(buffer);
+                }
+
+                publish(bytes);
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            inFlight.remove(key, flight);
+            flight.abandon();
+            return super.writeAndFlushWith(body);
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            publish(new byte[0]);
+            return super.setComplete();
+        }
+
+        private void publish(byte[] body) {
+            var headers = new HttpHeaders();
+            getHeaders().forEach((name, values) -> {
+                if (!gatewayHeaders.contains(name)
+                    && !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+                    && !HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+                    headers.put(name, List.copyOf(values));
+                }
+            });
+            inFlight.remove(key, flight);
+            flight.share(new SharedResponse(getStatusCode(), HttpHeaders.readOnlyHttpHeaders(headers), body));
+        }
+    }
+
+    public static class Config {
+
+        private CacheScope scope = CacheScope.USER;
+        private List<String> paths = List.of();
+        private int maxWaiters = 256;
+        private DataSize maxBodySize = DataSize.ofKilobytes(256);
+        private Duration waitTimeout = Duration.ofSeconds(5);
+
+        public CacheScope getScope() {
+            return scope;
+        }
+
+        public void setScope(CacheScope scope) {
+            this.scope = scope;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public int getMaxWaiters() {
+            return maxWaiters;
+        }
+
+        public void setMaxWaiters(int maxWaiters) {
+            this.maxWaiters = maxWaiters;
+        }
+
+        public DataSize getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(DataSize maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+
+        public Duration getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        public void setWaitTimeout(Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.digitopia.gateway.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Caches successful GET responses of a route and revalidates them with ETags.
+ *
+ * <p>Entries are scoped per the route's {@link CacheScope} using the {@code X-User-Id} and
+ * {@code X-User-Role} headers set by {@code JwtAuthenticationFilter}, so this filter must be
+ * listed after it. Hits and {@code If-None-Match} revalidations never reach the downstream
+ * service. Successful writes through the same route invalidate the ids in their path right away;
+ * other replicas learn about changes from service events.</p>
+ *
+ * <pre>
+ * filters:
+ *   - JwtAuthenticationFilter
+ *   - name: ResponseCacheFilter
+ *     args:
+ *       scope: ROLE
+ *       ttl: 30s
+ *       paths: /api/organizations/{id:[0-9a-fA-F-]{36}}
+ * </pre>
+ *
+ * <p>Constrain path variables to the ids they stand for: a bare {@code {id}} also matches
+ * {@code /search}, whose results depend on the query string.</p>
+ */
+@Component
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+    /** Path segments before this index name the resource ({@code /api/users}), not an entity. */
+    private static final int FIRST_ID_SEGMENT = 2;
+
+    private final ResponseCacheStore store;
+    private final ObjectMapper objectMapper;
+
+    public ResponseCacheFilter(ResponseCacheStore store, ObjectMapper objectMapper) {
+        super(Config.class);
+        this.store = store;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        var patterns = config.getPaths().stream()
+            .map(PathPatternParser.defaultInstance::parse)
+            .toList();
+
+        return (exchange, chain) -> {
+            var request = exchange.getRequest();
+
+            var method = request.getMethod();
+            if (method == HttpMethod.POST || method == HttpMethod.PUT
+                || method == HttpMethod.PATCH || method == HttpMethod.DELETE) {
+                return chain.filter(exchange).then(Mono.fromRunnable(() -> invalidateAfterWrite(exchange)));
+            }
+
+            if (method != HttpMethod.GET || !matches(patterns, request)) {
+                return chain.filter(exchange);
+            }
+
+            var scope = config.getScope().resolve(request);
+            if (scope == null) {
+                return chain.filter(exchange);
+            }
+
+            var key = new ResponseCacheKey(
+                routeId(exchange), scope, request.getPath().value(), request.getURI().getRawQuery()
+            );
+
+            var requestCacheControl = request.getHeaders().getCacheControl();
+            if (requestCacheControl == null || !requestCacheControl.contains("no-cache")) {
+                var cached = store.get(key);
+                if (cached != null) {
+                    return serveCached(exchange, cached);
+                }
+            }
+
+            var capturing = new CapturingResponse(exchange, key, config.getTtl());
+            return chain.filter(exchange.mutate().response(capturing).build());
+        };
+    }
+
+    private Mono<Void> serveCached(ServerWebExchange exchange, CachedResponse cached) {
+        var response = exchange.getResponse();
+        response.getHeaders().addAll(cached.headers());
+        response.getHeaders().set(CACHE_STATUS_HEADER, "HIT");
+
+        if (isNotModified(exchange.getRequest(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(cached.status());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private void invalidateAfterWrite(ServerWebExchange exchange) {
+        var status = exchange.getResponse().getStatusCode();
+        if (status != null && status.is2xxSuccessful()) {
+            store.invalidate(pathIds(exchange.getRequest()));
+        }
+    }
+
+    static boolean matches(List<PathPattern> patterns, ServerHttpRequest request) {
+        if (patterns.isEmpty()) {
+            return true;
+        }
+        var path = request.getPath().pathWithinApplication();
+        for (var pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNotModified(ServerHttpRequest request, String etag) {
+        for (var candidate : request.getHeaders().getIfNoneMatch()) {
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "";
+    }
+
+    /** Decoded path segments that can carry an entity id, e.g. {@code 42} in {@code /api/users/42}. */
+    private static Set<String> pathIds(ServerHttpRequest request) {
+        var ids = new HashSet<String>();
+        var segments = request.getPath().pathWithinApplication().value().split("/");
+        // segments[0] is the empty string before the leading slash
+        for (int i = FIRST_ID_SEGMENT + 1; i < segments.length; i++) {
+            if (!segments[i].isEmpty()) {
+                ids.add(UriUtils.decode(segments[i], StandardCharsets.UTF_8));
+            }
+        }
+        return ids;
+    }
+
+    private Set<String> tags(ServerHttpRequest request, byte[] body) {
+        var tags = pathIds(request);
+        try {
+            var id = objectMapper.readTree(body).path("id");
+            if (id.isValueNode()) {
+                tags.add(id.asText());
+            }
+        } catch (Exception e) {
+            log.debug("Response body of {} is not JSON, tagging by path only", request.getPath());
+        }
+        return Set.copyOf(tags);
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Buffers a cacheable downstream body, stores it, and answers with the body or a 304.
+     * Anything but a plain 200 without {@code no-store} is passed through untouched.
+     */
+    private final class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerHttpRequest request;
+        private final ResponseCacheKey key;
+        private final Duration ttl;
+        private final Set<String> gatewayHeaders;
+
+        CapturingResponse(ServerWebExchange exchange, ResponseCacheKey key, Duration ttl) {
+            super(exchange.getResponse());
+            this.request = exchange.getRequest();
+            this.key = key;
+            this.ttl = ttl;
+            // Headers added by the gateway itself (rate limit, tracing) are per request, not per response.
+            this.gatewayHeaders = Set.copyOf(exchange.getResponse().getHeaders().keySet());
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isCacheable()) {
+                return super.writeWith(body);
+            }
+
+            return Flux.from(body).collectList().flatMap(buffers -> {
+                var size = buffers.stream().mapToInt(DataBuffer::readableByteCount).sum();
+                if (size > store.maxEntryBytes()) {
+                    return super.writeWith(Flux.fromIterable(buffers));
+                }
+
+                var bytes = new byte[size];
+                var position = 0;
+                for (var buffer : buffers) {
+                    var length = buffer.readableByteCount();
+                    buffer.read(bytes, position, length);
+                    position += length;
+                    DataBufferUtils.release(buffer);
+                }
+
+                var headers = getHeaders();
+                var etag = headers.getETag() != null ? headers.getETag() : etag(bytes);
+                headers.setETag(etag);
+                if (headers.getCacheControl() == null) {
+                    headers.setCacheControl(CacheControl.noCache().cachePrivate());
+                }
+                store.put(key, new CachedResponse(HttpStatus.OK, cachedHeaders(headers), bytes, etag, tags(request, bytes), ttl));
+                headers.set(CACHE_STATUS_HEADER, "MISS");
+
+                if (isNotModified(request, etag)) {
+                    setStatusCode(HttpStatus.NOT_MODIFIED);
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    return setComplete();
+                }
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+
+        private boolean isCacheable() {
+            var headers = getHeaders();
+            var cacheControl = headers.getCacheControl();
+            return HttpStatus.OK.equals(getStatusCode())
+                && !headers.containsKey(HttpHeaders.SET_COOKIE)
+                && (cacheControl == null || !cacheControl.contains("no-store"));
+        }
+
+        private HttpHeaders cachedHeaders(HttpHeaders headers) {
+            var cached = new HttpHeaders();
+            headers.forEach((name, values) -> {
+                if (!gatewayHeaders.contains(name)
+                    && !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+                    && !HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)
+                    && !HttpHeaders.DATE.equalsIgnoreCase(name)
+                    && !HttpHeaders.CONNECTION.equalsIgnoreCase(name)) {
+                    cached.put(name, List.copyOf(values));
+                }
+            });
+            return HttpHeaders.readOnlyHttpHeaders(cached);
+        }
+    }
+
+    public static class Config {
+
+        private CacheScope scope = CacheScope.USER;
+        private Duration ttl = Duration.ofSeconds(30);
+        private List<String> paths = List.of();
+
+        public CacheScope getScope() {
+            return scope;
+        }
+
+        public void setScope(CacheScope scope) {
+            this.scope = scope;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.digitopia.gateway.cache;
+
+/**
+ * @param scope who may share the entry: empty for everyone, otherwise a role or user id
+ */
+public record ResponseCacheKey(String routeId, String scope, String path, String query) {
+}
@@ -0,0 +1,100 @@
+package com.digitopia.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Collection;
+
+/**
+ * Bounded store behind {@link ResponseCacheFilter}, shared by all routes that enable it.
+ *
+ * <p>Entries are weighed by body size and expire after their route's TTL. Events published by the
+ * services remove every entry tagged with an id they mention; the TTL bounds staleness for changes
+ * no event reports.</p>
+ */
+@Component
+public class ResponseCacheStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheStore.class);
+
+    /** Rough per-entry overhead of key, headers and tags on top of the body. */
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    private final Cache<ResponseCacheKey, CachedResponse> cache;
+    private final int maxEntryBytes;
+
+    public ResponseCacheStore(
+        @Value("${gateway.response-cache.max-size:32MB}") DataSize maxSize,
+        @Value("${gateway.response-cache.max-entry-size:64KB}") DataSize maxEntrySize,
+        MeterRegistry meterRegistry
+    ) {
+        this.maxEntryBytes = (int) maxEntrySize.toBytes();
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maxSize.toBytes())
+            .weigher((ResponseCacheKey key, CachedResponse response) -> response.body().length + ENTRY_OVERHEAD_BYTES)
+            .expireAfter(new AfterRouteTtl())
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response-cache");
+    }
+
+    public CachedResponse get(ResponseCacheKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(ResponseCacheKey key, CachedResponse response) {
+        cache.put(key, response);
+    }
+
+    /**
+     * Removes every entry tagged with one of {@code ids}. Scans the store, which is fine for
+     * the rate of create/update/delete events.
+     */
+    public void invalidate(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        var before = cache.estimatedSize();
+        cache.asMap().values().removeIf(response -> response.taggedWithAny(ids));
+        log.debug("Invalidated {} cached responses for {}", before - cache.estimatedSize(), ids);
+    }
+
+    public int maxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static final class AfterRouteTtl implements Expiry<ResponseCacheKey, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(ResponseCacheKey key, CachedResponse value, long currentTime) {
+            return value.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(
+            ResponseCacheKey key, CachedResponse value, long currentTime, long currentDuration
+        ) {
+            return value.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(
+            ResponseCacheKey key, CachedResponse value, long currentTime, long currentDuration
+        ) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.digitopia.gateway.composite;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Body of {@code GET /api/me}. Each part carries the status it was fetched with; a part that
+ * failed or missed the deadline has an {@code error} instead of a {@code body}, and
+ * {@code complete} is {@code false}.
+ */
+public record MeView(Part user, Part organizations, Part invitations, boolean complete) {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Part(int status, JsonNode body, String error) {
+
+        public boolean ok() {
+            return status >= 200 && status < 300;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.digitopia.gateway.composite;
+
+import com.digitopia.gateway.batch.GatewayLoopback;
+import com.digitopia.gateway.web.ErrorResponses;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Serves {@code GET /api/me}: the caller's user, organizations and invitations in one response.
+ *
+ * <p>List it after {@code JwtAuthenticationFilter}. The user, the membership list and the
+ * invitations are fetched concurrently through {@link GatewayLoopback}; the organizations are then
+ * looked up with {@code GET /api/organizations?ids=...}, at most {@code organizationsPerLookup} per
+ * call, instead of one call per membership. Everything shares one {@code deadline}: a part that
+ * fails or is still outstanding when it passes is answered with its status and an error, and the
+ * parts that did arrive are returned as they are.</p>
+ *
+ * <pre>
+ * filters:
+ *   - JwtAuthenticationFilter
+ *   - name: MeViewFilter
+ *     args:
+ *       deadline: 2s
+ * </pre>
+ */
+@Component
+public class MeViewFilter extends AbstractGatewayFilterFactory<MeViewFilter.Config> {
+
+    private static final Logger log = LoggerFactory.getLogger(MeViewFilter.class);
+
+    private final WebClient.Builder webClientBuilder;
+    private final GatewayLoopback loopback;
+    private final ObjectMapper objectMapper;
+
+    public MeViewFilter(WebClient.Builder webClientBuilder, GatewayLoopback loopback, ObjectMapper objectMapper) {
+        super(Config.class);
+        this.webClientBuilder = webClientBuilder;
+        this.loopback = loopback;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        var client = webClientBuilder.clone()
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) config.getMaxPartBodySize().toBytes()))
+            .build();
+
+        return (exchange, chain) -> {
+            var request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET) {
+                return ErrorResponses.write(exchange, "Only GET is supported", HttpStatus.METHOD_NOT_ALLOWED);
+            }
+            var userId = request.getHeaders().getFirst("X-User-Id");
+            if (userId == null || userId.isBlank()) {
+                return ErrorResponses.write(exchange, "Missing user identity", HttpStatus.UNAUTHORIZED);
+            }
+            if (!loopback.isReady()) {
+                return ErrorResponses.write(exchange, "Gateway is starting up", HttpStatus.SERVICE_UNAVAILABLE);
+            }
+
+            var encodedId = UriUtils.encodePathSegment(userId, StandardCharsets.UTF_8);
+            var deadline = config.getDeadline();
+
+            var user = part(fetch(client, request, "/api/users/" + encodedId), deadline);
+            var organizations = part(organizations(client, request, encodedId, config), deadline);
+            var invitations = part(fetch(client, request, "/api/invitations/user/" + encodedId), deadline);
+
+            return Mono.zip(user, organizations, invitations)
+                .map(parts -> new MeView(
+                    parts.getT1(), parts.getT2(), parts.getT3(),
+                    parts.getT1().ok() && parts.getT2().ok() && parts.getT3().ok()
+                ))
+                .flatMap(view -> write(exchange, view));
+        };
+    }
+
+    private Mono<MeView.Part> fetch(WebClient client, ServerHttpRequest parent, String path) {
+        return loopback.get(client, parent, path, Map.of()).map(this::toPart);
+    }
+
+    /** The membership list, then the organizations in it, fetched in chunks concurrently. */
+    private Mono<MeView.Part> organizations(WebClient client, ServerHttpRequest parent, String encodedId, Config config) {
+        return fetch(client, parent, "/api/users/" + encodedId + "/organizations")
+            .flatMap(memberships -> {
+                if (!memberships.ok()) {
+                    return Mono.just(memberships);
+                }
+                var ids = new ArrayList<String>();
+                if (memberships.body() != null && memberships.body().isArray()) {
+                    memberships.body().forEach(id -> ids.add(id.asText()));
+                }
+                if (ids.isEmpty()) {
+                    return Mono.just(new MeView.Part(HttpStatus.OK.value(), objectMapper.createArrayNode(), null));
+                }
+
+                var chunkSize = config.getOrganizationsPerLookup();
+                return Flux.range(0, (ids.size() + chunkSize - 1) / chunkSize)
+                    .flatMapSequential(chunk -> fetch(client, parent, lookupPath(
+                        ids.subList(chunk * chunkSize, Math.min(ids.size(), (chunk + 1) * chunkSize))
+                    )))
+                    .collectList()
+                    .map(this::merge);
+            });
+    }
+
+    private static String lookupPath(List<String> ids) {
+        return "/api/organizations?ids=" + ids.stream()
+            .map(id -> UriUtils.encodeQueryParam(id, StandardCharsets.UTF_8))
+            .collect(Collectors.joining(","));
+    }
+
+    /** Concatenates the chunks' arrays, or returns the first chunk that failed. */
+    private MeView.Part merge(List<MeView.Part> chunks) {
+        var merged = objectMapper.createArrayNode();
+        for (var chunk : chunks) {
+            if (!chunk.ok()) {
+                return chunk;
+            }
+            if (chunk.body() != null && chunk.body().isArray()) {
+                merged.addAll((ArrayNode) chunk.body());
+            }
+        }
+        return new MeView.Part(HttpStatus.OK.value(), merged, null);
+    }
+
+    private Mono<MeView.Part> part(Mono<MeView.Part> fetch, Duration deadline) {
+        return fetch
+            .timeout(deadline)
+            .onErrorResume(e -> {
+                log.debug("Composite part failed: {}", e.toString());
+                if (e instanceof TimeoutException) {
+                    return Mono.just(new MeView.Part(HttpStatus.GATEWAY_TIMEOUT.value(), null, "Deadline exceeded"));
+                }
+                if (e instanceof DataBufferLimitException) {
+                    return Mono.just(new MeView.Part(HttpStatus.BAD_GATEWAY.value(), null, "Response too large"));
+                }
+                return Mono.just(new MeView.Part(HttpStatus.BAD_GATEWAY.value(), null, "Request failed"));
+            });
+    }
+
+    private MeView.Part toPart(GatewayLoopback.Response response) {
+        var body = response.json(objectMapper);
+        if (response.status() >= 200 && response.status() < 300) {
+            return new MeView.Part(response.status(), body, null);
+        }
+        return new MeView.Part(response.status(), null, errorMessage(response.status(), body));
+    }
+
+    private static String errorMessage(int status, JsonNode body) {
+        if (body != null && body.hasNonNull("message")) {
+            return body.get("message").asText();
+        }
+        var known = HttpStatus.resolve(status);
+        return known != null ? known.getReasonPhrase() : "Request failed";
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, MeView view) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(view);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        var response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(json)));
+    }
+
+    public static class Config {
+
+        private Duration deadline = Duration.ofSeconds(2);
+        private int organizationsPerLookup = 100;
+        private DataSize maxPartBodySize = DataSize.ofKilobytes(512);
+
+        public Duration getDeadline() {
+            return deadline;
+        }
+
+        public void setDeadline(Duration deadline) {
+            this.deadline = deadline;
+        }
+
+        public int getOrganizationsPerLookup() {
+            return organizationsPerLookup;
+        }
+
+        public void setOrganizationsPerLookup(int organizationsPerLookup) {
+            this.organizationsPerLookup = organizationsPerLookup;
+        }
+
+        public DataSize getMaxPartBodySize() {
+            return maxPartBodySize;
+        }
+
+        public void setMaxPartBodySize(DataSize maxPartBodySize) {
+            this.maxPartBodySize = maxPartBodySize;
+        }
+    }
+}
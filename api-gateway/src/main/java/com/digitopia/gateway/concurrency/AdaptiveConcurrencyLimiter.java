@@ -0,0 +1,97 @@
+package com.digitopia.gateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit for one route that follows the downstream latency (gradient algorithm).
+ *
+ * <p>A slow-moving average of response times approximates the route's latency without queueing;
+ * a fast-moving one tracks the current latency. While the two agree within the tolerance the limit
+ * grows by about its square root per sample, once requests queue downstream the latency rises and
+ * the limit shrinks proportionally. The limit only grows while it is actually being used, so an
+ * idle route does not build up a limit it has never proven it can handle.</p>
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int LONG_WINDOW = 600;
+    private static final double SHORT_WEIGHT = 0.2;
+    private static final int WARMUP_SAMPLES = 10;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+    private long samples;
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties.Limits limits, double rttTolerance, double smoothing) {
+        if (limits.min() < 1 || limits.max() < limits.min()) {
+            throw new IllegalArgumentException("Invalid concurrency limits " + limits);
+        }
+        this.minLimit = limits.min();
+        this.maxLimit = limits.max();
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.limit = Math.clamp(limits.initial(), minLimit, maxLimit);
+    }
+
+    /** Takes a slot for a request of the given priority, or returns {@code false} to shed it. */
+    public boolean tryAcquire(Priority priority) {
+        var admits = priority.admits(limit);
+        while (true) {
+            var current = inFlight.get();
+            if (current >= admits) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Frees a slot and feeds the request's downstream time into the limit. */
+    public void release(long rttNanos) {
+        var inFlightBefore = inFlight.getAndDecrement();
+        sample(rttNanos, inFlightBefore);
+    }
+
+    /** Frees a slot without a latency sample, e.g. when the client went away. */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightBefore) {
+        samples++;
+        if (samples <= WARMUP_SAMPLES) {
+            shortRtt = longRtt = longRtt + (rttNanos - longRtt) / samples;
+            return;
+        }
+        shortRtt += (rttNanos - shortRtt) * SHORT_WEIGHT;
+        longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+
+        // After a latency spike, let the baseline catch up quickly instead of over hundreds of samples.
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        if (inFlightBefore < limit / 2) {
+            return;
+        }
+
+        var gradient = Math.clamp(rttTolerance * longRtt / shortRtt, 0.5, 1.0);
+        var estimate = limit * gradient + Math.sqrt(limit);
+        limit = Math.clamp(limit * (1 - smoothing) + estimate * smoothing, minLimit, maxLimit);
+    }
+
+    public double limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,157 @@
+package com.digitopia.gateway.concurrency;
+
+import com.digitopia.gateway.logging.LogSampler;
+import com.digitopia.gateway.web.ErrorResponses;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sheds requests with 503 and {@code Retry-After} once a route has as many requests in flight
+ * as its {@link AdaptiveConcurrencyLimiter} allows, instead of queueing them in front of
+ * saturated downstream thread pools.
+ *
+ * <p>Runs right before load balancing, after the route filters: cache hits and coalesced requests
+ * never count against the limit, and {@code X-User-Role} has been verified by
+ * {@code JwtAuthenticationFilter}. Logins and ADMIN requests are {@link Priority#CRITICAL} and shed
+ * last, configured bulk paths first.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.concurrency-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final List<PathPattern> criticalPaths;
+    private final List<PathPattern> bulkPaths;
+    private final ConcurrentHashMap<String, RouteLimit> limits = new ConcurrentHashMap<>();
+    private final LogSampler shedLogs = new LogSampler(10);
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.criticalPaths = parse(properties.criticalPaths());
+        this.bulkPaths = parse(properties.bulkPaths());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        var limit = limits.computeIfAbsent(route.getId(), this::createLimit);
+        var limiter = limit.limiter();
+        var priority = priority(exchange.getRequest());
+        if (!limiter.tryAcquire(priority)) {
+            if (shedLogs.tryAcquire()) {
+                log.warn("[{}] Shedding {} request, {} in flight, limit {} ({} more not logged)",
+                    route.getId(), priority, limiter.inFlight(), (int) limiter.limit(), shedLogs.suppressed());
+            }
+            limit.shed()[priority.ordinal()].increment();
+            return shed(exchange);
+        }
+
+        var start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                limiter.releaseWithoutSample();
+            } else {
+                limiter.release(System.nanoTime() - start);
+            }
+        });
+    }
+
+    Priority priority(ServerHttpRequest request) {
+        var path = request.getPath().pathWithinApplication();
+        var role = request.getHeaders().getFirst("X-User-Role");
+        if (matches(criticalPaths, path) || (role != null && properties.criticalRoles().contains(role))) {
+            return Priority.CRITICAL;
+        }
+        return matches(bulkPaths, path) ? Priority.BULK : Priority.NORMAL;
+    }
+
+    AdaptiveConcurrencyLimiter limiter(String routeId) {
+        var limit = limits.get(routeId);
+        return limit != null ? limit.limiter() : null;
+    }
+
+    private RouteLimit createLimit(String routeId) {
+        var limiter = new AdaptiveConcurrencyLimiter(
+            properties.limits(routeId), properties.rttTolerance(), properties.smoothing()
+        );
+        Gauge.builder("gateway.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+            .description("Concurrent downstream requests currently allowed for the route")
+            .tag("route", routeId)
+            .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+            .description("Downstream requests currently in flight for the route")
+            .tag("route", routeId)
+            .register(meterRegistry);
+        var priorities = Priority.values();
+        var shed = new Counter[priorities.length];
+        for (var priority : priorities) {
+            shed[priority.ordinal()] = Counter.builder("gateway.concurrency.shed")
+                .description("Requests shed with 503 because the route was at its concurrency limit")
+                .tag("route", routeId)
+                .tag("priority", priority.name())
+                .register(meterRegistry);
+        }
+        return new RouteLimit(limiter, shed);
+    }
+
+    private Mono<Void> shed(ServerWebExchange exchange) {
+        exchange.getResponse().getHeaders()
+            .set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, properties.retryAfter().toSeconds())));
+        return ErrorResponses.write(exchange, "Service is overloaded. Please try again later.", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private static boolean matches(List<PathPattern> patterns, PathContainer path) {
+        for (var pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<PathPattern> parse(List<String> paths) {
+        return paths.stream().map(PathPatternParser.defaultInstance::parse).toList();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /** A route's limiter and its {@code gateway.concurrency.shed} counters, indexed by {@link Priority}. */
+    private record RouteLimit(AdaptiveConcurrencyLimiter limiter, Counter[] shed) {
+    }
+}
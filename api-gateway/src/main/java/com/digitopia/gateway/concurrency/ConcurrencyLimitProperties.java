@@ -0,0 +1,57 @@
+package com.digitopia.gateway.concurrency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adaptive concurrency limit settings under {@code gateway.concurrency-limit}.
+ *
+ * @param enabled whether requests are limited and shed at all
+ * @param defaults limits for routes without their own entry
+ * @param routes limits per route id
+ * @param rttTolerance how much slower than the no-load latency a route may get before its limit shrinks
+ * @param smoothing weight of each new limit estimate, between 0 and 1
+ * @param retryAfter {@code Retry-After} sent with shed requests
+ * @param criticalPaths paths shed last, e.g. logins
+ * @param criticalRoles {@code X-User-Role} values shed last
+ * @param bulkPaths paths shed first, e.g. searches
+ */
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+public record ConcurrencyLimitProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue Limits defaults,
+    Map<String, Limits> routes,
+    @DefaultValue("1.5") double rttTolerance,
+    @DefaultValue("0.2") double smoothing,
+    @DefaultValue("1s") Duration retryAfter,
+    @DefaultValue("/api/auth/**") List<String> criticalPaths,
+    @DefaultValue("ADMIN") Set<String> criticalRoles,
+    List<String> bulkPaths
+) {
+
+    public ConcurrencyLimitProperties {
+        routes = routes == null ? Map.of() : Map.copyOf(routes);
+        bulkPaths = bulkPaths == null ? List.of() : List.copyOf(bulkPaths);
+    }
+
+    public Limits limits(String routeId) {
+        return routes.getOrDefault(routeId, defaults);
+    }
+
+    /**
+     * @param initial concurrent requests allowed before any latency was observed
+     * @param min floor the limit never drops below
+     * @param max ceiling the limit never grows above
+     */
+    public record Limits(
+        @DefaultValue("20") int initial,
+        @DefaultValue("5") int min,
+        @DefaultValue("200") int max
+    ) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.digitopia.gateway.concurrency;
+
+/**
+ * Shedding order under overload. Each priority may use its share of a route's concurrency limit,
+ * so bulk requests are turned away while there is still room for normal and critical ones.
+ */
+public enum Priority {
+
+    /** Logins and admin traffic: may use the whole limit. */
+    CRITICAL(1.0),
+    NORMAL(0.9),
+    /** Searches and other expensive reads: shed first. */
+    BULK(0.6);
+
+    private final double share;
+
+    Priority(double share) {
+        this.share = share;
+    }
+
+    /** Concurrent requests of this priority allowed under {@code limit}; always at least one. */
+    int admits(double limit) {
+        return Math.max(1, (int) (limit * share));
+    }
+}
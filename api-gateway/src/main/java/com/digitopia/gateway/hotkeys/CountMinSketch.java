@@ -0,0 +1,74 @@
+package com.digitopia.gateway.hotkeys;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size count-min sketch over 64-bit key hashes.
+ *
+ * <p>{@code depth} rows of {@code width} counters live in one {@link AtomicLongArray}; a key's
+ * column in each row is derived from the two halves of its hash (Kirsch–Mitzenmacher), so one hash
+ * serves every row. Counts are only ever overestimated, by at most {@code e / width} of the total
+ * with probability {@code 1 - e^-depth}. Adds take no lock and allocate nothing.</p>
+ */
+public final class CountMinSketch {
+
+    private final AtomicLongArray counters;
+    private final int depth;
+    private final int width;
+    private final int columnMask;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     * @param depth number of rows
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 2 || depth < 1) {
+            throw new IllegalArgumentException("Count-min sketch needs a width of at least 2 and a depth of at least 1");
+        }
+        this.width = Integer.highestOneBit(width - 1) << 1;
+        this.columnMask = this.width - 1;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(this.width * depth);
+    }
+
+    /** Counts one occurrence of the key and returns its new estimate. */
+    public long add(long keyHash) {
+        var estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(keyHash, row)));
+        }
+        return estimate;
+    }
+
+    public long estimate(long keyHash) {
+        var estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(keyHash, row)));
+        }
+        return estimate;
+    }
+
+    /** Halves every counter, so that old traffic fades out. Concurrent adds are kept. */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            long current;
+            do {
+                current = counters.get(i);
+            } while (current != 0 && !counters.compareAndSet(i, current, current >>> 1));
+        }
+    }
+
+    private int index(long keyHash, int row) {
+        var column = (int) keyHash + row * (int) (keyHash >>> 32);
+        return row * width + (column & columnMask);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    /** Bytes held by the counters; fixed for the lifetime of the sketch. */
+    public long memoryBytes() {
+        return (long) counters.length() * Long.BYTES;
+    }
+}
@@ -0,0 +1,11 @@
+package com.digitopia.gateway.hotkeys;
+
+/**
+ * One of the most frequent keys seen by {@link HeavyHitters}.
+ *
+ * @param key the client key or path
+ * @param count estimated occurrences in the current window; never an underestimate
+ * @param share {@code count} as a fraction of all occurrences in the window
+ */
+public record HeavyHitter(String key, long count, double share) {
+}
@@ -0,0 +1,148 @@
+package com.digitopia.gateway.hotkeys;
+
+import com.digitopia.gateway.security.ratelimit.RateLimitBucketTable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Streaming top-K of the most frequent keys in a stream, in fixed memory.
+ *
+ * <p>Every key is counted in a {@link CountMinSketch}; only keys whose estimate beats the smallest
+ * tracked count (the floor) are remembered by name, in a table of at most {@code capacity} entries.
+ * A key already in the table just has its count refreshed, which takes no lock. Admitting a new key
+ * takes the table's lock and evicts the smallest entry with one scan; that happens only when a key
+ * overtakes the floor, so rarely once traffic has settled. Counts change in place on every hit, which
+ * is why the table is scanned on eviction rather than kept as a heap that would need re-sifting.</p>
+ *
+ * <p>Every {@code decayIntervalNanos} the sketch, the tracked counts and the total are halved, so the
+ * ranking follows recent traffic: a count is roughly what the key saw over the last two intervals.</p>
+ */
+public final class HeavyHitters {
+
+    private static final long SEED = 0x9e3779b97f4a7c15L;
+
+    private final CountMinSketch sketch;
+    private final int capacity;
+    private final ConcurrentHashMap<String, AtomicLong> tracked;
+    private final LongAdder total = new LongAdder();
+    private final long decayIntervalNanos;
+    private final LongSupplier clockNanos;
+    private final AtomicLong nextDecay;
+
+    private volatile long floor;
+
+    /**
+     * @param capacity number of keys tracked by name
+     * @param sketchWidth counters per sketch row; estimates are off by at most {@code e / width} of the window
+     * @param sketchDepth sketch rows
+     * @param decayIntervalNanos how often counts are halved
+     * @param clockNanos monotonic nanosecond clock
+     */
+    public HeavyHitters(int capacity, int sketchWidth, int sketchDepth, long decayIntervalNanos, LongSupplier clockNanos) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Heavy hitters need a capacity of at least 1");
+        }
+        this.sketch = new CountMinSketch(sketchWidth, sketchDepth);
+        this.capacity = capacity;
+        this.tracked = new ConcurrentHashMap<>(capacity * 2);
+        this.decayIntervalNanos = decayIntervalNanos;
+        this.clockNanos = clockNanos;
+        this.nextDecay = new AtomicLong(clockNanos.getAsLong() + decayIntervalNanos);
+    }
+
+    public void record(String key) {
+        maybeDecay();
+        total.increment();
+
+        var estimate = sketch.add(RateLimitBucketTable.hash(SEED, key));
+        var count = tracked.get(key);
+        if (count != null) {
+            count.accumulateAndGet(estimate, Math::max);
+        } else if (tracked.size() < capacity || estimate > floor && estimate > total.sum() / sketch.width()) {
+            // Below the average counter a key cannot be told apart from collisions; skipping those
+            // keeps a flood of one-off keys from churning the table's lock.
+            admit(key, estimate);
+        }
+    }
+
+    private synchronized void admit(String key, long estimate) {
+        var existing = tracked.get(key);
+        if (existing != null) {
+            existing.set(estimate);
+            return;
+        }
+        if (tracked.size() >= capacity) {
+            var smallest = smallest();
+            if (smallest == null || smallest.getValue().get() >= estimate) {
+                floor = smallest == null ? 0 : smallest.getValue().get();
+                return;
+            }
+            tracked.remove(smallest.getKey(), smallest.getValue());
+        }
+        tracked.put(key, new AtomicLong(estimate));
+        if (tracked.size() >= capacity) {
+            var smallest = smallest();
+            floor = smallest == null ? 0 : smallest.getValue().get();
+        }
+    }
+
+    private Map.Entry<String, AtomicLong> smallest() {
+        Map.Entry<String, AtomicLong> smallest = null;
+        for (var entry : tracked.entrySet()) {
+            if (smallest == null || entry.getValue().get() < smallest.getValue().get()) {
+                smallest = entry;
+            }
+        }
+        return smallest;
+    }
+
+    private void maybeDecay() {
+        var now = clockNanos.getAsLong();
+        var due = nextDecay.get();
+        if (now - due < 0 || !nextDecay.compareAndSet(due, now + decayIntervalNanos)) {
+            return;
+        }
+        sketch.halve();
+        total.add(-(total.sum() / 2));
+        synchronized (this) {
+            for (var count : tracked.values()) {
+                count.set(count.get() >>> 1);
+            }
+            tracked.values().removeIf(count -> count.get() == 0);
+            floor >>>= 1;
+        }
+    }
+
+    /** The {@code limit} most frequent tracked keys, most frequent first. */
+    public List<HeavyHitter> top(int limit) {
+        var window = Math.max(1, total.sum());
+        var hitters = new ArrayList<HeavyHitter>(tracked.size());
+        tracked.forEach((key, count) -> hitters.add(new HeavyHitter(key, count.get(), (double) count.get() / window)));
+        hitters.sort(Comparator.comparingLong(HeavyHitter::count).reversed());
+        return hitters.size() > limit ? List.copyOf(hitters.subList(0, limit)) : hitters;
+    }
+
+    /** Occurrences in the current window, across all keys. */
+    public long total() {
+        return total.sum();
+    }
+
+    public int tracked() {
+        return tracked.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long memoryBytes() {
+        return sketch.memoryBytes();
+    }
+}
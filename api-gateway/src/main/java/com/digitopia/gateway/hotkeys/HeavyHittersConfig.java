@@ -0,0 +1,55 @@
+package com.digitopia.gateway.hotkeys;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(HeavyHittersProperties.class)
+public class HeavyHittersConfig {
+
+    @Bean
+    public HotKeys hotKeys(HeavyHittersProperties properties, MeterRegistry meterRegistry) {
+        var hotKeys = new HotKeys(properties.enabled(), heavyHitters(properties), heavyHitters(properties));
+
+        hotKeys.trackers().forEach((name, tracker) -> {
+            Gauge.builder("gateway.heavy-hitters.tracked", tracker, HeavyHitters::tracked)
+                .tag("tracker", name)
+                .description("Keys tracked by name in the heavy-hitter table")
+                .register(meterRegistry);
+            Gauge.builder("gateway.heavy-hitters.memory", tracker, HeavyHitters::memoryBytes)
+                .tag("tracker", name)
+                .description("Bytes held by the heavy-hitter count-min sketch")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+            // Ranks rather than keys as tags: user ids and addresses would explode metric cardinality.
+            // The keys themselves are served by the heavyhitters actuator endpoint.
+            for (int rank = 1; rank <= properties.rankedGauges(); rank++) {
+                var index = rank - 1;
+                Gauge.builder("gateway.heavy-hitters.share", tracker, t -> {
+                        var top = t.top(index + 1);
+                        return top.size() > index ? top.get(index).share() : 0;
+                    })
+                    .tag("tracker", name)
+                    .tag("rank", String.valueOf(rank))
+                    .description("Share of recent requests taken by the key at this rank")
+                    .register(meterRegistry);
+            }
+        });
+
+        return hotKeys;
+    }
+
+    private static HeavyHitters heavyHitters(HeavyHittersProperties properties) {
+        return new HeavyHitters(
+            properties.capacity(),
+            properties.sketchWidth(),
+            properties.sketchDepth(),
+            properties.decayInterval().toNanos(),
+            System::nanoTime
+        );
+    }
+}
@@ -0,0 +1,57 @@
+package com.digitopia.gateway.hotkeys;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint listing the current heavy hitters: {@code GET /actuator/heavyhitters} for every
+ * tracker, {@code /actuator/heavyhitters/clients} or {@code /actuator/heavyhitters/paths} for one, with
+ * {@code ?limit=} to cut the list.
+ *
+ * <p>Client keys are user ids and IP addresses, so like the rest of the management endpoints this one
+ * is served only on {@code management.server.port}, which must not be reachable from outside the
+ * deployment.</p>
+ */
+@Component
+@Endpoint(id = "heavyhitters")
+public class HeavyHittersEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final HotKeys hotKeys;
+
+    public HeavyHittersEndpoint(HotKeys hotKeys) {
+        this.hotKeys = hotKeys;
+    }
+
+    @ReadOperation
+    public Map<String, Report> heavyHitters(@Nullable Integer limit) {
+        var reports = new LinkedHashMap<String, Report>();
+        hotKeys.trackers().forEach((name, tracker) -> reports.put(name, report(tracker, limit)));
+        return reports;
+    }
+
+    @ReadOperation
+    public Report tracker(@Selector String name, @Nullable Integer limit) {
+        var tracker = hotKeys.trackers().get(name);
+        return tracker == null ? null : report(tracker, limit);
+    }
+
+    private static Report report(HeavyHitters tracker, Integer limit) {
+        return new Report(tracker.total(), tracker.top(limit == null ? DEFAULT_LIMIT : Math.max(0, limit)));
+    }
+
+    /**
+     * @param total requests counted in the current window
+     * @param top the most frequent keys, most frequent first
+     */
+    public record Report(long total, List<HeavyHitter> top) {
+    }
+}
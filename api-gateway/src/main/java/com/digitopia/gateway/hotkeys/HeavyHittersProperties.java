@@ -0,0 +1,27 @@
+package com.digitopia.gateway.hotkeys;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Heavy-hitter tracking settings under {@code gateway.heavy-hitters}.
+ *
+ * @param enabled whether requests are counted at all
+ * @param capacity keys tracked by name, per tracker
+ * @param sketchWidth counters per sketch row; with the default a count is off by at most 0.03% of the window
+ * @param sketchDepth sketch rows
+ * @param decayInterval how often counts are halved; a count covers roughly the last two intervals
+ * @param rankedGauges number of top ranks published as {@code gateway.heavy-hitters.share} gauges
+ */
+@ConfigurationProperties(prefix = "gateway.heavy-hitters")
+public record HeavyHittersProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("100") int capacity,
+    @DefaultValue("8192") int sketchWidth,
+    @DefaultValue("4") int sketchDepth,
+    @DefaultValue("1m") Duration decayInterval,
+    @DefaultValue("5") int rankedGauges
+) {
+}
@@ -0,0 +1,42 @@
+package com.digitopia.gateway.hotkeys;
+
+import java.util.Map;
+
+/**
+ * The gateway's heavy-hitter trackers: one over client keys ({@code user:<id>} or {@code ip:<address>},
+ * as rate limited) and one over request paths, fed by {@code GlobalRateLimitWebFilter}.
+ *
+ * <p>The client ranking shows who to look at for abuse; the path ranking, whose paths carry user
+ * and organization ids, shows which resources are hot enough to be worth caching.</p>
+ */
+public class HotKeys {
+
+    public static final String CLIENTS = "clients";
+    public static final String PATHS = "paths";
+
+    private final boolean enabled;
+    private final HeavyHitters clients;
+    private final HeavyHitters paths;
+
+    public HotKeys(boolean enabled, HeavyHitters clients, HeavyHitters paths) {
+        this.enabled = enabled;
+        this.clients = clients;
+        this.paths = paths;
+    }
+
+    public void recordClient(String clientKey) {
+        if (enabled) {
+            clients.record(clientKey);
+        }
+    }
+
+    public void recordPath(String path) {
+        if (enabled) {
+            paths.record(path);
+        }
+    }
+
+    public Map<String, HeavyHitters> trackers() {
+        return Map.of(CLIENTS, clients, PATHS, paths);
+    }
+}
@@ -0,0 +1,30 @@
+package com.digitopia.gateway.httpclient;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+
+/**
+ * Protocol of the gateway's connections to the services.
+ *
+ * <p>With {@code gateway.downstream.h2c} the routing client speaks HTTP/2 over cleartext with prior
+ * knowledge: requests to an instance are multiplexed as streams over a few connections instead of
+ * holding one connection each, and a slow response no longer blocks the ones queued behind it. Every
+ * service must then run with {@code server.http2.enabled}, since there is no fallback to HTTP/1.1.</p>
+ *
+ * <p>Pool limits are Spring Cloud Gateway's {@code spring.cloud.gateway.httpclient.pool} settings, which
+ * apply per instance address; with HTTP/2 {@code max-connections} caps connections rather than requests.
+ * {@code pool.metrics} publishes {@code reactor.netty.connection.provider.*}, including the requests
+ * waiting to acquire a connection.</p>
+ */
+@Configuration
+public class DownstreamHttpClientConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "gateway.downstream", name = "h2c", havingValue = "true")
+    public HttpClientCustomizer h2cHttpClientCustomizer() {
+        return httpClient -> httpClient.protocol(HttpProtocol.H2C);
+    }
+}
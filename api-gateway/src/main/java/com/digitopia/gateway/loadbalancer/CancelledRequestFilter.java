@@ -0,0 +1,52 @@
+package com.digitopia.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Ends the outstanding count of requests cancelled after the load balancer picked an instance:
+ * client disconnects, the {@code /api/me} deadline, batch item timeouts and coalesced waiters.
+ * {@link ReactiveLoadBalancerClientFilter} only reports success and error to
+ * {@link InstanceLoadLifecycle}, so without this an instance's queue depth would grow with every cancel.
+ * A cancelled half-open probe likewise hands its permit back to {@link InstanceCircuitBreakers}.
+ */
+@Component
+public class CancelledRequestFilter implements GlobalFilter, Ordered {
+
+    private final InstanceLoadStats stats;
+    private final InstanceCircuitBreakers breakers;
+
+    public CancelledRequestFilter(InstanceLoadStats stats, InstanceCircuitBreakers breakers) {
+        this.stats = stats;
+        this.breakers = breakers;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                stats.get(lbResponse.getServer()).cancel();
+                breakers.onCancel(exchange.getAttributes());
+            }
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        // Right after the load balancer filter, which has set the chosen instance by then
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
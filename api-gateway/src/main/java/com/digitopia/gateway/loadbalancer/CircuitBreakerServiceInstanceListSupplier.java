@@ -0,0 +1,54 @@
+package com.digitopia.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hides instances whose circuit breaker is open, or half-open with no probe permit left, from every
+ * load balancing strategy. When no instance is left the list is empty and the gateway fails fast
+ * with 503.
+ */
+public class CircuitBreakerServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final InstanceCircuitBreakers breakers;
+
+    public CircuitBreakerServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, InstanceCircuitBreakers breakers) {
+        super(delegate);
+        this.breakers = breakers;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return getDelegate().get().map(instances -> available(instances, null));
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Flux<List<ServiceInstance>> get(Request request) {
+        var attributes = InstanceCircuitBreakers.attributes(request);
+        return getDelegate().get(request).map(instances -> available(instances, attributes));
+    }
+
+    private List<ServiceInstance> available(List<ServiceInstance> instances, Map<String, Object> attributes) {
+        // Taking a probe permit is a side effect, so every instance is checked exactly once
+        List<ServiceInstance> available = null;
+        for (int i = 0; i < instances.size(); i++) {
+            var instance = instances.get(i);
+            if (breakers.tryAcquire(instance, attributes)) {
+                if (available != null) {
+                    available.add(instance);
+                }
+            } else if (available == null) {
+                available = new ArrayList<>(instances.subList(0, i));
+            }
+        }
+        return available != null ? available : instances;
+    }
+}
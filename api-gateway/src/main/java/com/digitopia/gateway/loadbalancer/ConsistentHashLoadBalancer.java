@@ -0,0 +1,224 @@
+package com.digitopia.gateway.loadbalancer;
+
+import com.digitopia.gateway.resilience.RetryBudgetFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Sends all requests for one user or entity to the same instance, so in-process caches on the
+ * downstream services see the same keys over and over instead of every replica seeing all of them.
+ *
+ * <p>The key is the first variable of the first matching {@code hash-key-paths} pattern in the
+ * route metadata (e.g. {@code /api/users/{id}/**}), otherwise the {@code X-User-Id} header set by
+ * {@code JwtAuthenticationFilter}. List variable-free paths such as {@code /api/users/search}
+ * first to keep them keyed by user. Requests without a key go to the fallback balancer.</p>
+ *
+ * <p>Keys are placed on a hash ring with virtual nodes, so an instance leaving Eureka only moves
+ * its own keys. Loads are bounded: an instance with more than {@code load-factor} times the
+ * average number of outstanding requests is skipped and the key spills to the next instance on the
+ * ring until the hot instance catches up. Retries of a request skip the instances already tried.</p>
+ */
+public class ConsistentHashLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    public static final String HASH_KEY_PATHS_METADATA = "hash-key-paths";
+    public static final String LOAD_FACTOR_METADATA = "hash-load-factor";
+
+    private static final String USER_ID_HEADER = "X-User-Id";
+    private static final int VIRTUAL_NODES = 160;
+
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final InstanceLoadStats stats;
+    private final ReactorServiceInstanceLoadBalancer fallback;
+    private final double defaultLoadFactor;
+    private final ConcurrentHashMap<String, List<PathPattern>> keyPatterns = new ConcurrentHashMap<>();
+
+    private volatile Ring ring = new Ring(List.of(), Set.of(), new long[0], new int[0]);
+
+    public ConsistentHashLoadBalancer(
+        ObjectProvider<ServiceInstanceListSupplier> suppliers,
+        InstanceLoadStats stats,
+        ReactorServiceInstanceLoadBalancer fallback,
+        double defaultLoadFactor
+    ) {
+        if (defaultLoadFactor <= 1) {
+            throw new IllegalArgumentException("Load factor must be greater than 1, got " + defaultLoadFactor);
+        }
+        this.suppliers = suppliers;
+        this.stats = stats;
+        this.fallback = fallback;
+        this.defaultLoadFactor = defaultLoadFactor;
+    }
+
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        if (!(request.getContext() instanceof RequestDataContext context) || context.getClientRequest() == null) {
+            return fallback.choose(request);
+        }
+        var data = context.getClientRequest();
+        var route = data.getAttributes().get(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR) instanceof Route r ? r : null;
+        var key = key(data, route);
+        if (key == null) {
+            return fallback.choose(request);
+        }
+
+        var loadFactor = loadFactor(route);
+        var skip = data.getAttributes().get(RetryBudgetFilter.RETRY_ATTEMPT_ATTR) instanceof Integer attempt ? attempt : 0;
+        var supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> choose(instances, key, loadFactor, skip));
+    }
+
+    /** @param skip eligible instances to pass over, so that a retry lands on the next one on the ring */
+    Response<ServiceInstance> choose(List<ServiceInstance> instances, String key, double loadFactor, int skip) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+
+        var current = ring(instances);
+        var members = current.instances();
+        var outstanding = new int[members.size()];
+        var total = 0;
+        for (int i = 0; i < outstanding.length; i++) {
+            outstanding[i] = stats.get(members.get(i)).outstanding();
+            total += outstanding[i];
+        }
+        var capacity = (int) Math.ceil(loadFactor * (total + 1) / members.size());
+
+        // Walk clockwise from the key; the first instance under capacity owns the request.
+        var points = current.points();
+        var start = Arrays.binarySearch(points, hash(key));
+        if (start < 0) {
+            start = -start - 1;
+        }
+        var skipped = new boolean[members.size()];
+        var toSkip = Math.min(skip, members.size() - 1);
+        for (int step = 0; step < points.length; step++) {
+            var owner = current.owners()[(start + step) % points.length];
+            if (outstanding[owner] < capacity && !skipped[owner]) {
+                if (toSkip == 0) {
+                    return new DefaultResponse(members.get(owner));
+                }
+                skipped[owner] = true;
+                toSkip--;
+            }
+        }
+        return new DefaultResponse(members.get(current.owners()[start % points.length]));
+    }
+
+    private Ring ring(List<ServiceInstance> instances) {
+        var current = ring;
+        if (!current.sameMembers(instances)) {
+            current = Ring.build(instances);
+            ring = current;
+        }
+        return current;
+    }
+
+    private String key(RequestData data, Route route) {
+        if (route != null && route.getMetadata().get(HASH_KEY_PATHS_METADATA) instanceof String paths) {
+            var path = PathContainer.parsePath(data.getUrl().getRawPath());
+            for (var pattern : keyPatterns.computeIfAbsent(paths, ConsistentHashLoadBalancer::parse)) {
+                var match = pattern.matchAndExtract(path);
+                if (match != null) {
+                    return match.getUriVariables().isEmpty()
+                        ? data.getHeaders().getFirst(USER_ID_HEADER)
+                        : match.getUriVariables().values().iterator().next();
+                }
+            }
+        }
+        return data.getHeaders().getFirst(USER_ID_HEADER);
+    }
+
+    private double loadFactor(Route route) {
+        if (route != null && route.getMetadata().get(LOAD_FACTOR_METADATA) != null) {
+            return Double.parseDouble(route.getMetadata().get(LOAD_FACTOR_METADATA).toString());
+        }
+        return defaultLoadFactor;
+    }
+
+    private static List<PathPattern> parse(String paths) {
+        return Arrays.stream(paths.split(","))
+            .map(String::trim)
+            .filter(path -> !path.isEmpty())
+            .map(PathPatternParser.defaultInstance::parse)
+            .toList();
+    }
+
+    /** 64-bit FNV-1a with a murmur3 finalizer; String.hashCode clusters badly on ids like "user-1". */
+    static long hash(String value) {
+        var h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** Sorted virtual node positions and the index of the instance owning each of them. */
+    private record Ring(List<ServiceInstance> instances, Set<String> members, long[] points, int[] owners) {
+
+        static Ring build(List<ServiceInstance> instances) {
+            var members = List.copyOf(instances);
+            var nodes = new long[members.size() * VIRTUAL_NODES][];
+            for (int i = 0; i < members.size(); i++) {
+                var id = instanceKey(members.get(i));
+                for (int v = 0; v < VIRTUAL_NODES; v++) {
+                    nodes[i * VIRTUAL_NODES + v] = new long[] {hash(id + "#" + v), i};
+                }
+            }
+            Arrays.sort(nodes, (a, b) -> Long.compare(a[0], b[0]));
+
+            var points = new long[nodes.length];
+            var owners = new int[nodes.length];
+            for (int n = 0; n < nodes.length; n++) {
+                points[n] = nodes[n][0];
+                owners[n] = (int) nodes[n][1];
+            }
+            var keys = members.stream().map(Ring::instanceKey).collect(Collectors.toUnmodifiableSet());
+            return new Ring(members, keys, points, owners);
+        }
+
+        /** Discovery clients may list the same instances in a different order on every refresh. */
+        boolean sameMembers(List<ServiceInstance> candidates) {
+            if (candidates.size() != members.size()) {
+                return false;
+            }
+            for (var candidate : candidates) {
+                if (!members.contains(instanceKey(candidate))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String instanceKey(ServiceInstance instance) {
+            return instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort();
+        }
+    }
+}
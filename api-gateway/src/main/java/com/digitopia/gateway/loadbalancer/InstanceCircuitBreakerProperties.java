@@ -0,0 +1,46 @@
+package com.digitopia.gateway.loadbalancer;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Per-instance circuit breaker settings under {@code gateway.circuit-breaker}.
+ *
+ * @param enabled whether instances with an open breaker are taken out of load balancing
+ * @param failureRateThreshold percentage of failed calls (errors, timeouts, 5xx) that opens the breaker
+ * @param slowCallDurationThreshold calls slower than this count as slow
+ * @param slowCallRateThreshold percentage of slow calls that opens the breaker
+ * @param slidingWindowSize number of recent calls the rates are computed over
+ * @param minimumNumberOfCalls calls needed before the rates are evaluated at all
+ * @param waitDurationInOpenState time an instance is skipped before it is probed again
+ * @param permittedCallsInHalfOpenState probe calls that decide whether the breaker closes again
+ */
+@ConfigurationProperties(prefix = "gateway.circuit-breaker")
+public record InstanceCircuitBreakerProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("50") float failureRateThreshold,
+    @DefaultValue("2s") Duration slowCallDurationThreshold,
+    @DefaultValue("80") float slowCallRateThreshold,
+    @DefaultValue("20") int slidingWindowSize,
+    @DefaultValue("10") int minimumNumberOfCalls,
+    @DefaultValue("10s") Duration waitDurationInOpenState,
+    @DefaultValue("3") int permittedCallsInHalfOpenState
+) {
+
+    CircuitBreakerConfig toConfig() {
+        return CircuitBreakerConfig.custom()
+            .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+            .slidingWindowSize(slidingWindowSize)
+            .minimumNumberOfCalls(minimumNumberOfCalls)
+            .failureRateThreshold(failureRateThreshold)
+            .slowCallDurationThreshold(slowCallDurationThreshold)
+            .slowCallRateThreshold(slowCallRateThreshold)
+            .waitDurationInOpenState(waitDurationInOpenState)
+            .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+            .automaticTransitionFromOpenToHalfOpenEnabled(true)
+            .build();
+    }
+}
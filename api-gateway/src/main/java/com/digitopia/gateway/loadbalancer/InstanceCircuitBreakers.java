@@ -0,0 +1,160 @@
+package com.digitopia.gateway.loadbalancer;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One circuit breaker per downstream instance, fed with the outcome of every load balanced call.
+ * Instances whose breaker is open are skipped by {@link CircuitBreakerServiceInstanceListSupplier}
+ * until the breaker lets probe calls through again, so a hung instance stops receiving traffic
+ * after a handful of timeouts instead of holding connections for every request sent its way.
+ *
+ * <p>A half-open breaker only lets {@code permittedCallsInHalfOpenState} probe calls through. Each
+ * candidate takes a probe permit while the instance list is filtered; once the load balancer has
+ * chosen, the permits of the instances it passed over are handed back. The chosen probe is kept in
+ * the exchange attributes until the call completes, or is handed back if the call is cancelled.</p>
+ */
+@Component
+public class InstanceCircuitBreakers implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private static final Logger log = LoggerFactory.getLogger(InstanceCircuitBreakers.class);
+
+    /** Probe permits taken while filtering instances for the current choice. */
+    static final String PENDING_PROBES_ATTR = InstanceCircuitBreakers.class.getName() + ".pendingProbes";
+    /** Probe permit held by the call in flight to the chosen instance. */
+    static final String PROBE_ATTR = InstanceCircuitBreakers.class.getName() + ".probe";
+
+    private final CircuitBreakerRegistry registry;
+    private final boolean enabled;
+
+    public InstanceCircuitBreakers(InstanceCircuitBreakerProperties properties, MeterRegistry meterRegistry) {
+        this.registry = CircuitBreakerRegistry.of(properties.toConfig());
+        this.enabled = properties.enabled();
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        registry.getEventPublisher().onEntryAdded(added -> added.getAddedEntry().getEventPublisher()
+            .onStateTransition(event -> log.warn("Circuit breaker for {}: {}",
+                event.getCircuitBreakerName(), event.getStateTransition())));
+    }
+
+    /**
+     * Whether the instance may receive this request: its breaker is closed, or half-open with a
+     * probe permit left, which is then taken on behalf of the request. Without request attributes
+     * to track a permit in, only closed breakers pass.
+     */
+    public boolean tryAcquire(ServiceInstance instance, Map<String, Object> attributes) {
+        if (!enabled) {
+            return true;
+        }
+        var breaker = breaker(instance);
+        if (breaker.getState() == CircuitBreaker.State.CLOSED) {
+            return true;
+        }
+        if (attributes == null || !breaker.tryAcquirePermission()) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        var pending = (List<CircuitBreaker>) attributes.computeIfAbsent(PENDING_PROBES_ATTR, k -> new ArrayList<CircuitBreaker>());
+        pending.add(breaker);
+        return true;
+    }
+
+    /** Hands back the probe permit of a call that was cancelled before it completed. */
+    public void onCancel(Map<String, Object> attributes) {
+        if (attributes.remove(PROBE_ATTR) instanceof CircuitBreaker probe) {
+            probe.releasePermission();
+        }
+    }
+
+    public CircuitBreaker breaker(ServiceInstance instance) {
+        return registry.circuitBreaker(InstanceLoadStats.key(instance));
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        var attributes = attributes(request);
+        if (attributes == null || !(attributes.remove(PENDING_PROBES_ATTR) instanceof List<?> pending)) {
+            return;
+        }
+        var chosen = lbResponse.hasServer() ? InstanceLoadStats.key(lbResponse.getServer()) : null;
+        for (var probe : pending) {
+            var breaker = (CircuitBreaker) probe;
+            if (breaker.getName().equals(chosen)) {
+                attributes.put(PROBE_ATTR, breaker);
+            } else {
+                breaker.releasePermission();
+            }
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completion) {
+        var attributes = attributes(completion.getLoadBalancerRequest());
+        if (attributes != null) {
+            // The outcome recorded below spends the chosen probe; probes taken for a discarded choice go back
+            attributes.remove(PROBE_ATTR);
+            if (attributes.remove(PENDING_PROBES_ATTR) instanceof List<?> pending) {
+                pending.forEach(probe -> ((CircuitBreaker) probe).releasePermission());
+            }
+        }
+        var lbResponse = completion.getLoadBalancerResponse();
+        if (!enabled || completion.status() == CompletionContext.Status.DISCARD
+            || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+
+        // The start time is set by InstanceLoadLifecycle on the same nanoTime clock.
+        var duration = completion.getLoadBalancerRequest().getContext() instanceof TimedRequestContext timed
+            && timed.getRequestStartTime() > 0
+            ? System.nanoTime() - timed.getRequestStartTime()
+            : 0;
+
+        var breaker = breaker(lbResponse.getServer());
+        if (completion.status() == CompletionContext.Status.FAILED) {
+            breaker.onError(duration, TimeUnit.NANOSECONDS, completion.getThrowable());
+            return;
+        }
+        var response = completion.getClientResponse();
+        if (response != null && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError()) {
+            breaker.onError(duration, TimeUnit.NANOSECONDS, new DownstreamErrorException(response.getHttpStatus().value()));
+        } else {
+            breaker.onSuccess(duration, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    static Map<String, Object> attributes(Request<?> request) {
+        return request != null && request.getContext() instanceof RequestDataContext context
+            && context.getClientRequest() != null
+            ? context.getClientRequest().getAttributes()
+            : null;
+    }
+
+    /** Recorded as the breaker failure for 5xx responses, which do not raise an exception. */
+    static final class DownstreamErrorException extends RuntimeException {
+
+        DownstreamErrorException(int status) {
+            super("Downstream responded with " + status, null, false, false);
+        }
+    }
+}
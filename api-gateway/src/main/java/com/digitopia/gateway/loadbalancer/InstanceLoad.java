@@ -0,0 +1,66 @@
+package com.digitopia.gateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load of one service instance: a peak-sensitive EWMA of response times and the number of
+ * requests currently outstanding.
+ *
+ * <p>A response slower than the current estimate replaces it outright, so an instance that stalls
+ * (long GC, BCrypt backlog) is avoided after a single slow response. Faster responses pull the
+ * estimate down gradually, and without traffic the estimate decays towards zero, so an avoided
+ * instance is probed again after a few decay periods.</p>
+ */
+public final class InstanceLoad {
+
+    private final double decayNanos;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private double rttEstimateNanos;
+    private long updatedAtNanos;
+
+    InstanceLoad(long initialRttNanos, long decayNanos, long nowNanos) {
+        this.decayNanos = decayNanos;
+        this.rttEstimateNanos = initialRttNanos;
+        this.updatedAtNanos = nowNanos;
+    }
+
+    void start() {
+        outstanding.incrementAndGet();
+    }
+
+    /** Ends a request that was cancelled before it completed: it gives no response time to learn from. */
+    void cancel() {
+        outstanding.decrementAndGet();
+    }
+
+    synchronized void complete(long rttNanos, long nowNanos) {
+        outstanding.decrementAndGet();
+        var decayed = decayedEstimate(nowNanos);
+        if (rttNanos > decayed) {
+            rttEstimateNanos = rttNanos;
+        } else {
+            var recency = 1 - Math.exp(-Math.max(0, nowNanos - updatedAtNanos) / decayNanos);
+            rttEstimateNanos = decayed + (rttNanos - decayed) * Math.max(recency, 0.1);
+        }
+        updatedAtNanos = nowNanos;
+    }
+
+    /** Expected cost of sending one more request: latency estimate times queue depth. */
+    synchronized double cost(long nowNanos) {
+        return (decayedEstimate(nowNanos) + 1) * (outstanding.get() + 1);
+    }
+
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    public synchronized double rttEstimateMillis(long nowNanos) {
+        return decayedEstimate(nowNanos) / 1_000_000;
+    }
+
+    private double decayedEstimate(long nowNanos) {
+        var elapsed = Math.max(0, nowNanos - updatedAtNanos);
+        return rttEstimateNanos * Math.exp(-elapsed / decayNanos);
+    }
+}
@@ -0,0 +1,73 @@
+package com.digitopia.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records outstanding requests and response times per instance for {@link PeakEwmaLoadBalancer}.
+ * Connection failures and 5xx responses count as slow responses, so failing instances are avoided
+ * the same way as stalled ones.
+ *
+ * <p>The load balancer filter never calls {@link #onComplete} for cancelled requests, so those are
+ * ended by {@link CancelledRequestFilter}.</p>
+ */
+@Component
+public class InstanceLoadLifecycle implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private static final long FAILURE_PENALTY_NANOS = 1_000_000_000L;
+
+    private final InstanceLoadStats stats;
+
+    public InstanceLoadLifecycle(InstanceLoadStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext timed) {
+            timed.setRequestStartTime(stats.now());
+        }
+        stats.get(lbResponse.getServer()).start();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completion) {
+        var lbResponse = completion.getLoadBalancerResponse();
+        if (completion.status() == CompletionContext.Status.DISCARD || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        if (!(completion.getLoadBalancerRequest().getContext() instanceof TimedRequestContext timed)) {
+            return;
+        }
+
+        var now = stats.now();
+        var rtt = now - timed.getRequestStartTime();
+        if (isFailure(completion)) {
+            // A failure tells us nothing about latency but a lot about where not to send traffic.
+            rtt = Math.max(rtt, FAILURE_PENALTY_NANOS);
+        }
+        stats.get(lbResponse.getServer()).complete(rtt, now);
+    }
+
+    private static boolean isFailure(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completion) {
+        if (completion.status() == CompletionContext.Status.FAILED) {
+            return true;
+        }
+        var response = completion.getClientResponse();
+        return response != null && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError();
+    }
+}
@@ -0,0 +1,60 @@
+package com.digitopia.gateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-instance load shared by every route's load balancer, fed by {@link InstanceLoadLifecycle}.
+ * Instances that receive no traffic for a while (deregistered, scaled in) are dropped.
+ */
+@Component
+public class InstanceLoadStats {
+
+    private final Cache<String, InstanceLoad> loads;
+    private final long initialRttNanos;
+    private final long decayNanos;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public InstanceLoadStats(
+        @Value("${gateway.load-balancer.initial-rtt:50ms}") Duration initialRtt,
+        @Value("${gateway.load-balancer.decay:10s}") Duration decay
+    ) {
+        this(initialRtt, decay, System::nanoTime);
+    }
+
+    InstanceLoadStats(Duration initialRtt, Duration decay, LongSupplier nanoClock) {
+        this.initialRttNanos = initialRtt.toNanos();
+        this.decayNanos = decay.toNanos();
+        this.nanoClock = nanoClock;
+        this.loads = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+    }
+
+    public InstanceLoad get(ServiceInstance instance) {
+        return loads.get(key(instance), k -> new InstanceLoad(initialRttNanos, decayNanos, nanoClock.getAsLong()));
+    }
+
+    public double cost(ServiceInstance instance) {
+        return get(instance).cost(nanoClock.getAsLong());
+    }
+
+    public long now() {
+        return nanoClock.getAsLong();
+    }
+
+    static String key(ServiceInstance instance) {
+        var instanceId = instance.getInstanceId();
+        return instanceId != null
+            ? instanceId
+            : instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort();
+    }
+}
@@ -0,0 +1,15 @@
+package com.digitopia.gateway.loadbalancer;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gives every {@code lb://} service the route-aware load balancer from
+ * {@link PerServiceLoadBalancerConfiguration}.
+ */
+@Configuration
+@EnableConfigurationProperties(InstanceCircuitBreakerProperties.class)
+@LoadBalancerClients(defaultConfiguration = PerServiceLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -0,0 +1,67 @@
+package com.digitopia.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-two-choices load balancer: picks two random instances and sends the request to the one
+ * with the lower {@link InstanceLoad#cost(long) cost}. Random sampling keeps gateway replicas from
+ * all piling onto the same "best" instance, while the cost comparison steers traffic away from
+ * slow or backed-up instances.
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final String serviceId;
+    private final InstanceLoadStats stats;
+
+    public PeakEwmaLoadBalancer(
+        ObjectProvider<ServiceInstanceListSupplier> suppliers, String serviceId, InstanceLoadStats stats
+    ) {
+        this.suppliers = suppliers;
+        this.serviceId = serviceId;
+        this.stats = stats;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        var supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+
+        var random = ThreadLocalRandom.current();
+        var first = random.nextInt(instances.size());
+        var second = random.nextInt(instances.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        var a = instances.get(first);
+        var b = instances.get(second);
+        return new DefaultResponse(stats.cost(a) <= stats.cost(b) ? a : b);
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+}
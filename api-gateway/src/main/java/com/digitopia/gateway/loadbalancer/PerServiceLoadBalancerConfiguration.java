@@ -0,0 +1,53 @@
+package com.digitopia.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.util.Map;
+
+/**
+ * Load balancer beans for one service's child context. Deliberately not a
+ * {@code @Configuration}: it must only be picked up by {@link LoadBalancerConfig}, never by
+ * component scanning into the main context.
+ */
+public class PerServiceLoadBalancerConfiguration {
+
+    /**
+     * Spring Cloud's default discovery-and-caching supplier, wrapped so that the circuit breaker
+     * check runs on every choice rather than once per cache refresh.
+     */
+    @Bean
+    public ServiceInstanceListSupplier circuitBreakerServiceInstanceListSupplier(
+        ConfigurableApplicationContext context,
+        InstanceCircuitBreakers breakers
+    ) {
+        var discovery = ServiceInstanceListSupplier.builder()
+            .withDiscoveryClient()
+            .withCaching()
+            .build(context);
+        return new CircuitBreakerServiceInstanceListSupplier(discovery, breakers);
+    }
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(
+        Environment environment,
+        LoadBalancerClientFactory clientFactory,
+        InstanceLoadStats stats
+    ) {
+        var serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        var suppliers = clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class);
+        var peakEwma = new PeakEwmaLoadBalancer(suppliers, serviceId, stats);
+        var hashLoadFactor = environment.getProperty("gateway.load-balancer.hash-load-factor", Double.class, 1.25);
+        return new RouteAwareLoadBalancer(Map.of(
+            RouteAwareLoadBalancer.ROUND_ROBIN, new RoundRobinLoadBalancer(suppliers, serviceId),
+            RouteAwareLoadBalancer.PEAK_EWMA, peakEwma,
+            RouteAwareLoadBalancer.CONSISTENT_HASH, new ConsistentHashLoadBalancer(suppliers, stats, peakEwma, hashLoadFactor)
+        ));
+    }
+}
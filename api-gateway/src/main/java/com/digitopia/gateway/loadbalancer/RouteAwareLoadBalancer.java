@@ -0,0 +1,56 @@
+package com.digitopia.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Chooses the load balancing strategy per gateway route from the route's
+ * {@code load-balancer} metadata ({@value #PEAK_EWMA}, {@value #CONSISTENT_HASH} or
+ * {@value #ROUND_ROBIN}, the default). Several routes can target one service with different
+ * strategies.
+ */
+public class RouteAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    public static final String METADATA_KEY = "load-balancer";
+    public static final String ROUND_ROBIN = "round-robin";
+    public static final String PEAK_EWMA = "peak-ewma";
+    public static final String CONSISTENT_HASH = "consistent-hash";
+
+    private final Map<String, ReactorServiceInstanceLoadBalancer> strategies;
+    private final ReactorServiceInstanceLoadBalancer defaultStrategy;
+
+    public RouteAwareLoadBalancer(Map<String, ReactorServiceInstanceLoadBalancer> strategies) {
+        this.strategies = Map.copyOf(strategies);
+        this.defaultStrategy = strategies.get(ROUND_ROBIN);
+        if (defaultStrategy == null) {
+            throw new IllegalArgumentException("A " + ROUND_ROBIN + " strategy is required as the default");
+        }
+    }
+
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        var strategy = strategy(request);
+        var balancer = strategy != null ? strategies.get(strategy.toString()) : null;
+        return (balancer != null ? balancer : defaultStrategy).choose(request);
+    }
+
+    @SuppressWarnings("rawtypes")
+    static Object strategy(Request request) {
+        if (request.getContext() instanceof RequestDataContext context && context.getClientRequest() != null) {
+            var route = context.getClientRequest().getAttributes().get(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            if (route instanceof Route gatewayRoute) {
+                return gatewayRoute.getMetadata().get(METADATA_KEY);
+            }
+        }
+        return null;
+    }
+}
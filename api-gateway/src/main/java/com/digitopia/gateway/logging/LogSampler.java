@@ -0,0 +1,69 @@
+package com.digitopia.gateway.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets at most {@code perSecond} log lines through each second, for log statements on the request path.
+ *
+ * <p>The current second and the lines logged in it are packed into one long updated by CAS, so a
+ * check takes no lock and allocates nothing. Lines over the budget are only counted;
+ * {@link #suppressed()} hands that count to the next line that is logged.</p>
+ *
+ * <pre>
+ * if (rejectedLogs.tryAcquire()) {
+ *     log.warn("[{}] Rate Limit EXCEEDED ({} more not logged)", key, rejectedLogs.suppressed());
+ * }
+ * </pre>
+ */
+public final class LogSampler {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long perSecond;
+    private final LongSupplier clockNanos;
+    private final long originNanos;
+    private final AtomicLong state = new AtomicLong();
+    private final LongAdder suppressed = new LongAdder();
+
+    public LogSampler(int perSecond) {
+        this(perSecond, System::nanoTime);
+    }
+
+    LogSampler(int perSecond, LongSupplier clockNanos) {
+        if (perSecond < 1 || perSecond > COUNT_MASK) {
+            throw new IllegalArgumentException("Log sampler allows between 1 and " + COUNT_MASK + " lines per second");
+        }
+        this.perSecond = perSecond;
+        this.clockNanos = clockNanos;
+        this.originNanos = clockNanos.getAsLong();
+    }
+
+    /** Whether this line may be logged; counts it as suppressed otherwise. */
+    public boolean tryAcquire() {
+        var second = (clockNanos.getAsLong() - originNanos) / NANOS_PER_SECOND + 1;
+        while (true) {
+            var current = state.get();
+            long next;
+            if (current >>> COUNT_BITS != second) {
+                next = second << COUNT_BITS | 1;
+            } else if ((current & COUNT_MASK) < perSecond) {
+                next = current + 1;
+            } else {
+                suppressed.increment();
+                return false;
+            }
+            if (state.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /** Lines suppressed since the last call. */
+    public long suppressed() {
+        return suppressed.sumThenReset();
+    }
+}
@@ -0,0 +1,97 @@
+package com.digitopia.gateway.messaging;
+
+import com.digitopia.gateway.cache.ResponseCacheStore;
+import com.digitopia.gateway.security.jwt.RevokedUsers;
+import com.digitopia.gateway.security.membership.MembershipIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Invalidates cached gateway responses when a service reports a change, records accepted
+ * invitations in the {@link MembershipIndex} and deactivated or deleted users in {@link RevokedUsers}.
+ *
+ * <p>The gateway does not share the services' event classes, so events are read as JSON and
+ * every id-like value they carry (user, organization and invitation ids, registry numbers,
+ * nested DTO fields) is used as an invalidation tag.</p>
+ */
+@Component
+public class EventConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(EventConsumer.class);
+
+    /** Envelope fields shared by all events; never an id a response depends on. */
+    private static final Set<String> ENVELOPE_FIELDS = Set.of("eventId", "timestamp", "triggeredBy");
+    /** User statuses that cannot log in, mirroring user-service's login check. */
+    private static final Set<String> REVOKED_STATUSES = Set.of("DEACTIVATED", "DELETED");
+
+    private final ResponseCacheStore responseCache;
+    private final MembershipIndex membershipIndex;
+    private final RevokedUsers revokedUsers;
+    private final ObjectMapper objectMapper;
+
+    public EventConsumer(
+        ResponseCacheStore responseCache,
+        MembershipIndex membershipIndex,
+        RevokedUsers revokedUsers,
+        ObjectMapper objectMapper
+    ) {
+        this.responseCache = responseCache;
+        this.membershipIndex = membershipIndex;
+        this.revokedUsers = revokedUsers;
+        this.objectMapper = objectMapper;
+    }
+
+    @RabbitListener(queues = "#{gatewayEventsQueue.name}")
+    public void handleEvent(Message message) {
+        var routingKey = message.getMessageProperties().getReceivedRoutingKey();
+
+        try {
+            var event = objectMapper.readTree(message.getBody());
+            var ids = new HashSet<String>();
+            collectIds(event, ids);
+            log.debug("Received {} event, invalidating cached responses for {}", routingKey, ids);
+            responseCache.invalidate(ids);
+
+            if (RabbitMQConfig.INVITATION_ACCEPTED_KEY.equals(routingKey)) {
+                membershipIndex.add(
+                    UUID.fromString(event.path("userId").asText()),
+                    UUID.fromString(event.path("organizationId").asText())
+                );
+            } else if (RabbitMQConfig.USER_DELETED_KEY.equals(routingKey)) {
+                revokedUsers.revoke(event.path("userId").asText());
+            } else if (RabbitMQConfig.USER_UPDATED_KEY.equals(routingKey) && "status".equals(event.path("fieldName").asText())) {
+                var userId = event.path("userId").asText();
+                if (REVOKED_STATUSES.contains(event.path("newValue").asText())) {
+                    revokedUsers.revoke(userId);
+                } else {
+                    revokedUsers.restore(userId);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to handle {} event", routingKey, e);
+        }
+    }
+
+    static void collectIds(JsonNode node, Set<String> ids) {
+        if (node.isObject()) {
+            node.fields().forEachRemaining(field -> {
+                if (!ENVELOPE_FIELDS.contains(field.getKey())) {
+                    collectIds(field.getValue(), ids);
+                }
+            });
+        } else if (node.isArray()) {
+            node.forEach(element -> collectIds(element, ids));
+        } else if (node.isTextual() || node.isIntegralNumber()) {
+            ids.add(node.asText());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.digitopia.gateway.messaging;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Base64UrlNamingStrategy;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Every gateway replica needs every event, so each one listens on its own auto-deleted queue
+ * instead of competing for a shared one.
+ */
+@Configuration
+public class RabbitMQConfig {
+
+    public static final String USER_EXCHANGE = "digitopia.user.exchange";
+    public static final String ORG_EXCHANGE = "digitopia.organization.exchange";
+    public static final String INVITATION_EXCHANGE = "digitopia.invitation.exchange";
+    public static final String INVITATION_ACCEPTED_KEY = "invitation.accepted";
+    public static final String USER_UPDATED_KEY = "user.updated";
+    public static final String USER_DELETED_KEY = "user.deleted";
+    public static final String ALL_EVENTS_KEY = "#";
+
+    @Bean
+    public Queue gatewayEventsQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("gateway.events."));
+    }
+
+    @Bean
+    public TopicExchange userExchange() {
+        return new TopicExchange(USER_EXCHANGE);
+    }
+
+    @Bean
+    public TopicExchange orgExchange() {
+        return new TopicExchange(ORG_EXCHANGE);
+    }
+
+    @Bean
+    public TopicExchange invitationExchange() {
+        return new TopicExchange(INVITATION_EXCHANGE);
+    }
+
+    @Bean
+    public Binding userEventsBinding() {
+        return BindingBuilder
+            .bind(gatewayEventsQueue())
+            .to(userExchange())
+            .with(ALL_EVENTS_KEY);
+    }
+
+    @Bean
+    public Binding orgEventsBinding() {
+        return BindingBuilder
+            .bind(gatewayEventsQueue())
+            .to(orgExchange())
+            .with(ALL_EVENTS_KEY);
+    }
+
+    @Bean
+    public Binding invitationAcceptedBinding() {
+        return BindingBuilder
+            .bind(gatewayEventsQueue())
+            .to(invitationExchange())
+            .with(INVITATION_ACCEPTED_KEY);
+    }
+}
@@ -0,0 +1,158 @@
+package com.digitopia.gateway.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every routed request in {@code gateway.route.latency}, tagged with the route id, the downstream
+ * instance the load balancer picked ({@code none} for routes the gateway answers itself) and the outcome.
+ * The timers publish percentile histograms, so p99 can be aggregated per route and instance across replicas.
+ *
+ * <p>Runs first, so the time includes the route filters, retries and the response body. Timers are
+ * registered on first use and then found through a map per route keyed by strings the exchange already
+ * holds, the route id and the {@code ServiceInstance} id, plus an array indexed by outcome: recording
+ * builds no tags and no meter ids. An instance's timers are removed from the registry once it has seen
+ * no traffic for {@link #IDLE_INSTANCE_EXPIRY}, so instances replaced by deploys and autoscaling do not
+ * accumulate.</p>
+ *
+ * <p>The timers name routes and instances, so {@code /actuator/prometheus} is scraped on
+ * {@code management.server.port}, never through the public port.</p>
+ */
+@Component
+public class RouteMetricsFilter implements GlobalFilter, Ordered {
+
+    public static final String METRIC = "gateway.route.latency";
+    static final String NO_INSTANCE = "none";
+    static final Duration IDLE_INSTANCE_EXPIRY = Duration.ofMinutes(10);
+
+    enum Outcome { SUCCESS, CLIENT_ERROR, SERVER_ERROR, CANCELLED }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final MeterRegistry meterRegistry;
+    private final Ticker ticker;
+    private final ConcurrentHashMap<String, Cache<String, Timer[]>> timers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RouteMetricsFilter(MeterRegistry meterRegistry) {
+        this(meterRegistry, Ticker.systemTicker());
+    }
+
+    RouteMetricsFilter(MeterRegistry meterRegistry, Ticker ticker) {
+        this.meterRegistry = meterRegistry;
+        this.ticker = ticker;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        var start = System.nanoTime();
+        return chain.filter(exchange)
+            .doFinally(signal -> record(exchange, route.getId(), signal, System.nanoTime() - start));
+    }
+
+    private void record(ServerWebExchange exchange, String routeId, SignalType signal, long nanos) {
+        timer(routeId, instance(exchange), outcome(exchange, signal)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    Timer timer(String routeId, String instance, Outcome outcome) {
+        var byInstance = timers.get(routeId);
+        if (byInstance == null) {
+            byInstance = timers.computeIfAbsent(routeId, id -> instanceTimers());
+        }
+        var byOutcome = byInstance.getIfPresent(instance);
+        if (byOutcome == null) {
+            byOutcome = byInstance.get(instance, id -> new Timer[OUTCOMES.length]);
+        }
+        var timer = byOutcome[outcome.ordinal()];
+        if (timer == null) {
+            // Racing registrations get the same timer back from the registry.
+            timer = Timer.builder(METRIC)
+                .tag("route", routeId)
+                .tag("instance", instance)
+                .tag("outcome", outcome.name())
+                .description("Time from the gateway receiving a request to the response completing")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+            byOutcome[outcome.ordinal()] = timer;
+        }
+        return timer;
+    }
+
+    private Cache<String, Timer[]> instanceTimers() {
+        return Caffeine.newBuilder()
+            .expireAfterAccess(IDLE_INSTANCE_EXPIRY)
+            .ticker(ticker)
+            .scheduler(Scheduler.systemScheduler())
+            .executor(Runnable::run)
+            .<String, Timer[]>removalListener((instance, byOutcome, cause) -> {
+                if (byOutcome != null) {
+                    for (var timer : byOutcome) {
+                        if (timer != null) {
+                            meterRegistry.remove(timer);
+                        }
+                    }
+                }
+            })
+            .build();
+    }
+
+    /** Runs pending expiry, removing the timers of idle instances from the registry. */
+    void expireIdleInstances() {
+        timers.values().forEach(Cache::cleanUp);
+    }
+
+    private static String instance(ServerWebExchange exchange) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return NO_INSTANCE;
+        }
+        var server = lbResponse.getServer();
+        return server.getInstanceId() != null ? server.getInstanceId() : server.getHost() + ":" + server.getPort();
+    }
+
+    private static Outcome outcome(ServerWebExchange exchange, SignalType signal) {
+        if (signal == SignalType.CANCEL) {
+            return Outcome.CANCELLED;
+        }
+        var status = exchange.getResponse().getStatusCode();
+        if (status == null) {
+            return signal == SignalType.ON_ERROR ? Outcome.SERVER_ERROR : Outcome.SUCCESS;
+        }
+        if (status.is5xxServerError()) {
+            return Outcome.SERVER_ERROR;
+        }
+        return status.is4xxClientError() ? Outcome.CLIENT_ERROR : Outcome.SUCCESS;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,77 @@
+package com.digitopia.gateway.resilience;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps retries at a percentage of recent requests, plus a small floor so low-traffic routes can
+ * still retry at all.
+ *
+ * <p>A fixed retry count multiplies load exactly when a service is failing: with 2 retries every
+ * failing request becomes 3. A budget of 10% means an outage adds at most 10% extra traffic, while
+ * isolated failures on a healthy route are still retried. Counts are kept in one-second buckets
+ * over a sliding window.</p>
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final long minRetries;
+    private final long[] requests;
+    private final long[] retries;
+    private final long[] bucketSeconds;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param ratio retries allowed per request, e.g. {@code 0.1} for 10%
+     * @param minRetriesPerSecond retries always allowed regardless of traffic
+     * @param window how far back requests and retries are counted
+     */
+    public RetryBudget(double ratio, int minRetriesPerSecond, Duration window, LongSupplier nanoClock) {
+        var seconds = (int) Math.max(1, window.toSeconds());
+        this.ratio = ratio;
+        this.minRetries = (long) minRetriesPerSecond * seconds;
+        this.requests = new long[seconds];
+        this.retries = new long[seconds];
+        this.bucketSeconds = new long[seconds];
+        this.nanoClock = nanoClock;
+    }
+
+    public synchronized void recordRequest() {
+        requests[bucket()]++;
+    }
+
+    /** Takes one retry from the budget, or returns {@code false} if the budget is spent. */
+    public synchronized boolean tryRetry() {
+        var current = bucket();
+        long totalRequests = 0;
+        long totalRetries = 0;
+        for (int i = 0; i < requests.length; i++) {
+            totalRequests += requests[i];
+            totalRetries += retries[i];
+        }
+        if (totalRetries >= minRetries + (long) (totalRequests * ratio)) {
+            return false;
+        }
+        retries[current]++;
+        return true;
+    }
+
+    /** Index of the current second's bucket, clearing buckets that fell out of the window. */
+    private int bucket() {
+        var second = nanoClock.getAsLong() / 1_000_000_000L;
+        var index = (int) Math.floorMod(second, (long) requests.length);
+        if (bucketSeconds[index] != second) {
+            bucketSeconds[index] = second;
+            requests[index] = 0;
+            retries[index] = 0;
+        }
+        // Buckets of seconds without traffic were never cleared; drop anything older than the window.
+        for (int i = 0; i < requests.length; i++) {
+            if (second - bucketSeconds[i] >= requests.length) {
+                requests[i] = 0;
+                retries[i] = 0;
+            }
+        }
+        return index;
+    }
+}
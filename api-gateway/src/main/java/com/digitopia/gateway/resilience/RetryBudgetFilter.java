@@ -0,0 +1,222 @@
+package com.digitopia.gateway.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.NotFoundException;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Retries idempotent GETs that failed with a connection error, a timeout or one of the configured
+ * statuses, as long as the route's {@link RetryBudget} allows it. Other methods are never retried.
+ *
+ * <p>Each retry goes through load balancing again, and the attempt number is exposed as
+ * {@link #RETRY_ATTEMPT_ATTR} so that affinity routing can move on to another instance. List it
+ * last so cache hits and coalesced requests are not counted as traffic.</p>
+ *
+ * <pre>
+ * filters:
+ *   - name: RetryBudgetFilter
+ *     args:
+ *       retries: 2
+ *       budget-percent: 10
+ * </pre>
+ */
+@Component
+public class RetryBudgetFilter extends AbstractGatewayFilterFactory<RetryBudgetFilter.Config> {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryBudgetFilter.class);
+
+    public static final String RETRY_ATTEMPT_ATTR = RetryBudgetFilter.class.getName() + ".attempt";
+
+    private final MeterRegistry meterRegistry;
+
+    public RetryBudgetFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        var routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        var retry = new RetryState(
+            config,
+            new RetryBudget(config.getBudgetPercent() / 100.0, config.getMinRetriesPerSecond(), config.getBudgetWindow(), System::nanoTime),
+            Set.copyOf(config.getStatuses()),
+            Counter.builder("gateway.retry.attempts")
+                .description("Downstream calls repeated after a retryable failure")
+                .tag("route", routeId)
+                .register(meterRegistry),
+            Counter.builder("gateway.retry.budget-exhausted")
+                .description("Retryable failures returned as-is because the retry budget was spent")
+                .tag("route", routeId)
+                .register(meterRegistry)
+        );
+
+        return (exchange, chain) -> {
+            retry.budget().recordRequest();
+            if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+            return attempt(exchange, chain, retry, 0);
+        };
+    }
+
+    private Mono<Void> attempt(ServerWebExchange exchange, GatewayFilterChain chain, RetryState retry, int attempt) {
+        exchange.getAttributes().put(RETRY_ATTEMPT_ATTR, attempt);
+        return chain.filter(exchange)
+            .then(Mono.<Optional<Throwable>>fromSupplier(Optional::empty))
+            .onErrorResume(error -> Mono.just(Optional.of(error)))
+            .flatMap(error -> {
+                var retryable = error.map(e -> isRetryable(e, retry.statuses()))
+                    .orElseGet(() -> isRetryable(exchange, retry.statuses()));
+                if (!retryable || attempt >= retry.config().getRetries() || exchange.getResponse().isCommitted()) {
+                    return error.map(Mono::<Void>error).orElseGet(Mono::empty);
+                }
+                if (!retry.budget().tryRetry()) {
+                    retry.exhausted().increment();
+                    return error.map(Mono::<Void>error).orElseGet(Mono::empty);
+                }
+
+                log.debug("Retrying {} (attempt {}) after {}", exchange.getRequest().getPath(), attempt + 1,
+                    error.map(Throwable::toString).orElseGet(() -> String.valueOf(exchange.getResponse().getStatusCode())));
+                retry.attempts().increment();
+                reset(exchange);
+                return Mono.delay(backoff(retry.config(), attempt))
+                    .then(Mono.defer(() -> attempt(exchange, chain, retry, attempt + 1)));
+            });
+    }
+
+    private static boolean isRetryable(ServerWebExchange exchange, Set<HttpStatus> statuses) {
+        var status = exchange.getResponse().getStatusCode();
+        return status != null && statuses.contains(HttpStatus.resolve(status.value()));
+    }
+
+    private static boolean isRetryable(Throwable error, Set<HttpStatus> statuses) {
+        if (error instanceof NotFoundException) {
+            // No instance available; another attempt would not find one either.
+            return false;
+        }
+        if (error instanceof ResponseStatusException statusError) {
+            return statuses.contains(HttpStatus.resolve(statusError.getStatusCode().value()));
+        }
+        return error instanceof IOException || error instanceof TimeoutException
+            || error.getCause() instanceof IOException || error.getCause() instanceof TimeoutException;
+    }
+
+    /** Releases the failed attempt's connection and routing state so the chain can run again. */
+    private static void reset(ServerWebExchange exchange) {
+        Connection connection = exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null) {
+            connection.dispose();
+            exchange.getAttributes().remove(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        }
+        ServerWebExchangeUtils.reset(exchange);
+    }
+
+    private static Duration backoff(Config config, int attempt) {
+        var base = config.getFirstBackoff().toNanos() << Math.min(attempt, 10);
+        var jittered = (long) (base * (0.5 + ThreadLocalRandom.current().nextDouble()));
+        return Duration.ofNanos(jittered);
+    }
+
+    private record RetryState(
+        Config config,
+        RetryBudget budget,
+        Set<HttpStatus> statuses,
+        Counter attempts,
+        Counter exhausted
+    ) {
+    }
+
+    public static class Config implements HasRouteId {
+
+        private String routeId;
+        private int retries = 2;
+        private double budgetPercent = 10;
+        private int minRetriesPerSecond = 3;
+        private Duration budgetWindow = Duration.ofSeconds(10);
+        private Duration firstBackoff = Duration.ofMillis(50);
+        private List<HttpStatus> statuses = List.of(
+            HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.GATEWAY_TIMEOUT
+        );
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+
+        public int getRetries() {
+            return retries;
+        }
+
+        public void setRetries(int retries) {
+            this.retries = retries;
+        }
+
+        public double getBudgetPercent() {
+            return budgetPercent;
+        }
+
+        public void setBudgetPercent(double budgetPercent) {
+            this.budgetPercent = budgetPercent;
+        }
+
+        public int getMinRetriesPerSecond() {
+            return minRetriesPerSecond;
+        }
+
+        public void setMinRetriesPerSecond(int minRetriesPerSecond) {
+            this.minRetriesPerSecond = minRetriesPerSecond;
+        }
+
+        public Duration getBudgetWindow() {
+            return budgetWindow;
+        }
+
+        public void setBudgetWindow(Duration budgetWindow) {
+            this.budgetWindow = budgetWindow;
+        }
+
+        public Duration getFirstBackoff() {
+            return firstBackoff;
+        }
+
+        public void setFirstBackoff(Duration firstBackoff) {
+            this.firstBackoff = firstBackoff;
+        }
+
+        public List<HttpStatus> getStatuses() {
+            return statuses;
+        }
+
+        public void setStatuses(List<HttpStatus> statuses) {
+            this.statuses = statuses;
+        }
+    }
+}
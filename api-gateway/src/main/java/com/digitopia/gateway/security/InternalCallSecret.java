@@ -0,0 +1,41 @@
+package com.digitopia.gateway.security;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Marks requests the gateway sends to itself, such as the sub-requests of {@code /api/batch}.
+ *
+ * <p>The value is random per process and only ever sent over loopback, so a request carrying it
+ * has already been authenticated and rate limited by this gateway. Filters that trust it must strip
+ * {@link #HEADER} before forwarding downstream.</p>
+ */
+@Component
+public class InternalCallSecret {
+
+    public static final String HEADER = "X-Gateway-Internal";
+
+    private final String value;
+
+    public InternalCallSecret() {
+        var bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        this.value = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public String value() {
+        return value;
+    }
+
+    public boolean isInternal(ServerHttpRequest request) {
+        var presented = request.getHeaders().getFirst(HEADER);
+        return presented != null && MessageDigest.isEqual(
+            presented.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+}
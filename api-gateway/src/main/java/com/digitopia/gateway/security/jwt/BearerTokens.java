@@ -0,0 +1,49 @@
+package com.digitopia.gateway.security.jwt;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Looks up the caller of a request from its bearer token, for web filters that run before
+ * {@link JwtAuthenticationFilter} and so cannot trust the {@code X-User-*} headers yet.
+ *
+ * <p>Tokens go through {@link VerifiedTokenCache}, so a token verified here is not verified again by
+ * {@link JwtAuthenticationFilter}. Rejecting bad tokens is left to that filter.</p>
+ */
+@Component
+public class BearerTokens {
+
+    private static final String BEARER = "Bearer ";
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    public BearerTokens(JwtTokenProvider jwtTokenProvider, VerifiedTokenCache verifiedTokenCache) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    /**
+     * @return claims of the request's bearer token, or null if it has none or it is not valid
+     */
+    public VerifiedToken verify(ServerHttpRequest request) {
+        var authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith(BEARER)) {
+            return null;
+        }
+
+        var token = authHeader.substring(BEARER.length());
+        var verified = verifiedTokenCache.get(token);
+        if (verified != null) {
+            return verified;
+        }
+        try {
+            verified = jwtTokenProvider.validateToken(token);
+        } catch (Exception e) {
+            return null;
+        }
+        verifiedTokenCache.put(token, verified);
+        return verified;
+    }
+}
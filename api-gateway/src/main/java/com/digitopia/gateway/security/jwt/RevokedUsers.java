@@ -0,0 +1,59 @@
+package com.digitopia.gateway.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Users deactivated or deleted within the last token lifetime, whose still-unexpired tokens the
+ * gateway must refuse.
+ *
+ * <p>Fed by user-service's {@code user.updated} and {@code user.deleted} events and loaded at startup
+ * by {@link RevokedUsersBootstrap}. Entries expire after {@code jwt.max-lifetime}, by which time every
+ * token issued before the revocation has expired too, so the set only ever holds a day's worth of
+ * deactivations. While it is empty, which is almost always, a check is a single size read.</p>
+ */
+@Component
+public class RevokedUsers {
+
+    private final Cache<String, Boolean> revoked;
+
+    public RevokedUsers(
+        @Value("${jwt.max-lifetime:24h}") Duration maxTokenLifetime,
+        @Value("${jwt.revoked-users.maximum-size:1000000}") long maximumSize,
+        MeterRegistry meterRegistry
+    ) {
+        this.revoked = Caffeine.newBuilder()
+            .expireAfterWrite(maxTokenLifetime)
+            .maximumSize(maximumSize)
+            .build();
+
+        Gauge.builder("jwt.revoked-users", revoked, Cache::estimatedSize)
+            .description("Users whose unexpired tokens the gateway refuses")
+            .register(meterRegistry);
+    }
+
+    public boolean isRevoked(String userId) {
+        return revoked.estimatedSize() != 0 && userId != null && revoked.getIfPresent(userId) != null;
+    }
+
+    public void revoke(String userId) {
+        revoked.put(userId, Boolean.TRUE);
+    }
+
+    /** Users revoked right now, for {@link RevokedUsersBootstrap} to tell reactivations apart. */
+    public Set<String> snapshot() {
+        return revoked.estimatedSize() == 0 ? Set.of() : Set.copyOf(revoked.asMap().keySet());
+    }
+
+    /** For users reactivated after a revocation; their old tokens work again too. */
+    public void restore(String userId) {
+        revoked.invalidate(userId);
+    }
+}
@@ -0,0 +1,104 @@
+package com.digitopia.gateway.security.jwt;
+
+import com.digitopia.common.security.InternalApiSecret;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the users revoked within the last token lifetime from user-service's
+ * {@code /internal/revoked-users} into {@link RevokedUsers} once the gateway is up, and again every
+ * {@code refreshInterval} to pick up events missed while disconnected.
+ *
+ * <p>A user that was revoked before a load started but is missing from its result has been
+ * reactivated since, so a missed {@code user.updated} event keeps the user locked out until the
+ * next load rather than for the whole token lifetime.</p>
+ */
+@Component
+public class RevokedUsersBootstrap {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedUsersBootstrap.class);
+
+    /** {@code since} is an instant, so this only has to cover clock skew between gateway and user-service. */
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+    private final RevokedUsers revokedUsers;
+    private final Duration maxTokenLifetime;
+    private final Duration refreshInterval;
+    private final WebClient client;
+
+    private volatile Disposable refreshes;
+
+    public RevokedUsersBootstrap(
+        RevokedUsers revokedUsers,
+        @Value("${jwt.max-lifetime:24h}") Duration maxTokenLifetime,
+        @Value("${jwt.revoked-users.refresh-interval:5m}") Duration refreshInterval,
+        @Value("${jwt.revoked-users.user-service-url:http://user-service}") String userServiceUrl,
+        @Value("${internal-api.secret}") String internalApiSecret,
+        WebClient.Builder webClientBuilder,
+        ReactorLoadBalancerExchangeFilterFunction loadBalancer
+    ) {
+        this.revokedUsers = revokedUsers;
+        this.maxTokenLifetime = maxTokenLifetime;
+        this.refreshInterval = refreshInterval;
+        this.client = webClientBuilder.clone()
+            .baseUrl(userServiceUrl)
+            .defaultHeader(InternalApiSecret.HEADER, internalApiSecret)
+            .filter(loadBalancer)
+            .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        refreshes = Flux.interval(Duration.ZERO, refreshInterval)
+            .onBackpressureDrop()
+            .concatMap(tick -> load(), 0)
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refreshes != null) {
+            refreshes.dispose();
+        }
+    }
+
+    Mono<Long> load() {
+        return Mono.defer(() -> {
+                var revokedBefore = revokedUsers.snapshot();
+                return client.get()
+                    .uri(uri -> uri.path("/internal/revoked-users")
+                        .queryParam("since", Instant.now().minus(maxTokenLifetime).minus(CLOCK_SKEW))
+                        .build())
+                    .retrieve()
+                    .bodyToFlux(UUID.class)
+                    .map(UUID::toString)
+                    .collect(Collectors.toSet())
+                    .map(loaded -> {
+                        loaded.forEach(revokedUsers::revoke);
+                        // Revocations that arrived during the load are not in revokedBefore and stay
+                        revokedBefore.stream().filter(userId -> !loaded.contains(userId)).forEach(revokedUsers::restore);
+                        return (long) loaded.size();
+                    });
+            })
+            .doOnNext(count -> log.info("Loaded {} revoked users", count))
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(Duration.ofMinutes(1))
+                .doBeforeRetry(signal -> log.warn("Loading revoked users failed, retrying: {}", signal.failure().toString())));
+    }
+}
@@ -0,0 +1,16 @@
+package com.digitopia.gateway.security.jwt;
+
+/**
+ * Claims of a token whose signature has already been verified.
+ * Only the fields forwarded to downstream services are kept.
+ */
+public record VerifiedToken(
+    String userId,
+    String role,
+    String email,
+    long expiresAtMillis
+) {
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+}
@@ -0,0 +1,100 @@
+package com.digitopia.gateway.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of verified JWT claims.
+ * Repeat tokens skip signature verification and JSON parsing entirely.
+ *
+ * <p>Entries are keyed by the SHA-256 digest of the raw token, so tokens themselves
+ * are never retained, and each entry is evicted when its token's {@code exp} passes.</p>
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final Cache<TokenDigest, VerifiedToken> cache;
+
+    public VerifiedTokenCache(
+        @Value("${jwt.cache.maximum-size:100000}") long maximumSize,
+        MeterRegistry meterRegistry
+    ) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new UntilTokenExpiry())
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+        Gauge.builder("jwt.verified-tokens.hit.ratio", cache, c -> c.stats().hitRate())
+            .description("Share of authenticated requests served without verifying the token")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return verified claims for this token, or null if the token has not been seen or has expired
+     */
+    public VerifiedToken get(String token) {
+        var verified = cache.getIfPresent(TokenDigest.of(token));
+        if (verified == null || verified.isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        return verified;
+    }
+
+    public void put(String token, VerifiedToken verified) {
+        cache.put(TokenDigest.of(token), verified);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private record TokenDigest(long h0, long h1, long h2, long h3) {
+
+        static TokenDigest of(String token) {
+            var digest = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+            var buffer = ByteBuffer.wrap(digest);
+            return new TokenDigest(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<TokenDigest, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, VerifiedToken value, long currentTime) {
+            var remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
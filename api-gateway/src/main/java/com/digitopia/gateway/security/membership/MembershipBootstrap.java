@@ -0,0 +1,121 @@
+package com.digitopia.gateway.security.membership;
+
+import com.digitopia.common.security.InternalApiSecret;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Loads every membership from user-service's {@code /internal/memberships} into the
+ * {@link MembershipIndex} once the gateway is up, and again every {@code refreshInterval}.
+ *
+ * <p>Pages are requested after the last membership of the previous page, so a load is a series of
+ * index range scans in user-service. While user-service is unreachable the load is retried with
+ * backoff, and the index stays not ready until the first load completes.</p>
+ */
+@Component
+public class MembershipBootstrap {
+
+    private static final Logger log = LoggerFactory.getLogger(MembershipBootstrap.class);
+
+    /** A page of 10,000 memberships is about 1MB of JSON. */
+    private static final int MAX_PAGE_BYTES = 2 * 1024 * 1024;
+
+    private final MembershipIndex index;
+    private final MembershipProperties properties;
+    private final WebClient client;
+
+    private volatile Disposable refreshes;
+
+    public MembershipBootstrap(
+        MembershipIndex index,
+        MembershipProperties properties,
+        @Value("${internal-api.secret}") String internalApiSecret,
+        WebClient.Builder webClientBuilder,
+        ReactorLoadBalancerExchangeFilterFunction loadBalancer
+    ) {
+        this.index = index;
+        this.properties = properties;
+        this.client = webClientBuilder.clone()
+            .baseUrl(properties.userServiceUrl())
+            .defaultHeader(InternalApiSecret.HEADER, internalApiSecret)
+            .filter(loadBalancer)
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_PAGE_BYTES))
+            .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.enabled()) {
+            log.info("Membership index disabled; organization membership checks are skipped");
+            return;
+        }
+        // Ticks that arrive while a load is still retrying are dropped rather than queued.
+        refreshes = Flux.interval(Duration.ZERO, properties.refreshInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> load(), 0)
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refreshes != null) {
+            refreshes.dispose();
+        }
+    }
+
+    /** Replaces the index with every membership user-service knows about; emits how many were read. */
+    Mono<Long> load() {
+        var started = System.nanoTime();
+        return Mono.defer(() -> {
+                index.startLoad();
+                return page(null)
+                    .expand(page -> page.size() < properties.pageSize() ? Mono.empty() : page(page.get(page.size() - 1)))
+                    .map(page -> {
+                        page.forEach(membership -> index.addLoaded(membership.userId(), membership.organizationId()));
+                        return (long) page.size();
+                    })
+                    .reduce(0L, Long::sum);
+            })
+            .doOnNext(count -> {
+                index.finishLoad();
+                log.info("Loaded {} memberships for {} users in {} ms",
+                    count, index.users(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+            })
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(properties.maxRetryBackoff())
+                .doBeforeRetry(signal -> log.warn("Loading memberships failed, retrying: {}", signal.failure().toString())));
+    }
+
+    private Mono<List<Membership>> page(Membership after) {
+        return client.get()
+            .uri(uri -> {
+                uri.path("/internal/memberships").queryParam("size", properties.pageSize());
+                if (after != null) {
+                    uri.queryParam("afterUserId", after.userId())
+                        .queryParam("afterOrganizationId", after.organizationId());
+                }
+                return uri.build();
+            })
+            .retrieve()
+            .bodyToFlux(Membership.class)
+            .collectList();
+    }
+
+    record Membership(UUID userId, UUID organizationId) {
+    }
+}
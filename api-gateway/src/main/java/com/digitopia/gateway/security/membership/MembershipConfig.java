@@ -0,0 +1,9 @@
+package com.digitopia.gateway.security.membership;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(MembershipProperties.class)
+public class MembershipConfig {
+}
@@ -0,0 +1,106 @@
+package com.digitopia.gateway.security.membership;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory user → organizations index for membership checks at the gateway.
+ *
+ * <p>Filled in bulk from user-service by {@link MembershipBootstrap} and kept current from
+ * {@code invitation.accepted} events. Users belong to a handful of organizations, so each user
+ * maps to a small array that is replaced on change and scanned on lookup; a check is one hash
+ * lookup and a few {@code UUID} comparisons.</p>
+ *
+ * <p>No service publishes membership removals, so a removed member is only dropped by the next full
+ * load. Each load fills a fresh map that replaces the live one when the load completes; events that
+ * arrive meanwhile are applied to both maps.</p>
+ */
+@Component
+public class MembershipIndex {
+
+    private static final UUID[] NONE = new UUID[0];
+
+    private volatile ConcurrentHashMap<UUID, UUID[]> organizationsByUser = new ConcurrentHashMap<>();
+    /** The map a running full load fills, or null between loads. */
+    private volatile ConcurrentHashMap<UUID, UUID[]> loading;
+
+    private volatile boolean ready;
+
+    public MembershipIndex(MeterRegistry meterRegistry) {
+        Gauge.builder("gateway.membership.users", this, MembershipIndex::users)
+            .description("Users with at least one organization in the gateway's membership index")
+            .register(meterRegistry);
+        Gauge.builder("gateway.membership.ready", this, index -> index.ready ? 1 : 0)
+            .description("1 once the membership index has been loaded from user-service")
+            .register(meterRegistry);
+    }
+
+    /** Whether a full load has completed; before that a miss does not mean "not a member". */
+    public boolean isReady() {
+        return ready;
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    public boolean isMember(UUID userId, UUID organizationId) {
+        var organizations = organizationsByUser.getOrDefault(userId, NONE);
+        for (var organization : organizations) {
+            if (organization.equals(organizationId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void add(UUID userId, UUID organizationId) {
+        // Read before the live map: finishLoad() swaps the live map first, so a null here means the
+        // live map read next is already the loaded one
+        var loading = this.loading;
+        add(organizationsByUser, userId, organizationId);
+        if (loading != null) {
+            add(loading, userId, organizationId);
+        }
+    }
+
+    /** Starts a full load; memberships passed to {@link #addLoaded} replace the index once it finishes. */
+    void startLoad() {
+        loading = new ConcurrentHashMap<>();
+    }
+
+    void addLoaded(UUID userId, UUID organizationId) {
+        add(loading, userId, organizationId);
+    }
+
+    void finishLoad() {
+        organizationsByUser = loading;
+        loading = null;
+        ready = true;
+    }
+
+    private static void add(ConcurrentHashMap<UUID, UUID[]> organizationsByUser, UUID userId, UUID organizationId) {
+        organizationsByUser.compute(userId, (user, organizations) -> {
+            if (organizations == null) {
+                return new UUID[] {organizationId};
+            }
+            for (var organization : organizations) {
+                if (organization.equals(organizationId)) {
+                    return organizations;
+                }
+            }
+            var grown = Arrays.copyOf(organizations, organizations.length + 1);
+            grown[organizations.length] = organizationId;
+            return grown;
+        });
+    }
+
+    public int users() {
+        return organizationsByUser.size();
+    }
+}
@@ -0,0 +1,25 @@
+package com.digitopia.gateway.security.membership;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Membership index settings under {@code gateway.membership}.
+ *
+ * @param enabled whether the index is loaded at all; without it membership checks are skipped
+ * @param userServiceUrl where memberships are loaded from, resolved through the load balancer
+ * @param pageSize memberships per bootstrap request
+ * @param refreshInterval how often the index is reloaded to pick up events missed while disconnected
+ * @param maxRetryBackoff longest wait between attempts while user-service is unreachable
+ */
+@ConfigurationProperties(prefix = "gateway.membership")
+public record MembershipProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("http://user-service") String userServiceUrl,
+    @DefaultValue("5000") int pageSize,
+    @DefaultValue("10m") Duration refreshInterval,
+    @DefaultValue("1m") Duration maxRetryBackoff
+) {
+}
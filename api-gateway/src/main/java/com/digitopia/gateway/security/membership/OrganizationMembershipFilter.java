@@ -0,0 +1,145 @@
+package com.digitopia.gateway.security.membership;
+
+import com.digitopia.gateway.web.ErrorResponses;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Rejects requests for an organization's resources from users who are not members of it, using
+ * the {@link MembershipIndex} instead of asking user-service.
+ *
+ * <p>{@code paths} name the organization with an {@code {organizationId}} variable. Roles in
+ * {@code exemptRoles} pass, as in {@code AuthorizationUtil.checkOrganizationMembership}. Until the
+ * index has been loaded, and for ids that are not UUIDs, requests pass through to the service.</p>
+ *
+ * <p>List it right after {@code JwtAuthenticationFilter}, before any caching filter, so that cached
+ * responses are only served to members.</p>
+ *
+ * <pre>
+ * filters:
+ *   - JwtAuthenticationFilter
+ *   - name: OrganizationMembershipFilter
+ *     args:
+ *       paths: /api/organizations/{organizationId}/users
+ * </pre>
+ */
+@Component
+public class OrganizationMembershipFilter extends AbstractGatewayFilterFactory<OrganizationMembershipFilter.Config> {
+
+    public static final String ORGANIZATION_ID = "organizationId";
+
+    private final MembershipIndex index;
+    private final Counter allowed;
+    private final Counter denied;
+    private final Counter unchecked;
+
+    public OrganizationMembershipFilter(MembershipIndex index, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.index = index;
+        this.allowed = Counter.builder("gateway.membership.checks")
+            .tag("outcome", "allowed")
+            .description("Organization membership checks at the gateway")
+            .register(meterRegistry);
+        this.denied = Counter.builder("gateway.membership.checks")
+            .tag("outcome", "denied")
+            .description("Organization membership checks at the gateway")
+            .register(meterRegistry);
+        this.unchecked = Counter.builder("gateway.membership.checks")
+            .tag("outcome", "unchecked")
+            .description("Organization membership checks at the gateway")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        var patterns = config.getPaths().stream()
+            .map(PathPatternParser.defaultInstance::parse)
+            .toList();
+        var exemptRoles = Set.copyOf(config.getExemptRoles());
+
+        return (exchange, chain) -> {
+            var request = exchange.getRequest();
+            var organizationId = organizationId(patterns, request);
+            if (organizationId == null) {
+                return chain.filter(exchange);
+            }
+
+            var role = request.getHeaders().getFirst("X-User-Role");
+            if (role != null && exemptRoles.contains(role.startsWith("ROLE_") ? role.substring(5) : role)) {
+                return chain.filter(exchange);
+            }
+
+            var userId = parseUuid(request.getHeaders().getFirst("X-User-Id"));
+            if (!index.isReady() || userId == null) {
+                unchecked.increment();
+                return chain.filter(exchange);
+            }
+
+            if (!index.isMember(userId, organizationId)) {
+                denied.increment();
+                return ErrorResponses.write(exchange, "You must be a member of this organization to perform this action", HttpStatus.FORBIDDEN);
+            }
+            allowed.increment();
+            return chain.filter(exchange);
+        };
+    }
+
+    /** The organization a request is about, or {@code null} if no pattern matches or the id is not a UUID. */
+    static UUID organizationId(List<PathPattern> patterns, ServerHttpRequest request) {
+        var path = request.getPath().pathWithinApplication();
+        for (var pattern : patterns) {
+            var match = pattern.matchAndExtract(path);
+            if (match != null) {
+                return parseUuid(match.getUriVariables().get(ORGANIZATION_ID));
+            }
+        }
+        return null;
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static class Config {
+
+        private List<String> paths = new ArrayList<>();
+        private List<String> exemptRoles = new ArrayList<>(List.of("ADMIN"));
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public List<String> getExemptRoles() {
+            return exemptRoles;
+        }
+
+        public void setExemptRoles(List<String> exemptRoles) {
+            this.exemptRoles = exemptRoles;
+        }
+    }
+}
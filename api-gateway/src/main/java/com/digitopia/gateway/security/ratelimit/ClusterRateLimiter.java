@@ -0,0 +1,250 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cluster-wide rate limiting for gateway replicas sharing one {@link TokenLeaseSource}.
+ *
+ * <p>Each replica leases a small batch of tokens per client key and serves requests from that
+ * local lease; the shared store is only contacted when the lease runs dry. Leases expire after
+ * a short TTL and hand their unused tokens back, so an idle replica does not sit on budget
+ * another replica needs.</p>
+ *
+ * <p>If the store is slow or failing, the limiter degrades to the local
+ * {@link RateLimitBucketTable} (per-replica limits) for a cooldown period before trying the
+ * store again. Tokens the store grants after the timeout are handed straight back.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "gateway.rate-limit.distributed.enabled", havingValue = "true")
+public class ClusterRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterRateLimiter.class);
+
+    private final TokenLeaseSource source;
+    private final RateLimitBucketTable fallback;
+    private final long leaseSize;
+    private final Duration timeout;
+    private final long cooldownMillis;
+    private final LongSupplier clockMillis;
+    private final Cache<String, Lease> leases;
+
+    private final Counter leaseRequests;
+    private final Counter fallbacks;
+    private volatile long degradedUntil;
+
+    @Autowired
+    public ClusterRateLimiter(
+        TokenLeaseSource source,
+        RateLimitBucketTable fallback,
+        @Value("${gateway.rate-limit.distributed.lease-size:5}") long leaseSize,
+        @Value("${gateway.rate-limit.distributed.lease-ttl:5s}") Duration leaseTtl,
+        @Value("${gateway.rate-limit.distributed.timeout:50ms}") Duration timeout,
+        @Value("${gateway.rate-limit.distributed.fallback-cooldown:10s}") Duration fallbackCooldown,
+        MeterRegistry meterRegistry
+    ) {
+        this(source, fallback, leaseSize, leaseTtl, timeout, fallbackCooldown,
+            () -> System.nanoTime() / 1_000_000, meterRegistry);
+    }
+
+    ClusterRateLimiter(
+        TokenLeaseSource source,
+        RateLimitBucketTable fallback,
+        long leaseSize,
+        Duration leaseTtl,
+        Duration timeout,
+        Duration fallbackCooldown,
+        LongSupplier clockMillis,
+        MeterRegistry meterRegistry
+    ) {
+        this.source = source;
+        this.fallback = fallback;
+        this.leaseSize = Math.max(1, leaseSize);
+        this.timeout = timeout;
+        this.cooldownMillis = fallbackCooldown.toMillis();
+        this.clockMillis = clockMillis;
+        this.degradedUntil = Long.MIN_VALUE;
+        this.leases = Caffeine.newBuilder()
+            .expireAfterWrite(leaseTtl)
+            .maximumSize(fallback.slots())
+            .ticker(() -> clockMillis.getAsLong() * 1_000_000)
+            .scheduler(Scheduler.systemScheduler())
+            .executor(Runnable::run)
+            .removalListener(this::returnUnused)
+            .build();
+
+        this.leaseRequests = Counter.builder("gateway.ratelimit.lease.requests")
+            .description("Round trips to the shared rate limit store")
+            .register(meterRegistry);
+        this.fallbacks = Counter.builder("gateway.ratelimit.lease.fallbacks")
+            .description("Requests limited locally because the shared store was unavailable")
+            .register(meterRegistry);
+        Gauge.builder("gateway.ratelimit.lease.degraded", this, limiter -> limiter.isDegraded() ? 1 : 0)
+            .description("1 while limiting per replica instead of cluster-wide")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Consumes {@code cost} tokens for {@code key}, from the local lease when possible.
+     *
+     * @return remaining tokens in the local lease (or local bucket when degraded),
+     *         or {@link RateLimitBucketTable#REJECTED}
+     */
+    public Mono<Long> tryConsume(String key, long keyHash, long capacity, long refillPeriodMillis, long cost) {
+        var lease = leases.getIfPresent(key);
+        if (lease != null) {
+            var remaining = lease.take(cost);
+            if (remaining != RateLimitBucketTable.REJECTED) {
+                return Mono.just(remaining);
+            }
+        }
+
+        if (isDegraded()) {
+            return Mono.just(consumeLocally(keyHash, capacity, refillPeriodMillis, cost));
+        }
+
+        var requested = Math.max(cost, Math.min(leaseSize, capacity));
+        return Mono.defer(() -> {
+            leaseRequests.increment();
+            // Subscribed apart from the caller, so that a lease still granted after the timeout
+            // or a cancelled request is handed back instead of lost to the shared bucket
+            var pending = source.lease(key, capacity, refillPeriodMillis, requested).toFuture();
+            // Whoever claims the grant first owns it: grant() spends it, releaseLate() hands it back
+            var claimed = new AtomicBoolean();
+            return Mono.fromFuture(pending, true)
+                .timeout(timeout)
+                .map(granted -> claimed.compareAndSet(false, true)
+                    ? grant(key, capacity, granted, cost)
+                    : RateLimitBucketTable.REJECTED)
+                .doOnCancel(() -> releaseLate(key, capacity, pending, claimed))
+                .onErrorResume(ex -> {
+                    if (ex instanceof TimeoutException) {
+                        releaseLate(key, capacity, pending, claimed);
+                    }
+                    degrade(ex);
+                    return Mono.just(consumeLocally(keyHash, capacity, refillPeriodMillis, cost));
+                });
+        });
+    }
+
+    private void releaseLate(String key, long capacity, CompletableFuture<Long> pending, AtomicBoolean claimed) {
+        pending.thenAccept(granted -> {
+            if (granted != null && granted > 0 && claimed.compareAndSet(false, true)) {
+                release(key, capacity, granted);
+            }
+        });
+    }
+
+    private void release(String key, long capacity, long tokens) {
+        source.release(key, capacity, tokens).onErrorResume(ex -> Mono.empty()).subscribe();
+    }
+
+    private long grant(String key, long capacity, long granted, long cost) {
+        if (isRecovering()) {
+            log.info("Shared rate limit store reachable again, back to cluster-wide limits");
+            degradedUntil = Long.MIN_VALUE;
+        }
+        if (granted < cost) {
+            if (granted > 0) {
+                release(key, capacity, granted);
+            }
+            return RateLimitBucketTable.REJECTED;
+        }
+        var leftover = granted - cost;
+        if (leftover > 0) {
+            return leases.get(key, k -> new Lease(capacity)).add(leftover);
+        }
+        var lease = leases.getIfPresent(key);
+        return lease != null ? lease.remaining() : 0;
+    }
+
+    private long consumeLocally(long keyHash, long capacity, long refillPeriodMillis, long cost) {
+        fallbacks.increment();
+        return fallback.tryConsume(keyHash, capacity, refillPeriodMillis, cost);
+    }
+
+    private void degrade(Throwable cause) {
+        if (!isDegraded()) {
+            log.warn("Shared rate limit store unavailable ({}), limiting per replica for {} ms",
+                cause.toString(), cooldownMillis);
+        }
+        degradedUntil = clockMillis.getAsLong() + cooldownMillis;
+    }
+
+    private void returnUnused(String key, Lease lease, RemovalCause cause) {
+        if (key == null || lease == null || cause == RemovalCause.REPLACED) {
+            return;
+        }
+        var unused = lease.drain();
+        if (unused > 0 && !isDegraded()) {
+            release(key, lease.capacity, unused);
+        }
+    }
+
+    boolean isDegraded() {
+        return clockMillis.getAsLong() < degradedUntil;
+    }
+
+    private boolean isRecovering() {
+        return degradedUntil != Long.MIN_VALUE;
+    }
+
+    /** Runs pending lease expiry, returning unused tokens to the shared store. */
+    void expireLeases() {
+        leases.cleanUp();
+    }
+
+    /** Tokens this replica holds for one key, taken without further coordination. */
+    private static final class Lease {
+
+        private final long capacity;
+        private final AtomicLong tokens = new AtomicLong();
+
+        Lease(long capacity) {
+            this.capacity = capacity;
+        }
+
+        long take(long cost) {
+            while (true) {
+                var current = tokens.get();
+                if (current < cost) {
+                    return RateLimitBucketTable.REJECTED;
+                }
+                if (tokens.compareAndSet(current, current - cost)) {
+                    return current - cost;
+                }
+            }
+        }
+
+        long add(long granted) {
+            return tokens.addAndGet(granted);
+        }
+
+        long remaining() {
+            return tokens.get();
+        }
+
+        long drain() {
+            return tokens.getAndSet(0);
+        }
+    }
+}
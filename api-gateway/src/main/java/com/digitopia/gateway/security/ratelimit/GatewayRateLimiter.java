@@ -0,0 +1,71 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Charges tokens against the local {@link RateLimitBucketTable}, or across replicas through
+ * {@link ClusterRateLimiter} when it is enabled. Shared by {@link GlobalRateLimitWebFilter} and
+ * filters that charge several requests at once.
+ */
+@Component
+public class GatewayRateLimiter {
+
+    private final RateLimitBucketTable buckets;
+    private final RateLimitPolicies policies;
+    private final ClusterRateLimiter clusterLimiter;
+
+    public GatewayRateLimiter(
+        RateLimitBucketTable buckets,
+        RateLimitPolicies policies,
+        ObjectProvider<ClusterRateLimiter> clusterLimiter
+    ) {
+        this.buckets = buckets;
+        this.policies = policies;
+        this.clusterLimiter = clusterLimiter.getIfAvailable();
+    }
+
+    public RateLimitPolicy resolve(String path, String role) {
+        return policies.resolve(path, role);
+    }
+
+    /**
+     * Takes {@code cost} tokens from the client's bucket under {@code policy}.
+     *
+     * @return tokens left, or {@link RateLimitBucketTable#REJECTED}
+     */
+    public Mono<Long> tryConsume(String clientKey, RateLimitPolicy policy, long cost) {
+        var keyHash = RateLimitBucketTable.hash(policy.seed(), clientKey);
+
+        if (clusterLimiter == null) {
+            return Mono.just(buckets.tryConsume(keyHash, policy.capacity(), policy.refillPeriodMillis(), cost));
+        }
+        return clusterLimiter.tryConsume(
+            policy.id() + "|" + clientKey, keyHash, policy.capacity(), policy.refillPeriodMillis(), cost
+        );
+    }
+
+    /**
+     * Key of an authenticated request, whose {@code X-User-Id} was set by {@code JwtAuthenticationFilter}.
+     */
+    public static String clientKey(ServerHttpRequest request) {
+        return clientKey(request, request.getHeaders().getFirst("X-User-Id"));
+    }
+
+    /**
+     * @param userId verified id of the caller, or null to key on the client IP
+     */
+    public static String clientKey(ServerHttpRequest request, String userId) {
+        if (userId != null && !userId.isBlank()) {
+            return "user:" + userId;
+        }
+
+        String ip = request.getRemoteAddress() != null
+            ? request.getRemoteAddress().getAddress().getHostAddress()
+            : "unknown";
+
+        return "ip:" + ip;
+    }
+}
@@ -1,8 +1,12 @@
 package com.digitopia.gateway.security.ratelimit;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import com.digitopia.gateway.hotkeys.HotKeys;
+import com.digitopia.gateway.logging.LogSampler;
+import com.digitopia.gateway.security.InternalCallSecret;
+import com.digitopia.gateway.security.jwt.BearerTokens;
+import com.digitopia.gateway.web.ErrorResponses;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.Ordered;
@@ -13,95 +17,126 @@ import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-
- /**
+/**
  * Global rate limiting filter using token bucket algorithm.
- * Limits: 50 requests/minute per user or IP.
-
- * @see io.github.bucket4j.Bucket
+ * Limits come from {@link RateLimitPolicies}: per route and caller role, with each request charged
+ * the token cost of its HTTP method. Unmatched requests get 50 requests/minute per user or IP.
+ *
+ * <p>Buckets live in a fixed-size {@link RateLimitBucketTable}, or across all gateway replicas in
+ * {@link ClusterRateLimiter} when {@code gateway.rate-limit.distributed.enabled} is set.</p>
+ *
+ * @see GatewayRateLimiter
+ * @see RateLimitPolicies
  * @see org.springframework.web.server.WebFilter
  */
 @Component
 public class GlobalRateLimitWebFilter implements WebFilter, Ordered {
 
     private static final Logger log = LoggerFactory.getLogger(GlobalRateLimitWebFilter.class);
-    private final Map<String, Bucket> cache = new ConcurrentHashMap<>();
+
+    /** Every request passes here on the event loop, so logging is sampled. */
+    private final LogSampler allowedLogs = new LogSampler(10);
+    private final LogSampler rejectedLogs = new LogSampler(10);
+
+    private final GatewayRateLimiter rateLimiter;
+    /**
+     * This filter runs before {@code JwtAuthenticationFilter}, so the caller comes from the bearer token,
+     * never from inbound {@code X-User-*} headers.
+     */
+    private final BearerTokens bearerTokens;
+    private final InternalCallSecret internalCallSecret;
+    private final HotKeys hotKeys;
+    private final MeterRegistry meterRegistry;
+
+    /** {@code gateway.ratelimit.requests} per policy id, registered once: allowed, rejected. */
+    private final ConcurrentHashMap<String, Counter[]> outcomes = new ConcurrentHashMap<>();
+
+    public GlobalRateLimitWebFilter(
+        GatewayRateLimiter rateLimiter,
+        BearerTokens bearerTokens,
+        InternalCallSecret internalCallSecret,
+        HotKeys hotKeys,
+        MeterRegistry meterRegistry
+    ) {
+        this.rateLimiter = rateLimiter;
+        this.bearerTokens = bearerTokens;
+        this.internalCallSecret = internalCallSecret;
+        this.hotKeys = hotKeys;
+        this.meterRegistry = meterRegistry;
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
-        var path = exchange.getRequest().getPath().toString();
+        var request = exchange.getRequest();
+        var path = request.getPath().pathWithinApplication().value();
 
         if (path.contains("/healtz") || path.contains("/actuator")) {
             return chain.filter(exchange);
         }
 
-        var key = getClientKey(exchange);
-        var bucket = resolveBucket(key);
+        hotKeys.recordPath(path);
+        if (internalCallSecret.isInternal(request)) {
+            // Sub-request of /api/batch: BatchFilter charged for all of them at once, and its client
+            // was counted in HotKeys once for the batch
+            return chain.filter(exchange);
+        }
+
+        // Without a valid token the request is limited per IP under the policy for no role
+        var caller = bearerTokens.verify(request);
+        var policy = rateLimiter.resolve(path, caller != null ? caller.role() : null);
+        var cost = policy.cost(request.getMethod());
+        var key = GatewayRateLimiter.clientKey(request, caller != null ? caller.userId() : null);
+        hotKeys.recordClient(key);
 
-        var available = bucket.getAvailableTokens();
-        log.info("[{}] Rate Limit Check - Available: {}", key, available);
+        return rateLimiter.tryConsume(key, policy, cost)
+            .flatMap(remaining -> proceed(exchange, chain, key, policy, remaining));
+    }
 
-        if (bucket.tryConsume(1)) {
-            var remaining = bucket.getAvailableTokens();
-            log.info("[{}] Request ALLOWED - Remaining: {}", key, remaining);
+    private Mono<Void> proceed(
+        ServerWebExchange exchange, WebFilterChain chain, String key, RateLimitPolicy policy, long remaining
+    ) {
+        var counters = outcomes(policy);
+        if (remaining != RateLimitBucketTable.REJECTED) {
+            counters[0].increment();
+            if (log.isDebugEnabled() && allowedLogs.tryAcquire()) {
+                log.debug("[{}] Request ALLOWED - Remaining: {}", key, remaining);
+            }
 
             exchange.getResponse().getHeaders().add("X-RateLimit-Remaining", String.valueOf(remaining));
 
             return chain.filter(exchange);
         } else {
-            log.warn("[{}] Rate Limit EXCEEDED", key);
+            counters[1].increment();
+            if (rejectedLogs.tryAcquire()) {
+                log.warn("[{}] Rate Limit EXCEEDED ({} more not logged)", key, rejectedLogs.suppressed());
+            }
             return handleRateLimitExceeded(exchange);
         }
     }
 
-    private Bucket resolveBucket(String key) {
-        return cache.computeIfAbsent(key, k -> {
-            log.debug("Creating new bucket for key: {}", k);
-            return createNewBucket();
-        });
-    }
-
-    private Bucket createNewBucket() {
-        var limit = Bandwidth.classic(50, Refill.greedy(50, Duration.ofMinutes(1)));
-        return Bucket.builder()
-            .addLimit(limit)
-            .build();
-    }
-
-    private String getClientKey(ServerWebExchange exchange) {
-        String userId = exchange.getRequest().getHeaders().getFirst("X-User-Id");
-        if (userId != null && !userId.isBlank()) {
-            return "user:" + userId;
+    private Counter[] outcomes(RateLimitPolicy policy) {
+        var counters = outcomes.get(policy.id());
+        if (counters == null) {
+            counters = outcomes.computeIfAbsent(policy.id(), id -> new Counter[] {
+                outcome(id, "allowed"), outcome(id, "rejected")
+            });
         }
+        return counters;
+    }
 
-        String ip = exchange.getRequest().getRemoteAddress() != null
-            ? exchange.getRequest().getRemoteAddress().getAddress().getHostAddress()
-            : "unknown";
-
-        return "ip:" + ip;
+    private Counter outcome(String policyId, String outcome) {
+        return Counter.builder("gateway.ratelimit.requests")
+            .tag("policy", policyId)
+            .tag("outcome", outcome)
+            .description("Requests checked against a rate limit policy")
+            .register(meterRegistry);
     }
 
     private Mono<Void> handleRateLimitExceeded(ServerWebExchange exchange) {
-        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
-        exchange.getResponse().getHeaders().add("Content-Type", "application/json");
         exchange.getResponse().getHeaders().add("X-RateLimit-Retry-After-Seconds", "10");
-
-        String errorResponse = String.format("""
-            {
-              "success": false,
-              "message": "Rate limit exceeded. Please try again later.",
-              "timestamp": "%s"
-            }
-            """, LocalDateTime.now());
-
-        return exchange.getResponse().writeWith(
-            Mono.just(exchange.getResponse().bufferFactory().wrap(errorResponse.getBytes()))
-        );
+        return ErrorResponses.write(exchange, "Rate limit exceeded. Please try again later.", HttpStatus.TOO_MANY_REQUESTS);
     }
 
     @Override
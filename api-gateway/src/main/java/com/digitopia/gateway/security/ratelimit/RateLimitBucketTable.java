@@ -0,0 +1,235 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Fixed-size token bucket table keyed by a 64-bit hash of the client key.
+ *
+ * <p>Memory is allocated once: each slot is two longs (key hash, packed state) in a single
+ * {@link AtomicLongArray}. The state packs the last refill time and the remaining tokens
+ * (in thousandths) into one long that is updated by CAS, so the hot path takes no lock
+ * and allocates nothing.</p>
+ *
+ * <p>Slots are grouped into 8-way sets. A new key takes an empty slot in its set, otherwise a
+ * slot idle for longer than the idle timeout (its bucket has fully refilled, so dropping it
+ * loses nothing), otherwise the least recently refilled slot in the set. Only inserts lock,
+ * and only their set's stripe.</p>
+ */
+public final class RateLimitBucketTable {
+
+    /** Tokens are stored in thousandths so greedy refill can add fractional tokens. */
+    private static final long TOKEN_SCALE = 1000;
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    public static final long MAX_CAPACITY = TOKEN_MASK / TOKEN_SCALE;
+
+    private static final int WAYS = 8;
+    private static final int LOCK_STRIPES = 64;
+    private static final long EMPTY = 0L;
+    private static final long LOCKED = -1L;
+    public static final long REJECTED = -1L;
+    private static final long MISSING = Long.MIN_VALUE;
+    private static final long RETRY = Long.MIN_VALUE + 1;
+
+    private final AtomicLongArray table;
+    private final int setMask;
+    private final Object[] locks;
+    private final long idleTimeoutMillis;
+    private final LongSupplier clockMillis;
+    private final long originMillis;
+
+    private final LongAdder entries = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param slots number of buckets the table can hold, rounded up to a power of two
+     * @param idleTimeoutMillis time after which an untouched bucket may be reused for another key;
+     *                          should be at least the longest refill period
+     * @param clockMillis monotonic millisecond clock
+     */
+    public RateLimitBucketTable(int slots, long idleTimeoutMillis, LongSupplier clockMillis) {
+        if (slots < WAYS) {
+            throw new IllegalArgumentException("Rate limit table needs at least " + WAYS + " slots");
+        }
+        var capacity = Integer.highestOneBit(slots - 1) << 1;
+        this.table = new AtomicLongArray(capacity * 2);
+        this.setMask = capacity / WAYS - 1;
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.clockMillis = clockMillis;
+        this.originMillis = clockMillis.getAsLong() - 1;
+    }
+
+    /**
+     * Consumes {@code cost} tokens from the bucket of the given key, creating a full bucket if absent.
+     *
+     * @param keyHash hash of the client key, see {@link #hash(long, CharSequence)}
+     * @param capacity bucket size in tokens
+     * @param refillPeriodMillis time to refill an empty bucket completely (greedy refill)
+     * @param cost tokens this request costs
+     * @return remaining whole tokens, or {@link #REJECTED} if the bucket holds fewer than {@code cost}
+     */
+    public long tryConsume(long keyHash, long capacity, long refillPeriodMillis, long cost) {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Bucket capacity above " + MAX_CAPACITY);
+        }
+        var capacityUnits = capacity * TOKEN_SCALE;
+        var costUnits = cost * TOKEN_SCALE;
+        var now = now();
+        var base = (int) (keyHash >>> 32 & setMask) * WAYS;
+
+        while (true) {
+            var outcome = consumeExisting(keyHash, base, now, capacityUnits, refillPeriodMillis, costUnits);
+            if (outcome == RETRY) {
+                continue;
+            }
+            if (outcome == MISSING) {
+                outcome = insert(keyHash, base, now, capacityUnits, costUnits);
+            }
+            if (outcome != MISSING) {
+                return outcome;
+            }
+        }
+    }
+
+    private long consumeExisting(
+        long keyHash, int base, long now, long capacityUnits, long refillPeriodMillis, long costUnits
+    ) {
+        for (int way = 0; way < WAYS; way++) {
+            var index = (base + way) << 1;
+
+            // State is read before the key so that a concurrent replacement of this slot
+            // always changes the state the CAS below expects.
+            var state = table.get(index + 1);
+            if (table.get(index) != keyHash) {
+                continue;
+            }
+            if (state == LOCKED) {
+                return MISSING;
+            }
+
+            var tokens = refill(state, now, capacityUnits, refillPeriodMillis);
+            if (tokens < costUnits) {
+                return REJECTED;
+            }
+            var remaining = tokens - costUnits;
+            var refilledAt = Math.max(now, timestamp(state));
+            return table.compareAndSet(index + 1, state, pack(refilledAt, remaining))
+                ? remaining / TOKEN_SCALE
+                : RETRY;
+        }
+        return MISSING;
+    }
+
+    private long insert(long keyHash, int base, long now, long capacityUnits, long costUnits) {
+        synchronized (locks[(base / WAYS) & (LOCK_STRIPES - 1)]) {
+            var victim = -1;
+            var oldest = Long.MAX_VALUE;
+
+            for (int way = 0; way < WAYS; way++) {
+                var index = (base + way) << 1;
+                var hash = table.get(index);
+                if (hash == keyHash) {
+                    return MISSING;
+                }
+                if (hash == EMPTY) {
+                    victim = index;
+                    break;
+                }
+                var refilledAt = timestamp(table.get(index + 1));
+                if (now - refilledAt >= idleTimeoutMillis) {
+                    victim = index;
+                    break;
+                }
+                if (refilledAt < oldest) {
+                    oldest = refilledAt;
+                    victim = index;
+                }
+            }
+
+            var previous = table.get(victim + 1);
+            if (!table.compareAndSet(victim + 1, previous, LOCKED)) {
+                return MISSING;
+            }
+
+            var wasEmpty = table.get(victim) == EMPTY;
+            var remaining = costUnits > capacityUnits ? capacityUnits : capacityUnits - costUnits;
+            var next = pack(now, remaining);
+            if (next == previous) {
+                next = pack(now + 1, remaining);
+            }
+            table.set(victim, keyHash);
+            table.set(victim + 1, next);
+
+            if (wasEmpty) {
+                entries.increment();
+            } else {
+                evictions.increment();
+            }
+            return costUnits > capacityUnits ? REJECTED : remaining / TOKEN_SCALE;
+        }
+    }
+
+    private long refill(long state, long now, long capacityUnits, long refillPeriodMillis) {
+        var tokens = state & TOKEN_MASK;
+        var elapsed = Math.min(now - timestamp(state), refillPeriodMillis);
+        if (elapsed <= 0) {
+            return Math.min(tokens, capacityUnits);
+        }
+        return Math.min(capacityUnits, tokens + elapsed * capacityUnits / refillPeriodMillis);
+    }
+
+    private long now() {
+        return clockMillis.getAsLong() - originMillis;
+    }
+
+    private static long pack(long timestampMillis, long tokenUnits) {
+        return timestampMillis << TOKEN_BITS | tokenUnits;
+    }
+
+    private static long timestamp(long state) {
+        return state >>> TOKEN_BITS;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of {@code key} mixed with {@code seed}, finalized with the
+     * MurmurHash3 mixer. Never returns 0, which marks an empty slot.
+     */
+    public static long hash(long seed, CharSequence key) {
+        var h = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == EMPTY ? 1 : h;
+    }
+
+    /** Number of occupied slots. */
+    public long entries() {
+        return entries.sum();
+    }
+
+    /** Keys displaced to make room for another key. */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /** Bytes held by bucket state; fixed for the lifetime of the table. */
+    public long memoryBytes() {
+        return (long) table.length() * Long.BYTES;
+    }
+
+    public int slots() {
+        return table.length() / 2;
+    }
+}
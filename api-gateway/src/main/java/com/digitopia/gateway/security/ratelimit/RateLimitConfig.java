@@ -0,0 +1,44 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimitPolicies rateLimitPolicies(RateLimitProperties properties, GatewayProperties gatewayProperties) {
+        return RateLimitPolicies.compile(properties, gatewayProperties.getRoutes());
+    }
+
+    @Bean
+    public RateLimitBucketTable rateLimitBucketTable(
+        RateLimitProperties properties,
+        RateLimitPolicies policies,
+        MeterRegistry meterRegistry
+    ) {
+        var idleMillis = Math.max(properties.idleTimeout().toMillis(), policies.longestRefillPeriod().toMillis());
+        var buckets = new RateLimitBucketTable(
+            properties.tableSlots(), idleMillis, () -> System.nanoTime() / 1_000_000
+        );
+
+        Gauge.builder("gateway.ratelimit.entries", buckets, RateLimitBucketTable::entries)
+            .description("Occupied rate limit buckets")
+            .register(meterRegistry);
+        Gauge.builder("gateway.ratelimit.memory", buckets, RateLimitBucketTable::memoryBytes)
+            .description("Bytes held by rate limit bucket state")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        FunctionCounter.builder("gateway.ratelimit.evictions", buckets, RateLimitBucketTable::evictions)
+            .description("Buckets displaced to make room for new client keys")
+            .register(meterRegistry);
+
+        return buckets;
+    }
+}
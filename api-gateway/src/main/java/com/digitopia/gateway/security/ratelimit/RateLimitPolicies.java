@@ -0,0 +1,183 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Rate limit policies compiled against the gateway routes at startup.
+ *
+ * <p>Each route's {@code Path} predicates become matchers ({@code /prefix/**} patterns are
+ * reduced to a plain prefix check) in route declaration order, each pointing at a role map
+ * and a fallback policy. Resolving a request is then a linear scan over a few routes plus one
+ * map lookup, without allocating.</p>
+ */
+public final class RateLimitPolicies {
+
+    private static final String PATH_PREDICATE = "Path";
+    private static final String DEFAULT_POLICY_ID = "default";
+
+    private final PathMatcher[] matchers;
+    private final RoutePolicies[] routePolicies;
+    private final RateLimitPolicy defaultPolicy;
+    private final Duration longestRefillPeriod;
+
+    private RateLimitPolicies(
+        PathMatcher[] matchers, RoutePolicies[] routePolicies, RateLimitPolicy defaultPolicy, Duration longestRefillPeriod
+    ) {
+        this.matchers = matchers;
+        this.routePolicies = routePolicies;
+        this.defaultPolicy = defaultPolicy;
+        this.longestRefillPeriod = longestRefillPeriod;
+    }
+
+    /**
+     * @param path request path within the application
+     * @param role value of {@code X-User-Role}, may be {@code null}
+     */
+    public RateLimitPolicy resolve(String path, String role) {
+        for (int i = 0; i < matchers.length; i++) {
+            if (matchers[i].matches(path)) {
+                return routePolicies[i].resolve(role, defaultPolicy);
+            }
+        }
+        return defaultPolicy;
+    }
+
+    /** Longest refill period of any policy; buckets idle for longer are full again. */
+    public Duration longestRefillPeriod() {
+        return longestRefillPeriod;
+    }
+
+    public static RateLimitPolicies compile(RateLimitProperties properties, List<RouteDefinition> routes) {
+        var defaultPolicy = toPolicy(DEFAULT_POLICY_ID, properties.defaultPolicy());
+        var longest = properties.defaultPolicy().refillPeriod();
+
+        var routeIds = routes.stream().map(RouteDefinition::getId).toList();
+        var byRoute = new LinkedHashMap<String, RoutePolicies>();
+        for (var policy : properties.policies()) {
+            if (policy.route() == null || !routeIds.contains(policy.route())) {
+                throw new IllegalStateException("Rate limit policy refers to unknown route: " + policy.route());
+            }
+            var routePolicies = byRoute.computeIfAbsent(policy.route(), id -> new RoutePolicies());
+            var id = policy.route() + "/" + (policy.role() == null ? "*" : policy.role());
+            routePolicies.add(policy.role(), toPolicy(id, policy));
+            if (policy.refillPeriod().compareTo(longest) > 0) {
+                longest = policy.refillPeriod();
+            }
+        }
+
+        var matchers = new ArrayList<PathMatcher>();
+        var targets = new ArrayList<RoutePolicies>();
+        for (var route : routes) {
+            var routePolicies = byRoute.get(route.getId());
+            if (routePolicies == null) {
+                routePolicies = new RoutePolicies();
+            }
+            for (var pattern : pathPatterns(route)) {
+                matchers.add(PathMatcher.of(pattern));
+                targets.add(routePolicies.freeze());
+            }
+        }
+
+        return new RateLimitPolicies(
+            matchers.toArray(PathMatcher[]::new), targets.toArray(RoutePolicies[]::new), defaultPolicy, longest
+        );
+    }
+
+    private static List<String> pathPatterns(RouteDefinition route) {
+        var patterns = new ArrayList<String>();
+        for (var predicate : route.getPredicates()) {
+            if (PATH_PREDICATE.equalsIgnoreCase(predicate.getName())) {
+                predicate.getArgs().entrySet().stream()
+                    .filter(arg -> !arg.getKey().equals("matchTrailingSlash"))
+                    .flatMap(arg -> Arrays.stream(arg.getValue().split(",")))
+                    .map(String::trim)
+                    .forEach(patterns::add);
+            }
+        }
+        return patterns;
+    }
+
+    private static RateLimitPolicy toPolicy(String id, RateLimitProperties.Policy policy) {
+        if (policy.capacity() <= 0 || policy.capacity() > RateLimitBucketTable.MAX_CAPACITY) {
+            throw new IllegalStateException(
+                "Rate limit policy " + id + " needs a capacity between 1 and " + RateLimitBucketTable.MAX_CAPACITY
+            );
+        }
+        if (policy.refillPeriod().isZero() || policy.refillPeriod().isNegative()) {
+            throw new IllegalStateException("Rate limit policy " + id + " needs a positive refill period");
+        }
+
+        var methodCosts = new HashMap<String, Long>();
+        policy.methodCosts().forEach((method, cost) -> methodCosts.put(method.toUpperCase(Locale.ROOT), cost));
+
+        return new RateLimitPolicy(
+            id,
+            RateLimitBucketTable.hash(0, id),
+            policy.capacity(),
+            policy.refillPeriod().toMillis(),
+            policy.cost(),
+            Map.copyOf(methodCosts)
+        );
+    }
+
+    private static final class RoutePolicies {
+
+        private final Map<String, RateLimitPolicy> byRole = new HashMap<>();
+        private RateLimitPolicy anyRole;
+        private Map<String, RateLimitPolicy> frozen;
+
+        void add(String role, RateLimitPolicy policy) {
+            if (role == null) {
+                anyRole = policy;
+            } else {
+                byRole.put(role, policy);
+            }
+        }
+
+        RoutePolicies freeze() {
+            if (frozen == null) {
+                frozen = Map.copyOf(byRole);
+            }
+            return this;
+        }
+
+        RateLimitPolicy resolve(String role, RateLimitPolicy defaultPolicy) {
+            if (role != null) {
+                var policy = frozen.get(role);
+                if (policy != null) {
+                    return policy;
+                }
+            }
+            return anyRole != null ? anyRole : defaultPolicy;
+        }
+    }
+
+    private interface PathMatcher {
+
+        boolean matches(String path);
+
+        static PathMatcher of(String pattern) {
+            if (pattern.endsWith("/**")) {
+                var prefix = pattern.substring(0, pattern.length() - 3);
+                if (prefix.chars().noneMatch(c -> c == '*' || c == '?' || c == '{')) {
+                    return path -> path.startsWith(prefix)
+                        && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+                }
+            }
+            PathPattern compiled = PathPatternParser.defaultInstance.parse(pattern);
+            return path -> compiled.matches(PathContainer.parsePath(path));
+        }
+    }
+}
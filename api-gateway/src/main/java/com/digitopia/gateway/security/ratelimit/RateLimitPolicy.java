@@ -0,0 +1,24 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.Map;
+
+/**
+ * A compiled rate limit policy. {@code seed} keeps each policy's buckets apart in the shared
+ * {@link RateLimitBucketTable}, so a client has one bucket per policy it hits.
+ */
+public record RateLimitPolicy(
+    String id,
+    long seed,
+    long capacity,
+    long refillPeriodMillis,
+    long defaultCost,
+    Map<String, Long> methodCosts
+) {
+
+    public long cost(HttpMethod method) {
+        var cost = methodCosts.get(method.name());
+        return cost != null ? cost : defaultCost;
+    }
+}
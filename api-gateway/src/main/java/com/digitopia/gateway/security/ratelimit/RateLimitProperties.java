@@ -0,0 +1,51 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate limit settings under {@code gateway.rate-limit}.
+ *
+ * @param tableSlots buckets the local table can hold
+ * @param idleTimeout minimum time before an untouched bucket may be reused
+ * @param defaultPolicy limit for requests no policy matches
+ * @param policies limits per route id, optionally narrowed to one caller role
+ */
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public record RateLimitProperties(
+    @DefaultValue("262144") int tableSlots,
+    @DefaultValue("2m") Duration idleTimeout,
+    @DefaultValue Policy defaultPolicy,
+    List<Policy> policies
+) {
+
+    public RateLimitProperties {
+        policies = policies == null ? List.of() : List.copyOf(policies);
+    }
+
+    /**
+     * @param route gateway route id; ignored for the default policy
+     * @param role caller role, from the bearer token, this policy applies to, or {@code null} for any role
+     * @param capacity bucket size in tokens
+     * @param refillPeriod time to refill an empty bucket
+     * @param cost tokens a request costs unless its method has its own cost
+     * @param methodCosts tokens per HTTP method, e.g. {@code POST: 5}
+     */
+    public record Policy(
+        String route,
+        String role,
+        @DefaultValue("50") long capacity,
+        @DefaultValue("1m") Duration refillPeriod,
+        @DefaultValue("1") long cost,
+        Map<String, Long> methodCosts
+    ) {
+
+        public Policy {
+            methodCosts = methodCosts == null ? Map.of() : Map.copyOf(methodCosts);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Token buckets shared by all gateway replicas, kept in Redis as a hash per client key.
+ * Refill and lease happen in one Lua script, so concurrent replicas never over-grant.
+ */
+@Component
+@ConditionalOnProperty(name = "gateway.rate-limit.distributed.enabled", havingValue = "true")
+public class RedisTokenLeaseSource implements TokenLeaseSource {
+
+    private static final String KEY_PREFIX = "gateway:rate-limit:";
+
+    private static final RedisScript<Long> LEASE_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/token_lease.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/token_release.lua"), Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    public RedisTokenLeaseSource(ReactiveStringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Mono<Long> lease(String key, long capacity, long refillPeriodMillis, long requested) {
+        return redisTemplate.execute(
+                LEASE_SCRIPT,
+                List.of(KEY_PREFIX + key),
+                List.of(String.valueOf(capacity), String.valueOf(refillPeriodMillis), String.valueOf(requested))
+            )
+            .next()
+            .defaultIfEmpty(0L);
+    }
+
+    @Override
+    public Mono<Void> release(String key, long capacity, long tokens) {
+        return redisTemplate.execute(
+                RELEASE_SCRIPT,
+                List.of(KEY_PREFIX + key),
+                List.of(String.valueOf(capacity), String.valueOf(tokens))
+            )
+            .then();
+    }
+}
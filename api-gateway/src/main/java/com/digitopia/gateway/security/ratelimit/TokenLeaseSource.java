@@ -0,0 +1,24 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Shared token bucket store that gateway replicas lease tokens from.
+ *
+ * @see RedisTokenLeaseSource
+ * @see ClusterRateLimiter
+ */
+public interface TokenLeaseSource {
+
+    /**
+     * Takes up to {@code requested} tokens from the shared bucket of {@code key}.
+     *
+     * @return tokens actually granted, between 0 and {@code requested}
+     */
+    Mono<Long> lease(String key, long capacity, long refillPeriodMillis, long requested);
+
+    /**
+     * Hands unused leased tokens back to the shared bucket of {@code key}.
+     */
+    Mono<Void> release(String key, long capacity, long tokens);
+}
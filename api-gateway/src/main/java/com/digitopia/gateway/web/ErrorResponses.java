@@ -0,0 +1,43 @@
+package com.digitopia.gateway.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Writes the JSON error body every gateway filter answers with, in the same shape as the errors of
+ * the services' {@code GlobalExceptionHandler}.
+ */
+public final class ErrorResponses {
+
+    private ErrorResponses() {
+    }
+
+    public static Mono<Void> write(ServerWebExchange exchange, String message, HttpStatus status) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        var errorResponse = """
+            {
+              "success": false,
+              "message": "%s",
+              "timestamp": "%s"
+            }
+            """.formatted(escape(message), LocalDateTime.now());
+
+        return response.writeWith(
+            Mono.just(response.bufferFactory().wrap(errorResponse.getBytes(StandardCharsets.UTF_8)))
+        );
+    }
+
+    /** Messages can carry exception text, which must not break the JSON around it. */
+    private static String escape(String message) {
+        return message.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,24 @@
+-- Leases up to ARGV[3] tokens from the shared bucket at KEYS[1].
+-- ARGV[1] capacity, ARGV[2] refill period in millis, ARGV[3] tokens requested.
+-- Uses the Redis clock so that gateway replicas with skewed clocks refill alike.
+local capacity = tonumber(ARGV[1])
+local refill_millis = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = time[1] * 1000 + math.floor(time[2] / 1000)
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(state[1]) or capacity
+local refilled_at = tonumber(state[2]) or now
+
+local elapsed = math.max(0, now - refilled_at)
+tokens = math.min(capacity, tokens + elapsed * capacity / refill_millis)
+
+local granted = math.min(requested, math.floor(tokens))
+tokens = tokens - granted
+
+redis.call('HSET', KEYS[1], 'tokens', tokens, 'ts', now)
+redis.call('PEXPIRE', KEYS[1], refill_millis * 2)
+
+return granted
@@ -0,0 +1,11 @@
+-- Returns ARGV[2] unused leased tokens to the shared bucket at KEYS[1], capped at capacity ARGV[1].
+-- A bucket that already expired is left alone: it is full again anyway.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+  return 0
+end
+
+local capacity = tonumber(ARGV[1])
+local tokens = tonumber(redis.call('HGET', KEYS[1], 'tokens')) or capacity
+redis.call('HSET', KEYS[1], 'tokens', math.min(capacity, tokens + tonumber(ARGV[2])))
+
+return 1
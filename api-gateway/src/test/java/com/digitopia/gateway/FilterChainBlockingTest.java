@@ -0,0 +1,205 @@
+package com.digitopia.gateway;
+
+import com.digitopia.gateway.hotkeys.HeavyHitters;
+import com.digitopia.gateway.hotkeys.HotKeys;
+import com.digitopia.gateway.security.InternalCallSecret;
+import com.digitopia.gateway.security.jwt.BearerTokens;
+import com.digitopia.gateway.security.jwt.JwtAuthenticationFilter;
+import com.digitopia.gateway.security.jwt.JwtTokenProvider;
+import com.digitopia.gateway.security.jwt.RevokedUsers;
+import com.digitopia.gateway.security.jwt.VerifiedTokenCache;
+import com.digitopia.gateway.security.membership.MembershipIndex;
+import com.digitopia.gateway.security.membership.OrganizationMembershipFilter;
+import com.digitopia.gateway.security.ratelimit.ClusterRateLimiter;
+import com.digitopia.gateway.security.ratelimit.GatewayRateLimiter;
+import com.digitopia.gateway.security.ratelimit.GlobalRateLimitWebFilter;
+import com.digitopia.gateway.security.ratelimit.RateLimitBucketTable;
+import com.digitopia.gateway.security.ratelimit.RateLimitPolicies;
+import com.digitopia.gateway.security.ratelimit.RateLimitProperties;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs the gateway's per-request filters on Reactor's non-blocking threads with BlockHound installed,
+ * so that anything on the request path that blocks an event loop (a synchronous log appender, a lock
+ * wait, file or socket I/O) fails the build.
+ *
+ * <p>Each scenario is run once on the test thread first, so that class loading and lazy
+ * initialization happen outside the check. Runs in its own fork, see the {@code blockhound-test}
+ * execution in the pom.</p>
+ */
+@Tag("blockhound")
+class FilterChainBlockingTest {
+
+    private static final String SECRET = "digitopia-secret-key-for-jwt-token-min-32-characters-required";
+    private static final long CAPACITY = 50;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MembershipIndex membershipIndex = new MembershipIndex(meterRegistry);
+    private final JwtTokenProvider jwtTokenProvider = new JwtTokenProvider(SECRET);
+    private final VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(10_000, meterRegistry);
+    private final GlobalRateLimitWebFilter rateLimitFilter = rateLimitFilter();
+    private final GatewayFilter jwtFilter = new JwtAuthenticationFilter(
+        jwtTokenProvider,
+        verifiedTokenCache,
+        new RevokedUsers(Duration.ofHours(24), 10_000, meterRegistry),
+        new InternalCallSecret(),
+        meterRegistry
+    ).apply(new JwtAuthenticationFilter.Config());
+    private final GatewayFilter membershipFilter = membershipFilter();
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID organizationId = UUID.randomUUID();
+
+    @BeforeAll
+    static void installBlockHound() {
+        // AsyncAppender hands events to its worker through a bounded queue whose lock is held for a
+        // few instructions; with neverBlock it drops instead of waiting for space.
+        BlockHound.install(builder -> builder.allowBlockingCallsInside("ch.qos.logback.core.AsyncAppenderBase", "put"));
+    }
+
+    @Test
+    @DisplayName("Should detect blocking calls on non-blocking threads")
+    void shouldDetectBlocking() {
+        var blocking = Mono.fromCallable(() -> {
+            Thread.sleep(1);
+            return 1;
+        }).subscribeOn(Schedulers.parallel());
+
+        assertThatThrownBy(blocking::block)
+            .satisfies(e -> assertThat(Exceptions.unwrap(e)).isInstanceOf(BlockingOperationError.class));
+    }
+
+    @Test
+    @DisplayName("Should rate limit, authenticate and check membership without blocking")
+    void shouldServeAllowedRequestsWithoutBlocking() {
+        var token = token(userId.toString(), 60_000);
+        var path = "/api/organizations/" + organizationId + "/users";
+
+        assertThat(run(path, token)).isEqualTo(HttpStatus.OK);
+        for (int i = 0; i < 20; i++) {
+            assertThat(runOnEventLoop(path, token)).isEqualTo(HttpStatus.OK);
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject expired tokens and exhausted clients without blocking")
+    void shouldRejectWithoutBlocking() {
+        var expired = token(userId.toString(), -60_000);
+        var path = "/api/organizations/" + organizationId + "/users";
+
+        assertThat(run(path, expired)).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(runOnEventLoop(path, expired)).isEqualTo(HttpStatus.UNAUTHORIZED);
+
+        // The 429s also go through the sampled WARN log and so through the async appender.
+        for (int i = 0; i < CAPACITY; i++) {
+            runOnEventLoop(path, expired);
+        }
+        assertThat(runOnEventLoop(path, expired)).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    private HttpStatus runOnEventLoop(String path, String token) {
+        return Mono.fromCallable(() -> exchange(path, token))
+            .flatMap(exchange -> filterChain(exchange).thenReturn(exchange))
+            .subscribeOn(Schedulers.parallel())
+            .map(FilterChainBlockingTest::status)
+            .block(Duration.ofSeconds(5));
+    }
+
+    private HttpStatus run(String path, String token) {
+        var exchange = exchange(path, token);
+        filterChain(exchange).block(Duration.ofSeconds(5));
+        return status(exchange);
+    }
+
+    private Mono<Void> filterChain(MockServerWebExchange exchange) {
+        return rateLimitFilter.filter(exchange, authenticated ->
+            jwtFilter.filter(authenticated, member ->
+                membershipFilter.filter(member, forwarded -> Mono.empty())));
+    }
+
+    private static HttpStatus status(MockServerWebExchange exchange) {
+        var status = exchange.getResponse().getStatusCode();
+        return status == null ? HttpStatus.OK : HttpStatus.valueOf(status.value());
+    }
+
+    private static MockServerWebExchange exchange(String path, String token) {
+        var request = MockServerHttpRequest.get(path);
+        if (token != null) {
+            request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        return MockServerWebExchange.from(request);
+    }
+
+    private static String token(String subject, long expiresInMillis) {
+        var now = System.currentTimeMillis();
+        return Jwts.builder()
+            .subject(subject)
+            .claim("email", subject + "@digitopia.test")
+            .claim("role", "USER")
+            .issuedAt(new Date(now - 120_000))
+            .expiration(new Date(now + expiresInMillis))
+            .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+            .compact();
+    }
+
+    private GlobalRateLimitWebFilter rateLimitFilter() {
+        var route = new RouteDefinition();
+        route.setId("organization-service");
+        route.setPredicates(List.of(new PredicateDefinition("Path=/api/organizations/**")));
+        var policy = new RateLimitProperties.Policy(null, null, CAPACITY, Duration.ofMinutes(1), 1, Map.of());
+        var policies = RateLimitPolicies.compile(
+            new RateLimitProperties(1024, Duration.ofMinutes(2), policy, List.of()), List.of(route)
+        );
+        var rateLimiter = new GatewayRateLimiter(
+            new RateLimitBucketTable(1024, Duration.ofMinutes(2).toMillis(), () -> System.nanoTime() / 1_000_000),
+            policies,
+            new StaticListableBeanFactory().getBeanProvider(ClusterRateLimiter.class)
+        );
+        var hotKeys = new HotKeys(true, heavyHitters(), heavyHitters());
+        return new GlobalRateLimitWebFilter(
+            rateLimiter,
+            new BearerTokens(jwtTokenProvider, verifiedTokenCache),
+            new InternalCallSecret(),
+            hotKeys,
+            meterRegistry
+        );
+    }
+
+    private static HeavyHitters heavyHitters() {
+        return new HeavyHitters(10, 1024, 4, Duration.ofMinutes(1).toNanos(), System::nanoTime);
+    }
+
+    private GatewayFilter membershipFilter() {
+        var config = new OrganizationMembershipFilter.Config();
+        config.setPaths(List.of("/api/organizations/{organizationId}/users"));
+        return new OrganizationMembershipFilter(membershipIndex, meterRegistry).apply(config);
+    }
+}
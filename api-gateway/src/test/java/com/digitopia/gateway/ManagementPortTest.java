@@ -0,0 +1,58 @@
+package com.digitopia.gateway;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks that the management endpoints, which list client keys and route metrics, answer only on
+ * {@code management.server.port} and not on the public port.
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "eureka.client.enabled=false",
+        "spring.rabbitmq.listener.simple.auto-startup=false"
+    }
+)
+class ManagementPortTest {
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    @DisplayName("Should serve heavy hitters on the management port only")
+    void shouldServeHeavyHittersOnManagementPortOnly() {
+        client(port).get().uri("/actuator/heavyhitters").exchange().expectStatus().isNotFound();
+        client(managementPort).get().uri("/actuator/heavyhitters").exchange().expectStatus().isOk();
+    }
+
+    @Test
+    @DisplayName("Should serve Prometheus metrics on the management port only")
+    void shouldServePrometheusOnManagementPortOnly() {
+        client(port).get().uri("/actuator/prometheus").exchange().expectStatus().isNotFound();
+        client(managementPort).get().uri("/actuator/prometheus").exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class).value(body -> assertThat(body).contains("application="));
+    }
+
+    @Test
+    @DisplayName("Should serve health on the management port, where the container health check looks")
+    void shouldServeHealthOnManagementPort() {
+        client(port).get().uri("/healtz").exchange().expectStatus().isNotFound();
+        client(managementPort).get().uri("/healtz").exchange()
+            .expectStatus().value(status -> assertThat(status).isNotEqualTo(404));
+    }
+
+    private static WebTestClient client(int port) {
+        return WebTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+    }
+}
@@ -0,0 +1,215 @@
+package com.digitopia.gateway.batch;
+
+import com.digitopia.gateway.security.InternalCallSecret;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Sends batches through the real gateway routes to stub user and organization services.
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "eureka.client.enabled=false",
+        "spring.rabbitmq.listener.simple.auto-startup=false"
+    }
+)
+class BatchFilterTest {
+
+    private static final AtomicInteger downstreamCalls = new AtomicInteger();
+    /** X-User-Id and X-Gateway-Internal as seen by the stubs. */
+    private static final Queue<String> seenUsers = new ConcurrentLinkedQueue<>();
+    private static final Queue<String> seenInternalHeaders = new ConcurrentLinkedQueue<>();
+
+    private static final DisposableServer userService = stub("users");
+    private static final DisposableServer organizationService = stub("organizations");
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @DynamicPropertySource
+    static void stubInstances(DynamicPropertyRegistry registry) {
+        var instances = "spring.cloud.discovery.client.simple.instances.";
+        registry.add(instances + "user-service[0].uri", () -> "http://localhost:" + userService.port());
+        registry.add(instances + "organization-service[0].uri", () -> "http://localhost:" + organizationService.port());
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        userService.disposeNow();
+        organizationService.disposeNow();
+    }
+
+    @Test
+    @DisplayName("Should answer each sub-request in order with its own status and body")
+    void shouldMultiplexSubRequests() {
+        var body = """
+            {"requests": [
+              {"id": "me", "path": "/api/users/42"},
+              {"id": "org", "path": "/api/organizations/7"},
+              {"id": "missing", "path": "/api/users/404"},
+              {"id": "login", "path": "/api/auth/login"},
+              {"id": "write", "method": "DELETE", "path": "/api/users/42"},
+              {"path": "/api/../actuator/health"}
+            ]}
+            """;
+
+        client().post().uri("/api/batch")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("42"))
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(body)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.responses.length()").isEqualTo(6)
+            .jsonPath("$.responses[0].id").isEqualTo("me")
+            .jsonPath("$.responses[0].status").isEqualTo(200)
+            .jsonPath("$.responses[0].body.id").isEqualTo("42")
+            .jsonPath("$.responses[1].status").isEqualTo(200)
+            .jsonPath("$.responses[1].body.id").isEqualTo("7")
+            .jsonPath("$.responses[2].status").isEqualTo(404)
+            .jsonPath("$.responses[3].status").isEqualTo(400)
+            .jsonPath("$.responses[4].status").isEqualTo(405)
+            .jsonPath("$.responses[5].id").isEqualTo("5")
+            .jsonPath("$.responses[5].status").isEqualTo(400);
+
+        assertThat(seenUsers).contains("42").doesNotContain("none");
+        assertThat(seenInternalHeaders).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject the whole batch without a valid token")
+    void shouldRequireAuthentication() {
+        var before = downstreamCalls.get();
+
+        client().post().uri("/api/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"requests\": [{\"path\": \"/api/users/42\"}]}")
+            .exchange()
+            .expectStatus().isUnauthorized();
+
+        client().get().uri("/api/users/42")
+            .header(InternalCallSecret.HEADER, "guessed")
+            .header("X-User-Id", "1")
+            .exchange()
+            .expectStatus().isUnauthorized();
+
+        assertThat(downstreamCalls.get()).isEqualTo(before);
+    }
+
+    @Test
+    @DisplayName("Should charge every sub-request against the caller's batch budget in one step")
+    void shouldChargeRateLimitPerItem() {
+        var token = token("rate-limited-user");
+        var items = new StringBuilder("{\"requests\": [");
+        for (int i = 0; i < 20; i++) {
+            items.append(i == 0 ? "" : ",").append("{\"path\": \"/api/organizations/").append(i).append("\"}");
+        }
+        var body = items.append("]}").toString();
+
+        // The batch policy allows 100 tokens per minute.
+        for (int i = 0; i < 5; i++) {
+            client().post().uri("/api/batch")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-RateLimit-Remaining", String.valueOf(100 - 20 * (i + 1)));
+        }
+        var before = downstreamCalls.get();
+
+        client().post().uri("/api/batch")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(body)
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        assertThat(downstreamCalls.get()).isEqualTo(before);
+    }
+
+    @Test
+    @DisplayName("Should only batch plain paths below /api/ that do not re-enter the batch or auth routes")
+    void shouldValidatePaths() {
+        assertThat(BatchFilter.validatePath("/api/users/42?fields=name")).isNull();
+        assertThat(BatchFilter.validatePath("/api/organizations/registry/TR-1")).isNull();
+
+        assertThat(BatchFilter.validatePath(null)).isNotNull();
+        assertThat(BatchFilter.validatePath("/actuator/health")).isNotNull();
+        assertThat(BatchFilter.validatePath("http://evil.example/api/users")).isNotNull();
+        assertThat(BatchFilter.validatePath("/api/batch")).isNotNull();
+        assertThat(BatchFilter.validatePath("/api/auth/login")).isNotNull();
+        assertThat(BatchFilter.validatePath("/api/users/../../actuator")).isNotNull();
+        assertThat(BatchFilter.validatePath("/api/%2e%2e/actuator")).isNotNull();
+        assertThat(BatchFilter.validatePath("/api//users")).isNotNull();
+    }
+
+    private String token(String userId) {
+        return Jwts.builder()
+            .subject(userId)
+            .claim("role", "USER")
+            .claim("email", userId + "@digitopia.test")
+            .expiration(new Date(System.currentTimeMillis() + 60_000))
+            .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+            .compact();
+    }
+
+    private WebTestClient client() {
+        return WebTestClient.bindToServer()
+            .baseUrl("http://localhost:" + port)
+            .responseTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    /** Answers {@code /api/{resource}/{id}} with {@code {"id": id}}, and id 404 with a 404. */
+    private static DisposableServer stub(String resource) {
+        return HttpServer.create()
+            .host("localhost")
+            .port(0)
+            .handle((request, response) -> {
+                downstreamCalls.incrementAndGet();
+                seenUsers.add(String.valueOf(request.requestHeaders().get("X-User-Id", "none")));
+                var internal = request.requestHeaders().get(InternalCallSecret.HEADER);
+                if (internal != null) {
+                    seenInternalHeaders.add(internal);
+                }
+                var id = request.path().substring(("api/" + resource + "/").length());
+                if (id.equals("404")) {
+                    return response.status(404).send();
+                }
+                return response.status(200)
+                    .header("Content-Type", "application/json")
+                    .sendString(Mono.just("{\"id\":\"" + id + "\"}"))
+                    .then();
+            })
+            .bindNow();
+    }
+}
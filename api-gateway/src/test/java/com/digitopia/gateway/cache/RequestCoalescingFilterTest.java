@@ -0,0 +1,184 @@
+package com.digitopia.gateway.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RequestCoalescingFilterTest {
+
+    private static final String ORG_ID = "6f1c2a0e-8f7b-4d3a-9a51-1b2c3d4e5f60";
+    private static final String BODY = "{\"id\":\"" + ORG_ID + "\",\"name\":\"Acme\"}";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescingFilter factory = new RequestCoalescingFilter(meterRegistry);
+    private final AtomicInteger downstreamCalls = new AtomicInteger();
+    private final Sinks.Empty<Void> downstreamGate = Sinks.empty();
+
+    @Test
+    @DisplayName("Should collapse identical concurrent GETs into one downstream call")
+    void shouldCollapseIdenticalRequests() {
+        var filter = filter(CacheScope.ROLE, 256, DataSize.ofKilobytes(256));
+
+        var exchanges = start(filter, 50, i -> "USER");
+        downstreamGate.tryEmitEmpty();
+        await(exchanges);
+
+        assertThat(downstreamCalls.get()).isEqualTo(1);
+        for (var exchange : exchanges) {
+            assertThat(exchange.exchange().getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(exchange.exchange().getResponse().getBodyAsString().block()).isEqualTo(BODY);
+            assertThat(exchange.exchange().getResponse().getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        }
+        assertThat(meterRegistry.counter("gateway.coalescing.collapsed").count()).isEqualTo(49);
+        assertThat(meterRegistry.counter("gateway.coalescing.leaders").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not share responses across scopes")
+    void shouldKeepScopesApart() {
+        var filter = filter(CacheScope.ROLE, 256, DataSize.ofKilobytes(256));
+
+        var exchanges = start(filter, 6, i -> i % 2 == 0 ? "USER" : "ADMIN");
+        downstreamGate.tryEmitEmpty();
+        await(exchanges);
+
+        assertThat(downstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should send followers beyond the waiter limit downstream themselves")
+    void shouldLimitWaiters() {
+        var filter = filter(CacheScope.ROLE, 2, DataSize.ofKilobytes(256));
+
+        var exchanges = start(filter, 5, i -> "USER");
+        downstreamGate.tryEmitEmpty();
+        await(exchanges);
+
+        assertThat(downstreamCalls.get()).isEqualTo(3);
+        assertThat(meterRegistry.counter("gateway.coalescing.bypassed").count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should send followers downstream when the response exceeds the body limit")
+    void shouldNotShareOversizedBodies() {
+        var filter = filter(CacheScope.ROLE, 256, DataSize.ofBytes(8));
+
+        var exchanges = start(filter, 4, i -> "USER");
+        downstreamGate.tryEmitEmpty();
+        await(exchanges);
+
+        assertThat(downstreamCalls.get()).isEqualTo(4);
+        for (var exchange : exchanges) {
+            assertThat(exchange.exchange().getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail followers with the leader's error instead of retrying downstream")
+    void shouldPropagateLeaderFailure() {
+        var filter = filter(CacheScope.ROLE, 256, DataSize.ofKilobytes(256));
+        GatewayFilterChain failing = exchange -> {
+            downstreamCalls.incrementAndGet();
+            return downstreamGate.asMono().then(Mono.error(new IllegalStateException("connection refused")));
+        };
+
+        var results = new ArrayList<Mono<Void>>();
+        for (int i = 0; i < 3; i++) {
+            results.add(filter.filter(exchange("USER"), failing).cache());
+            results.get(i).subscribe(v -> { }, e -> { });
+        }
+        downstreamGate.tryEmitEmpty();
+
+        assertThat(downstreamCalls.get()).isEqualTo(1);
+        for (var result : results) {
+            assertThatThrownBy(result::block).hasMessageContaining("connection refused");
+        }
+    }
+
+    @Test
+    @DisplayName("Should let search requests through next to UUID constrained ids")
+    void shouldNotCoalesceSearch() {
+        var filter = filter(CacheScope.ROLE, 256, DataSize.ofKilobytes(256));
+
+        var results = new ArrayList<Mono<Void>>();
+        for (int i = 0; i < 3; i++) {
+            results.add(filter.filter(exchange("/api/organizations/search?name=Acme", "USER"), this::downstream).cache());
+            results.get(i).subscribe();
+        }
+        downstreamGate.tryEmitEmpty();
+        results.forEach(Mono::block);
+
+        assertThat(downstreamCalls.get()).isEqualTo(3);
+        assertThat(meterRegistry.counter("gateway.coalescing.leaders").count()).isZero();
+    }
+
+    private GatewayFilter filter(CacheScope scope, int maxWaiters, DataSize maxBodySize) {
+        var config = new RequestCoalescingFilter.Config();
+        config.setScope(scope);
+        config.setPaths(List.of("/api/organizations/{id:[0-9a-fA-F-]{36}}"));
+        config.setMaxWaiters(maxWaiters);
+        config.setMaxBodySize(maxBodySize);
+        return factory.apply(config);
+    }
+
+    private List<Pending> start(GatewayFilter filter, int count, IntFunction<String> role) {
+        var pending = new ArrayList<Pending>();
+        for (int i = 0; i < count; i++) {
+            var exchange = exchange(role.apply(i));
+            var result = filter.filter(exchange, this::downstream).cache();
+            result.subscribe();
+            pending.add(new Pending(exchange, result));
+        }
+        return pending;
+    }
+
+    private static void await(List<Pending> pending) {
+        pending.forEach(p -> p.result().block());
+    }
+
+    private Mono<Void> downstream(ServerWebExchange exchange) {
+        downstreamCalls.incrementAndGet();
+        return downstreamGate.asMono().then(Mono.defer(() -> {
+            var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+        }));
+    }
+
+    private static MockServerWebExchange exchange(String role) {
+        return exchange("/api/organizations/" + ORG_ID, role);
+    }
+
+    private static MockServerWebExchange exchange(String path, String role) {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path)
+            .header("X-User-Role", role));
+        var route = Route.async().id("organization-service").uri("lb://organization-service")
+            .predicate(e -> true).build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+
+    private record Pending(MockServerWebExchange exchange, Mono<Void> result) {
+    }
+}
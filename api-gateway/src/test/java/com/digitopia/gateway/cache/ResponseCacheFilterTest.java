@@ -0,0 +1,183 @@
+package com.digitopia.gateway.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ResponseCacheFilterTest {
+
+    private static final String ORG_ID = "6f1c2a0e-8f7b-4d3a-9a51-1b2c3d4e5f60";
+    private static final String ORG_BODY = "{\"id\":\"" + ORG_ID + "\",\"name\":\"Acme\",\"registryNumber\":\"REG-1\"}";
+
+    private final AtomicInteger downstreamCalls = new AtomicInteger();
+    private ResponseCacheStore store;
+    private ResponseCacheFilter factory;
+    private HttpStatus downstreamStatus;
+
+    @BeforeEach
+    void setUp() {
+        store = new ResponseCacheStore(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64), new SimpleMeterRegistry());
+        factory = new ResponseCacheFilter(store, new ObjectMapper());
+        downstreamStatus = HttpStatus.OK;
+    }
+
+    @Test
+    @DisplayName("Should serve a repeated GET from the cache")
+    void shouldServeRepeatedGetFromCache() {
+        var filter = filter(CacheScope.ROLE, "/api/organizations/{id}");
+
+        var first = get("/api/organizations/" + ORG_ID, "u1", "USER");
+        run(filter, first);
+        var second = get("/api/organizations/" + ORG_ID, "u2", "USER");
+        run(filter, second);
+
+        assertThat(downstreamCalls.get()).isEqualTo(1);
+        assertThat(first.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(second.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo(ORG_BODY);
+        assertThat(second.getResponse().getHeaders().getETag()).isEqualTo(first.getResponse().getHeaders().getETag());
+        assertThat(second.getResponse().getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    @DisplayName("Should answer a matching If-None-Match with 304 and no body")
+    void shouldAnswerNotModified() {
+        var filter = filter(CacheScope.ROLE, "/api/organizations/{id}");
+        var first = get("/api/organizations/" + ORG_ID, "u1", "USER");
+        run(filter, first);
+        var etag = first.getResponse().getHeaders().getETag();
+
+        var revalidation = MockServerWebExchange.from(MockServerHttpRequest.get("/api/organizations/" + ORG_ID)
+            .header("X-User-Role", "USER")
+            .ifNoneMatch(etag));
+        routeTo(revalidation);
+        run(filter, revalidation);
+
+        assertThat(revalidation.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(revalidation.getResponse().getBodyAsString().block()).isEmpty();
+        assertThat(downstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep user scoped entries apart")
+    void shouldScopeByUser() {
+        var filter = filter(CacheScope.USER, "/api/users/{id}");
+
+        run(filter, get("/api/users/42", "u1", "ADMIN"));
+        run(filter, get("/api/users/42", "u2", "ADMIN"));
+        run(filter, get("/api/users/42", "u1", "ADMIN"));
+
+        assertThat(downstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should not cache error responses, other paths or requests without a scope")
+    void shouldSkipUncacheableRequests() {
+        var filter = filter(CacheScope.USER, "/api/users/{id}");
+
+        run(filter, get("/api/users/42/organizations", "u1", "USER"));
+        run(filter, get("/api/users/42/organizations", "u1", "USER"));
+        run(filter, get("/api/users/42", null, null));
+        run(filter, get("/api/users/42", null, null));
+        downstreamStatus = HttpStatus.NOT_FOUND;
+        run(filter, get("/api/users/43", "u1", "USER"));
+        run(filter, get("/api/users/43", "u1", "USER"));
+
+        assertThat(downstreamCalls.get()).isEqualTo(6);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not cache search pages next to UUID constrained ids")
+    void shouldNotCacheSearch() {
+        var filter = filter(CacheScope.ROLE, "/api/organizations/{id:[0-9a-fA-F-]{36}}");
+
+        run(filter, get("/api/organizations/search?name=Acme&page=0", "u1", "USER"));
+        run(filter, get("/api/organizations/search?name=Acme&page=1", "u1", "USER"));
+        run(filter, get("/api/organizations/" + ORG_ID, "u1", "USER"));
+        run(filter, get("/api/organizations/" + ORG_ID, "u1", "USER"));
+
+        assertThat(downstreamCalls.get()).isEqualTo(3);
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should invalidate entries tagged with an id from an event or a write")
+    void shouldInvalidateByTag() {
+        var filter = filter(CacheScope.ROLE, "/api/organizations/{id}", "/api/organizations/registry/{registryNumber}");
+        run(filter, get("/api/organizations/registry/REG-1", "u1", "USER"));
+        run(filter, get("/api/organizations/" + ORG_ID, "u1", "USER"));
+        assertThat(store.size()).isEqualTo(2);
+
+        store.invalidate(Set.of(ORG_ID));
+        assertThat(store.size()).isZero();
+
+        run(filter, get("/api/organizations/" + ORG_ID, "u1", "USER"));
+        var delete = MockServerWebExchange.from(MockServerHttpRequest.delete("/api/organizations/" + ORG_ID)
+            .header("X-User-Role", "ADMIN"));
+        routeTo(delete);
+        run(filter, delete);
+
+        assertThat(store.size()).isZero();
+    }
+
+    private GatewayFilter filter(CacheScope scope, String... paths) {
+        var config = new ResponseCacheFilter.Config();
+        config.setScope(scope);
+        config.setPaths(List.of(paths));
+        return factory.apply(config);
+    }
+
+    private MockServerWebExchange get(String path, String userId, String role) {
+        var request = MockServerHttpRequest.get(path);
+        if (userId != null) {
+            request.header("X-User-Id", userId);
+        }
+        if (role != null) {
+            request.header("X-User-Role", role);
+        }
+        var exchange = MockServerWebExchange.from(request);
+        routeTo(exchange);
+        return exchange;
+    }
+
+    private static void routeTo(MockServerWebExchange exchange) {
+        var route = Route.async().id("organization-service").uri("lb://organization-service")
+            .predicate(e -> true).build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+    }
+
+    private void run(GatewayFilter filter, MockServerWebExchange exchange) {
+        GatewayFilterChain downstream = ex -> {
+            downstreamCalls.incrementAndGet();
+            var response = ex.getResponse();
+            response.setStatusCode(downstreamStatus);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            if (downstreamStatus != HttpStatus.OK) {
+                return response.setComplete();
+            }
+            var body = response.bufferFactory().wrap(ORG_BODY.getBytes(StandardCharsets.UTF_8));
+            return response.writeWith(Mono.just(body));
+        };
+        filter.filter(exchange, downstream).block();
+    }
+}
@@ -0,0 +1,161 @@
+package com.digitopia.gateway.composite;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Assembles {@code /api/me} through the real gateway routes from stub user, organization and
+ * invitation services. The invitation stub hangs for the user {@code slow}.
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "eureka.client.enabled=false",
+        "spring.rabbitmq.listener.simple.auto-startup=false"
+    }
+)
+class MeViewFilterTest {
+
+    /** Request URIs seen by the organization stub. */
+    private static final Queue<String> organizationLookups = new ConcurrentLinkedQueue<>();
+
+    private static final DisposableServer userService = HttpServer.create()
+        .host("localhost")
+        .port(0)
+        .route(routes -> routes
+            .get("/api/users/{id}/organizations", (request, response) -> json(response, "[\"o1\",\"o2\",\"gone\"]"))
+            .get("/api/users/{id}", (request, response) -> json(response, "{\"id\":\"" + request.param("id") + "\"}")))
+        .bindNow();
+
+    private static final DisposableServer organizationService = HttpServer.create()
+        .host("localhost")
+        .port(0)
+        .handle((request, response) -> {
+            organizationLookups.add(request.uri());
+            return json(response, "[{\"id\":\"o1\"},{\"id\":\"o2\"}]");
+        })
+        .bindNow();
+
+    private static final DisposableServer invitationService = HttpServer.create()
+        .host("localhost")
+        .port(0)
+        .handle((request, response) -> request.uri().endsWith("/slow")
+            ? Mono.delay(Duration.ofSeconds(10)).then(json(response, "[]"))
+            : json(response, "[{\"id\":\"i1\"}]"))
+        .bindNow();
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @DynamicPropertySource
+    static void stubInstances(DynamicPropertyRegistry registry) {
+        var instances = "spring.cloud.discovery.client.simple.instances.";
+        registry.add(instances + "user-service[0].uri", () -> "http://localhost:" + userService.port());
+        registry.add(instances + "organization-service[0].uri", () -> "http://localhost:" + organizationService.port());
+        registry.add(instances + "invitation-service[0].uri", () -> "http://localhost:" + invitationService.port());
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        userService.disposeNow();
+        organizationService.disposeNow();
+        invitationService.disposeNow();
+    }
+
+    @Test
+    @DisplayName("Should assemble the view with one organization lookup for all memberships")
+    void shouldAssembleView() {
+        organizationLookups.clear();
+
+        client().get().uri("/api/me")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("42"))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.complete").isEqualTo(true)
+            .jsonPath("$.user.status").isEqualTo(200)
+            .jsonPath("$.user.body.id").isEqualTo("42")
+            .jsonPath("$.organizations.body.length()").isEqualTo(2)
+            .jsonPath("$.organizations.error").doesNotExist()
+            .jsonPath("$.invitations.body[0].id").isEqualTo("i1");
+
+        assertThat(organizationLookups).containsExactly("/api/organizations?ids=o1,o2,gone");
+    }
+
+    @Test
+    @DisplayName("Should return the parts that arrived and mark the rest when the deadline passes")
+    void shouldReturnPartialViewAtDeadline() {
+        var started = System.nanoTime();
+
+        client().get().uri("/api/me")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("slow"))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.complete").isEqualTo(false)
+            .jsonPath("$.user.body.id").isEqualTo("slow")
+            .jsonPath("$.organizations.status").isEqualTo(200)
+            .jsonPath("$.invitations.status").isEqualTo(504)
+            .jsonPath("$.invitations.error").isEqualTo("Deadline exceeded")
+            .jsonPath("$.invitations.body").doesNotExist();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Should require a valid token")
+    void shouldRequireAuthentication() {
+        client().get().uri("/api/me")
+            .exchange()
+            .expectStatus().isUnauthorized();
+    }
+
+    private String token(String userId) {
+        return Jwts.builder()
+            .subject(userId)
+            .claim("role", "USER")
+            .claim("email", userId + "@digitopia.test")
+            .expiration(new Date(System.currentTimeMillis() + 60_000))
+            .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+            .compact();
+    }
+
+    private WebTestClient client() {
+        return WebTestClient.bindToServer()
+            .baseUrl("http://localhost:" + port)
+            .responseTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    private static Mono<Void> json(HttpServerResponse response, String body) {
+        return response.status(200)
+            .header("Content-Type", "application/json")
+            .sendString(Mono.just(body))
+            .then();
+    }
+}
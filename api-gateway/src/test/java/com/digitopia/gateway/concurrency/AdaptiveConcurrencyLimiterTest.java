@@ -0,0 +1,81 @@
+package com.digitopia.gateway.concurrency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long BASELINE_RTT = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(new ConcurrencyLimitProperties.Limits(20, 5, 200), 1.5, 0.2);
+
+    @Test
+    @DisplayName("Should raise the limit while a saturated route keeps its latency")
+    void shouldGrowWhileLatencyHolds() {
+        runSaturated(500, BASELINE_RTT);
+
+        assertThat(limiter.limit()).isGreaterThan(100);
+    }
+
+    @Test
+    @DisplayName("Should lower the limit when downstream latency climbs")
+    void shouldShrinkWhenLatencyRises() {
+        runSaturated(200, BASELINE_RTT);
+        var healthy = limiter.limit();
+
+        runSaturated(100, BASELINE_RTT * 4);
+
+        assertThat(limiter.limit()).isLessThan(healthy / 2);
+    }
+
+    @Test
+    @DisplayName("Should not raise the limit of an idle route")
+    void shouldNotGrowWhenUnderused() {
+        for (int i = 0; i < 500; i++) {
+            assertThat(limiter.tryAcquire(Priority.NORMAL)).isTrue();
+            limiter.release(BASELINE_RTT);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("Should shed bulk requests first and critical requests last")
+    void shouldAdmitByPriority() {
+        var admitted = 0;
+        while (limiter.tryAcquire(Priority.BULK)) {
+            admitted++;
+        }
+        assertThat(admitted).isEqualTo(12);
+
+        while (limiter.tryAcquire(Priority.NORMAL)) {
+            admitted++;
+        }
+        assertThat(admitted).isEqualTo(18);
+        assertThat(limiter.tryAcquire(Priority.BULK)).isFalse();
+
+        while (limiter.tryAcquire(Priority.CRITICAL)) {
+            admitted++;
+        }
+        assertThat(admitted).isEqualTo(20);
+        assertThat(limiter.inFlight()).isEqualTo(20);
+    }
+
+    /** Keeps the route at its limit, completing one request per sample. */
+    private void runSaturated(int samples, long rttNanos) {
+        for (int i = 0; i < samples; i++) {
+            while (limiter.tryAcquire(Priority.CRITICAL)) {
+                // fill every slot
+            }
+            limiter.release(rttNanos);
+        }
+        while (limiter.inFlight() > 0) {
+            limiter.releaseWithoutSample();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.digitopia.gateway.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+        new ConcurrencyLimitProperties(
+            true,
+            new ConcurrencyLimitProperties.Limits(4, 4, 4),
+            Map.of(),
+            1.5,
+            0.2,
+            Duration.ofSeconds(2),
+            List.of("/api/auth/**"),
+            Set.of("ADMIN"),
+            List.of("/api/users/search")
+        ),
+        meterRegistry
+    );
+    private final Sinks.Empty<Void> downstream = Sinks.empty();
+    private final GatewayFilterChain chain = exchange -> downstream.asMono();
+
+    @Test
+    @DisplayName("Should answer 503 with Retry-After once the route is at its limit")
+    void shouldShedBeyondLimit() {
+        for (int i = 0; i < 3; i++) {
+            filter.filter(exchange(MockServerHttpRequest.get("/api/users/" + i), "user-service"), chain).subscribe();
+        }
+
+        var shed = exchange(MockServerHttpRequest.get("/api/users/9"), "user-service");
+        filter.filter(shed, chain).block();
+
+        assertThat(shed.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(shed.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(meterRegistry.counter("gateway.concurrency.shed", "route", "user-service", "priority", "NORMAL").count())
+            .isEqualTo(1);
+
+        downstream.tryEmitEmpty();
+        assertThat(filter.limiter("user-service").inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should still admit logins and admin requests when normal traffic is shed")
+    void shouldPrioritizeCriticalRequests() {
+        for (int i = 0; i < 3; i++) {
+            filter.filter(exchange(MockServerHttpRequest.get("/api/users/" + i), "user-service"), chain).subscribe();
+        }
+
+        var admin = exchange(MockServerHttpRequest.get("/api/users/9").header("X-User-Role", "ADMIN"), "user-service");
+        filter.filter(admin, chain).subscribe();
+
+        assertThat(admin.getResponse().getStatusCode()).isNull();
+        assertThat(filter.limiter("user-service").inFlight()).isEqualTo(4);
+        assertThat(filter.priority(exchange(MockServerHttpRequest.post("/api/auth/login"), "user-auth").getRequest()))
+            .isEqualTo(Priority.CRITICAL);
+        assertThat(filter.priority(exchange(MockServerHttpRequest.get("/api/users/search"), "user-service").getRequest()))
+            .isEqualTo(Priority.BULK);
+    }
+
+    @Test
+    @DisplayName("Should keep separate limits per route")
+    void shouldLimitPerRoute() {
+        for (int i = 0; i < 3; i++) {
+            filter.filter(exchange(MockServerHttpRequest.get("/api/users/" + i), "user-service"), chain).subscribe();
+        }
+
+        var other = exchange(MockServerHttpRequest.get("/api/organizations/1"), "organization-service");
+        filter.filter(other, chain).subscribe();
+
+        assertThat(other.getResponse().getStatusCode()).isNull();
+        assertThat(filter.limiter("organization-service").inFlight()).isEqualTo(1);
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request, String routeId) {
+        var exchange = MockServerWebExchange.from(request);
+        var route = Route.async().id(routeId).uri("lb://" + routeId).predicate(e -> true).build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+}
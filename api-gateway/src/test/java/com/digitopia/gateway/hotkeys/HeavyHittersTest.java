@@ -0,0 +1,108 @@
+package com.digitopia.gateway.hotkeys;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class HeavyHittersTest {
+
+    private static final long DECAY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    @DisplayName("Should rank hot keys first among a million cold ones in fixed memory")
+    void shouldFindHotKeysInLongTail() {
+        var hitters = new HeavyHitters(10, 8192, 4, DECAY_NANOS, clock::get);
+        var random = new Random(42);
+
+        for (int i = 0; i < 1_000_000; i++) {
+            if (i % 10 == 0) {
+                hitters.record("user:hot-" + random.nextInt(3));
+            } else {
+                hitters.record("ip:10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256));
+            }
+        }
+
+        var top = hitters.top(3);
+        assertThat(top).extracting(HeavyHitter::key)
+            .containsExactlyInAnyOrder("user:hot-0", "user:hot-1", "user:hot-2");
+        assertThat(top).allSatisfy(hitter -> {
+            assertThat(hitter.count()).isBetween(32_500L, 34_500L);
+            assertThat(hitter.share()).isCloseTo(1.0 / 30, within(0.002));
+        });
+        assertThat(hitters.tracked()).isEqualTo(10);
+        assertThat(hitters.memoryBytes()).isEqualTo(8192L * 4 * Long.BYTES);
+    }
+
+    @Test
+    @DisplayName("Should let a key that turns hot displace the weakest tracked key")
+    void shouldAdmitRisingKey() {
+        var hitters = new HeavyHitters(2, 1024, 4, DECAY_NANOS, clock::get);
+
+        record(hitters, "/api/organizations/a", 100);
+        record(hitters, "/api/organizations/b", 50);
+        record(hitters, "/api/organizations/c", 80);
+
+        assertThat(hitters.top(5)).extracting(HeavyHitter::key)
+            .containsExactly("/api/organizations/a", "/api/organizations/c");
+    }
+
+    @Test
+    @DisplayName("Should halve counts every decay interval so that the ranking follows recent traffic")
+    void shouldDecay() {
+        var hitters = new HeavyHitters(2, 1024, 4, DECAY_NANOS, clock::get);
+        record(hitters, "user:old", 1_000);
+
+        for (int interval = 0; interval < 4; interval++) {
+            clock.addAndGet(DECAY_NANOS);
+            record(hitters, "user:new", 200);
+        }
+
+        assertThat(hitters.top(1)).extracting(HeavyHitter::key).containsExactly("user:new");
+        assertThat(hitters.top(2).get(1).count()).isLessThanOrEqualTo(1_000 >> 4);
+        assertThat(hitters.total()).isLessThan(1_000 + 4 * 200);
+    }
+
+    @Test
+    @DisplayName("Should count every occurrence under concurrent recording")
+    void shouldCountConcurrently() throws InterruptedException {
+        var hitters = new HeavyHitters(10, 1024, 4, DECAY_NANOS, clock::get);
+        var threads = 8;
+        var start = new CountDownLatch(1);
+        var pool = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            var own = "user:" + t;
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 10_000; i++) {
+                    hitters.record("user:shared");
+                    hitters.record(own);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        var top = hitters.top(1).get(0);
+        assertThat(top.key()).isEqualTo("user:shared");
+        assertThat(top.count()).isGreaterThanOrEqualTo(80_000);
+        assertThat(hitters.total()).isEqualTo(160_000);
+    }
+
+    private static void record(HeavyHitters hitters, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            hitters.record(key);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.digitopia.gateway.httpclient;
+
+import com.digitopia.gateway.ApiGatewayApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Drives the same concurrent load through a gateway speaking HTTP/1.1 to its instances and one speaking
+ * h2c, against a stub instance that answers after a fixed delay, and compares the connections the
+ * instance accepted and the client-side p99.
+ *
+ * <p>Boots the gateway twice, so it is left out of the default build; run it with
+ * {@code mvn -Pload test}.</p>
+ */
+@Tag("load")
+class DownstreamProtocolLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(DownstreamProtocolLoadTest.class);
+
+    private static final int REQUESTS = 2_000;
+    private static final int CONCURRENCY = 64;
+    private static final int POOL_MAX_CONNECTIONS = 32;
+
+    private static final AtomicInteger connections = new AtomicInteger();
+
+    private static final DisposableServer instance = HttpServer.create()
+        .host("localhost")
+        .port(0)
+        .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+        .doOnChannelInit((observer, channel, remoteAddress) -> connections.incrementAndGet())
+        .handle((request, response) -> Mono.delay(Duration.ofMillis(10))
+            .then(response.status(200)
+                .header("Content-Type", "application/json")
+                .sendString(Mono.just("{\"ok\":true}"))
+                .then()))
+        .bindNow();
+
+    @AfterAll
+    static void stopInstance() {
+        instance.disposeNow();
+    }
+
+    @Test
+    @DisplayName("Should multiplex requests to an instance over a few h2c connections instead of one per request")
+    void shouldUseFewerConnectionsWithH2c() {
+        var http11 = load(false);
+        var h2c = load(true);
+
+        log.info("HTTP/1.1: {} connections, p99 {} ms; h2c: {} connections, p99 {} ms",
+            http11.connections(), http11.p99().toMillis(), h2c.connections(), h2c.p99().toMillis());
+
+        assertThat(http11.failures()).isZero();
+        assertThat(h2c.failures()).isZero();
+        assertThat(http11.connections()).isGreaterThan(CONCURRENCY / 4).isLessThanOrEqualTo(POOL_MAX_CONNECTIONS);
+        assertThat(h2c.connections()).isLessThan(http11.connections()).isLessThanOrEqualTo(4);
+    }
+
+    private Result load(boolean h2c) {
+        connections.set(0);
+        var application = new SpringApplicationBuilder(ApiGatewayApplication.class)
+            .initializers((GenericApplicationContext context) -> context.registerBean(
+                "loadRouteLocator", RouteLocator.class, () -> new RouteLocatorBuilder(context).routes()
+                    .route("load", r -> r.path("/load/**").uri("lb://load-service"))
+                    .build()))
+            .properties(
+                "server.port=0",
+                "management.server.port=0",
+                "eureka.client.enabled=false",
+                "spring.rabbitmq.listener.simple.auto-startup=false",
+                "gateway.membership.enabled=false",
+                "gateway.concurrency-limit.enabled=false",
+                "gateway.rate-limit.default-policy.capacity=10000",
+                "spring.cloud.gateway.httpclient.pool.max-connections=" + POOL_MAX_CONNECTIONS,
+                "spring.cloud.discovery.client.simple.instances.load-service[0].uri=http://localhost:" + instance.port(),
+                "gateway.downstream.h2c=" + h2c
+            );
+
+        try (var gateway = (ReactiveWebServerApplicationContext) application.run()) {
+            var client = WebClient.create("http://localhost:" + gateway.getWebServer().getPort());
+            var latencies = new long[REQUESTS];
+            var failures = new AtomicInteger();
+
+            // One request first, so that h2c has a connection to multiplex onto when the burst arrives.
+            client.get().uri("/load/items/warm-up").retrieve().toBodilessEntity().block(Duration.ofSeconds(10));
+
+            Flux.range(0, REQUESTS)
+                .flatMap(i -> {
+                    var start = System.nanoTime();
+                    return client.get().uri("/load/items/{id}", i)
+                        .retrieve()
+                        .toBodilessEntity()
+                        .doOnSuccess(response -> latencies[i] = System.nanoTime() - start)
+                        .then()
+                        .onErrorResume(e -> {
+                            failures.incrementAndGet();
+                            return Mono.empty();
+                        });
+                }, CONCURRENCY)
+                .blockLast(Duration.ofMinutes(1));
+
+            Arrays.sort(latencies);
+            var p99 = Duration.ofNanos(latencies[(int) Math.ceil(REQUESTS * 0.99) - 1]);
+            return new Result(connections.get(), p99, failures.get());
+        }
+    }
+
+    private record Result(int connections, Duration p99, int failures) {
+    }
+}
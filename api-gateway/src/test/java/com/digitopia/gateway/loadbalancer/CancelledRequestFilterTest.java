@@ -0,0 +1,69 @@
+package com.digitopia.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CancelledRequestFilterTest {
+
+    private final InstanceLoadStats stats = new InstanceLoadStats(Duration.ofMillis(50), Duration.ofSeconds(10), System::nanoTime);
+    private final InstanceLoadLifecycle lifecycle = new InstanceLoadLifecycle(stats);
+    private final InstanceCircuitBreakers breakers = new InstanceCircuitBreakers(
+        new InstanceCircuitBreakerProperties(true, 50, Duration.ofSeconds(2), 80, 20, 10, Duration.ofSeconds(10), 3),
+        new SimpleMeterRegistry()
+    );
+    private final CancelledRequestFilter filter = new CancelledRequestFilter(stats, breakers);
+    private final ServiceInstance instance = new DefaultServiceInstance("user-1", "user-service", "user-1.local", 8081, false);
+    private final DefaultResponse lbResponse = new DefaultResponse(instance);
+    private final DefaultRequest<RequestDataContext> request =
+        new DefaultRequest<>(new RequestDataContext(new RequestData(MockServerHttpRequest.get("/api/users/1").build())));
+
+    @Test
+    @DisplayName("Should end the outstanding request when a routed request is cancelled")
+    void shouldReleaseOnCancel() {
+        var exchange = routedExchange();
+
+        var subscription = filter.filter(exchange, e -> Mono.never()).subscribe();
+        assertThat(stats.get(instance).outstanding()).isEqualTo(1);
+
+        subscription.dispose();
+
+        assertThat(stats.get(instance).outstanding()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should leave completed requests to the load balancer lifecycle")
+    void shouldNotReleaseCompletedRequestTwice() {
+        var exchange = routedExchange();
+
+        filter.filter(exchange, e -> Mono.empty()).block();
+        lifecycle.onComplete(new CompletionContext<ResponseData, ServiceInstance, RequestDataContext>(
+            CompletionContext.Status.SUCCESS, request, lbResponse
+        ));
+
+        assertThat(stats.get(instance).outstanding()).isZero();
+    }
+
+    private MockServerWebExchange routedExchange() {
+        lifecycle.onStartRequest(request, lbResponse);
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, lbResponse);
+        return exchange;
+    }
+}
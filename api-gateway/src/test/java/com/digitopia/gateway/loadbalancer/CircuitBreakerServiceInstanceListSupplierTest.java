@@ -0,0 +1,115 @@
+package com.digitopia.gateway.loadbalancer;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CircuitBreakerServiceInstanceListSupplierTest {
+
+    private static final int PERMITTED_PROBES = 3;
+
+    private final ServiceInstance probed = instance("user-1");
+    private final ServiceInstance healthy = instance("user-2");
+
+    private final InstanceCircuitBreakers breakers = new InstanceCircuitBreakers(
+        new InstanceCircuitBreakerProperties(true, 50, Duration.ofSeconds(2), 80, 20, 10, Duration.ofSeconds(10), PERMITTED_PROBES),
+        new SimpleMeterRegistry()
+    );
+    private final CircuitBreakerServiceInstanceListSupplier supplier = new CircuitBreakerServiceInstanceListSupplier(
+        ServiceInstanceListSuppliers.from("user-service", probed, healthy), breakers
+    );
+
+    @Test
+    @DisplayName("Should let only the permitted probe calls through to a half-open instance")
+    void shouldLimitHalfOpenProbes() {
+        halfOpen(probed);
+
+        for (int i = 0; i < PERMITTED_PROBES; i++) {
+            var request = request();
+            assertThat(supplier.get(request).blockFirst()).containsExactly(probed, healthy);
+            breakers.onStartRequest(request, new DefaultResponse(probed));
+        }
+
+        assertThat(supplier.get(request()).blockFirst()).containsExactly(healthy);
+    }
+
+    @Test
+    @DisplayName("Should hand back the probe permit when the load balancer chooses another instance")
+    void shouldReleaseProbesNotChosen() {
+        halfOpen(probed);
+
+        for (int i = 0; i < PERMITTED_PROBES * 3; i++) {
+            var request = request();
+            assertThat(supplier.get(request).blockFirst()).contains(probed);
+            breakers.onStartRequest(request, new DefaultResponse(healthy));
+        }
+    }
+
+    @Test
+    @DisplayName("Should hand back the probe permit of a cancelled call")
+    void shouldReleaseCancelledProbe() {
+        halfOpen(probed);
+
+        for (int i = 0; i < PERMITTED_PROBES * 3; i++) {
+            var request = request();
+            assertThat(supplier.get(request).blockFirst()).contains(probed);
+            breakers.onStartRequest(request, new DefaultResponse(probed));
+            breakers.onCancel(request.getContext().getClientRequest().getAttributes());
+        }
+    }
+
+    @Test
+    @DisplayName("Should close the breaker once the permitted probes succeed")
+    void shouldCloseAfterSuccessfulProbes() {
+        halfOpen(probed);
+
+        for (int i = 0; i < PERMITTED_PROBES; i++) {
+            var request = request();
+            var response = new DefaultResponse(probed);
+            supplier.get(request).blockFirst();
+            breakers.onStartRequest(request, response);
+            breakers.onComplete(new CompletionContext<ResponseData, ServiceInstance, RequestDataContext>(
+                CompletionContext.Status.SUCCESS, request, response
+            ));
+        }
+
+        assertThat(supplier.get(request()).blockFirst()).containsExactly(probed, healthy);
+        assertThat(breakers.breaker(probed).getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void halfOpen(ServiceInstance instance) {
+        var breaker = breakers.breaker(instance);
+        breaker.transitionToOpenState();
+        breaker.transitionToHalfOpenState();
+    }
+
+    private static DefaultRequest<RequestDataContext> request() {
+        var data = new RequestData(
+            HttpMethod.GET, URI.create("http://gateway/api/users/1"), new HttpHeaders(), new LinkedMultiValueMap<>(), new HashMap<>()
+        );
+        return new DefaultRequest<>(new RequestDataContext(data));
+    }
+
+    private static ServiceInstance instance(String id) {
+        return new DefaultServiceInstance(id, "user-service", id + ".local", 8081, false);
+    }
+}
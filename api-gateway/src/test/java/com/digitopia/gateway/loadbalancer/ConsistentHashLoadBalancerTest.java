@@ -0,0 +1,146 @@
+package com.digitopia.gateway.loadbalancer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ConsistentHashLoadBalancerTest {
+
+    private static final String SERVICE_ID = "user-service";
+    private static final String KEY_PATHS = "/api/users/search, /api/users/{id}/**";
+    private static final ServiceInstance FALLBACK_INSTANCE = instance(99);
+
+    private final InstanceLoadStats stats =
+        new InstanceLoadStats(Duration.ofMillis(50), Duration.ofSeconds(10), System::nanoTime);
+    private final ReactorServiceInstanceLoadBalancer fallback =
+        request -> Mono.just(new DefaultResponse(FALLBACK_INSTANCE));
+    private final List<ServiceInstance> instances = new ArrayList<>(List.of(instance(1), instance(2), instance(3), instance(4)));
+
+    @Test
+    @DisplayName("Should route a user's requests to the same instance by path id or user header")
+    void shouldKeepUserOnOneInstance() {
+        var balancer = balancer(instances);
+
+        var byPath = choose(balancer, "/api/users/42", null);
+        assertThat(choose(balancer, "/api/users/42/organizations", "7")).isEqualTo(byPath);
+        assertThat(choose(balancer, "/api/users/42", "other-user")).isEqualTo(byPath);
+
+        var byHeader = choose(balancer, "/api/users/search", "7");
+        for (int i = 0; i < 20; i++) {
+            assertThat(choose(balancer, "/api/users/search", "7")).isEqualTo(byHeader);
+        }
+    }
+
+    @Test
+    @DisplayName("Should use the fallback balancer when a request has no key")
+    void shouldFallBackWithoutKey() {
+        var balancer = balancer(instances);
+
+        assertThat(choose(balancer, "/api/users/search", null)).isEqualTo(FALLBACK_INSTANCE);
+    }
+
+    @Test
+    @DisplayName("Should spread keys evenly and only move a leaving instance's keys")
+    void shouldOnlyMoveKeysOfRemovedInstance() {
+        var before = owners(balancer(instances), 10_000);
+        var counts = new HashMap<ServiceInstance, Integer>();
+        before.forEach(owner -> counts.merge(owner, 1, Integer::sum));
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(2_000, 3_000));
+
+        var removed = instances.remove(2);
+        var after = owners(balancer(instances), 10_000);
+
+        var moved = 0;
+        for (int i = 0; i < before.size(); i++) {
+            if (!before.get(i).equals(after.get(i))) {
+                assertThat(before.get(i)).isEqualTo(removed);
+                moved++;
+            }
+        }
+        assertThat(moved).isEqualTo(counts.get(removed));
+    }
+
+    @Test
+    @DisplayName("Should spill a hot instance's keys to the next instance until it catches up")
+    void shouldBoundLoad() {
+        var balancer = balancer(instances);
+        var home = choose(balancer, "/api/users/42", null);
+
+        for (int i = 0; i < 10; i++) {
+            stats.get(home).start();
+        }
+        var spilled = choose(balancer, "/api/users/42", null);
+        assertThat(spilled).isNotEqualTo(home);
+        assertThat(choose(balancer, "/api/users/42", null)).isEqualTo(spilled);
+
+        for (int i = 0; i < 10; i++) {
+            stats.get(home).complete(1_000_000, System.nanoTime());
+        }
+        assertThat(choose(balancer, "/api/users/42", null)).isEqualTo(home);
+    }
+
+    private ConsistentHashLoadBalancer balancer(List<ServiceInstance> members) {
+        var suppliers = ServiceInstanceListSuppliers.toProvider(SERVICE_ID, members.toArray(ServiceInstance[]::new));
+        return new ConsistentHashLoadBalancer(suppliers, stats, fallback, 1.25);
+    }
+
+    private static List<ServiceInstance> owners(ConsistentHashLoadBalancer balancer, int keys) {
+        var owners = new ArrayList<ServiceInstance>();
+        for (int i = 0; i < keys; i++) {
+            owners.add(choose(balancer, "/api/users/" + i, null));
+        }
+        return owners;
+    }
+
+    private static ServiceInstance choose(ConsistentHashLoadBalancer balancer, String path, String userId) {
+        return balancer.choose(request(path, userId)).block().getServer();
+    }
+
+    private static Request<RequestDataContext> request(String path, String userId) {
+        var headers = new HttpHeaders();
+        if (userId != null) {
+            headers.set("X-User-Id", userId);
+        }
+        var route = Route.async().id(SERVICE_ID).uri("lb://" + SERVICE_ID).predicate(e -> true)
+            .metadata(Map.of(
+                RouteAwareLoadBalancer.METADATA_KEY, RouteAwareLoadBalancer.CONSISTENT_HASH,
+                ConsistentHashLoadBalancer.HASH_KEY_PATHS_METADATA, KEY_PATHS
+            ))
+            .build();
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        var data = new RequestData(
+            HttpMethod.GET, URI.create("http://gateway" + path), headers, new LinkedMultiValueMap<>(), attributes
+        );
+        return new DefaultRequest<>(new RequestDataContext(data));
+    }
+
+    private static ServiceInstance instance(int index) {
+        return new DefaultServiceInstance(
+            SERVICE_ID + "-" + index, SERVICE_ID, "10.0.0." + index, 8081, false
+        );
+    }
+}
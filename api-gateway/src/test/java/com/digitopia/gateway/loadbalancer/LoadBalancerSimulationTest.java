@@ -0,0 +1,187 @@
+package com.digitopia.gateway.loadbalancer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Discrete-event simulation of three stub user-service instances, one of them stalled, driven
+ * through the real load balancers and {@link InstanceLoadLifecycle} on a virtual clock.
+ */
+class LoadBalancerSimulationTest {
+
+    private static final String SERVICE_ID = "user-service";
+    private static final int WORKERS_PER_INSTANCE = 8;
+    private static final long FAST_MILLIS = 20;
+    private static final long SLOW_MILLIS = 300;
+    private static final long ARRIVAL_INTERVAL_MICROS = 2_000;
+    private static final int REQUESTS = 10_000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final List<ServiceInstance> instances = List.of(
+        instance("user-service-1"), instance("user-service-2"), instance("user-service-slow")
+    );
+
+    @Test
+    @DisplayName("Should cut tail latency compared to round robin when one instance is slow")
+    void shouldImproveTailLatencyWithSlowInstance() {
+        var roundRobin = simulate(stats -> new RoundRobinLoadBalancer(suppliers(), SERVICE_ID));
+        var peakEwma = simulate(stats -> new PeakEwmaLoadBalancer(suppliers(), SERVICE_ID, stats));
+
+        assertThat(peakEwma.p99Millis()).isLessThan(roundRobin.p99Millis() / 5);
+        assertThat(peakEwma.p99Millis()).isLessThan(SLOW_MILLIS);
+        assertThat(peakEwma.share("user-service-slow")).isLessThan(0.05);
+        assertThat(roundRobin.share("user-service-slow")).isGreaterThan(0.3);
+    }
+
+    @Test
+    @DisplayName("Should pick the strategy from the route metadata")
+    void shouldSelectStrategyPerRoute() {
+        var roundRobin = new RoundRobinLoadBalancer(suppliers(), SERVICE_ID);
+        ReactorServiceInstanceLoadBalancer peakEwma = request -> Mono.empty();
+        var balancer = new RouteAwareLoadBalancer(Map.of(
+            RouteAwareLoadBalancer.ROUND_ROBIN, roundRobin,
+            RouteAwareLoadBalancer.PEAK_EWMA, peakEwma
+        ));
+
+        assertThat(RouteAwareLoadBalancer.strategy(request(route(RouteAwareLoadBalancer.PEAK_EWMA))))
+            .isEqualTo(RouteAwareLoadBalancer.PEAK_EWMA);
+        assertThat(RouteAwareLoadBalancer.strategy(request(route(null)))).isNull();
+        assertThat(balancer.choose(request(route(RouteAwareLoadBalancer.PEAK_EWMA))).blockOptional()).isEmpty();
+        assertThat(balancer.choose(request(route(null))).blockOptional()).isPresent();
+        assertThat(balancer.choose(request(route("unknown"))).blockOptional()).isPresent();
+    }
+
+    private Result simulate(Function<InstanceLoadStats, ReactorServiceInstanceLoadBalancer> balancerFactory) {
+        clock.set(TimeUnit.SECONDS.toNanos(1));
+        var stats = new InstanceLoadStats(Duration.ofMillis(50), Duration.ofSeconds(10), clock::get);
+        var lifecycle = new InstanceLoadLifecycle(stats);
+        var balancer = balancerFactory.apply(stats);
+        var completions = new PriorityQueue<Completion>();
+        var workerFreeAt = new HashMap<String, long[]>();
+        instances.forEach(i -> workerFreeAt.put(i.getInstanceId(), new long[WORKERS_PER_INSTANCE]));
+        var latencies = new long[REQUESTS];
+        var served = new HashMap<String, Integer>();
+        var jitter = new Random(42);
+        var route = route(RouteAwareLoadBalancer.PEAK_EWMA);
+
+        for (int i = 0; i < REQUESTS; i++) {
+            var arrival = TimeUnit.SECONDS.toNanos(1) + i * TimeUnit.MICROSECONDS.toNanos(ARRIVAL_INTERVAL_MICROS);
+            while (!completions.isEmpty() && completions.peek().at() <= arrival) {
+                complete(lifecycle, completions.poll());
+            }
+            clock.set(arrival);
+
+            var request = request(route);
+            var response = balancer.choose(request).block();
+            lifecycle.onStartRequest(request, response);
+
+            var instance = response.getServer();
+            var workers = workerFreeAt.get(instance.getInstanceId());
+            var worker = earliest(workers);
+            var serviceMillis = instance.getInstanceId().endsWith("slow") ? SLOW_MILLIS : FAST_MILLIS;
+            var service = (long) (TimeUnit.MILLISECONDS.toNanos(serviceMillis) * (0.9 + 0.2 * jitter.nextDouble()));
+            var finish = Math.max(arrival, workers[worker]) + service;
+            workers[worker] = finish;
+
+            latencies[i] = finish - arrival;
+            served.merge(instance.getInstanceId(), 1, Integer::sum);
+            completions.add(new Completion(finish, request, response));
+        }
+        while (!completions.isEmpty()) {
+            complete(lifecycle, completions.poll());
+        }
+
+        Arrays.sort(latencies);
+        return new Result(latencies[(int) (REQUESTS * 0.99)] / 1_000_000, served);
+    }
+
+    private void complete(InstanceLoadLifecycle lifecycle, Completion completion) {
+        clock.set(completion.at());
+        lifecycle.onComplete(new CompletionContext<ResponseData, ServiceInstance, RequestDataContext>(
+            CompletionContext.Status.SUCCESS, completion.request(), completion.response()
+        ));
+    }
+
+    private static int earliest(long[] workers) {
+        var best = 0;
+        for (int w = 1; w < workers.length; w++) {
+            if (workers[w] < workers[best]) {
+                best = w;
+            }
+        }
+        return best;
+    }
+
+    private ObjectProvider<ServiceInstanceListSupplier> suppliers() {
+        return ServiceInstanceListSuppliers.toProvider(SERVICE_ID, instances.toArray(ServiceInstance[]::new));
+    }
+
+    private static ServiceInstance instance(String id) {
+        return new DefaultServiceInstance(id, SERVICE_ID, id + ".local", 8081, false);
+    }
+
+    private static Route route(String strategy) {
+        Map<String, Object> metadata = strategy == null ? Map.of() : Map.of(RouteAwareLoadBalancer.METADATA_KEY, strategy);
+        return Route.async().id(SERVICE_ID).uri("lb://" + SERVICE_ID).predicate(e -> true).metadata(metadata).build();
+    }
+
+    private static Request<RequestDataContext> request(Route route) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        var data = new RequestData(
+            HttpMethod.GET, URI.create("http://gateway/api/users/1"), new HttpHeaders(), new LinkedMultiValueMap<>(), attributes
+        );
+        return new DefaultRequest<>(new RequestDataContext(data));
+    }
+
+    private record Completion(long at, Request<RequestDataContext> request, Response<ServiceInstance> response)
+        implements Comparable<Completion> {
+
+        @Override
+        public int compareTo(Completion other) {
+            return Long.compare(at, other.at);
+        }
+    }
+
+    private record Result(long p99Millis, Map<String, Integer> served) {
+
+        double share(String instanceId) {
+            return served.getOrDefault(instanceId, 0) / (double) REQUESTS;
+        }
+    }
+}
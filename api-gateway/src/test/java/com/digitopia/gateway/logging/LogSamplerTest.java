@@ -0,0 +1,40 @@
+package com.digitopia.gateway.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LogSamplerTest {
+
+    private final AtomicLong clock = new AtomicLong(5_000_000_000L);
+
+    @Test
+    @DisplayName("Should let the budget through each second and count the rest")
+    void shouldSamplePerSecond() {
+        var sampler = new LogSampler(3, clock::get);
+
+        assertThat(acquired(sampler, 10)).isEqualTo(3);
+        assertThat(sampler.suppressed()).isEqualTo(7);
+        assertThat(sampler.suppressed()).isZero();
+
+        clock.addAndGet(999_000_000L);
+        assertThat(acquired(sampler, 10)).isZero();
+
+        clock.addAndGet(1_000_000L);
+        assertThat(acquired(sampler, 10)).isEqualTo(3);
+        assertThat(sampler.suppressed()).isEqualTo(17);
+    }
+
+    private static int acquired(LogSampler sampler, int attempts) {
+        var acquired = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (sampler.tryAcquire()) {
+                acquired++;
+            }
+        }
+        return acquired;
+    }
+}
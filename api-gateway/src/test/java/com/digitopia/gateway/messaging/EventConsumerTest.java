@@ -0,0 +1,110 @@
+package com.digitopia.gateway.messaging;
+
+import com.digitopia.gateway.cache.ResponseCacheStore;
+import com.digitopia.gateway.security.jwt.RevokedUsers;
+import com.digitopia.gateway.security.membership.MembershipIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class EventConsumerTest {
+
+    private final ResponseCacheStore responseCache = mock(ResponseCacheStore.class);
+    private final MembershipIndex membershipIndex = new MembershipIndex(new SimpleMeterRegistry());
+    private final RevokedUsers revokedUsers = new RevokedUsers(Duration.ofHours(24), 1_000, new SimpleMeterRegistry());
+    private final EventConsumer consumer = new EventConsumer(responseCache, membershipIndex, revokedUsers, new ObjectMapper());
+
+    @Test
+    @DisplayName("Should invalidate cached responses for every id an event carries")
+    void shouldInvalidateIdsFromEvent() {
+        var json = """
+            {
+              "eventId": "e-1",
+              "timestamp": "2024-01-01T10:00:00",
+              "triggeredBy": "admin-1",
+              "organization": {"id": "org-1", "name": "Acme", "registryNumber": "REG-1"},
+              "deletedUserIds": ["user-1", "user-2"]
+            }
+            """;
+        var message = MessageBuilder.withBody(json.getBytes(StandardCharsets.UTF_8))
+            .setReceivedRoutingKey("organization.deleted")
+            .build();
+
+        consumer.handleEvent(message);
+
+        verify(responseCache).invalidate(argThat(ids ->
+            ids.containsAll(Set.of("org-1", "REG-1", "Acme", "user-1", "user-2"))
+                && !ids.contains("e-1") && !ids.contains("admin-1")
+        ));
+    }
+
+    @Test
+    @DisplayName("Should record accepted invitations in the membership index")
+    void shouldIndexAcceptedInvitations() {
+        var userId = UUID.randomUUID();
+        var organizationId = UUID.randomUUID();
+        var json = """
+            {"eventId": "%s", "userId": "%s", "organizationId": "%s", "invitationId": "%s"}
+            """.formatted(UUID.randomUUID(), userId, organizationId, UUID.randomUUID());
+        var message = MessageBuilder.withBody(json.getBytes(StandardCharsets.UTF_8))
+            .setReceivedRoutingKey(RabbitMQConfig.INVITATION_ACCEPTED_KEY)
+            .build();
+
+        consumer.handleEvent(message);
+
+        assertThat(membershipIndex.isMember(userId, organizationId)).isTrue();
+        assertThat(membershipIndex.isMember(userId, UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should revoke deactivated and deleted users and restore reactivated ones")
+    void shouldTrackRevokedUsers() {
+        var deactivated = UUID.randomUUID().toString();
+        var deleted = UUID.randomUUID().toString();
+
+        consumer.handleEvent(userEvent(RabbitMQConfig.USER_UPDATED_KEY, """
+            {"userId": "%s", "fieldName": "status", "oldValue": "ACTIVE", "newValue": "DEACTIVATED"}
+            """.formatted(deactivated)));
+        consumer.handleEvent(userEvent(RabbitMQConfig.USER_DELETED_KEY, """
+            {"userId": "%s", "organizationIds": []}
+            """.formatted(deleted)));
+
+        assertThat(revokedUsers.isRevoked(deactivated)).isTrue();
+        assertThat(revokedUsers.isRevoked(deleted)).isTrue();
+
+        consumer.handleEvent(userEvent(RabbitMQConfig.USER_UPDATED_KEY, """
+            {"userId": "%s", "fieldName": "status", "oldValue": "DEACTIVATED", "newValue": "ACTIVE"}
+            """.formatted(deactivated)));
+
+        assertThat(revokedUsers.isRevoked(deactivated)).isFalse();
+        assertThat(revokedUsers.isRevoked(UUID.randomUUID().toString())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should ignore events that are not JSON")
+    void shouldIgnoreMalformedEvents() {
+        var message = MessageBuilder.withBody("not json".getBytes(StandardCharsets.UTF_8)).build();
+
+        consumer.handleEvent(message);
+
+        verifyNoInteractions(responseCache);
+    }
+
+    private static Message userEvent(String routingKey, String json) {
+        return MessageBuilder.withBody(json.getBytes(StandardCharsets.UTF_8))
+            .setReceivedRoutingKey(routingKey)
+            .build();
+    }
+}
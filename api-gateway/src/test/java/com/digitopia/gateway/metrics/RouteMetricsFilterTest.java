@@ -0,0 +1,97 @@
+package com.digitopia.gateway.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RouteMetricsFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nanos = new AtomicLong();
+    private final RouteMetricsFilter filter = new RouteMetricsFilter(meterRegistry, nanos::get);
+
+    @Test
+    @DisplayName("Should time requests per route, picked instance and outcome")
+    void shouldTimePerRouteAndInstance() {
+        filter.filter(exchange("user-service"), respondWith(HttpStatus.OK)).block();
+        filter.filter(exchange("user-service"), respondWith(HttpStatus.OK)).block();
+        filter.filter(exchange("user-service"), respondWith(HttpStatus.SERVICE_UNAVAILABLE)).block();
+
+        var ok = meterRegistry.get(RouteMetricsFilter.METRIC)
+            .tags("route", "user-service", "instance", "user-1", "outcome", "SUCCESS")
+            .timer();
+        assertThat(ok.count()).isEqualTo(2);
+        assertThat(meterRegistry.get(RouteMetricsFilter.METRIC).tag("outcome", "SERVER_ERROR").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should tag routes the gateway answers itself with no instance")
+    void shouldTagRoutesWithoutInstance() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/me"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route("me"));
+
+        filter.filter(exchange, respondWith(HttpStatus.OK)).block();
+
+        assertThat(meterRegistry.get(RouteMetricsFilter.METRIC).tag("instance", RouteMetricsFilter.NO_INSTANCE)
+            .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reuse registered timers")
+    void shouldReuseTimers() {
+        var first = filter.timer("user-service", "user-1", RouteMetricsFilter.Outcome.SUCCESS);
+
+        assertThat(filter.timer("user-service", "user-1", RouteMetricsFilter.Outcome.SUCCESS)).isSameAs(first);
+        assertThat(filter.timer("user-service", "user-2", RouteMetricsFilter.Outcome.SUCCESS)).isNotSameAs(first);
+    }
+
+    @Test
+    @DisplayName("Should remove the timers of instances that stopped receiving traffic")
+    void shouldRemoveIdleInstanceTimers() {
+        filter.timer("user-service", "user-1", RouteMetricsFilter.Outcome.SUCCESS);
+        filter.timer("user-service", "user-2", RouteMetricsFilter.Outcome.SUCCESS);
+
+        nanos.addAndGet(RouteMetricsFilter.IDLE_INSTANCE_EXPIRY.toNanos() / 2);
+        filter.timer("user-service", "user-2", RouteMetricsFilter.Outcome.SUCCESS);
+        nanos.addAndGet(RouteMetricsFilter.IDLE_INSTANCE_EXPIRY.toNanos() / 2 + 1);
+        filter.expireIdleInstances();
+
+        assertThat(meterRegistry.find(RouteMetricsFilter.METRIC).tag("instance", "user-1").timer()).isNull();
+        assertThat(meterRegistry.find(RouteMetricsFilter.METRIC).tag("instance", "user-2").timer()).isNotNull();
+    }
+
+    private static MockServerWebExchange exchange(String routeId) {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route(routeId));
+        exchange.getAttributes().put(
+            ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR,
+            new DefaultResponse(new DefaultServiceInstance("user-1", routeId, "user-1.local", 8081, false))
+        );
+        return exchange;
+    }
+
+    private static GatewayFilterChain respondWith(HttpStatus status) {
+        return exchange -> {
+            exchange.getResponse().setStatusCode(status);
+            return Mono.empty();
+        };
+    }
+
+    private static Route route(String id) {
+        return Route.async().id(id).uri("lb://" + id).predicate(exchange -> true).build();
+    }
+}
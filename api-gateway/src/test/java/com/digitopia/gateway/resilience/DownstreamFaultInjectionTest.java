@@ -0,0 +1,155 @@
+package com.digitopia.gateway.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs the gateway against local stub instances that hang or fail, to check that timeouts,
+ * budgeted retries and per-instance circuit breakers keep a broken instance from taking the
+ * route down with it.
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "eureka.client.enabled=false",
+        "spring.rabbitmq.listener.simple.auto-startup=false",
+        "gateway.rate-limit.default-policy.capacity=10000",
+        "gateway.circuit-breaker.sliding-window-size=4",
+        "gateway.circuit-breaker.minimum-number-of-calls=4",
+        "gateway.circuit-breaker.wait-duration-in-open-state=60s"
+    }
+)
+class DownstreamFaultInjectionTest {
+
+    private static final AtomicInteger healthyHits = new AtomicInteger();
+    private static final AtomicInteger hangingHits = new AtomicInteger();
+    private static final AtomicInteger failingHits = new AtomicInteger();
+
+    private static final DisposableServer healthy = stub(healthyHits, Mode.OK);
+    private static final DisposableServer hanging = stub(hangingHits, Mode.HANG);
+    private static final DisposableServer failingA = stub(failingHits, Mode.FAIL);
+    private static final DisposableServer failingB = stub(failingHits, Mode.FAIL);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void stubInstances(DynamicPropertyRegistry registry) {
+        var instances = "spring.cloud.discovery.client.simple.instances.";
+        registry.add(instances + "flaky-service[0].uri", () -> "http://localhost:" + healthy.port());
+        registry.add(instances + "flaky-service[1].uri", () -> "http://localhost:" + hanging.port());
+        registry.add(instances + "broken-service[0].uri", () -> "http://localhost:" + failingA.port());
+        registry.add(instances + "broken-service[1].uri", () -> "http://localhost:" + failingB.port());
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        healthy.disposeNow();
+        hanging.disposeNow();
+        failingA.disposeNow();
+        failingB.disposeNow();
+    }
+
+    @Test
+    @DisplayName("Should time out a hanging instance, retry elsewhere and then stop sending it traffic")
+    void shouldIsolateHangingInstance() {
+        for (int i = 0; i < 10; i++) {
+            client().get().uri("/flaky/items/" + i).exchange().expectStatus().isOk();
+        }
+        var hungCalls = hangingHits.get();
+        assertThat(hungCalls).isBetween(1, 4);
+
+        for (int i = 0; i < 10; i++) {
+            client().get().uri("/flaky/items/" + i).exchange().expectStatus().isOk();
+        }
+        assertThat(hangingHits.get()).isEqualTo(hungCalls);
+        assertThat(meterRegistry.counter("gateway.retry.attempts", "route", "flaky").count()).isEqualTo(hungCalls);
+        assertThat(meterRegistry.find("resilience4j.circuitbreaker.state").tag("state", "open").gauges())
+            .anySatisfy(gauge -> assertThat(gauge.value()).isEqualTo(1));
+    }
+
+    @Test
+    @DisplayName("Should fail fast instead of amplifying an outage when every instance fails")
+    void shouldFailFastWhenAllInstancesFail() {
+        for (int i = 0; i < 30; i++) {
+            client().get().uri("/broken/items/" + i).exchange().expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        // Both breakers open after 4 failures each; later requests never reach the instances.
+        assertThat(failingHits.get()).isLessThanOrEqualTo(10);
+    }
+
+    private WebTestClient client() {
+        return WebTestClient.bindToServer()
+            .baseUrl("http://localhost:" + port)
+            .responseTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    private enum Mode { OK, HANG, FAIL }
+
+    private static DisposableServer stub(AtomicInteger hits, Mode mode) {
+        return HttpServer.create()
+            .host("localhost")
+            .port(0)
+            .handle((request, response) -> {
+                hits.incrementAndGet();
+                return switch (mode) {
+                    case OK -> response.status(200).sendString(Mono.just("{\"ok\":true}")).then();
+                    case HANG -> Mono.never();
+                    case FAIL -> response.status(503).send();
+                };
+            })
+            .bindNow();
+    }
+
+    @TestConfiguration
+    static class StubRoutes {
+
+        @Bean
+        RouteLocator stubRouteLocator(RouteLocatorBuilder builder, RetryBudgetFilter retryBudgetFilter) {
+            return builder.routes()
+                .route("flaky", r -> r.path("/flaky/**")
+                    .filters(f -> f.filter(retryBudgetFilter.apply(retryConfig("flaky"))))
+                    .metadata(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, 300)
+                    .uri("lb://flaky-service"))
+                .route("broken", r -> r.path("/broken/**")
+                    .filters(f -> f.filter(retryBudgetFilter.apply(retryConfig("broken"))))
+                    .metadata(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, 300)
+                    .uri("lb://broken-service"))
+                .build();
+        }
+
+        private static RetryBudgetFilter.Config retryConfig(String routeId) {
+            var config = new RetryBudgetFilter.Config();
+            config.setRouteId(routeId);
+            config.setFirstBackoff(Duration.ofMillis(5));
+            return config;
+        }
+    }
+}
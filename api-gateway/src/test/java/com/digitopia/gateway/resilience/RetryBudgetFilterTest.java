@@ -0,0 +1,130 @@
+package com.digitopia.gateway.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RetryBudgetFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RetryBudgetFilter factory = new RetryBudgetFilter(meterRegistry);
+    private final AtomicInteger downstreamCalls = new AtomicInteger();
+
+    @Test
+    @DisplayName("Should retry a GET that failed with a retryable status or connection error")
+    void shouldRetryGet() {
+        var filter = filter(2, 10, 3);
+
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/organizations/1"));
+        filter.filter(exchange, failing(1, HttpStatus.SERVICE_UNAVAILABLE)).block();
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(downstreamCalls.get()).isEqualTo(2);
+
+        downstreamCalls.set(0);
+        GatewayFilterChain refused = ex -> downstreamCalls.incrementAndGet() == 1
+            ? Mono.error(new ConnectException("Connection refused"))
+            : succeed(ex);
+        var second = MockServerWebExchange.from(MockServerHttpRequest.get("/api/organizations/1"));
+        filter.filter(second, refused).block();
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(meterRegistry.counter("gateway.retry.attempts", "route", "organization-service").count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should never retry non-idempotent methods or non-retryable statuses")
+    void shouldNotRetryWrites() {
+        var filter = filter(2, 10, 3);
+
+        var post = MockServerWebExchange.from(MockServerHttpRequest.post("/api/organizations"));
+        filter.filter(post, failing(5, HttpStatus.SERVICE_UNAVAILABLE)).block();
+        var notFound = MockServerWebExchange.from(MockServerHttpRequest.get("/api/organizations/1"));
+        filter.filter(notFound, failing(5, HttpStatus.NOT_FOUND)).block();
+
+        assertThat(post.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(notFound.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(downstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should cap retries at the budget's share of traffic during an outage")
+    void shouldStopRetryingWhenBudgetIsSpent() {
+        var filter = filter(2, 10, 1);
+
+        for (int i = 0; i < 200; i++) {
+            var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/organizations/" + i));
+            filter.filter(exchange, failing(Integer.MAX_VALUE, HttpStatus.SERVICE_UNAVAILABLE)).block();
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        // 200 requests, 10% budget, 1 retry per second over a 10 second window as floor
+        assertThat(downstreamCalls.get()).isLessThanOrEqualTo(200 + 20 + 10);
+        assertThat(meterRegistry.counter("gateway.retry.budget-exhausted", "route", "organization-service").count())
+            .isPositive();
+    }
+
+    @Test
+    @DisplayName("Should restore the budget once failed retries leave the window")
+    void shouldSlideBudgetWindow() {
+        var clock = new AtomicLong();
+        var budget = new RetryBudget(0.1, 0, Duration.ofSeconds(10), clock::get);
+
+        for (int i = 0; i < 50; i++) {
+            budget.recordRequest();
+        }
+        var granted = 0;
+        while (budget.tryRetry()) {
+            granted++;
+        }
+        assertThat(granted).isEqualTo(5);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        assertThat(budget.tryRetry()).isFalse();
+        for (int i = 0; i < 10; i++) {
+            budget.recordRequest();
+        }
+        assertThat(budget.tryRetry()).isTrue();
+    }
+
+    private GatewayFilter filter(int retries, double budgetPercent, int minRetriesPerSecond) {
+        var config = new RetryBudgetFilter.Config();
+        config.setRouteId("organization-service");
+        config.setRetries(retries);
+        config.setBudgetPercent(budgetPercent);
+        config.setMinRetriesPerSecond(minRetriesPerSecond);
+        config.setFirstBackoff(Duration.ofMillis(1));
+        return factory.apply(config);
+    }
+
+    /** Answers with {@code status} for the first {@code failures} calls of an exchange, then 200. */
+    private GatewayFilterChain failing(int failures, HttpStatus status) {
+        var calls = new AtomicInteger();
+        return exchange -> {
+            downstreamCalls.incrementAndGet();
+            if (calls.incrementAndGet() <= failures) {
+                exchange.getResponse().setStatusCode(status);
+                return Mono.empty();
+            }
+            return succeed(exchange);
+        };
+    }
+
+    private static Mono<Void> succeed(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+        return Mono.empty();
+    }
+}
@@ -0,0 +1,77 @@
+package com.digitopia.gateway.security.jwt;
+
+import com.digitopia.common.security.InternalApiSecret;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RevokedUsersBootstrapTest {
+
+    private final RevokedUsers revokedUsers = new RevokedUsers(Duration.ofHours(24), 1_000, new SimpleMeterRegistry());
+    private final AtomicReference<ClientRequest> sent = new AtomicReference<>();
+
+    @Test
+    @DisplayName("Should ask for revocations since an instant and restore users missing from the load")
+    void shouldRestoreReactivatedUsers() {
+        var reactivated = UUID.randomUUID().toString();
+        var stillRevoked = UUID.randomUUID().toString();
+        var revokedMeanwhile = UUID.randomUUID().toString();
+        revokedUsers.revoke(reactivated);
+        revokedUsers.revoke(stillRevoked);
+
+        var loaded = bootstrap(stillRevoked, revokedMeanwhile).load().block();
+
+        assertThat(loaded).isEqualTo(2);
+        assertThat(revokedUsers.isRevoked(reactivated)).isFalse();
+        assertThat(revokedUsers.isRevoked(stillRevoked)).isTrue();
+        assertThat(revokedUsers.isRevoked(revokedMeanwhile)).isTrue();
+
+        var request = sent.get();
+        assertThat(request.headers().getFirst(InternalApiSecret.HEADER)).isEqualTo("internal-secret");
+        var since = Instant.parse(request.url().getQuery().substring("since=".length()));
+        assertThat(since).isBetween(
+            Instant.now().minus(Duration.ofHours(24)).minus(Duration.ofMinutes(2)),
+            Instant.now().minus(Duration.ofHours(24))
+        );
+    }
+
+    private RevokedUsersBootstrap bootstrap(String... revokedUserIds) {
+        ExchangeFunction userService = request -> {
+            sent.set(request);
+            var body = new StringBuilder("[");
+            for (int i = 0; i < revokedUserIds.length; i++) {
+                body.append(i == 0 ? "" : ",").append('"').append(revokedUserIds[i]).append('"');
+            }
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body.append(']').toString())
+                .build());
+        };
+        var loadBalancer = mock(ReactorLoadBalancerExchangeFilterFunction.class);
+        when(loadBalancer.filter(any(), any()))
+            .thenAnswer(invocation -> invocation.<ExchangeFunction>getArgument(1).exchange(invocation.getArgument(0)));
+
+        return new RevokedUsersBootstrap(
+            revokedUsers, Duration.ofHours(24), Duration.ofMinutes(5), "http://user-service", "internal-secret",
+            WebClient.builder().exchangeFunction(userService), loadBalancer
+        );
+    }
+}
@@ -0,0 +1,103 @@
+package com.digitopia.gateway.security.membership;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrganizationMembershipFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MembershipIndex index = new MembershipIndex(meterRegistry);
+    private final GatewayFilter filter = filter();
+
+    private final AtomicInteger forwarded = new AtomicInteger();
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.incrementAndGet();
+        return Mono.empty();
+    };
+
+    private final UUID member = UUID.randomUUID();
+    private final UUID organization = UUID.randomUUID();
+
+    @Test
+    @DisplayName("Should forward members and reject everyone else with 403")
+    void shouldEnforceMembership() {
+        index.add(member, organization);
+        index.add(member, UUID.randomUUID());
+        index.markReady();
+
+        var allowed = exchange("/api/organizations/" + organization + "/users", member, "USER");
+        var rejected = exchange("/api/organizations/" + organization + "/users", UUID.randomUUID(), "MANAGER");
+        filter.filter(allowed, chain).block();
+        filter.filter(rejected, chain).block();
+
+        assertThat(allowed.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(forwarded).hasValue(1);
+        assertThat(meterRegistry.counter("gateway.membership.checks", "outcome", "denied").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should let admins, unmatched paths and requests before the index is loaded through")
+    void shouldPassUncheckedRequests() {
+        var outsider = UUID.randomUUID();
+
+        filter.filter(exchange("/api/organizations/" + organization + "/users", outsider, "USER"), chain).block();
+        index.markReady();
+        filter.filter(exchange("/api/organizations/" + organization + "/users", outsider, "ADMIN"), chain).block();
+        filter.filter(exchange("/api/organizations/" + organization, outsider, "USER"), chain).block();
+        filter.filter(exchange("/api/organizations/not-a-uuid/users", outsider, "USER"), chain).block();
+
+        assertThat(forwarded).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("Should add each membership once")
+    void shouldDeduplicateMemberships() {
+        index.add(member, organization);
+        index.add(member, organization);
+
+        assertThat(index.isMember(member, organization)).isTrue();
+        assertThat(index.users()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should drop removed members on the next full load and keep events applied during it")
+    void shouldReplaceIndexOnFullLoad() {
+        var joinedDuringLoad = UUID.randomUUID();
+        index.add(member, organization);
+
+        index.startLoad();
+        index.add(joinedDuringLoad, organization);
+        assertThat(index.isMember(member, organization)).isTrue();
+        index.finishLoad();
+
+        assertThat(index.isMember(member, organization)).isFalse();
+        assertThat(index.isMember(joinedDuringLoad, organization)).isTrue();
+        assertThat(index.isReady()).isTrue();
+    }
+
+    private GatewayFilter filter() {
+        var config = new OrganizationMembershipFilter.Config();
+        config.setPaths(List.of("/api/organizations/{organizationId}/users"));
+        return new OrganizationMembershipFilter(index, meterRegistry).apply(config);
+    }
+
+    private static MockServerWebExchange exchange(String path, UUID userId, String role) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path)
+            .header("X-User-Id", userId.toString())
+            .header("X-User-Role", role));
+    }
+}
@@ -0,0 +1,152 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ClusterRateLimiterTest {
+
+    private static final long CAPACITY = 50;
+    private static final long REFILL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final String KEY = "user:42";
+    private static final long KEY_HASH = RateLimitBucketTable.hash(0, KEY);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final InMemoryTokenLeaseSource source = new InMemoryTokenLeaseSource(clock::get);
+
+    @Test
+    @DisplayName("Should enforce one limit across all gateway replicas")
+    void shouldShareLimitAcrossReplicas() {
+        var replicas = new ArrayList<ClusterRateLimiter>();
+        for (int i = 0; i < 4; i++) {
+            replicas.add(newLimiter(5, Duration.ofMillis(200)));
+        }
+
+        var allowed = 0;
+        for (int i = 0; i < 100; i++) {
+            for (var replica : replicas) {
+                if (consume(replica, 1) != RateLimitBucketTable.REJECTED) {
+                    allowed++;
+                }
+            }
+        }
+
+        assertThat(allowed).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    @DisplayName("Should serve requests from the local lease and only go back to the store when it runs dry")
+    void shouldServeFromLocalLease() {
+        var limiter = newLimiter(10, Duration.ofMillis(200));
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(consume(limiter, 1)).isNotEqualTo(RateLimitBucketTable.REJECTED);
+        }
+
+        assertThat(source.leaseCalls()).isEqualTo(5);
+        assertThat(consume(limiter, 1)).isEqualTo(RateLimitBucketTable.REJECTED);
+    }
+
+    @Test
+    @DisplayName("Should fall back to local limits while the store is slow")
+    void shouldDegradeToLocalLimitsWhenStoreIsSlow() {
+        var limiter = newLimiter(5, Duration.ofMillis(20));
+        source.setLatency(Duration.ofMillis(500));
+
+        var allowed = 0;
+        for (int i = 0; i < 60; i++) {
+            if (consume(limiter, 1) != RateLimitBucketTable.REJECTED) {
+                allowed++;
+            }
+        }
+
+        assertThat(limiter.isDegraded()).isTrue();
+        assertThat(source.leaseCalls()).isEqualTo(1);
+        assertThat(allowed).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    @DisplayName("Should hand back tokens the store grants after the timeout")
+    void shouldReleaseLateGrant() throws InterruptedException {
+        var limiter = newLimiter(5, Duration.ofMillis(20));
+        source.setLatency(Duration.ofMillis(100));
+
+        consume(limiter, 1);
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (source.released() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(limiter.isDegraded()).isTrue();
+        assertThat(source.released()).isEqualTo(5);
+        assertThat(source.tokens(KEY)).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    @DisplayName("Should not hand back a grant already spent when the request is cancelled afterwards")
+    void shouldNotReleaseSpentGrantOnCancel() {
+        var limiter = newLimiter(5, Duration.ofMillis(200));
+        var remaining = new AtomicLong(-1);
+
+        limiter.tryConsume(KEY, KEY_HASH, CAPACITY, REFILL_MILLIS, 1).subscribe(new BaseSubscriber<>() {
+            @Override
+            protected void hookOnNext(Long value) {
+                remaining.set(value);
+                cancel();
+            }
+        });
+
+        assertThat(remaining.get()).isEqualTo(4);
+        assertThat(source.released()).isZero();
+        assertThat(source.tokens(KEY)).isEqualTo(CAPACITY - 5);
+        assertThat(consume(limiter, 1)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should go back to the store once the cooldown has passed")
+    void shouldRecoverAfterCooldown() {
+        var limiter = newLimiter(5, Duration.ofMillis(20));
+        source.setLatency(Duration.ofMillis(500));
+        consume(limiter, 1);
+
+        source.setLatency(Duration.ZERO);
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(11));
+
+        assertThat(consume(limiter, 1)).isEqualTo(4);
+        assertThat(limiter.isDegraded()).isFalse();
+        assertThat(source.leaseCalls()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should return unused leased tokens when a lease expires")
+    void shouldReturnUnusedTokensOnExpiry() {
+        var limiter = newLimiter(10, Duration.ofMillis(200));
+        consume(limiter, 1);
+        assertThat(source.tokens(KEY)).isEqualTo(CAPACITY - 10);
+
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(6));
+        limiter.expireLeases();
+
+        assertThat(source.tokens(KEY)).isGreaterThanOrEqualTo(CAPACITY - 1);
+    }
+
+    private ClusterRateLimiter newLimiter(long leaseSize, Duration timeout) {
+        var fallback = new RateLimitBucketTable(1024, REFILL_MILLIS, clock::get);
+        return new ClusterRateLimiter(
+            source, fallback, leaseSize, Duration.ofSeconds(5), timeout, Duration.ofSeconds(10),
+            clock::get, new SimpleMeterRegistry()
+        );
+    }
+
+    private long consume(ClusterRateLimiter limiter, long cost) {
+        return limiter.tryConsume(KEY, KEY_HASH, CAPACITY, REFILL_MILLIS, cost).block();
+    }
+}
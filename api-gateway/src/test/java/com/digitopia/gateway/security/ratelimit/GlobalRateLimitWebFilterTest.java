@@ -0,0 +1,119 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import com.digitopia.common.security.JwtCodec;
+import com.digitopia.gateway.hotkeys.HeavyHitters;
+import com.digitopia.gateway.hotkeys.HotKeys;
+import com.digitopia.gateway.security.InternalCallSecret;
+import com.digitopia.gateway.security.jwt.BearerTokens;
+import com.digitopia.gateway.security.jwt.JwtTokenProvider;
+import com.digitopia.gateway.security.jwt.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GlobalRateLimitWebFilterTest {
+
+    private static final String SECRET = "digitopia-secret-key-for-jwt-token-min-32-characters-required";
+    private static final String PATH = "/api/organizations/42";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtCodec codec = new JwtCodec(SECRET.getBytes(StandardCharsets.UTF_8));
+    private final GlobalRateLimitWebFilter filter = filter();
+
+    @Test
+    @DisplayName("Should key and pick the policy from the bearer token, not from X-User-* headers")
+    void shouldTrustOnlyTheToken() {
+        var token = token("user-1", "ADMIN");
+
+        var first = exchange("10.0.0.1", token, "someone-else", "USER");
+        var second = exchange("10.0.0.2", token, null, null);
+
+        assertThat(remaining(first)).isEqualTo("9");
+        assertThat(remaining(second)).isEqualTo("8");
+    }
+
+    @Test
+    @DisplayName("Should limit requests without a valid token per IP under the policy for no role")
+    void shouldIgnoreForgedHeadersWithoutToken() {
+        for (int i = 0; i < 2; i++) {
+            assertThat(remaining(exchange("10.0.0.1", null, "user-" + i, "ADMIN"))).isEqualTo(String.valueOf(1 - i));
+        }
+
+        var forged = exchange("10.0.0.1", "not-a-token", "user-9", "ADMIN");
+        filter(forged);
+        assertThat(forged.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        assertThat(remaining(exchange("10.0.0.2", null, "user-0", "ADMIN"))).isEqualTo("1");
+    }
+
+    private String remaining(MockServerWebExchange exchange) {
+        filter(exchange);
+        return exchange.getResponse().getHeaders().getFirst("X-RateLimit-Remaining");
+    }
+
+    private void filter(MockServerWebExchange exchange) {
+        filter.filter(exchange, e -> Mono.empty()).block();
+    }
+
+    private String token(String subject, String role) {
+        var now = System.currentTimeMillis() / 1000;
+        return codec.sign(subject, subject + "@digitopia.test", role, now, now + 60);
+    }
+
+    private static MockServerWebExchange exchange(String ip, String token, String userId, String role) {
+        var request = MockServerHttpRequest.get(PATH).remoteAddress(new InetSocketAddress(ip, 40_000));
+        if (token != null) {
+            request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        if (userId != null) {
+            request.header("X-User-Id", userId);
+        }
+        if (role != null) {
+            request.header("X-User-Role", role);
+        }
+        return MockServerWebExchange.from(request);
+    }
+
+    private GlobalRateLimitWebFilter filter() {
+        var route = new RouteDefinition();
+        route.setId("organization-service");
+        route.setPredicates(List.of(new PredicateDefinition("Path=/api/organizations/**")));
+        var policies = RateLimitPolicies.compile(new RateLimitProperties(
+            1024,
+            Duration.ofMinutes(2),
+            new RateLimitProperties.Policy(null, null, 50, Duration.ofHours(1), 1, Map.of()),
+            List.of(
+                new RateLimitProperties.Policy("organization-service", null, 2, Duration.ofHours(1), 1, Map.of()),
+                new RateLimitProperties.Policy("organization-service", "ADMIN", 10, Duration.ofHours(1), 1, Map.of())
+            )
+        ), List.of(route));
+        var rateLimiter = new GatewayRateLimiter(
+            new RateLimitBucketTable(1024, Duration.ofMinutes(2).toMillis(), () -> System.nanoTime() / 1_000_000),
+            policies,
+            new StaticListableBeanFactory().getBeanProvider(ClusterRateLimiter.class)
+        );
+        var bearerTokens = new BearerTokens(new JwtTokenProvider(SECRET), new VerifiedTokenCache(1024, meterRegistry));
+        var hotKeys = new HotKeys(true, heavyHitters(), heavyHitters());
+        return new GlobalRateLimitWebFilter(rateLimiter, bearerTokens, new InternalCallSecret(), hotKeys, meterRegistry);
+    }
+
+    private static HeavyHitters heavyHitters() {
+        return new HeavyHitters(10, 1024, 4, Duration.ofMinutes(1).toNanos(), System::nanoTime);
+    }
+}
@@ -0,0 +1,76 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Stand-in for the Redis lease store: the same refill and lease arithmetic as
+ * {@code token_lease.lua}, with an optional artificial latency.
+ */
+class InMemoryTokenLeaseSource implements TokenLeaseSource {
+
+    private final Map<String, double[]> buckets = new HashMap<>();
+    private final LongSupplier clockMillis;
+    private final AtomicInteger leaseCalls = new AtomicInteger();
+    private final AtomicLong released = new AtomicLong();
+    private volatile Duration latency = Duration.ZERO;
+
+    InMemoryTokenLeaseSource(LongSupplier clockMillis) {
+        this.clockMillis = clockMillis;
+    }
+
+    @Override
+    public Mono<Long> lease(String key, long capacity, long refillPeriodMillis, long requested) {
+        leaseCalls.incrementAndGet();
+        var result = Mono.fromSupplier(() -> {
+            synchronized (buckets) {
+                var now = clockMillis.getAsLong();
+                var state = buckets.computeIfAbsent(key, k -> new double[] {capacity, now});
+                var elapsed = Math.max(0, now - state[1]);
+                var tokens = Math.min(capacity, state[0] + elapsed * capacity / refillPeriodMillis);
+                var granted = Math.min(requested, (long) Math.floor(tokens));
+                state[0] = tokens - granted;
+                state[1] = now;
+                return granted;
+            }
+        });
+        return latency.isZero() ? result : result.delaySubscription(latency);
+    }
+
+    @Override
+    public Mono<Void> release(String key, long capacity, long tokens) {
+        return Mono.fromRunnable(() -> {
+            released.addAndGet(tokens);
+            synchronized (buckets) {
+                var state = buckets.get(key);
+                if (state != null) {
+                    state[0] = Math.min(capacity, state[0] + tokens);
+                }
+            }
+        });
+    }
+
+    double tokens(String key) {
+        synchronized (buckets) {
+            return buckets.get(key)[0];
+        }
+    }
+
+    long released() {
+        return released.get();
+    }
+
+    int leaseCalls() {
+        return leaseCalls.get();
+    }
+
+    void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+}
@@ -0,0 +1,140 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RateLimitBucketTableTest {
+
+    private static final long CAPACITY = 50;
+    private static final long REFILL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @Test
+    @DisplayName("Should allow up to capacity and then reject")
+    void shouldRejectWhenBucketIsEmpty() {
+        var table = new RateLimitBucketTable(1024, REFILL_MILLIS, clock::get);
+        var key = RateLimitBucketTable.hash(0, "ip:10.0.0.1");
+
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(table.tryConsume(key, CAPACITY, REFILL_MILLIS, 1)).isEqualTo(CAPACITY - 1 - i);
+        }
+
+        assertThat(table.tryConsume(key, CAPACITY, REFILL_MILLIS, 1)).isEqualTo(RateLimitBucketTable.REJECTED);
+    }
+
+    @Test
+    @DisplayName("Should refill tokens greedily over time")
+    void shouldRefillGreedily() {
+        var table = new RateLimitBucketTable(1024, REFILL_MILLIS, clock::get);
+        var key = RateLimitBucketTable.hash(0, "user:42");
+
+        for (int i = 0; i < CAPACITY; i++) {
+            table.tryConsume(key, CAPACITY, REFILL_MILLIS, 1);
+        }
+
+        clock.addAndGet(REFILL_MILLIS / CAPACITY * 5);
+        for (int i = 0; i < 5; i++) {
+            assertThat(table.tryConsume(key, CAPACITY, REFILL_MILLIS, 1)).isNotEqualTo(RateLimitBucketTable.REJECTED);
+        }
+        assertThat(table.tryConsume(key, CAPACITY, REFILL_MILLIS, 1)).isEqualTo(RateLimitBucketTable.REJECTED);
+
+        clock.addAndGet(REFILL_MILLIS * 10);
+        assertThat(table.tryConsume(key, CAPACITY, REFILL_MILLIS, 1)).isEqualTo(CAPACITY - 1);
+    }
+
+    @Test
+    @DisplayName("Should charge request cost against the bucket")
+    void shouldChargeCost() {
+        var table = new RateLimitBucketTable(1024, REFILL_MILLIS, clock::get);
+        var key = RateLimitBucketTable.hash(0, "ip:10.0.0.2");
+
+        assertThat(table.tryConsume(key, CAPACITY, REFILL_MILLIS, 20)).isEqualTo(30);
+        assertThat(table.tryConsume(key, CAPACITY, REFILL_MILLIS, 20)).isEqualTo(10);
+        assertThat(table.tryConsume(key, CAPACITY, REFILL_MILLIS, 20)).isEqualTo(RateLimitBucketTable.REJECTED);
+    }
+
+    @Test
+    @DisplayName("Should never grant more than capacity to a contended key")
+    void shouldGrantExactlyCapacityUnderContention() throws InterruptedException {
+        var table = new RateLimitBucketTable(1024, REFILL_MILLIS, clock::get);
+        var key = RateLimitBucketTable.hash(0, "user:contended");
+        var allowed = new AtomicInteger();
+        var threads = 8;
+        var start = new CountDownLatch(1);
+        var pool = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1_000; i++) {
+                    if (table.tryConsume(key, CAPACITY, REFILL_MILLIS, 1) != RateLimitBucketTable.REJECTED) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(allowed.get()).isEqualTo(CAPACITY);
+        assertThat(table.entries()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep memory flat when flooded with a million distinct IPs")
+    void shouldStayBoundedUnderIpFlood() {
+        var table = new RateLimitBucketTable(65_536, REFILL_MILLIS, clock::get);
+        var bytesBefore = table.memoryBytes();
+        var heapBefore = usedHeapAfterGc();
+
+        for (int i = 0; i < 1_000_000; i++) {
+            var ip = "ip:10." + (i >>> 16 & 0xff) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff) + "/" + (i >>> 24);
+            assertThat(table.tryConsume(RateLimitBucketTable.hash(0, ip), CAPACITY, REFILL_MILLIS, 1))
+                .isEqualTo(CAPACITY - 1);
+            clock.incrementAndGet();
+        }
+
+        var heapGrowth = usedHeapAfterGc() - heapBefore;
+
+        assertThat(table.memoryBytes()).isEqualTo(bytesBefore);
+        assertThat(table.entries()).isLessThanOrEqualTo(table.slots());
+        assertThat(table.evictions()).isGreaterThanOrEqualTo(1_000_000 - table.slots());
+        assertThat(heapGrowth).isLessThan(16L * 1024 * 1024);
+    }
+
+    @Test
+    @DisplayName("Should give an evicted idle key a full bucket again")
+    void shouldReuseIdleSlotsWithoutPenalty() {
+        var table = new RateLimitBucketTable(8, REFILL_MILLIS, clock::get);
+        var first = RateLimitBucketTable.hash(0, "ip:first");
+        table.tryConsume(first, CAPACITY, REFILL_MILLIS, 10);
+
+        clock.addAndGet(REFILL_MILLIS);
+        for (int i = 0; i < 8; i++) {
+            table.tryConsume(RateLimitBucketTable.hash(0, "ip:other-" + i), CAPACITY, REFILL_MILLIS, 1);
+        }
+
+        assertThat(table.entries()).isEqualTo(8);
+        assertThat(table.tryConsume(first, CAPACITY, REFILL_MILLIS, 1)).isEqualTo(CAPACITY - 1);
+    }
+
+    private static long usedHeapAfterGc() {
+        var memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,142 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.HttpMethod;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RateLimitPoliciesTest {
+
+    private static final List<RouteDefinition> ROUTES = List.of(
+        route("user-auth", "/api/auth/**"),
+        route("user-service", "/api/users/**"),
+        route("organization-service", "/api/organizations/**"),
+        route("invitation-service", "/api/invitations/{id}/accept")
+    );
+
+    @Test
+    @DisplayName("Should resolve the policy of the route matching the path")
+    void shouldResolveByRoute() {
+        var policies = compile(List.of(
+            policy("user-auth", null, 20, Map.of("POST", 10L)),
+            policy("organization-service", null, 100, Map.of())
+        ));
+
+        var login = policies.resolve("/api/auth/login", null);
+        assertThat(login.id()).isEqualTo("user-auth/*");
+        assertThat(login.capacity()).isEqualTo(20);
+        assertThat(login.cost(HttpMethod.POST)).isEqualTo(10);
+        assertThat(login.cost(HttpMethod.GET)).isEqualTo(1);
+
+        assertThat(policies.resolve("/api/organizations/42", "USER").capacity()).isEqualTo(100);
+        assertThat(policies.resolve("/api/organizations", null).capacity()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should prefer a role specific policy and fall back to the route policy")
+    void shouldResolveByRole() {
+        var policies = compile(List.of(
+            policy("organization-service", null, 100, Map.of()),
+            policy("organization-service", "ADMIN", 300, Map.of())
+        ));
+
+        assertThat(policies.resolve("/api/organizations/1", "ADMIN").capacity()).isEqualTo(300);
+        assertThat(policies.resolve("/api/organizations/1", "MANAGER").capacity()).isEqualTo(100);
+        assertThat(policies.resolve("/api/organizations/1", null).capacity()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should use the default policy for unmatched paths and routes without a policy")
+    void shouldFallBackToDefaultPolicy() {
+        var policies = compile(List.of(policy("user-auth", null, 20, Map.of())));
+
+        assertThat(policies.resolve("/api/unknown", null).id()).isEqualTo("default");
+        assertThat(policies.resolve("/api/users/1", "ADMIN").id()).isEqualTo("default");
+        assertThat(policies.resolve("/api/authx", null).id()).isEqualTo("default");
+    }
+
+    @Test
+    @DisplayName("Should match non-prefix path patterns")
+    void shouldMatchPathPatterns() {
+        var policies = compile(List.of(policy("invitation-service", null, 10, Map.of())));
+
+        assertThat(policies.resolve("/api/invitations/7/accept", null).capacity()).isEqualTo(10);
+        assertThat(policies.resolve("/api/invitations/7/reject", null).id()).isEqualTo("default");
+    }
+
+    @Test
+    @DisplayName("Should give each policy its own bucket seed")
+    void shouldSeedPoliciesApart() {
+        var policies = compile(List.of(
+            policy("user-auth", null, 20, Map.of()),
+            policy("user-service", null, 20, Map.of())
+        ));
+
+        assertThat(policies.resolve("/api/auth/login", null).seed())
+            .isNotEqualTo(policies.resolve("/api/users/1", null).seed());
+    }
+
+    @Test
+    @DisplayName("Should reject policies for unknown routes or oversized buckets at startup")
+    void shouldValidatePolicies() {
+        assertThatThrownBy(() -> compile(List.of(policy("billing-service", null, 20, Map.of()))))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("billing-service");
+        assertThatThrownBy(() -> compile(List.of(policy("user-auth", null, 1_000_000, Map.of()))))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("capacity");
+    }
+
+    @Test
+    @DisplayName("Should resolve policies without allocating")
+    void shouldResolveWithoutAllocating() {
+        var policies = compile(List.of(
+            policy("user-auth", null, 20, Map.of("POST", 10L)),
+            policy("organization-service", null, 100, Map.of()),
+            policy("organization-service", "ADMIN", 300, Map.of())
+        ));
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var path = "/api/organizations/42/members";
+        var role = "ADMIN";
+
+        long sink = 0;
+        for (int i = 0; i < 200_000; i++) {
+            sink += policies.resolve(path, role).cost(HttpMethod.GET);
+        }
+
+        var before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 200_000; i++) {
+            sink += policies.resolve(path, role).cost(HttpMethod.GET);
+        }
+        var allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(sink).isEqualTo(400_000);
+        assertThat(allocated).isLessThan(64 * 1024);
+    }
+
+    private static RateLimitPolicies compile(List<RateLimitProperties.Policy> policies) {
+        var properties = new RateLimitProperties(
+            1024, Duration.ofMinutes(2), policy(null, null, 50, Map.of()), policies
+        );
+        return RateLimitPolicies.compile(properties, ROUTES);
+    }
+
+    private static RateLimitProperties.Policy policy(String route, String role, long capacity, Map<String, Long> costs) {
+        return new RateLimitProperties.Policy(route, role, capacity, Duration.ofMinutes(1), 1, costs);
+    }
+
+    private static RouteDefinition route(String id, String path) {
+        var route = new RouteDefinition();
+        route.setId(id);
+        route.setPredicates(List.of(new PredicateDefinition("Path=" + path)));
+        return route;
+    }
+}
@@ -0,0 +1,95 @@
+package com.digitopia.gateway.security.ratelimit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs {@code token_lease.lua} and {@code token_release.lua} against a real Redis.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisTokenLeaseSourceTest {
+
+    private static final long CAPACITY = 10;
+    private static final long REFILL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final String KEY = "user:42";
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static ReactiveStringRedisTemplate redisTemplate;
+
+    private final RedisTokenLeaseSource source = new RedisTokenLeaseSource(redisTemplate);
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void flush() {
+        connectionFactory.getConnection().serverCommands().flushAll();
+    }
+
+    @Test
+    @DisplayName("Should grant from a full bucket until it is empty")
+    void shouldGrantUntilEmpty() {
+        assertThat(lease(4)).isEqualTo(4);
+        assertThat(lease(4)).isEqualTo(4);
+        assertThat(lease(4)).isEqualTo(2);
+        assertThat(lease(4)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep the bucket with a TTL of two refill periods")
+    void shouldExpireBucket() {
+        lease(1);
+
+        var ttl = redisTemplate.getExpire("gateway:rate-limit:" + KEY).block();
+        assertThat(ttl).isPositive().isLessThanOrEqualTo(Duration.ofMillis(REFILL_MILLIS * 2));
+    }
+
+    @Test
+    @DisplayName("Should take released tokens back, up to capacity")
+    void shouldReleaseUpToCapacity() {
+        lease(CAPACITY);
+
+        source.release(KEY, CAPACITY, 3).block();
+        assertThat(lease(CAPACITY)).isEqualTo(3);
+
+        source.release(KEY, CAPACITY, CAPACITY * 2).block();
+        assertThat(lease(CAPACITY * 2)).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    @DisplayName("Should leave an expired bucket alone on release")
+    void shouldNotCreateBucketOnRelease() {
+        source.release(KEY, CAPACITY, 3).block();
+
+        assertThat(redisTemplate.hasKey("gateway:rate-limit:" + KEY).block()).isFalse();
+    }
+
+    private long lease(long requested) {
+        return source.lease(KEY, CAPACITY, REFILL_MILLIS, requested).block();
+    }
+}
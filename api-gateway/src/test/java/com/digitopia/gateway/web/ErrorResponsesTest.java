@@ -0,0 +1,30 @@
+package com.digitopia.gateway.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ErrorResponsesTest {
+
+    @Test
+    @DisplayName("Should write the error as valid JSON even when the message holds quotes")
+    void shouldWriteValidJson() throws Exception {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users"));
+
+        ErrorResponses.write(exchange, "Invalid token: unexpected \"alg\"\nheader", HttpStatus.UNAUTHORIZED).block();
+
+        var response = exchange.getResponse();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        var body = new ObjectMapper().readTree(response.getBodyAsString().block());
+        assertThat(body.get("success").asBoolean()).isFalse();
+        assertThat(body.get("message").asText()).isEqualTo("Invalid token: unexpected \"alg\"\nheader");
+        assertThat(body.hasNonNull("timestamp")).isTrue();
+    }
+}
@@ -0,0 +1,8 @@
+package com.digitopia.common.dto;
+
+import java.util.UUID;
+
+public record MembershipDTO(
+    UUID userId,
+    UUID organizationId
+) {}
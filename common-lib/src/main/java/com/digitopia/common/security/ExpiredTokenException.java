@@ -0,0 +1,10 @@
+package com.digitopia.common.security;
+
+/**
+ * Thrown by {@link JwtCodec#verify} for a correctly signed token whose {@code exp} has passed.
+ */
+public class ExpiredTokenException extends InvalidTokenException {
+    public ExpiredTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package com.digitopia.common.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Shared secret that service-to-service callers present in {@link #HEADER} to reach a service's
+ * {@code /internal/**} endpoints. Both sides read it from {@code internal-api.secret}.
+ */
+public final class InternalApiSecret {
+
+    public static final String HEADER = "X-Internal-Secret";
+
+    private InternalApiSecret() {
+    }
+
+    /** Constant-time comparison, so the secret cannot be guessed from response times. */
+    public static boolean matches(String presented, String secret) {
+        return presented != null && secret != null && !secret.isEmpty() && MessageDigest.isEqual(
+            presented.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+}
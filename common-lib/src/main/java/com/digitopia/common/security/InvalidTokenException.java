@@ -0,0 +1,11 @@
+package com.digitopia.common.security;
+
+/**
+ * Thrown by {@link JwtCodec#verify} for a token that is malformed, signed with another key or
+ * algorithm, or missing a required claim.
+ */
+public class InvalidTokenException extends RuntimeException {
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
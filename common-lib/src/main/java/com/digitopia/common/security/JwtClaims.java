@@ -0,0 +1,17 @@
+package com.digitopia.common.security;
+
+/**
+ * Claims of an access token: the user id as {@code sub}, {@code email}, {@code role}, and the
+ * {@code iat} and {@code exp} timestamps in epoch seconds.
+ */
+public record JwtClaims(
+    String subject,
+    String email,
+    String role,
+    long issuedAt,
+    long expiresAt
+) {
+    public long expiresAtMillis() {
+        return expiresAt * 1000;
+    }
+}
@@ -0,0 +1,678 @@
+package com.digitopia.common.security;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Signs and verifies the platform's access tokens: compact JWS with the claims {@code sub},
+ * {@code email}, {@code role}, {@code iat} and {@code exp}.
+ *
+ * <p>Tokens are signed with HS256. {@link #verify} also accepts HS384 and HS512 when the secret is
+ * long enough for them, as jjwt picked the algorithm from the key length and signed the tokens
+ * issued before this codec with HS384.</p>
+ *
+ * <p>One instance is shared by all threads. Each thread keeps its own {@link Mac} per algorithm and
+ * scratch buffers for the token, its JSON and the signature, so that {@link #verify} only allocates
+ * the claim strings and the returned {@link JwtClaims}. The JSON is read straight from the decoded
+ * bytes: members other than the five claims are skipped, nested values included.</p>
+ */
+public final class JwtCodec {
+
+    public static final int MIN_SECRET_BYTES = 32;
+
+    /** Longest token {@link #verify} accepts; ours are around 300 characters. */
+    public static final int MAX_TOKEN_LENGTH = 4096;
+
+    private static final int MAX_JSON_LENGTH = MAX_TOKEN_LENGTH / 4 * 3;
+    /** Longest payload {@link #sign} writes, leaving room for the header and an HS256 signature. */
+    private static final int MAX_PAYLOAD_LENGTH = (MAX_TOKEN_LENGTH - 128) / 4 * 3;
+
+    private static final byte[] ENCODE =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ENCODE.length; i++) {
+            DECODE[ENCODE[i]] = (byte) i;
+        }
+    }
+
+    private static final byte[] HS256_HEADER = encode("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.US_ASCII));
+
+    private static final byte[] SUB = ascii("{\"sub\":\"");
+    private static final byte[] EMAIL = ascii(",\"email\":\"");
+    private static final byte[] ROLE = ascii(",\"role\":\"");
+    private static final byte[] IAT = ascii(",\"iat\":");
+    private static final byte[] EXP = ascii(",\"exp\":");
+
+    private static final byte[][] HEADER_MEMBERS = {ascii("alg")};
+    private static final byte[][] CLAIM_MEMBERS = {ascii("sub"), ascii("email"), ascii("role"), ascii("iat"), ascii("exp")};
+
+    private static final Algorithm[] ALGORITHMS = Algorithm.values();
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private final SecretKeySpec[] keys = new SecretKeySpec[ALGORITHMS.length];
+    private final ThreadLocal<Mac[]> macs = ThreadLocal.withInitial(() -> new Mac[ALGORITHMS.length]);
+
+    public JwtCodec(byte[] secret) {
+        if (secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("JWT secret must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        for (var algorithm : ALGORITHMS) {
+            if (secret.length >= algorithm.macLength) {
+                keys[algorithm.ordinal()] = new SecretKeySpec(secret, algorithm.jcaName);
+            }
+        }
+    }
+
+    /**
+     * Signs a token with HS256.
+     *
+     * @param email may be {@code null}, and is then left out like {@code role}
+     * @return the compact token
+     */
+    public String sign(String subject, String email, String role, long issuedAtSeconds, long expiresAtSeconds) {
+        Objects.requireNonNull(subject, "subject");
+        var buffers = BUFFERS.get();
+        var json = buffers.json;
+
+        var n = put(json, 0, SUB);
+        n = putString(json, n, subject);
+        if (email != null) {
+            n = putString(json, put(json, n, EMAIL), email);
+        }
+        if (role != null) {
+            n = putString(json, put(json, n, ROLE), role);
+        }
+        n = putLong(json, put(json, n, IAT), issuedAtSeconds);
+        n = putLong(json, put(json, n, EXP), expiresAtSeconds);
+        n = putByte(json, n, '}');
+        if (n > MAX_PAYLOAD_LENGTH) {
+            throw new IllegalArgumentException("Claims too long");
+        }
+
+        var token = buffers.token;
+        var length = put(token, 0, HS256_HEADER);
+        token[length++] = '.';
+        length += encode(json, 0, n, token, length);
+
+        var mac = mac(Algorithm.HS256);
+        mac.update(token, 0, length);
+        doFinal(mac, buffers.expected);
+        token[length++] = '.';
+        length += encode(buffers.expected, 0, Algorithm.HS256.macLength, token, length);
+
+        return new String(token, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Checks the signature and expiry of a token and returns its claims.
+     *
+     * @throws ExpiredTokenException if the token is valid but {@code exp} is not after {@code nowMillis}
+     * @throws InvalidTokenException if it is malformed, not signed with our secret, or has no {@code sub} or {@code exp}
+     */
+    public JwtClaims verify(String token, long nowMillis) {
+        var length = token.length();
+        if (length > MAX_TOKEN_LENGTH) {
+            throw new InvalidTokenException("Token too long");
+        }
+
+        var buffers = BUFFERS.get();
+        var bytes = buffers.token;
+        var firstDot = -1;
+        var secondDot = -1;
+        for (int i = 0; i < length; i++) {
+            var c = token.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    throw malformed();
+                }
+            } else if (c >= 0x80) {
+                throw malformed();
+            }
+            bytes[i] = (byte) c;
+        }
+        if (secondDot < 0) {
+            throw malformed();
+        }
+
+        var headerLength = decode(bytes, 0, firstDot, buffers.json, 0);
+        if (headerLength < 0) {
+            throw malformed();
+        }
+        var algorithm = buffers.readAlgorithm(headerLength);
+        if (keys[algorithm.ordinal()] == null) {
+            throw new InvalidTokenException("Unsupported algorithm");
+        }
+
+        if (length - secondDot - 1 != algorithm.encodedLength
+            || decode(bytes, secondDot + 1, length, buffers.signature, 0) != algorithm.macLength) {
+            throw new InvalidTokenException("Signature does not match");
+        }
+        var mac = mac(algorithm);
+        mac.update(bytes, 0, secondDot);
+        doFinal(mac, buffers.expected);
+        if (!equal(buffers.expected, buffers.signature, algorithm.macLength)) {
+            throw new InvalidTokenException("Signature does not match");
+        }
+
+        var payloadLength = decode(bytes, firstDot + 1, secondDot, buffers.json, 0);
+        if (payloadLength < 0) {
+            throw malformed();
+        }
+        var claims = buffers.readClaims(payloadLength);
+        if (nowMillis >= claims.expiresAtMillis()) {
+            throw new ExpiredTokenException("Token expired");
+        }
+        return claims;
+    }
+
+    private Mac mac(Algorithm algorithm) {
+        var macs = this.macs.get();
+        var mac = macs[algorithm.ordinal()];
+        if (mac == null) {
+            try {
+                mac = Mac.getInstance(algorithm.jcaName);
+                mac.init(keys[algorithm.ordinal()]);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(algorithm.jcaName + " is not available", e);
+            }
+            macs[algorithm.ordinal()] = mac;
+        }
+        return mac;
+    }
+
+    private static void doFinal(Mac mac, byte[] output) {
+        try {
+            mac.doFinal(output, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Compares the first {@code length} bytes in time independent of where they differ. */
+    private static boolean equal(byte[] a, byte[] b, int length) {
+        var difference = 0;
+        for (int i = 0; i < length; i++) {
+            difference |= a[i] ^ b[i];
+        }
+        return difference == 0;
+    }
+
+    private static InvalidTokenException malformed() {
+        return new InvalidTokenException("Malformed token");
+    }
+
+    // Base64url without padding
+
+    private static byte[] encode(byte[] src) {
+        var dst = new byte[(src.length * 4 + 2) / 3];
+        encode(src, 0, src.length, dst, 0);
+        return dst;
+    }
+
+    static int encode(byte[] src, int from, int to, byte[] dst, int offset) {
+        var out = offset;
+        var i = from;
+        for (; i + 3 <= to; i += 3) {
+            var v = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            dst[out++] = ENCODE[v >>> 18];
+            dst[out++] = ENCODE[(v >>> 12) & 63];
+            dst[out++] = ENCODE[(v >>> 6) & 63];
+            dst[out++] = ENCODE[v & 63];
+        }
+        if (to - i == 1) {
+            var v = src[i] & 0xff;
+            dst[out++] = ENCODE[v >>> 2];
+            dst[out++] = ENCODE[(v << 4) & 63];
+        } else if (to - i == 2) {
+            var v = (src[i] & 0xff) << 8 | (src[i + 1] & 0xff);
+            dst[out++] = ENCODE[v >>> 10];
+            dst[out++] = ENCODE[(v >>> 4) & 63];
+            dst[out++] = ENCODE[(v << 2) & 63];
+        }
+        return out - offset;
+    }
+
+    /** Decodes {@code src[from, to)} into {@code dst}; -1 for anything but canonical unpadded base64url. */
+    static int decode(byte[] src, int from, int to, byte[] dst, int offset) {
+        var remainder = (to - from) & 3;
+        if (remainder == 1) {
+            return -1;
+        }
+        var out = offset;
+        var i = from;
+        for (var full = to - remainder; i < full; i += 4) {
+            int a = value(src[i]), b = value(src[i + 1]), c = value(src[i + 2]), d = value(src[i + 3]);
+            if ((a | b | c | d) < 0) {
+                return -1;
+            }
+            var v = a << 18 | b << 12 | c << 6 | d;
+            dst[out++] = (byte) (v >> 16);
+            dst[out++] = (byte) (v >> 8);
+            dst[out++] = (byte) v;
+        }
+        if (remainder == 2) {
+            int a = value(src[i]), b = value(src[i + 1]);
+            if ((a | b) < 0 || (b & 0x0f) != 0) {
+                return -1;
+            }
+            dst[out++] = (byte) (a << 2 | b >> 4);
+        } else if (remainder == 3) {
+            int a = value(src[i]), b = value(src[i + 1]), c = value(src[i + 2]);
+            if ((a | b | c) < 0 || (c & 0x03) != 0) {
+                return -1;
+            }
+            var v = a << 12 | b << 6 | c;
+            dst[out++] = (byte) (v >> 10);
+            dst[out++] = (byte) (v >> 2);
+        }
+        return out - offset;
+    }
+
+    private static int value(byte b) {
+        return b < 0 ? -1 : DECODE[b];
+    }
+
+    // JSON writing
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int put(byte[] dst, int offset, byte[] bytes) {
+        if (offset + bytes.length > dst.length) {
+            throw new IllegalArgumentException("Claims too long");
+        }
+        System.arraycopy(bytes, 0, dst, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    private static int putByte(byte[] dst, int offset, char c) {
+        if (offset >= dst.length) {
+            throw new IllegalArgumentException("Claims too long");
+        }
+        dst[offset] = (byte) c;
+        return offset + 1;
+    }
+
+    /**
+     * Writes the rest of a JSON string after its opening quote. Everything outside printable ASCII
+     * is written as a {@code \}{@code u} escape, so the payload is ASCII.
+     */
+    private static int putString(byte[] dst, int offset, String value) {
+        var length = value.length();
+        if (offset + 6L * length + 1 > dst.length) {
+            throw new IllegalArgumentException("Claims too long");
+        }
+        var n = offset;
+        for (int i = 0; i < length; i++) {
+            var c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                dst[n++] = '\\';
+                dst[n++] = (byte) c;
+            } else if (c >= 0x20 && c < 0x7f) {
+                dst[n++] = (byte) c;
+            } else {
+                dst[n++] = '\\';
+                dst[n++] = 'u';
+                dst[n++] = hex(c >> 12);
+                dst[n++] = hex(c >> 8);
+                dst[n++] = hex(c >> 4);
+                dst[n++] = hex(c);
+            }
+        }
+        dst[n++] = '"';
+        return n;
+    }
+
+    private static byte hex(int nibble) {
+        return (byte) "0123456789abcdef".charAt(nibble & 0x0f);
+    }
+
+    private static int putLong(byte[] dst, int offset, long value) {
+        if (offset + 20 > dst.length) {
+            throw new IllegalArgumentException("Claims too long");
+        }
+        if (value < 0) {
+            dst[offset++] = '-';
+        } else {
+            value = -value;
+        }
+        // Digits of a non-positive value, so that Long.MIN_VALUE needs no special case
+        var digits = 1;
+        for (var rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            dst[i] = (byte) ('0' - value % 10);
+            value /= 10;
+        }
+        return offset + digits;
+    }
+
+    private enum Algorithm {
+        HS256("HmacSHA256", 32),
+        HS384("HmacSHA384", 48),
+        HS512("HmacSHA512", 64);
+
+        final String jcaName;
+        final int macLength;
+        final int encodedLength;
+        final byte[] name = ascii(name());
+
+        Algorithm(String jcaName, int macLength) {
+            this.jcaName = jcaName;
+            this.macLength = macLength;
+            this.encodedLength = (macLength * 4 + 2) / 3;
+        }
+    }
+
+    /**
+     * A thread's scratch space, and a reader for the flat JSON objects of the header and the
+     * payload once they are decoded into {@link #json}.
+     */
+    private static final class Buffers {
+
+        final byte[] token = new byte[MAX_TOKEN_LENGTH];
+        final byte[] json = new byte[MAX_JSON_LENGTH];
+        final byte[] signature = new byte[64];
+        final byte[] expected = new byte[64];
+
+        private static final int END = -2;
+        private static final int UNKNOWN = -1;
+        private static final long ABSENT = Long.MIN_VALUE;
+
+        private int position;
+        private int limit;
+        private boolean first;
+
+        Algorithm readAlgorithm(int length) {
+            begin(length);
+            Algorithm algorithm = null;
+            for (int member; (member = nextMember(HEADER_MEMBERS)) != END; ) {
+                if (member == 0) {
+                    algorithm = readAlgorithmName();
+                } else {
+                    skipValue();
+                }
+            }
+            finish();
+            if (algorithm == null) {
+                throw new InvalidTokenException("Unsupported algorithm");
+            }
+            return algorithm;
+        }
+
+        JwtClaims readClaims(int length) {
+            begin(length);
+            String subject = null, email = null, role = null;
+            long issuedAt = ABSENT, expiresAt = ABSENT;
+            for (int member; (member = nextMember(CLAIM_MEMBERS)) != END; ) {
+                switch (member) {
+                    case 0 -> subject = readString();
+                    case 1 -> email = readString();
+                    case 2 -> role = readString();
+                    case 3 -> issuedAt = readLong();
+                    case 4 -> expiresAt = readLong();
+                    default -> skipValue();
+                }
+            }
+            finish();
+            if (subject == null) {
+                throw new InvalidTokenException("Token has no subject");
+            }
+            if (expiresAt == ABSENT) {
+                throw new InvalidTokenException("Token has no expiration");
+            }
+            return new JwtClaims(subject, email, role, issuedAt == ABSENT ? 0 : issuedAt, expiresAt);
+        }
+
+        private void begin(int length) {
+            position = 0;
+            limit = length;
+            first = true;
+            skipWhitespace();
+            expect('{');
+        }
+
+        private void finish() {
+            skipWhitespace();
+            if (position != limit) {
+                throw malformed();
+            }
+        }
+
+        /**
+         * Reads up to the value of the next member and returns the index of its name in
+         * {@code names}, {@link #UNKNOWN}, or {@link #END} after the closing brace.
+         */
+        private int nextMember(byte[][] names) {
+            skipWhitespace();
+            var c = next();
+            if (c == '}') {
+                return END;
+            }
+            if (!first) {
+                if (c != ',') {
+                    throw malformed();
+                }
+                skipWhitespace();
+                c = next();
+            }
+            first = false;
+            if (c != '"') {
+                throw malformed();
+            }
+            var start = position;
+            var escaped = skipString();
+            var end = position - 1;
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            if (escaped) {
+                var name = unescape(start, end);
+                for (int i = 0; i < names.length; i++) {
+                    if (name.equals(new String(names[i], StandardCharsets.US_ASCII))) {
+                        return i;
+                    }
+                }
+                return UNKNOWN;
+            }
+            for (int i = 0; i < names.length; i++) {
+                if (Arrays.equals(json, start, end, names[i], 0, names[i].length)) {
+                    return i;
+                }
+            }
+            return UNKNOWN;
+        }
+
+        private Algorithm readAlgorithmName() {
+            if (next() != '"') {
+                throw malformed();
+            }
+            var start = position;
+            var escaped = skipString();
+            if (!escaped) {
+                for (var algorithm : ALGORITHMS) {
+                    if (Arrays.equals(json, start, position - 1, algorithm.name, 0, algorithm.name.length)) {
+                        return algorithm;
+                    }
+                }
+            }
+            throw new InvalidTokenException("Unsupported algorithm");
+        }
+
+        /** A string value, or {@code null} for a JSON null. */
+        private String readString() {
+            if (readNull()) {
+                return null;
+            }
+            if (next() != '"') {
+                throw new InvalidTokenException("Malformed claim");
+            }
+            var start = position;
+            var escaped = skipString();
+            var end = position - 1;
+            return escaped ? unescape(start, end) : new String(json, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        /** An integer value, ignoring any fraction, or {@link #ABSENT} for a JSON null. */
+        private long readLong() {
+            if (readNull()) {
+                return ABSENT;
+            }
+            var negative = position < limit && json[position] == '-';
+            if (negative) {
+                position++;
+            }
+            var start = position;
+            long value = 0;
+            while (position < limit && json[position] >= '0' && json[position] <= '9') {
+                if (position - start == 18) {
+                    throw new InvalidTokenException("Malformed claim");
+                }
+                value = value * 10 + (json[position++] - '0');
+            }
+            if (position == start) {
+                throw new InvalidTokenException("Malformed claim");
+            }
+            if (position < limit && json[position] == '.') {
+                position++;
+                while (position < limit && json[position] >= '0' && json[position] <= '9') {
+                    position++;
+                }
+            }
+            return negative ? -value : value;
+        }
+
+        private boolean readNull() {
+            if (limit - position >= 4 && json[position] == 'n'
+                && json[position + 1] == 'u' && json[position + 2] == 'l' && json[position + 3] == 'l') {
+                position += 4;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipValue() {
+            var c = peek();
+            if (c == '"') {
+                position++;
+                skipString();
+            } else if (c == '{' || c == '[') {
+                var depth = 0;
+                do {
+                    c = next();
+                    if (c == '"') {
+                        skipString();
+                    } else if (c == '{' || c == '[') {
+                        depth++;
+                    } else if (c == '}' || c == ']') {
+                        depth--;
+                    }
+                } while (depth > 0);
+            } else {
+                var start = position;
+                while (position < limit && json[position] != ',' && json[position] != '}' && !isWhitespace(json[position])) {
+                    position++;
+                }
+                if (position == start) {
+                    throw malformed();
+                }
+            }
+        }
+
+        /** Moves past the closing quote of a string whose opening quote was read; true if it has escapes. */
+        private boolean skipString() {
+            var escaped = false;
+            for (byte c; (c = next()) != '"'; ) {
+                if (c == '\\') {
+                    escaped = true;
+                    next();
+                }
+            }
+            return escaped;
+        }
+
+        private String unescape(int start, int end) {
+            var result = new StringBuilder(end - start);
+            var segment = start;
+            for (int i = start; i < end; i++) {
+                if (json[i] != '\\') {
+                    continue;
+                }
+                result.append(new String(json, segment, i - segment, StandardCharsets.UTF_8));
+                var c = json[++i];
+                switch (c) {
+                    case '"', '\\', '/' -> result.append((char) c);
+                    case 'b' -> result.append('\b');
+                    case 'f' -> result.append('\f');
+                    case 'n' -> result.append('\n');
+                    case 'r' -> result.append('\r');
+                    case 't' -> result.append('\t');
+                    case 'u' -> {
+                        if (i + 4 >= end) {
+                            throw malformed();
+                        }
+                        var code = 0;
+                        for (int j = 1; j <= 4; j++) {
+                            var digit = Character.digit(json[i + j], 16);
+                            if (digit < 0) {
+                                throw malformed();
+                            }
+                            code = code << 4 | digit;
+                        }
+                        result.append((char) code);
+                        i += 4;
+                    }
+                    default -> throw malformed();
+                }
+                segment = i + 1;
+            }
+            return result.append(new String(json, segment, end - segment, StandardCharsets.UTF_8)).toString();
+        }
+
+        private byte peek() {
+            if (position >= limit) {
+                throw malformed();
+            }
+            return json[position];
+        }
+
+        private byte next() {
+            if (position >= limit) {
+                throw malformed();
+            }
+            return json[position++];
+        }
+
+        private void expect(char c) {
+            if (next() != c) {
+                throw malformed();
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < limit && isWhitespace(json[position])) {
+                position++;
+            }
+        }
+
+        private static boolean isWhitespace(byte c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+        }
+    }
+}
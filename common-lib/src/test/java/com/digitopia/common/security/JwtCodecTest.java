@@ -0,0 +1,111 @@
+package com.digitopia.common.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class JwtCodecTest {
+
+    private static final byte[] SECRET =
+        "digitopia-secret-key-for-jwt-token-min-32-characters-required".getBytes(StandardCharsets.UTF_8);
+
+    private final JwtCodec codec = new JwtCodec(SECRET);
+    private final long now = System.currentTimeMillis();
+
+    @Test
+    @DisplayName("Should sign tokens that jjwt accepts as HS256 with the same claims")
+    void shouldSignTokensJjwtAccepts() {
+        var token = codec.sign("42", "ayşe \"q\"@digitopia.com", "ADMIN", seconds(now), seconds(now) + 60);
+
+        var jws = Jwts.parser().verifyWith(key(SECRET)).build().parseSignedClaims(token);
+
+        assertThat(jws.getHeader().getAlgorithm()).isEqualTo("HS256");
+        assertThat(jws.getPayload().getSubject()).isEqualTo("42");
+        assertThat(jws.getPayload().get("email", String.class)).isEqualTo("ayşe \"q\"@digitopia.com");
+        assertThat(jws.getPayload().get("role", String.class)).isEqualTo("ADMIN");
+        assertThat(jws.getPayload().getIssuedAt()).isEqualTo(new Date(seconds(now) * 1000));
+        assertThat(jws.getPayload().getExpiration()).isEqualTo(new Date((seconds(now) + 60) * 1000));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {32, 48, 64})
+    @DisplayName("Should verify tokens jjwt signed with the algorithm it picks for the key length")
+    void shouldVerifyJjwtTokens(int secretLength) {
+        var secret = new byte[secretLength];
+        System.arraycopy(SECRET, 0, secret, 0, Math.min(secretLength, SECRET.length));
+        var token = Jwts.builder()
+            .subject("42")
+            .claim("email", "user@digitopia.com")
+            .claim("role", "USER")
+            .claim("organizations", Map.of("ids", new String[] {"o1", "o2"}))
+            .issuedAt(new Date(now))
+            .expiration(new Date(now + TimeUnit.HOURS.toMillis(1)))
+            .signWith(key(secret))
+            .compact();
+
+        var claims = new JwtCodec(secret).verify(token, now);
+
+        assertThat(claims).isEqualTo(new JwtClaims(
+            "42", "user@digitopia.com", "USER", seconds(now), seconds(now + TimeUnit.HOURS.toMillis(1))
+        ));
+    }
+
+    @Test
+    @DisplayName("Should reject tokens with a changed payload, another key or no signature")
+    void shouldRejectForgedTokens() {
+        var token = codec.sign("42", "user@digitopia.com", "USER", seconds(now), seconds(now) + 60);
+        var parts = token.split("\\.");
+        var forgedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+            ("{\"sub\":\"42\",\"role\":\"ADMIN\",\"exp\":" + (seconds(now) + 60) + "}").getBytes(StandardCharsets.UTF_8)
+        );
+        var otherKey = Jwts.builder()
+            .subject("42")
+            .expiration(new Date(now + 60_000))
+            .signWith(key("another-secret-key-for-jwt-token-min-32-characters".getBytes(StandardCharsets.UTF_8)))
+            .compact();
+        var unsigned = Jwts.builder().subject("42").expiration(new Date(now + 60_000)).compact();
+
+        assertThatThrownBy(() -> codec.verify(parts[0] + "." + forgedPayload + "." + parts[2], now))
+            .isInstanceOf(InvalidTokenException.class);
+        assertThatThrownBy(() -> codec.verify(otherKey, now)).isInstanceOf(InvalidTokenException.class);
+        assertThatThrownBy(() -> codec.verify(unsigned, now)).isInstanceOf(InvalidTokenException.class);
+        assertThatThrownBy(() -> codec.verify("not.a-token", now)).isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    @DisplayName("Should report expired tokens apart from invalid ones")
+    void shouldRejectExpiredTokens() {
+        var token = codec.sign("42", null, "USER", seconds(now) - 120, seconds(now) - 60);
+
+        assertThatThrownBy(() -> codec.verify(token, now))
+            .isInstanceOf(ExpiredTokenException.class)
+            .hasMessage("Token expired");
+        assertThat(codec.verify(token, now - TimeUnit.MINUTES.toMillis(2)).email()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should refuse secrets shorter than 256 bits")
+    void shouldRefuseShortSecrets() {
+        assertThatThrownBy(() -> new JwtCodec(new byte[31])).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SecretKey key(byte[] secret) {
+        return Keys.hmacShaKeyFor(secret);
+    }
+
+    private static long seconds(long millis) {
+        return millis / 1000;
+    }
+}
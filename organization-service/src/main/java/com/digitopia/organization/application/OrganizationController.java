@@ -6,6 +6,7 @@ import com.digitopia.common.dto.request.CreateOrganizationRequest;
 import com.digitopia.common.dto.request.SearchOrganizationRequest;
 import com.digitopia.common.enums.Role;
 import com.digitopia.common.exception.UnauthorizedException;
+import com.digitopia.common.exception.ValidationException;
 import com.digitopia.common.util.AuthorizationUtil;
 import com.digitopia.organization.domain.service.OrganizationService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -40,6 +41,15 @@ public class OrganizationController {
         return ResponseEntity.status(HttpStatus.CREATED).body(org);
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get several organizations by ID")
+    public ResponseEntity<List<OrganizationDTO>> getOrganizationsByIds(@RequestParam List<UUID> ids) {
+        if (ids.size() > AppConstants.MAX_PAGE_SIZE) {
+            throw new ValidationException("At most " + AppConstants.MAX_PAGE_SIZE + " ids can be looked up at once");
+        }
+        return ResponseEntity.ok(organizationService.getOrganizationsByIds(ids));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get organization by ID")
     public ResponseEntity<OrganizationDTO> getOrganizationById(@PathVariable UUID id) {
@@ -21,7 +21,10 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
@@ -104,6 +107,29 @@ public class OrganizationService {
         return organizationMapper.toDto(org);
     }
 
+    /**
+     * Retrieves several organizations in one query.
+     *
+     * <p>Unknown IDs are skipped rather than failing the whole lookup, and the result
+     * follows the order of {@code ids} without duplicates.</p>
+     *
+     * @param ids the unique identifiers of the organizations
+     * @return the organizations found, as DTOs
+     */
+    @Transactional(readOnly = true)
+    public List<OrganizationDTO> getOrganizationsByIds(List<UUID> ids) {
+        var byId = new HashMap<UUID, Organization>();
+        for (var org : organizationRepository.findAllById(new LinkedHashSet<>(ids))) {
+            byId.put(org.getId(), org);
+        }
+        return ids.stream()
+            .distinct()
+            .map(byId::get)
+            .filter(Objects::nonNull)
+            .map(organizationMapper::toDto)
+            .toList();
+    }
+
     /**
      * Retrieves an organization by its registry number.
      *
@@ -102,6 +102,24 @@ class OrganizationServiceTest {
             .isInstanceOf(ResourceNotFoundException.class);
     }
 
+    @Test
+    @DisplayName("Should get several organizations in request order, skipping unknown IDs")
+    void shouldGetOrganizationsByIds() {
+        var first = createMockOrganization();
+        var second = createMockOrganization();
+        var missingId = UUID.randomUUID();
+
+        when(organizationRepository.findAllById(anyIterable())).thenReturn(List.of(first, second));
+        when(organizationMapper.toDto(any(Organization.class)))
+            .thenAnswer(i -> toDto(i.getArgument(0)));
+
+        var result = organizationService.getOrganizationsByIds(
+            List.of(second.getId(), missingId, first.getId(), second.getId())
+        );
+
+        assertThat(result).extracting(OrganizationDTO::id).containsExactly(second.getId(), first.getId());
+    }
+
     @Test
     @DisplayName("Should get organization by registry number")
     void shouldGetOrganizationByRegistry() {
@@ -194,6 +212,20 @@ class OrganizationServiceTest {
         return org;
     }
 
+    private OrganizationDTO toDto(Organization org) {
+        return new OrganizationDTO(
+            org.getId(),
+            org.getOrganizationName(),
+            org.getNormalizedOrganizationName(),
+            org.getRegistryNumber(),
+            org.getContactEmail(),
+            org.getCompanySize(),
+            org.getYearFounded(),
+            org.getStatus(),
+            List.of()
+        );
+    }
+
     private OrganizationDTO createMockOrgDTO() {
         return new OrganizationDTO(
             UUID.randomUUID(),
@@ -4,6 +4,7 @@ import com.digitopia.common.dto.request.CreateUserRequest;
 import com.digitopia.user.domain.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -34,8 +35,21 @@ public class AuthController {
     @Operation(summary = "Login user")
     public ResponseEntity<Map<String, Object>> login(
         @RequestParam String email,
-        @RequestParam String password
+        @RequestParam String password,
+        HttpServletRequest request
     ) {
-        return ResponseEntity.ok(authService.login(email, password));
+        return ResponseEntity.ok(authService.login(email, password, clientIp(request)));
+    }
+
+    /**
+     * The caller's address: the last {@code X-Forwarded-For} entry, which the gateway appends, as
+     * clients can put anything before it.
+     */
+    private static String clientIp(HttpServletRequest request) {
+        var forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor != null && !forwardedFor.isBlank()) {
+            return forwardedFor.substring(forwardedFor.lastIndexOf(',') + 1).trim();
+        }
+        return request.getRemoteAddr();
     }
 }
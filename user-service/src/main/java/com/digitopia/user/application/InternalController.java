@@ -0,0 +1,53 @@
+package com.digitopia.user.application;
+
+import com.digitopia.common.dto.MembershipDTO;
+import com.digitopia.user.domain.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service-to-service endpoints. The gateway only routes {@code /api/**}, and callers reaching the
+ * service port directly must present {@code internal-api.secret} to {@code InternalApiFilter}.
+ */
+@RestController
+@RequestMapping("/internal")
+@Tag(name = "Internal", description = "Service-to-service operations")
+public class InternalController {
+
+    private static final int MAX_MEMBERSHIP_PAGE_SIZE = 10_000;
+
+    private final UserService userService;
+
+    public InternalController(UserService userService) {
+        this.userService = userService;
+    }
+
+    @GetMapping("/memberships")
+    @Operation(summary = "Page through all user-organization memberships")
+    public ResponseEntity<List<MembershipDTO>> getMemberships(
+        @RequestParam(required = false) UUID afterUserId,
+        @RequestParam(required = false) UUID afterOrganizationId,
+        @RequestParam(defaultValue = "5000") int size
+    ) {
+        var pageSize = Math.max(1, Math.min(size, MAX_MEMBERSHIP_PAGE_SIZE));
+        return ResponseEntity.ok(userService.getMemberships(afterUserId, afterOrganizationId, pageSize));
+    }
+
+    @GetMapping("/revoked-users")
+    @Operation(summary = "Get users deactivated or deleted since a point in time")
+    public ResponseEntity<List<UUID>> getRevokedUsers(
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since
+    ) {
+        return ResponseEntity.ok(userService.getRevokedUserIds(since));
+    }
+}
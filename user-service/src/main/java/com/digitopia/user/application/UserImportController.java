@@ -0,0 +1,116 @@
+package com.digitopia.user.application;
+
+import com.digitopia.common.constants.AppConstants;
+import com.digitopia.common.enums.Role;
+import com.digitopia.common.exception.UnauthorizedException;
+import com.digitopia.common.util.AuthorizationUtil;
+import com.digitopia.user.domain.service.UserImportService;
+import com.digitopia.user.infrastructure.importer.ImportFormat;
+import com.digitopia.user.infrastructure.importer.UserImportResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/users")
+@Tag(name = "User Management", description = "User CRUD operations")
+public class UserImportController {
+
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
+
+    public UserImportController(UserImportService userImportService, ObjectMapper objectMapper) {
+        this.userImportService = userImportService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Streams the file in and the report out: one result line per row, written as each batch is done,
+     * then a summary line. A report without the summary line was cut short by an error; the rows
+     * reported as created up to there are.
+     */
+    @PostMapping(
+        value = "/import",
+        consumes = {ImportFormat.NDJSON_VALUE, ImportFormat.CSV_VALUE},
+        produces = ImportFormat.NDJSON_VALUE
+    )
+    @Operation(summary = "Import users from NDJSON or CSV - ADMIN/MANAGER only")
+    public void importUsers(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        @RequestHeader(AppConstants.HEADER_USER_ID) UUID currentUserId,
+        @RequestHeader(AppConstants.HEADER_USER_ROLE) String roleHeader
+    ) throws IOException {
+        var role = AuthorizationUtil.parseRole(roleHeader);
+
+        if (role == Role.USER) {
+            throw new UnauthorizedException("Only ADMIN/MANAGER can import users");
+        }
+
+        var format = ImportFormat.of(MediaType.parseMediaType(request.getContentType()));
+        var charset = request.getCharacterEncoding() != null
+            ? Charset.forName(request.getCharacterEncoding())
+            : StandardCharsets.UTF_8;
+        var input = new BufferedReader(new InputStreamReader(request.getInputStream(), charset));
+        var report = new Report(response);
+
+        var summary = userImportService.importUsers(input, format, currentUserId, role, report::write);
+        report.writeLine(summary);
+        report.out().flush();
+    }
+
+    /**
+     * Writes NDJSON lines to the response, which is committed only with the first line, so that
+     * errors before then, such as a bad CSV header, still get the usual error response.
+     */
+    private final class Report {
+
+        private final HttpServletResponse response;
+        private ServletOutputStream out;
+
+        Report(HttpServletResponse response) {
+            this.response = response;
+        }
+
+        void write(List<UserImportResult> results) {
+            try {
+                for (var result : results) {
+                    writeLine(result);
+                }
+                out().flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeLine(Object value) throws IOException {
+            out().write(objectMapper.writeValueAsBytes(value));
+            out().write('\n');
+        }
+
+        ServletOutputStream out() throws IOException {
+            if (out == null) {
+                response.setContentType(ImportFormat.NDJSON_VALUE);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+                out = response.getOutputStream();
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.digitopia.user.domain.repository;
+
+import com.digitopia.user.domain.entity.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Inserts new users through JDBC batches, bypassing the persistence context, for bulk imports.
+ * With {@code reWriteBatchedInserts=true} on the PostgreSQL URL, the driver sends each batch as a
+ * few multi-row inserts.
+ *
+ * <p>Users must come with their id and audit fields set; they get no organizations.</p>
+ */
+@Repository
+public class UserBatchRepository {
+
+    private static final String INSERT = """
+        INSERT INTO users (id, email, password, status, full_name, normalized_name, role,
+                           created_at, updated_at, created_by, updated_by)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts all users in one transaction.
+     *
+     * @throws org.springframework.dao.DuplicateKeyException if any email is taken; nothing is inserted then
+     */
+    @Transactional
+    public void insertAll(List<User> users) {
+        jdbcTemplate.batchUpdate(INSERT, users, users.size(), (statement, user) -> {
+            statement.setObject(1, user.getId());
+            statement.setString(2, user.getEmail());
+            statement.setString(3, user.getPassword());
+            statement.setString(4, user.getStatus().name());
+            statement.setString(5, user.getFullName());
+            statement.setString(6, user.getNormalizedName());
+            statement.setString(7, user.getRole().name());
+            statement.setObject(8, user.getCreatedAt());
+            statement.setObject(9, user.getUpdatedAt());
+            statement.setObject(10, user.getCreatedBy());
+            statement.setObject(11, user.getUpdatedBy());
+        });
+    }
+}
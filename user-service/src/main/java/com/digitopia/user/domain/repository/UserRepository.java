@@ -2,20 +2,111 @@ package com.digitopia.user.domain.repository;
 
 import com.digitopia.user.domain.entity.User;
 import com.digitopia.common.enums.UserStatus;
+import com.digitopia.common.exception.DuplicateResourceException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
 
+    /** SQLSTATE of a unique violation, the same in PostgreSQL and H2. */
+    String UNIQUE_VIOLATION = "23505";
+
     Optional<User> findByEmail(String email);
 
-    boolean existsByEmail(String email);
+    /**
+     * Inserts a new user with a single statement, flushed straight away. A taken email is refused by
+     * the unique {@code idx_user_email} index rather than looked up first, which also decides
+     * between concurrent registrations of the same email.
+     *
+     * @throws DuplicateResourceException if a user with the email exists
+     */
+    @Transactional
+    default User insert(User user) {
+        try {
+            return saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // The generated id aside, email is the only unique column
+            if (e.getMostSpecificCause() instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState())) {
+                throw new DuplicateResourceException("User already exists with email: " + user.getEmail());
+            }
+            throw e;
+        }
+    }
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findEmailsIn(@Param("emails") Collection<String> emails);
 
     Page<User> findByNormalizedNameContaining(String normalizedName, Pageable pageable);
+
+    @Query("SELECT u.id FROM User u WHERE u.status IN :statuses AND u.updatedAt >= :since")
+    List<UUID> findIdsByStatusChangedSince(
+        @Param("statuses") Collection<UserStatus> statuses,
+        @Param("since") LocalDateTime since
+    );
+
+    /**
+     * Replaces the password hash of a user, unless it changed since {@code oldHash} was read.
+     * Leaves {@code updatedAt} alone: a rehash is not a change of the user.
+     *
+     * @return 1 if replaced, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int replacePasswordHash(
+        @Param("id") UUID id,
+        @Param("oldHash") String oldHash,
+        @Param("newHash") String newHash
+    );
+
+    /**
+     * Counts users per BCrypt cost, the two digits after {@code $2a$} in their hash.
+     */
+    @Query("""
+        SELECT SUBSTRING(u.password, 5, 2) AS cost, COUNT(u) AS users
+        FROM User u
+        GROUP BY SUBSTRING(u.password, 5, 2)
+        """)
+    List<HashCost> countByPasswordHashCost();
+
+    /**
+     * Reads user-organization pairs in (user, organization) order, starting after the given pair.
+     */
+    @Query(value = """
+        SELECT user_id AS "userId", organization_id AS "organizationId"
+        FROM user_organizations
+        WHERE (user_id, organization_id) > (:afterUserId, :afterOrganizationId)
+        ORDER BY user_id, organization_id
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Membership> findMembershipsAfter(
+        @Param("afterUserId") UUID afterUserId,
+        @Param("afterOrganizationId") UUID afterOrganizationId,
+        @Param("limit") int limit
+    );
+
+    interface Membership {
+        UUID getUserId();
+        UUID getOrganizationId();
+    }
+
+    interface HashCost {
+        String getCost();
+        long getUsers();
+    }
 }
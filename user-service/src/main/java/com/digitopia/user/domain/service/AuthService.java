@@ -13,10 +13,10 @@ import com.digitopia.user.domain.repository.UserRepository;
 import com.digitopia.user.infrastructure.mapper.UserMapper;
 import com.digitopia.user.infrastructure.messaging.UserEventPublisher;
 import com.digitopia.user.infrastructure.security.JwtTokenProvider;
+import com.digitopia.user.infrastructure.security.LoginShield;
+import com.digitopia.user.infrastructure.security.PasswordHasher;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Map;
 
@@ -29,6 +29,16 @@ import java.util.Map;
  * It enforces security best practices and validates user credentials before
  * granting access.</p>
  *
+ * <p>Passwords are hashed and checked through {@link PasswordHasher}, on its own bounded pool.
+ * Neither operation holds a transaction, and with it a pooled connection, while BCrypt runs; the
+ * repository calls run in their own transactions.</p>
+ *
+ * <p>Logins first pass the {@link LoginShield}, which refuses emails and addresses with too many
+ * recent failures before any password is checked.</p>
+ *
+ * <p>After a successful login, a hash made at a lower BCrypt cost than the current one is replaced
+ * in the background with one at the current cost.</p>
+ *
  * <p>Key Responsibilities:</p>
  * <ul>
  *   <li>User registration with automatic password hashing</li>
@@ -46,22 +56,25 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtTokenProvider jwtTokenProvider;
     private final UserEventPublisher eventPublisher;
+    private final LoginShield loginShield;
 
     public AuthService(
         UserRepository userRepository,
         UserMapper userMapper,
-        PasswordEncoder passwordEncoder,
+        PasswordHasher passwordHasher,
         JwtTokenProvider jwtTokenProvider,
-        UserEventPublisher eventPublisher
+        UserEventPublisher eventPublisher,
+        LoginShield loginShield
     ) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.jwtTokenProvider = jwtTokenProvider;
         this.eventPublisher = eventPublisher;
+        this.loginShield = loginShield;
     }
 
     /**
@@ -73,20 +86,16 @@ public class AuthService {
      * @return map containing JWT token and user DTO
      * @throws DuplicateResourceException if email already exists
      * @throws ValidationException if full name contains non-letters
+     * @throws com.digitopia.common.exception.ServiceUnavailableException if too many passwords are being hashed
      */
-    @Transactional
     public Map<String, Object> register(CreateUserRequest request, String password) {
-        if (userRepository.existsByEmail(request.email())) {
-            throw new DuplicateResourceException("User already exists with email: " + request.email());
-        }
-
         if (!request.fullName().matches("^[a-zA-Z\\s]+$")) {
             throw new ValidationException("Full name must contain only letters");
         }
 
         var user = new User();
         user.setEmail(StringUtils.normalizeEmail(request.email()));
-        user.setPassword(passwordEncoder.encode(password));
+        user.setPassword(passwordHasher.encode(password));
         user.setFullName(StringUtils.sanitize(request.fullName()));
         user.setNormalizedName(StringUtils.normalizeToAscii(request.fullName()));
         user.setRole(Role.USER);
@@ -95,7 +104,7 @@ public class AuthService {
         user.setCreatedBy(AppConstants.SYSTEM_USER_ID);
         user.setUpdatedBy(AppConstants.SYSTEM_USER_ID);
 
-        var saved = userRepository.save(user);
+        var saved = userRepository.insert(user);
         var dto = userMapper.toDto(saved);
 
         var token = jwtTokenProvider.generateToken(saved.getId(), saved.getEmail(), saved.getRole());
@@ -113,15 +122,19 @@ public class AuthService {
      *
      * @param email user's email
      * @param password plain text password
+     * @param clientIp address the login came from, for the {@link LoginShield}
      * @return map containing JWT token and user DTO
      * @throws ValidationException if credentials invalid or account not active
+     * @throws com.digitopia.common.exception.TooManyRequestsException if the email or address failed too often
+     * @throws com.digitopia.common.exception.ServiceUnavailableException if too many passwords are being hashed
      */
-    @Transactional(readOnly = true)
-    public Map<String, Object> login(String email, String password) {
-        var user = userRepository.findByEmail(StringUtils.normalizeEmail(email))
-            .orElseThrow(() -> new ValidationException("Invalid email or password"));
+    public Map<String, Object> login(String email, String password, String clientIp) {
+        var normalizedEmail = StringUtils.normalizeEmail(email);
+        loginShield.check(normalizedEmail, clientIp);
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        var user = userRepository.findByEmail(normalizedEmail).orElse(null);
+        if (user == null || !passwordHasher.matches(password, user.getPassword())) {
+            loginShield.recordFailure(normalizedEmail, clientIp);
             throw new ValidationException("Invalid email or password");
         }
 
@@ -129,6 +142,14 @@ public class AuthService {
             throw new ValidationException("Account is not active");
         }
 
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            var userId = user.getId();
+            var oldHash = user.getPassword();
+            passwordHasher.rehashInBackground(
+                password, newHash -> userRepository.replacePasswordHash(userId, oldHash, newHash)
+            );
+        }
+
         var token = jwtTokenProvider.generateToken(user.getId(), user.getEmail(), user.getRole());
         var dto = userMapper.toDto(user);
 
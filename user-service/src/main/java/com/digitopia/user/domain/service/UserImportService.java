@@ -0,0 +1,321 @@
+package com.digitopia.user.domain.service;
+
+import com.digitopia.common.dto.UserDTO;
+import com.digitopia.common.dto.request.CreateUserRequest;
+import com.digitopia.common.enums.Role;
+import com.digitopia.common.enums.UserStatus;
+import com.digitopia.common.util.StringUtils;
+import com.digitopia.user.domain.entity.User;
+import com.digitopia.user.domain.repository.UserBatchRepository;
+import com.digitopia.user.domain.repository.UserRepository;
+import com.digitopia.user.infrastructure.importer.ImportFormat;
+import com.digitopia.user.infrastructure.importer.UserImportProperties;
+import com.digitopia.user.infrastructure.importer.UserImportReader;
+import com.digitopia.user.infrastructure.importer.UserImportResult;
+import com.digitopia.user.infrastructure.importer.UserImportRow;
+import com.digitopia.user.infrastructure.importer.UserImportSummary;
+import com.digitopia.user.infrastructure.mapper.UserMapper;
+import com.digitopia.user.infrastructure.messaging.UserEventPublisher;
+import com.digitopia.user.infrastructure.security.PasswordHasher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Service for importing many users from one NDJSON or CSV stream.
+ *
+ * <p>Rows are read and handled in batches of {@code user-import.batch-size}, so memory use does not
+ * grow with the file. For each batch, it:</p>
+ * <ul>
+ *   <li>validates rows as {@link UserService#createUser} would, and requires a password</li>
+ *   <li>finds taken emails, in the batch or the database, with one query</li>
+ *   <li>hashes passwords in parallel on the {@link PasswordHasher} pool</li>
+ *   <li>inserts the batch through one JDBC batch, in its own transaction</li>
+ *   <li>publishes the {@code UserCreatedEvent}s of the batch together</li>
+ * </ul>
+ *
+ * <p>A batch insert that still meets a taken email, registered meanwhile, is retried row by row.
+ * Batches committed before a failure stay committed; the report says which rows were created.</p>
+ *
+ * <p>{@code users.import.rows} counts rows per {@code outcome}.</p>
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private final UserRepository userRepository;
+    private final UserBatchRepository userBatchRepository;
+    private final UserMapper userMapper;
+    private final PasswordHasher passwordHasher;
+    private final UserEventPublisher eventPublisher;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final UserImportProperties properties;
+    private final Map<UserImportResult.Outcome, Counter> rowCounters =
+        new EnumMap<>(UserImportResult.Outcome.class);
+
+    public UserImportService(
+        UserRepository userRepository,
+        UserBatchRepository userBatchRepository,
+        UserMapper userMapper,
+        PasswordHasher passwordHasher,
+        UserEventPublisher eventPublisher,
+        Validator validator,
+        ObjectMapper objectMapper,
+        UserImportProperties properties,
+        MeterRegistry meterRegistry
+    ) {
+        this.userRepository = userRepository;
+        this.userBatchRepository = userBatchRepository;
+        this.userMapper = userMapper;
+        this.passwordHasher = passwordHasher;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        for (var outcome : UserImportResult.Outcome.values()) {
+            rowCounters.put(outcome, Counter.builder("users.import.rows")
+                .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                .description("Rows of user imports per outcome")
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Imports users from {@code input}, reporting the results of each batch, in row order, as soon
+     * as the batch is done.
+     *
+     * @param input the file, read up to {@code user-import.max-rows} rows
+     * @param currentUserId ID of user importing
+     * @param roleFromAuth role of the authenticated user; imports of an ADMIN are ACTIVE, others PENDING
+     * @param report receives the results of each batch
+     * @return totals of the import
+     * @throws com.digitopia.common.exception.ValidationException if a CSV header lacks a required column
+     */
+    public UserImportSummary importUsers(
+        Reader input,
+        ImportFormat format,
+        UUID currentUserId,
+        Role roleFromAuth,
+        Consumer<List<UserImportResult>> report
+    ) throws IOException {
+        var reader = new UserImportReader(input, format, objectMapper, properties.maxLineLength());
+        var status = roleFromAuth == Role.ADMIN ? UserStatus.ACTIVE : UserStatus.PENDING;
+        var totals = new EnumMap<UserImportResult.Outcome, Long>(UserImportResult.Outcome.class);
+        var batch = new ArrayList<UserImportRow>(properties.batchSize());
+        var rows = 0L;
+        var truncated = false;
+
+        UserImportRow row;
+        while ((row = reader.next()) != null) {
+            if (rows == properties.maxRows()) {
+                truncated = true;
+                break;
+            }
+            rows++;
+            batch.add(row);
+            if (batch.size() == properties.batchSize()) {
+                report(importBatch(batch, currentUserId, status), totals, report);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            report(importBatch(batch, currentUserId, status), totals, report);
+        }
+
+        var summary = new UserImportSummary(
+            rows,
+            totals.getOrDefault(UserImportResult.Outcome.CREATED, 0L),
+            totals.getOrDefault(UserImportResult.Outcome.DUPLICATE, 0L),
+            totals.getOrDefault(UserImportResult.Outcome.INVALID, 0L),
+            truncated
+        );
+        log.info("User import by {}: {}", currentUserId, summary);
+        return summary;
+    }
+
+    private void report(
+        List<UserImportResult> results,
+        Map<UserImportResult.Outcome, Long> totals,
+        Consumer<List<UserImportResult>> report
+    ) {
+        for (var result : results) {
+            totals.merge(result.outcome(), 1L, Long::sum);
+            rowCounters.get(result.outcome()).increment();
+        }
+        report.accept(results);
+    }
+
+    private List<UserImportResult> importBatch(List<UserImportRow> rows, UUID currentUserId, UserStatus status) {
+        var results = new ArrayList<UserImportResult>(rows.size());
+        var candidates = new LinkedHashMap<String, Candidate>();
+
+        for (var row : rows) {
+            var error = validate(row);
+            if (error != null) {
+                results.add(UserImportResult.invalid(row.row(), row.email(), error));
+                continue;
+            }
+            var email = StringUtils.normalizeEmail(row.email());
+            if (candidates.putIfAbsent(email, new Candidate(row, email)) != null) {
+                results.add(UserImportResult.duplicate(row.row(), email));
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            for (var taken : userRepository.findEmailsIn(candidates.keySet())) {
+                var candidate = candidates.remove(taken);
+                if (candidate != null) {
+                    results.add(UserImportResult.duplicate(candidate.row().row(), taken));
+                }
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            var created = insert(new ArrayList<>(candidates.values()), currentUserId, status, results);
+            if (!created.isEmpty()) {
+                eventPublisher.publishUsersCreated(created, currentUserId);
+            }
+        }
+
+        results.sort(Comparator.comparingLong(UserImportResult::row));
+        return results;
+    }
+
+    /**
+     * Hashes the passwords of {@code candidates} and inserts them as users.
+     *
+     * @return the created users
+     */
+    private List<UserDTO> insert(
+        List<Candidate> candidates,
+        UUID currentUserId,
+        UserStatus status,
+        List<UserImportResult> results
+    ) {
+        var hashes = passwordHasher.encodeAll(candidates.stream().map(c -> c.row().password()).toList());
+
+        var now = LocalDateTime.now();
+        var users = new ArrayList<User>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            users.add(user(candidates.get(i), hashes.get(i), currentUserId, status, now));
+        }
+
+        var inserted = users;
+        try {
+            userBatchRepository.insertAll(users);
+        } catch (DuplicateKeyException e) {
+            // An email was registered since the lookup; find out which row by row
+            inserted = new ArrayList<>(users.size());
+            for (var user : users) {
+                try {
+                    userBatchRepository.insertAll(List.of(user));
+                    inserted.add(user);
+                } catch (DuplicateKeyException duplicate) {
+                    log.debug("Import row for {} lost to a concurrent registration", user.getEmail());
+                }
+            }
+        }
+
+        var insertedIds = new HashSet<UUID>();
+        var created = new ArrayList<UserDTO>(inserted.size());
+        for (var user : inserted) {
+            insertedIds.add(user.getId());
+            created.add(userMapper.toDto(user));
+        }
+        for (int i = 0; i < users.size(); i++) {
+            var user = users.get(i);
+            var row = candidates.get(i).row().row();
+            results.add(insertedIds.contains(user.getId())
+                ? UserImportResult.created(row, user.getEmail(), user.getId())
+                : UserImportResult.duplicate(row, user.getEmail()));
+        }
+        return created;
+    }
+
+    /**
+     * @return why {@code row} cannot be imported, or null if it can
+     */
+    private String validate(UserImportRow row) {
+        if (row.error() != null) {
+            return row.error();
+        }
+
+        Role role;
+        try {
+            role = role(row);
+        } catch (IllegalArgumentException e) {
+            return "Invalid role: " + row.role();
+        }
+
+        var violations = validator.validate(new CreateUserRequest(row.email(), row.fullName(), role));
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                .min(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(ConstraintViolation::getMessage)
+                .orElseThrow();
+        }
+
+        if (row.password() == null || row.password().isBlank()) {
+            return "Password is required";
+        }
+        return null;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the row names no known role
+     */
+    private static Role role(UserImportRow row) {
+        return row.role() == null || row.role().isBlank()
+            ? Role.USER
+            : Role.valueOf(row.role().trim().toUpperCase(Locale.ROOT));
+    }
+
+    private static User user(
+        Candidate candidate,
+        String passwordHash,
+        UUID currentUserId,
+        UserStatus status,
+        LocalDateTime now
+    ) {
+        var row = candidate.row();
+        var user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail(candidate.email());
+        user.setPassword(passwordHash);
+        user.setFullName(StringUtils.sanitize(row.fullName()));
+        user.setNormalizedName(StringUtils.normalizeToAscii(row.fullName()));
+        user.setRole(role(row));
+        user.setStatus(status);
+
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        user.setCreatedBy(currentUserId);
+        user.setUpdatedBy(currentUserId);
+        return user;
+    }
+
+    /** A valid row and its normalized email. */
+    private record Candidate(UserImportRow row, String email) {}
+}
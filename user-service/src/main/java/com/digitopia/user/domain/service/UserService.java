@@ -1,5 +1,6 @@
 package com.digitopia.user.domain.service;
 
+import com.digitopia.common.dto.MembershipDTO;
 import com.digitopia.common.dto.UserDTO;
 import com.digitopia.common.dto.request.CreateUserRequest;
 import com.digitopia.common.dto.request.SearchUserRequest;
@@ -25,6 +26,9 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.UUID;
 
@@ -68,10 +72,6 @@ public class UserService {
      */
     @Transactional
     public UserDTO createUser(CreateUserRequest request, UUID currentUserId, Role roleFromAuth) {
-        if (userRepository.existsByEmail(request.email())) {
-            throw new DuplicateResourceException("User already exists with email: " + request.email());
-        }
-
         if (!request.fullName().matches("^[a-zA-Z\\s]+$")) {
             throw new ValidationException("Full name must contain only letters");
         }
@@ -88,7 +88,7 @@ public class UserService {
         user.setCreatedBy(currentUserId);
         user.setUpdatedBy(currentUserId);
 
-        var saved = userRepository.save(user);
+        var saved = userRepository.insert(user);
         var dto = userMapper.toDto(saved);
 
         eventPublisher.publishUserCreated(dto, currentUserId);
@@ -146,7 +146,8 @@ public class UserService {
 
     /**
      * Updates user status.
-     * Evicts user from cache.
+     * Evicts user from cache and publishes the change, so the gateway
+     * can stop accepting tokens of deactivated users.
      *
      * @param id user ID
      * @param request new status
@@ -160,10 +161,14 @@ public class UserService {
         var user = userRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("User " + id.toString()));
 
+        var oldStatus = user.getStatus();
         user.setStatus(request.status());
         user.setUpdatedBy(currentUserId);
 
         var saved = userRepository.save(user);
+        if (oldStatus != request.status()) {
+            eventPublisher.publishUserStatusChanged(id, oldStatus, request.status(), currentUserId);
+        }
         return userMapper.toDto(saved);
     }
 
@@ -181,6 +186,44 @@ public class UserService {
         return user.getOrganizationIds();
     }
 
+    /**
+     * Gets one page of all user-organization memberships, for callers that keep their own copy.
+     *
+     * <p>Pages are keyed by the last membership of the previous page rather than by offset,
+     * so each page is an index range scan however far into the table it is.</p>
+     *
+     * @param afterUserId user ID of the last membership already read, or {@code null} to start
+     * @param afterOrganizationId organization ID of the last membership already read
+     * @param size maximum number of memberships to return
+     * @return memberships ordered by user ID, then organization ID
+     */
+    @Transactional(readOnly = true)
+    public List<MembershipDTO> getMemberships(UUID afterUserId, UUID afterOrganizationId, int size) {
+        var start = new UUID(0, 0);
+        return userRepository.findMembershipsAfter(
+                afterUserId != null ? afterUserId : start,
+                afterUserId != null && afterOrganizationId != null ? afterOrganizationId : start,
+                size
+            ).stream()
+            .map(m -> new MembershipDTO(m.getUserId(), m.getOrganizationId()))
+            .toList();
+    }
+
+    /**
+     * Gets users who were deactivated or deleted since the given time.
+     * Their tokens may still be within their lifetime.
+     *
+     * @param since earliest status change to include
+     * @return IDs of the users who can no longer log in
+     */
+    @Transactional(readOnly = true)
+    public List<UUID> getRevokedUserIds(Instant since) {
+        // updatedAt is audited as a LocalDateTime in this JVM's time zone, whatever the caller's is
+        return userRepository.findIdsByStatusChangedSince(
+            List.of(UserStatus.DEACTIVATED, UserStatus.DELETED), LocalDateTime.ofInstant(since, ZoneId.systemDefault())
+        );
+    }
+
     /**
      * Adds user to an organization.
      * Called by invitation-service when invitation is accepted.
@@ -217,6 +260,7 @@ public class UserService {
         user.setStatus(UserStatus.DELETED);
         user.setUpdatedBy(currentUserId);
         userRepository.save(user);
+        eventPublisher.publishUserDeleted(id, user.getOrganizationIds(), currentUserId);
 
         log.info("User {} soft-deleted by user {}", id, currentUserId);
     }
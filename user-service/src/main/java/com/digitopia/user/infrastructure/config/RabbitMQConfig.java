@@ -16,6 +16,8 @@ public class RabbitMQConfig {
     public static final String USER_EXCHANGE = "digitopia.user.exchange";
     public static final String USER_CREATED_QUEUE = "user.created.queue";
     public static final String USER_CREATED_KEY = "user.created";
+    public static final String USER_UPDATED_KEY = "user.updated";
+    public static final String USER_DELETED_KEY = "user.deleted";
 
     public static final String INVITATION_EXCHANGE = "digitopia.invitation.exchange";
     public static final String INVITATION_ACCEPTED_QUEUE = "invitation.accepted.queue";
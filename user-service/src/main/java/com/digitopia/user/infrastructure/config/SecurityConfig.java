@@ -1,5 +1,9 @@
 package com.digitopia.user.infrastructure.config;
 
+import com.digitopia.user.infrastructure.security.BCryptWorkFactor;
+import com.digitopia.user.infrastructure.security.LoginShieldProperties;
+import com.digitopia.user.infrastructure.security.PasswordHashingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -11,6 +15,7 @@ import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties({PasswordHashingProperties.class, LoginShieldProperties.class})
 public class SecurityConfig {
 
     @Bean
@@ -27,7 +32,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(BCryptWorkFactor workFactor) {
+        return new BCryptPasswordEncoder(workFactor.cost());
     }
 }
@@ -0,0 +1,10 @@
+package com.digitopia.user.infrastructure.config;
+
+import com.digitopia.user.infrastructure.importer.UserImportProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(UserImportProperties.class)
+public class UserImportConfig {
+}
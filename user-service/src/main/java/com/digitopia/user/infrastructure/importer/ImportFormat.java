@@ -0,0 +1,21 @@
+package com.digitopia.user.infrastructure.importer;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formats the bulk user import reads: one JSON object per line, or CSV with a header line.
+ */
+public enum ImportFormat {
+    NDJSON,
+    CSV;
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    public static ImportFormat of(MediaType contentType) {
+        if (contentType != null && contentType.isCompatibleWith(MediaType.parseMediaType(CSV_VALUE))) {
+            return CSV;
+        }
+        return NDJSON;
+    }
+}
@@ -0,0 +1,18 @@
+package com.digitopia.user.infrastructure.importer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the bulk user import under {@code user-import}.
+ *
+ * @param batchSize rows validated, hashed, inserted and published together
+ * @param maxRows rows read from one file; the rest is ignored and the summary says so
+ * @param maxLineLength characters in one row; longer rows are reported invalid without being held in memory
+ */
+@ConfigurationProperties(prefix = "user-import")
+public record UserImportProperties(
+    @DefaultValue("500") int batchSize,
+    @DefaultValue("100000") int maxRows,
+    @DefaultValue("8192") int maxLineLength
+) {}
@@ -0,0 +1,189 @@
+package com.digitopia.user.infrastructure.importer;
+
+import com.digitopia.common.exception.ValidationException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads import rows one at a time, holding no more than one line in memory.
+ *
+ * <p>NDJSON rows are objects with {@code email}, {@code fullName}, {@code role} and {@code password}.
+ * CSV files start with a header naming the same columns in any order ({@code full_name} works too);
+ * fields may be quoted, but not span lines. Blank lines are skipped. Lines longer than
+ * {@code maxLineLength} are skipped to their end and reported as unreadable rows.</p>
+ */
+public class UserImportReader {
+
+    private static final String EMAIL = "email";
+    private static final String FULL_NAME = "fullname";
+    private static final String ROLE = "role";
+    private static final String PASSWORD = "password";
+
+    private final Reader reader;
+    private final ImportFormat format;
+    private final ObjectMapper objectMapper;
+    private final int maxLineLength;
+
+    private final StringBuilder line = new StringBuilder();
+    private boolean lineTooLong;
+    private boolean firstLine = true;
+    private long row;
+
+    /** Column index of email, full name, role and password in CSV rows; -1 for role if absent. */
+    private int[] columns;
+
+    public UserImportReader(Reader reader, ImportFormat format, ObjectMapper objectMapper, int maxLineLength) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * @return the next row, or null at the end of the input
+     * @throws ValidationException if a CSV header lacks a required column
+     */
+    public UserImportRow next() throws IOException {
+        while (readLine()) {
+            if (!lineTooLong && line.toString().isBlank()) {
+                continue;
+            }
+            if (format == ImportFormat.CSV && columns == null) {
+                columns = header(split(line));
+                continue;
+            }
+
+            row++;
+            if (lineTooLong) {
+                return UserImportRow.unreadable(row, "Row is longer than " + maxLineLength + " characters");
+            }
+            return format == ImportFormat.CSV ? csvRow() : jsonRow();
+        }
+        return null;
+    }
+
+    /**
+     * Reads up to the next line feed into {@link #line}, keeping at most {@code maxLineLength} characters.
+     *
+     * @return false at the end of the input
+     */
+    private boolean readLine() throws IOException {
+        line.setLength(0);
+        lineTooLong = false;
+
+        int c;
+        var read = false;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (c == '\n') {
+                break;
+            }
+            if (line.length() < maxLineLength) {
+                line.append((char) c);
+            } else {
+                lineTooLong = true;
+            }
+        }
+
+        if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+            line.setLength(line.length() - 1);
+        }
+        if (firstLine && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+            line.deleteCharAt(0);
+        }
+        firstLine = false;
+        return read;
+    }
+
+    private UserImportRow jsonRow() {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line.toString());
+        } catch (JsonProcessingException e) {
+            return UserImportRow.unreadable(row, "Row is not valid JSON");
+        }
+        if (node == null || !node.isObject()) {
+            return UserImportRow.unreadable(row, "Row is not a JSON object");
+        }
+        return new UserImportRow(
+            row, text(node, "email"), text(node, "fullName"), text(node, "role"), text(node, "password"), null
+        );
+    }
+
+    private static String text(JsonNode node, String field) {
+        var value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private UserImportRow csvRow() {
+        var fields = split(line);
+        return new UserImportRow(
+            row,
+            field(fields, columns[0]),
+            field(fields, columns[1]),
+            field(fields, columns[2]),
+            field(fields, columns[3]),
+            null
+        );
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column >= 0 && column < fields.size() ? fields.get(column) : null;
+    }
+
+    private static int[] header(List<String> names) {
+        var columns = new int[] {-1, -1, -1, -1};
+        for (int i = 0; i < names.size(); i++) {
+            var name = names.get(i).trim().replace("_", "").replace("-", "").toLowerCase(Locale.ROOT);
+            switch (name) {
+                case EMAIL -> columns[0] = i;
+                case FULL_NAME -> columns[1] = i;
+                case ROLE -> columns[2] = i;
+                case PASSWORD -> columns[3] = i;
+                default -> { }
+            }
+        }
+        if (columns[0] < 0 || columns[1] < 0 || columns[3] < 0) {
+            throw new ValidationException("CSV header must name the columns email, fullName and password");
+        }
+        return columns;
+    }
+
+    /**
+     * Splits a CSV line on commas outside double quotes; {@code ""} inside quotes is a quote.
+     */
+    static List<String> split(CharSequence line) {
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
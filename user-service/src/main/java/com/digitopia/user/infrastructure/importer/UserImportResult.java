@@ -0,0 +1,36 @@
+package com.digitopia.user.infrastructure.importer;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one import row, one line of the report.
+ *
+ * @param id the created user; null unless {@code outcome} is {@link Outcome#CREATED}
+ * @param message why the row was not imported; null if it was
+ */
+public record UserImportResult(
+    long row,
+    String email,
+    Outcome outcome,
+    UUID id,
+    String message
+) {
+
+    public enum Outcome {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    public static UserImportResult created(long row, String email, UUID id) {
+        return new UserImportResult(row, email, Outcome.CREATED, id, null);
+    }
+
+    public static UserImportResult duplicate(long row, String email) {
+        return new UserImportResult(row, email, Outcome.DUPLICATE, null, "User already exists with email: " + email);
+    }
+
+    public static UserImportResult invalid(long row, String email, String message) {
+        return new UserImportResult(row, email, Outcome.INVALID, null, message);
+    }
+}
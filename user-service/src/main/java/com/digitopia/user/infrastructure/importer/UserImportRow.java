@@ -0,0 +1,21 @@
+package com.digitopia.user.infrastructure.importer;
+
+/**
+ * One row of an import file as read, before validation.
+ *
+ * @param row 1-based row number, not counting a CSV header
+ * @param error why the row could not be read; null if it could
+ */
+public record UserImportRow(
+    long row,
+    String email,
+    String fullName,
+    String role,
+    String password,
+    String error
+) {
+
+    static UserImportRow unreadable(long row, String error) {
+        return new UserImportRow(row, null, null, null, null, error);
+    }
+}
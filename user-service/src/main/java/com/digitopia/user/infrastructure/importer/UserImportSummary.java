@@ -0,0 +1,14 @@
+package com.digitopia.user.infrastructure.importer;
+
+/**
+ * Totals of an import, the last line of the report.
+ *
+ * @param truncated whether rows beyond {@code user-import.max-rows} were left unread
+ */
+public record UserImportSummary(
+    long rows,
+    long created,
+    long duplicates,
+    long invalid,
+    boolean truncated
+) {}
@@ -3,6 +3,8 @@ package com.digitopia.user.infrastructure.messaging;
 import com.digitopia.common.dto.UserDTO;
 import com.digitopia.common.dto.event.UserCreatedEvent;
 import com.digitopia.common.dto.event.UserDeletedEvent;
+import com.digitopia.common.dto.event.UserUpdatedEvent;
+import com.digitopia.common.enums.UserStatus;
 import com.digitopia.user.infrastructure.config.RabbitMQConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,4 +45,55 @@ public class UserEventPublisher {
 
         log.info("Published UserCreatedEvent for user: {}", user.email());
     }
+
+    /**
+     * Publishes a {@link UserCreatedEvent} per user, all over one channel.
+     */
+    public void publishUsersCreated(List<UserDTO> users, UUID triggeredBy) {
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (var user : users) {
+                    operations.convertAndSend(
+                        RabbitMQConfig.USER_EXCHANGE,
+                        RabbitMQConfig.USER_CREATED_KEY,
+                        UserCreatedEvent.create(user, triggeredBy)
+                    );
+                }
+                return null;
+            });
+            log.info("Published {} UserCreatedEvents", users.size());
+        } catch (Exception e) {
+            log.error("Failed to publish UserCreatedEvents for {} users", users.size(), e);
+        }
+    }
+
+    public void publishUserStatusChanged(UUID userId, UserStatus oldStatus, UserStatus newStatus, UUID triggeredBy) {
+        var event = UserUpdatedEvent.create(userId, "status", oldStatus, newStatus, triggeredBy);
+
+        try {
+            rabbitTemplate.convertAndSend(
+                RabbitMQConfig.USER_EXCHANGE,
+                RabbitMQConfig.USER_UPDATED_KEY,
+                event
+            );
+            log.info("Published UserUpdatedEvent for user: {} status {} -> {}", userId, oldStatus, newStatus);
+        } catch (Exception e) {
+            log.error("Failed to publish UserUpdatedEvent for user: {}", userId, e);
+        }
+    }
+
+    public void publishUserDeleted(UUID userId, List<UUID> organizationIds, UUID triggeredBy) {
+        var event = UserDeletedEvent.create(userId, List.copyOf(organizationIds), triggeredBy);
+
+        try {
+            rabbitTemplate.convertAndSend(
+                RabbitMQConfig.USER_EXCHANGE,
+                RabbitMQConfig.USER_DELETED_KEY,
+                event
+            );
+            log.info("Published UserDeletedEvent for user: {}", userId);
+        } catch (Exception e) {
+            log.error("Failed to publish UserDeletedEvent for user: {}", userId, e);
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package com.digitopia.user.infrastructure.scheduler;
+
+import com.digitopia.user.domain.repository.UserRepository;
+import com.digitopia.user.infrastructure.security.BCryptWorkFactor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job that publishes how many stored password hashes use each BCrypt cost, as
+ * {@code auth.password.hash.cost.users{cost}}, next to the cost new hashes get,
+ * {@code auth.password.hash.cost.current}. Shows how far rehashing on login has got.
+ * Runs every 10 minutes by default ({@code auth.password-hashing.cost-metrics-interval}).
+ */
+@Component
+public class PasswordHashCostScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashCostScheduler.class);
+    private final UserRepository userRepository;
+    private final MultiGauge usersPerCost;
+
+    public PasswordHashCostScheduler(
+        UserRepository userRepository,
+        BCryptWorkFactor workFactor,
+        MeterRegistry meterRegistry
+    ) {
+        this.userRepository = userRepository;
+        this.usersPerCost = MultiGauge.builder("auth.password.hash.cost.users")
+            .description("Users whose password hash has the given BCrypt cost")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.hash.cost.current", workFactor, BCryptWorkFactor::cost)
+            .description("BCrypt cost of new password hashes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Recounts users per hash cost.
+     */
+    @Scheduled(
+        initialDelayString = "PT30S",
+        fixedDelayString = "${auth.password-hashing.cost-metrics-interval:PT10M}"
+    )
+    public void refresh() {
+        try {
+            usersPerCost.register(
+                userRepository.countByPasswordHashCost().stream()
+                    .map(row -> MultiGauge.Row.of(Tags.of("cost", row.getCost()), row.getUsers()))
+                    .toList(),
+                true
+            );
+        } catch (Exception e) {
+            log.error("Error counting password hash costs", e);
+        }
+    }
+}
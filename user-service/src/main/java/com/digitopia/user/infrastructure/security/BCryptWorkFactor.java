@@ -0,0 +1,71 @@
+package com.digitopia.user.infrastructure.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * The BCrypt cost new hashes are made with: {@code auth.password-hashing.cost} if set, otherwise
+ * the highest cost between {@code min-cost} and {@code max-cost} whose hash time on this machine
+ * stays within {@code target-latency}.
+ *
+ * <p>The calibration times a few hashes at {@code min-cost} and doubles from there, each step of
+ * cost doubling the work. Instances on different hardware may pick different costs; hashes of any
+ * cost verify everywhere, and {@link PasswordHasher#needsRehash} only ever raises a stored cost.</p>
+ */
+@Component
+public class BCryptWorkFactor {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptWorkFactor.class);
+
+    private static final int SAMPLES = 3;
+
+    private final int cost;
+
+    public BCryptWorkFactor(PasswordHashingProperties properties) {
+        if (properties.cost() > 0) {
+            this.cost = properties.cost();
+            log.info("BCrypt cost {} (configured)", cost);
+        } else {
+            var nanos = medianHashNanos(properties.minCost());
+            this.cost = costFor(nanos, properties.minCost(), properties.maxCost(), properties.targetLatency());
+            log.info(
+                "BCrypt cost {} calibrated for {} ms per hash; cost {} took {} ms",
+                cost, properties.targetLatency().toMillis(), properties.minCost(), nanos / 1_000_000
+            );
+        }
+    }
+
+    public int cost() {
+        return cost;
+    }
+
+    /** The highest cost from {@code minCost} up whose estimated hash time stays within {@code target}. */
+    static int costFor(long nanosAtMinCost, int minCost, int maxCost, Duration target) {
+        var cost = minCost;
+        var nanos = nanosAtMinCost;
+        while (cost < maxCost && nanos * 2 <= target.toNanos()) {
+            cost++;
+            nanos *= 2;
+        }
+        return cost;
+    }
+
+    private static long medianHashNanos(int cost) {
+        var encoder = new BCryptPasswordEncoder(cost);
+        encoder.encode("calibration");
+
+        var samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            var started = System.nanoTime();
+            encoder.encode("calibration");
+            samples[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
@@ -0,0 +1,52 @@
+package com.digitopia.user.infrastructure.security;
+
+import com.digitopia.common.security.InternalApiSecret;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Only lets callers holding {@code internal-api.secret} reach {@code /internal/**}. The gateway
+ * never routes those paths, but the service port itself is published for local development.
+ */
+@Component
+public class InternalApiFilter extends OncePerRequestFilter {
+
+    private final String secret;
+
+    public InternalApiFilter(@Value("${internal-api.secret}") String secret) {
+        this.secret = secret;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getServletPath().startsWith("/internal/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        if (InternalApiSecret.matches(request.getHeader(InternalApiSecret.HEADER), secret)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(HttpStatus.FORBIDDEN.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("""
+            {
+              "success": false,
+              "message": "Internal endpoint",
+              "timestamp": "%s"
+            }
+            """.formatted(LocalDateTime.now()));
+    }
+}
@@ -1,55 +1,46 @@
 package com.digitopia.user.infrastructure.security;
 
 import com.digitopia.common.enums.Role;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import com.digitopia.common.security.JwtClaims;
+import com.digitopia.common.security.JwtCodec;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
-import java.util.Date;
 import java.util.UUID;
 
 @Component
 public class JwtTokenProvider {
 
-    private final SecretKey secretKey;
+    private final JwtCodec codec;
     private final long expiration;
 
     public JwtTokenProvider(
         @Value("${jwt.secret}") String secret,
         @Value("${jwt.expiration}") long expiration
     ) {
-        this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.codec = new JwtCodec(secret.getBytes(StandardCharsets.UTF_8));
         this.expiration = expiration;
     }
 
     public String generateToken(UUID userId, String email, Role role) {
-        var now = new Date();
-        var expiryDate = new Date(now.getTime() + expiration);
-
-        return Jwts.builder()
-            .setSubject(userId.toString())
-            .claim("email", email)
-            .claim("role", role.name())
-            .setIssuedAt(now)
-            .setExpiration(expiryDate)
-            .signWith(secretKey)
-            .compact();
+        var now = System.currentTimeMillis();
+
+        return codec.sign(
+            userId.toString(),
+            email,
+            role.name(),
+            now / 1000,
+            (now + expiration) / 1000
+        );
     }
 
-    public Claims validateToken(String token) {
-        return Jwts.parser()
-            .setSigningKey(secretKey)
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
+    public JwtClaims validateToken(String token) {
+        return codec.verify(token, System.currentTimeMillis());
     }
 
     public UUID getUserIdFromToken(String token) {
         var claims = validateToken(token);
-        return UUID.fromString(claims.getSubject());
+        return UUID.fromString(claims.subject());
     }
 }
@@ -0,0 +1,251 @@
+package com.digitopia.user.infrastructure.security;
+
+import com.digitopia.common.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.connection.BitFieldSubCommands.BitFieldIncrBy.Overflow;
+import org.springframework.data.redis.connection.BitFieldSubCommands.BitFieldType;
+import org.springframework.data.redis.connection.BitFieldSubCommands.Offset;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts failed logins per email and per client IP and refuses further attempts with 429 before
+ * their password is checked, so that credential stuffing cannot spend BCrypt time meant for real
+ * users. Past a few failures attempts must also be spaced out, by a delay that doubles with each
+ * failure; the client is told to come back through {@code Retry-After} instead of being held.
+ *
+ * <p>The counts are count-min sketches in Redis, shared by all instances: per dimension and
+ * {@code window}, one string of {@code depth} rows of {@code width} 16-bit counters, followed by the
+ * time of the last failure for each counter. A key sets the cells its hash picks in each row and is
+ * estimated by the smallest of them, so the memory stays fixed whatever the number of emails and
+ * addresses tried, at the cost of over-counting on collisions. The previous window's count is added
+ * with a weight falling over the current window.</p>
+ *
+ * <p>If Redis cannot be reached or does not answer within {@code spring.data.redis.timeout}, logins go
+ * through unchecked.</p>
+ *
+ * @see LoginShieldProperties
+ */
+@Component
+public class LoginShield {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginShield.class);
+
+    private static final String KEY_PREFIX = "auth:login-shield:";
+    private static final BitFieldType COUNTER = BitFieldType.unsigned(16);
+    private static final BitFieldType TIMESTAMP = BitFieldType.unsigned(32);
+
+    private final StringRedisTemplate redisTemplate;
+    private final LoginShieldProperties properties;
+    private final LongSupplier clockMillis;
+    private final long windowMillis;
+    /** Bit offset of the timestamps, after the counters. */
+    private final long timestampOffset;
+
+    private final Counter failures;
+    private final Counter emailRejections;
+    private final Counter ipRejections;
+
+    public LoginShield(StringRedisTemplate redisTemplate, LoginShieldProperties properties, MeterRegistry meterRegistry) {
+        this(redisTemplate, properties, meterRegistry, System::currentTimeMillis);
+    }
+
+    LoginShield(
+        StringRedisTemplate redisTemplate,
+        LoginShieldProperties properties,
+        MeterRegistry meterRegistry,
+        LongSupplier clockMillis
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.clockMillis = clockMillis;
+        this.windowMillis = properties.window().toMillis();
+        this.timestampOffset = 16L * properties.width() * properties.depth();
+        this.failures = Counter.builder("auth.login.failures")
+            .description("Failed logins counted by the login shield")
+            .register(meterRegistry);
+        this.emailRejections = rejections(meterRegistry, "email");
+        this.ipRejections = rejections(meterRegistry, "ip");
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String dimension) {
+        return Counter.builder("auth.login.shield.rejections")
+            .tag("dimension", dimension)
+            .description("Logins refused before the password check")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @throws TooManyRequestsException if the email or the address has failed too often, or too recently
+     */
+    public void check(String email, String clientIp) {
+        if (!properties.enabled()) {
+            return;
+        }
+        var now = clockMillis.getAsLong();
+        var window = now / windowMillis;
+        var emailCells = cells("email", email);
+        var ipCells = cells("ip", clientIp);
+
+        List<Object> counts;
+        try {
+            counts = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                var strings = connection.stringCommands();
+                strings.bitField(key("email", window), read(emailCells));
+                strings.bitField(key("email", window - 1), read(emailCells));
+                strings.bitField(key("ip", window), read(ipCells));
+                strings.bitField(key("ip", window - 1), read(ipCells));
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Login shield unavailable, not checking failed logins: {}", e.getMessage());
+            return;
+        }
+
+        var elapsed = (double) (now % windowMillis) / windowMillis;
+        var windowLeft = windowMillis - now % windowMillis;
+        var emailWait = waitMillis(
+            failures(counts.get(0), counts.get(1), elapsed), properties.emailDelayAfter(), properties.emailMaxFailures(),
+            now, windowLeft
+        );
+        var ipWait = waitMillis(
+            failures(counts.get(2), counts.get(3), elapsed), properties.ipDelayAfter(), properties.ipMaxFailures(),
+            now, windowLeft
+        );
+        if (emailWait <= 0 && ipWait <= 0) {
+            return;
+        }
+
+        (emailWait >= ipWait ? emailRejections : ipRejections).increment();
+        var retryAfterSeconds = Math.max(1, (Math.max(emailWait, ipWait) + 999) / 1000);
+        throw new TooManyRequestsException(
+            "Too many failed login attempts, try again in " + retryAfterSeconds + " seconds", retryAfterSeconds
+        );
+    }
+
+    /** Counts a failed login against the email and the address. */
+    public void recordFailure(String email, String clientIp) {
+        if (!properties.enabled()) {
+            return;
+        }
+        failures.increment();
+        var now = clockMillis.getAsLong();
+        var window = now / windowMillis;
+        var emailCells = cells("email", email);
+        var ipCells = cells("ip", clientIp);
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                var strings = connection.stringCommands();
+                var emailKey = key("email", window);
+                var ipKey = key("ip", window);
+                strings.bitField(emailKey, increment(emailCells, now / 1000));
+                strings.bitField(ipKey, increment(ipCells, now / 1000));
+                connection.keyCommands().pExpire(emailKey, 2 * windowMillis);
+                connection.keyCommands().pExpire(ipKey, 2 * windowMillis);
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Login shield unavailable, failed login not counted: {}", e.getMessage());
+        }
+    }
+
+    /** How long the next attempt must wait, 0 if it may go ahead. */
+    long waitMillis(Failures failures, int delayAfter, int maxFailures, long now, long windowLeft) {
+        if (failures.count() >= maxFailures) {
+            return windowLeft;
+        }
+        if (failures.count() < delayAfter) {
+            return 0;
+        }
+        var doublings = Math.min((long) failures.count() - delayAfter, 30);
+        var delay = Math.min(properties.maxDelay().toMillis(), properties.baseDelay().toMillis() << doublings);
+        return Math.max(0, failures.lastFailureMillis() + delay - now);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Failures failures(Object current, Object previous, double elapsed) {
+        var depth = properties.depth();
+        var currentCells = (List<Long>) current;
+        var previousCells = (List<Long>) previous;
+
+        var lastFailure = min(currentCells, depth, 2 * depth);
+        if (lastFailure == 0) {
+            lastFailure = min(previousCells, depth, 2 * depth);
+        }
+        var count = min(currentCells, 0, depth) + min(previousCells, 0, depth) * (1 - elapsed);
+        return new Failures(count, lastFailure * 1000);
+    }
+
+    private static long min(List<Long> values, int from, int to) {
+        var min = Long.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            var value = values == null || values.size() <= i || values.get(i) == null ? 0 : values.get(i);
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    /** The cell of {@code key} in each row, as counter indices. */
+    int[] cells(String dimension, String key) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256")
+                .digest((dimension + '\n' + key).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        var cells = new int[properties.depth()];
+        for (int row = 0; row < cells.length; row++) {
+            var hash = (digest[4 * row] & 0xff) << 24 | (digest[4 * row + 1] & 0xff) << 16
+                | (digest[4 * row + 2] & 0xff) << 8 | (digest[4 * row + 3] & 0xff);
+            cells[row] = row * properties.width() + Math.floorMod(hash, properties.width());
+        }
+        return cells;
+    }
+
+    private BitFieldSubCommands read(int[] cells) {
+        var commands = BitFieldSubCommands.create();
+        for (var cell : cells) {
+            commands = commands.get(COUNTER).valueAt(Offset.offset(cell).multipliedByTypeLength());
+        }
+        for (var cell : cells) {
+            commands = commands.get(TIMESTAMP).valueAt(Offset.offset(timestampOffset + 32L * cell));
+        }
+        return commands;
+    }
+
+    private BitFieldSubCommands increment(int[] cells, long nowSeconds) {
+        var commands = BitFieldSubCommands.create();
+        for (var cell : cells) {
+            commands = commands.incr(COUNTER)
+                .valueAt(Offset.offset(cell).multipliedByTypeLength())
+                .overflow(Overflow.SAT)
+                .by(1);
+        }
+        for (var cell : cells) {
+            commands = commands.set(TIMESTAMP).valueAt(Offset.offset(timestampOffset + 32L * cell)).to(nowSeconds);
+        }
+        return commands;
+    }
+
+    private static byte[] key(String dimension, long window) {
+        return (KEY_PREFIX + dimension + ":" + window).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Estimated failures in the sliding window, and the time of the last one (0 if none). */
+    record Failures(double count, long lastFailureMillis) {
+    }
+}
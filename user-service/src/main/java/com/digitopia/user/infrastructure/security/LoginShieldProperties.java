@@ -0,0 +1,40 @@
+package com.digitopia.user.infrastructure.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link LoginShield} under {@code auth.login-shield}.
+ *
+ * <p>Failures are counted per {@code window}. Past {@code *DelayAfter} failures each further attempt
+ * must wait {@code baseDelay}, doubled per failure up to {@code maxDelay}, after the last failure; past
+ * {@code *MaxFailures} attempts are refused until the count decays.</p>
+ *
+ * @param width counters per sketch row; each window takes {@code width * depth * 6} bytes in Redis per dimension
+ * @param depth sketch rows, at most 8
+ */
+@ConfigurationProperties(prefix = "auth.login-shield")
+public record LoginShieldProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("15m") Duration window,
+    @DefaultValue("65536") int width,
+    @DefaultValue("4") int depth,
+    @DefaultValue("1s") Duration baseDelay,
+    @DefaultValue("1m") Duration maxDelay,
+    @DefaultValue("3") int emailDelayAfter,
+    @DefaultValue("20") int emailMaxFailures,
+    @DefaultValue("20") int ipDelayAfter,
+    @DefaultValue("200") int ipMaxFailures
+) {
+
+    public LoginShieldProperties {
+        if (depth < 1 || depth > 8) {
+            throw new IllegalArgumentException("auth.login-shield.depth must be between 1 and 8");
+        }
+        if (width < 1) {
+            throw new IllegalArgumentException("auth.login-shield.width must be positive");
+        }
+    }
+}
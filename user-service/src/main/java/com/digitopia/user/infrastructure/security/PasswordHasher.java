@@ -0,0 +1,240 @@
+package com.digitopia.user.infrastructure.security;
+
+import com.digitopia.common.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Hashes and verifies passwords with the {@link PasswordEncoder} on a pool of its own, one thread per
+ * processor by default, so that BCrypt cannot take every CPU and request thread during a login burst.
+ *
+ * <p>The calling thread waits for the result. At most {@code threads + queueCapacity} request threads
+ * wait at once: beyond that, calls fail straight away with {@link ServiceUnavailableException} (503)
+ * and the remaining request threads stay free for other endpoints.</p>
+ *
+ * <p>Meters: {@code auth.password.hashing} times the hashing per {@code operation},
+ * {@code auth.password.hashing.wait} the time queued for a thread, {@code auth.password.hashing.queue}
+ * and {@code auth.password.hashing.active} show the pool's load and
+ * {@code auth.password.hashing.rejected} counts turned away calls.</p>
+ *
+ * <p>Hashes made at a lower cost than the current {@link BCryptWorkFactor} are rehashed in the
+ * background after a successful login, only while no other hashing is queued;
+ * {@code auth.password.hashing{operation=rehash}} times them.</p>
+ *
+ * <p>Bulk hashing through {@link #encodeAll} has permits of its own, one per thread, and waits for
+ * one instead of failing. Its hashes queue next to the {@code threads + queueCapacity} of requests,
+ * so an import never takes room a login needs.</p>
+ */
+@Component
+public class PasswordHasher implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    /** Hashes requests may have running or queued; beyond that they are turned away. */
+    private final Semaphore requestPermits;
+    /** Hashes {@link #encodeAll} may have running or queued; beyond that it waits. */
+    private final Semaphore bulkPermits;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer rehashTimer;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(
+        PasswordEncoder passwordEncoder,
+        PasswordHashingProperties properties,
+        MeterRegistry meterRegistry
+    ) {
+        this.passwordEncoder = passwordEncoder;
+
+        var threads = properties.effectiveThreads();
+        this.requestPermits = new Semaphore(threads + properties.queueCapacity());
+        this.bulkPermits = new Semaphore(threads);
+        var threadCount = new AtomicInteger();
+        // Bounded by the permits rather than by its capacity
+        this.executor = new ThreadPoolExecutor(
+            threads, threads, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                var thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        this.encodeTimer = hashing(meterRegistry, "encode");
+        this.matchesTimer = hashing(meterRegistry, "matches");
+        this.rehashTimer = hashing(meterRegistry, "rehash");
+        this.waitTimer = Timer.builder("auth.password.hashing.wait")
+            .description("Time password hashing waited for a thread")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.hashing.rejected")
+            .description("Password hashing turned away because the queue was full")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.hashing.queue", executor, pool -> pool.getQueue().size())
+            .description("Password hashing waiting for a thread")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Threads hashing a password")
+            .register(meterRegistry);
+    }
+
+    private static Timer hashing(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("auth.password.hashing")
+            .tag("operation", operation)
+            .description("Time spent hashing or verifying a password")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @throws ServiceUnavailableException if too many passwords are being hashed already
+     */
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * @throws ServiceUnavailableException if too many passwords are being hashed already
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hashes {@code rawPasswords} in parallel, at most one per pool thread at a time across all bulk
+     * callers, and returns the hashes in the same order. Meant for bulk work: it waits for a bulk
+     * permit rather than turning the call away, and never competes with requests for theirs.
+     *
+     * @throws ServiceUnavailableException if interrupted while waiting
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        var pending = new ArrayList<Future<String>>(rawPasswords.size());
+        for (var rawPassword : rawPasswords) {
+            try {
+                bulkPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceUnavailableException("Password hashing was interrupted");
+            }
+            pending.add(submit(bulkPermits, () -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword))));
+        }
+        var hashes = new ArrayList<String>(rawPasswords.size());
+        for (var hash : pending) {
+            hashes.add(await(hash));
+        }
+        return hashes;
+    }
+
+    /**
+     * Whether {@code encodedPassword} was hashed at a lower cost than new hashes are.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        try {
+            return passwordEncoder.upgradeEncoding(encodedPassword);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hashes {@code rawPassword} again at the current cost without waiting for it, and hands the new
+     * hash to {@code onHashed} on the hashing thread. Skipped while other hashing is queued, so that it
+     * never takes a slot a login needs; the next login tries again.
+     */
+    public void rehashInBackground(CharSequence rawPassword, Consumer<String> onHashed) {
+        if (!executor.getQueue().isEmpty() || !requestPermits.tryAcquire()) {
+            // The next login tries again
+            return;
+        }
+        try {
+            submit(requestPermits, () -> rehashTimer.record(() -> passwordEncoder.encode(rawPassword)))
+                .thenAccept(onHashed)
+                .exceptionally(e -> {
+                    log.warn("Failed to rehash password: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                    return null;
+                });
+        } catch (ServiceUnavailableException e) {
+            // Shutting down
+        }
+    }
+
+    private <T> T run(Timer timer, Supplier<T> hashing) {
+        if (!requestPermits.tryAcquire()) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many sign-in requests, please try again shortly");
+        }
+        var submitted = System.nanoTime();
+        return await(submit(requestPermits, () -> {
+            waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            return timer.record(hashing);
+        }));
+    }
+
+    /**
+     * Runs {@code hashing} on the pool and hands back the permit taken for it once it has run. A plain
+     * task rather than a {@code FutureTask}, so that the permit comes back even if the caller cancels.
+     */
+    private <T> CompletableFuture<T> submit(Semaphore permits, Supplier<T> hashing) {
+        var result = new CompletableFuture<T>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(hashing.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw new ServiceUnavailableException("Password hashing is shutting down");
+        }
+        return result;
+    }
+
+    private <T> T await(Future<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password check was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,32 @@
+package com.digitopia.user.infrastructure.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of password hashing under {@code auth.password-hashing}: the {@link PasswordHasher} pool and
+ * the BCrypt work factor picked by {@link BCryptWorkFactor}.
+ *
+ * @param threads threads hashing passwords; 0 for one per available processor
+ * @param queueCapacity hashes that may wait for a thread before requests are turned away with 503
+ * @param cost fixed BCrypt cost; 0 to calibrate at startup
+ * @param targetLatency hash time the calibration aims for
+ * @param minCost lowest cost the calibration picks, whatever the hardware
+ * @param maxCost highest cost the calibration picks
+ */
+@ConfigurationProperties(prefix = "auth.password-hashing")
+public record PasswordHashingProperties(
+    @DefaultValue("0") int threads,
+    @DefaultValue("64") int queueCapacity,
+    @DefaultValue("0") int cost,
+    @DefaultValue("100ms") Duration targetLatency,
+    @DefaultValue("10") int minCost,
+    @DefaultValue("14") int maxCost
+) {
+
+    public int effectiveThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+}
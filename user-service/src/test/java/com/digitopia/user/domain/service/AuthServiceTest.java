@@ -5,23 +5,27 @@ import com.digitopia.common.dto.request.CreateUserRequest;
 import com.digitopia.common.enums.Role;
 import com.digitopia.common.enums.UserStatus;
 import com.digitopia.common.exception.DuplicateResourceException;
+import com.digitopia.common.exception.TooManyRequestsException;
 import com.digitopia.common.exception.ValidationException;
 import com.digitopia.user.domain.entity.User;
 import com.digitopia.user.domain.repository.UserRepository;
 import com.digitopia.user.infrastructure.mapper.UserMapper;
 import com.digitopia.user.infrastructure.messaging.UserEventPublisher;
 import com.digitopia.user.infrastructure.security.JwtTokenProvider;
+import com.digitopia.user.infrastructure.security.LoginShield;
+import com.digitopia.user.infrastructure.security.PasswordHasher;
 import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -30,6 +34,8 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class AuthServiceTest {
 
+    private static final String CLIENT_IP = "203.0.113.7";
+
     @Mock
     private UserRepository userRepository;
 
@@ -37,7 +43,7 @@ class AuthServiceTest {
     private UserMapper userMapper;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Mock
     private JwtTokenProvider jwtTokenProvider;
@@ -45,6 +51,9 @@ class AuthServiceTest {
     @Mock
     private UserEventPublisher eventPublisher;
 
+    @Mock
+    private LoginShield loginShield;
+
     @InjectMocks
     private AuthService authService;
 
@@ -58,9 +67,8 @@ class AuthServiceTest {
             "John Doe", "john doe", Role.USER, List.of()
         );
 
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(passwordEncoder.encode(anyString())).thenReturn("hashedPassword");
-        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
+        when(passwordHasher.encode(anyString())).thenReturn("hashedPassword");
+        when(userRepository.insert(any(User.class))).thenAnswer(i -> i.getArgument(0));
         when(jwtTokenProvider.generateToken(any(), anyString(), any())).thenReturn("jwt-token");
         when(userMapper.toDto(any())).thenReturn(mockUserDTO);
 
@@ -76,12 +84,14 @@ class AuthServiceTest {
     void shouldThrowExceptionForDuplicateEmailOnRegister() {
         var request = new CreateUserRequest("existing@example.com", "John Doe", Role.USER);
 
-        when(userRepository.existsByEmail("existing@example.com")).thenReturn(true);
+        when(passwordHasher.encode("password")).thenReturn("hashedPassword");
+        when(userRepository.insert(any(User.class)))
+            .thenThrow(new DuplicateResourceException("User already exists with email: existing@example.com"));
 
         assertThatThrownBy(() -> authService.register(request, "password"))
             .isInstanceOf(DuplicateResourceException.class);
 
-        verify(userRepository, never()).save(any());
+        verifyNoInteractions(jwtTokenProvider, eventPublisher);
     }
 
 
@@ -96,27 +106,71 @@ class AuthServiceTest {
         );
 
         when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches("password123", user.getPassword())).thenReturn(true);
+        when(passwordHasher.matches("password123", user.getPassword())).thenReturn(true);
         when(jwtTokenProvider.generateToken(any(), anyString(), any())).thenReturn("jwt-token");
         when(userMapper.toDto(user)).thenReturn(mockUserDTO);
 
-        var result = authService.login("test@example.com", "password123");
+        var result = authService.login("test@example.com", "password123", CLIENT_IP);
 
         assertThat(result).containsKeys("token", "user");
         assertThat(result.get("token")).isEqualTo("jwt-token");
     }
 
+    @Test
+    @DisplayName("Should replace a hash of a lower cost after a successful login")
+    @SuppressWarnings("unchecked")
+    void shouldRehashOutdatedHashOnLogin() {
+        var user = createActiveUser();
+        user.setId(UUID.randomUUID());
+
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(passwordHasher.matches("password123", "hashedPassword")).thenReturn(true);
+        when(passwordHasher.needsRehash("hashedPassword")).thenReturn(true);
+
+        authService.login("test@example.com", "password123", CLIENT_IP);
+
+        var onHashed = ArgumentCaptor.forClass(Consumer.class);
+        verify(passwordHasher).rehashInBackground(eq("password123"), onHashed.capture());
+        onHashed.getValue().accept("newHash");
+        verify(userRepository).replacePasswordHash(user.getId(), "hashedPassword", "newHash");
+    }
+
     @Test
     @DisplayName("Should throw exception for invalid password")
     void shouldThrowExceptionForInvalidPassword() {
         var user = createActiveUser();
 
         when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches("wrongpassword", user.getPassword())).thenReturn(false);
+        when(passwordHasher.matches("wrongpassword", user.getPassword())).thenReturn(false);
 
-        assertThatThrownBy(() -> authService.login("test@example.com", "wrongpassword"))
+        assertThatThrownBy(() -> authService.login("test@example.com", "wrongpassword", CLIENT_IP))
             .isInstanceOf(ValidationException.class)
             .hasMessageContaining("Invalid email or password");
+        verify(loginShield).recordFailure("test@example.com", CLIENT_IP);
+    }
+
+    @Test
+    @DisplayName("Should refuse logins the shield blocks without checking the password")
+    void shouldNotCheckPasswordWhenShieldRejects() {
+        doThrow(new TooManyRequestsException("Too many failed login attempts", 30))
+            .when(loginShield).check("test@example.com", CLIENT_IP);
+
+        assertThatThrownBy(() -> authService.login("Test@Example.com", "password123", CLIENT_IP))
+            .isInstanceOf(TooManyRequestsException.class);
+
+        verifyNoInteractions(userRepository, passwordHasher);
+    }
+
+    @Test
+    @DisplayName("Should count logins for unknown emails as failures")
+    void shouldRecordFailureForUnknownEmail() {
+        when(userRepository.findByEmail("nobody@example.com")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> authService.login("nobody@example.com", "password123", CLIENT_IP))
+            .isInstanceOf(ValidationException.class);
+
+        verify(loginShield).recordFailure("nobody@example.com", CLIENT_IP);
+        verifyNoInteractions(passwordHasher);
     }
 
     @Test
@@ -126,9 +180,9 @@ class AuthServiceTest {
         user.setStatus(UserStatus.DELETED);
 
         when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches("password123", user.getPassword())).thenReturn(true);
+        when(passwordHasher.matches("password123", user.getPassword())).thenReturn(true);
 
-        assertThatThrownBy(() -> authService.login("test@example.com", "password123"))
+        assertThatThrownBy(() -> authService.login("test@example.com", "password123", CLIENT_IP))
             .isInstanceOf(ValidationException.class)
             .hasMessageContaining("not active");
     }
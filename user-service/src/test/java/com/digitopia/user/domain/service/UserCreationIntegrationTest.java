@@ -0,0 +1,158 @@
+package com.digitopia.user.domain.service;
+
+import com.digitopia.common.dto.request.CreateUserRequest;
+import com.digitopia.common.enums.Role;
+import com.digitopia.common.exception.DuplicateResourceException;
+import com.digitopia.user.domain.repository.UserRepository;
+import com.digitopia.user.infrastructure.mapper.UserMapper;
+import com.digitopia.user.infrastructure.messaging.UserEventPublisher;
+import com.digitopia.user.infrastructure.security.JwtTokenProvider;
+import com.digitopia.user.infrastructure.security.LoginShield;
+import com.digitopia.user.infrastructure.security.PasswordHasher;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Creates users against H2 with the real repository, committing every registration so that
+ * concurrent ones meet at the unique email index.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({AuthService.class, UserService.class, UserMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserCreationIntegrationTest {
+
+    private static final int CONCURRENT_REGISTRATIONS = 8;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private PasswordHasher passwordHasher;
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockBean
+    private UserEventPublisher eventPublisher;
+
+    @MockBean
+    private LoginShield loginShield;
+
+    @BeforeEach
+    void setUp() {
+        when(passwordHasher.encode(anyString())).thenReturn("$2a$10$hashedPassword");
+        when(jwtTokenProvider.generateToken(any(), anyString(), any())).thenReturn("jwt-token");
+        statistics().clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should register a user with a single insert")
+    void shouldRegisterWithSingleStatement() {
+        authService.register(new CreateUserRequest("New.User@Example.com", "New User", Role.USER), "password123");
+
+        assertThat(statistics().getPrepareStatementCount()).isEqualTo(1);
+        assertThat(userRepository.findByEmail("new.user@example.com")).isPresent();
+    }
+
+    @Test
+    @DisplayName("Should refuse an email that differs from an existing one only in case")
+    void shouldRejectDuplicateOfNormalizedEmail() {
+        authService.register(new CreateUserRequest("existing@example.com", "Jane Doe", Role.USER), "password123");
+
+        assertThatThrownBy(() -> userService.createUser(
+            new CreateUserRequest("Existing@Example.com", "Jane Doe", Role.USER), UUID.randomUUID(), Role.ADMIN
+        ))
+            .isInstanceOf(DuplicateResourceException.class)
+            .hasMessageContaining("existing@example.com");
+
+        assertThat(userRepository.count()).isEqualTo(1);
+        verify(eventPublisher, times(1)).publishUserCreated(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should let exactly one of concurrent registrations of an email succeed")
+    void shouldRegisterEmailOnceUnderConcurrency() {
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(CONCURRENT_REGISTRATIONS);
+        var registrations = new ArrayList<CompletableFuture<?>>();
+        try {
+            for (int i = 0; i < CONCURRENT_REGISTRATIONS; i++) {
+                var email = i % 2 == 0 ? "race@example.com" : "Race@Example.com";
+                registrations.add(CompletableFuture.runAsync(() -> {
+                    awaitStart(start);
+                    authService.register(new CreateUserRequest(email, "Race Condition", Role.USER), "password123");
+                }, executor));
+            }
+            start.countDown();
+
+            var succeeded = 0;
+            var duplicates = 0;
+            for (var registration : registrations) {
+                try {
+                    registration.join();
+                    succeeded++;
+                } catch (CompletionException e) {
+                    assertThat(e.getCause()).isInstanceOf(DuplicateResourceException.class);
+                    duplicates++;
+                }
+            }
+
+            assertThat(succeeded).isEqualTo(1);
+            assertThat(duplicates).isEqualTo(CONCURRENT_REGISTRATIONS - 1);
+            assertThat(userRepository.count()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static void awaitStart(CountDownLatch start) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
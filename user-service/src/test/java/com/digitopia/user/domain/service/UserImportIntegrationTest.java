@@ -0,0 +1,173 @@
+package com.digitopia.user.domain.service;
+
+import com.digitopia.common.enums.Role;
+import com.digitopia.common.enums.UserStatus;
+import com.digitopia.user.domain.entity.User;
+import com.digitopia.user.domain.repository.UserBatchRepository;
+import com.digitopia.user.domain.repository.UserRepository;
+import com.digitopia.user.infrastructure.importer.ImportFormat;
+import com.digitopia.user.infrastructure.importer.UserImportProperties;
+import com.digitopia.user.infrastructure.importer.UserImportResult;
+import com.digitopia.user.infrastructure.importer.UserImportResult.Outcome;
+import com.digitopia.user.infrastructure.importer.UserImportSummary;
+import com.digitopia.user.infrastructure.mapper.UserMapper;
+import com.digitopia.user.infrastructure.messaging.UserEventPublisher;
+import com.digitopia.user.infrastructure.security.PasswordHasher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Imports users against H2 through the real JDBC batch insert, committing every batch, so that
+ * its column list and its unique index conflicts are checked against the schema of the entity.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(UserBatchRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserImportIntegrationTest {
+
+    private static final UUID ADMIN_ID = UUID.randomUUID();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserBatchRepository userBatchRepository;
+
+    private final PasswordHasher passwordHasher = mock(PasswordHasher.class);
+    private final UserEventPublisher eventPublisher = mock(UserEventPublisher.class);
+    private final List<UserImportResult> results = new ArrayList<>();
+
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new UserImportService(
+            userRepository,
+            userBatchRepository,
+            new UserMapper(),
+            passwordHasher,
+            eventPublisher,
+            Validation.buildDefaultValidatorFactory().getValidator(),
+            new ObjectMapper(),
+            new UserImportProperties(2, 100, 8192),
+            new SimpleMeterRegistry()
+        );
+        when(passwordHasher.encodeAll(anyList()))
+            .thenAnswer(i -> i.<List<String>>getArgument(0).stream().map(p -> "$2a$10$" + p).toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should insert imported rows that read back through the repository")
+    void shouldInsertRows() throws IOException {
+        var summary = importCsv("""
+            email,fullName,role,password
+            Ann@Example.com,Ann Lee,MANAGER,secret1
+            bo@example.com,Bo Kim,,secret2
+            cy@example.com,Cy Park,USER,secret3
+            """);
+
+        assertThat(summary).isEqualTo(new UserImportSummary(3, 3, 0, 0, false));
+        assertThat(userRepository.count()).isEqualTo(3);
+
+        var ann = userRepository.findByEmail("ann@example.com").orElseThrow();
+        assertThat(ann.getId()).isEqualTo(results.get(0).id());
+        assertThat(ann.getPassword()).isEqualTo("$2a$10$secret1");
+        assertThat(ann.getFullName()).isEqualTo("Ann Lee");
+        assertThat(ann.getNormalizedName()).isNotBlank();
+        assertThat(ann.getRole()).isEqualTo(Role.MANAGER);
+        assertThat(ann.getStatus()).isEqualTo(UserStatus.ACTIVE);
+        assertThat(ann.getCreatedBy()).isEqualTo(ADMIN_ID);
+        assertThat(ann.getUpdatedBy()).isEqualTo(ADMIN_ID);
+        assertThat(ann.getCreatedAt()).isNotNull().isEqualTo(ann.getUpdatedAt());
+        assertThat(ann.getOrganizationIds()).isEmpty();
+        assertThat(userRepository.findByEmail("bo@example.com").orElseThrow().getRole()).isEqualTo(Role.USER);
+    }
+
+    @Test
+    @DisplayName("Should insert row by row when the unique email index refuses the batch")
+    void shouldFallBackToRowInsertsOnIndexViolation() throws IOException {
+        // Registers bo@example.com between the lookup of taken emails and the insert of the batch
+        when(passwordHasher.encodeAll(anyList())).thenAnswer(i -> {
+            register("bo@example.com");
+            return i.<List<String>>getArgument(0).stream().map(p -> "$2a$10$" + p).toList();
+        });
+
+        var summary = importCsv("""
+            email,fullName,password
+            ann@example.com,Ann Lee,secret1
+            bo@example.com,Bo Kim,secret2
+            """);
+
+        assertThat(summary).isEqualTo(new UserImportSummary(2, 1, 1, 0, false));
+        assertThat(results).extracting(UserImportResult::outcome).containsExactly(Outcome.CREATED, Outcome.DUPLICATE);
+        assertThat(userRepository.count()).isEqualTo(2);
+        assertThat(userRepository.findByEmail("ann@example.com")).isPresent();
+        assertThat(userRepository.findByEmail("bo@example.com").orElseThrow().getFullName()).isEqualTo("Registered Meanwhile");
+        verify(eventPublisher).publishUsersCreated(argThat(users -> users.size() == 1), eq(ADMIN_ID));
+    }
+
+    @Test
+    @DisplayName("Should insert nothing from a batch that meets a taken email")
+    void shouldInsertBatchAtomically() {
+        register("bo@example.com");
+
+        assertThatThrownBy(() -> userBatchRepository.insertAll(List.of(user("ann@example.com"), user("bo@example.com"))))
+            .isInstanceOf(DuplicateKeyException.class);
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    private UserImportSummary importCsv(String csv) throws IOException {
+        return importService.importUsers(new StringReader(csv), ImportFormat.CSV, ADMIN_ID, Role.ADMIN, results::addAll);
+    }
+
+    private void register(String email) {
+        var user = user(email);
+        user.setId(null);
+        user.setFullName("Registered Meanwhile");
+        userRepository.insert(user);
+    }
+
+    private static User user(String email) {
+        var now = LocalDateTime.now();
+        var user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail(email);
+        user.setPassword("$2a$10$hashedPassword");
+        user.setFullName("Imported User");
+        user.setNormalizedName("imported user");
+        user.setRole(Role.USER);
+        user.setStatus(UserStatus.ACTIVE);
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        user.setCreatedBy(ADMIN_ID);
+        user.setUpdatedBy(ADMIN_ID);
+        return user;
+    }
+}
@@ -0,0 +1,188 @@
+package com.digitopia.user.domain.service;
+
+import com.digitopia.common.enums.Role;
+import com.digitopia.common.enums.UserStatus;
+import com.digitopia.user.domain.repository.UserBatchRepository;
+import com.digitopia.user.domain.repository.UserRepository;
+import com.digitopia.user.infrastructure.importer.ImportFormat;
+import com.digitopia.user.infrastructure.importer.UserImportProperties;
+import com.digitopia.user.infrastructure.importer.UserImportResult;
+import com.digitopia.user.infrastructure.importer.UserImportResult.Outcome;
+import com.digitopia.user.infrastructure.importer.UserImportSummary;
+import com.digitopia.user.infrastructure.mapper.UserMapper;
+import com.digitopia.user.infrastructure.messaging.UserEventPublisher;
+import com.digitopia.user.infrastructure.security.PasswordHasher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    private static final UUID ADMIN_ID = UUID.randomUUID();
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserBatchRepository userBatchRepository;
+
+    @Mock
+    private PasswordHasher passwordHasher;
+
+    @Mock
+    private UserEventPublisher eventPublisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<UserImportResult>> batches = new ArrayList<>();
+
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new UserImportService(
+            userRepository,
+            userBatchRepository,
+            new UserMapper(),
+            passwordHasher,
+            eventPublisher,
+            Validation.buildDefaultValidatorFactory().getValidator(),
+            new ObjectMapper(),
+            new UserImportProperties(2, 100, 8192),
+            meterRegistry
+        );
+        lenient().when(passwordHasher.encodeAll(anyList()))
+            .thenAnswer(i -> i.<List<String>>getArgument(0).stream().map(p -> "hash:" + p).toList());
+    }
+
+    @Test
+    @DisplayName("Should import valid rows in batches and report every row in order")
+    void shouldImportInBatches() throws IOException {
+        var summary = importCsv("""
+            email,fullName,role,password
+            Ann@Example.com,Ann Lee,MANAGER,secret1
+            bo@example.com,Bo Kim,,secret2
+            cy@example.com,Cy Park,USER,secret3
+            """);
+
+        assertThat(summary).isEqualTo(new UserImportSummary(3, 3, 0, 0, false));
+        assertThat(batches).hasSize(2);
+        assertThat(results()).extracting(UserImportResult::row, UserImportResult::email, UserImportResult::outcome)
+            .containsExactly(
+                tuple(1L, "ann@example.com", Outcome.CREATED),
+                tuple(2L, "bo@example.com", Outcome.CREATED),
+                tuple(3L, "cy@example.com", Outcome.CREATED)
+            );
+        verify(userBatchRepository).insertAll(argThat(users -> users.size() == 2
+            && users.get(0).getPassword().equals("hash:secret1")
+            && users.get(0).getRole() == Role.MANAGER
+            && users.get(1).getRole() == Role.USER
+            && users.stream().allMatch(u -> u.getStatus() == UserStatus.ACTIVE && ADMIN_ID.equals(u.getCreatedBy()))));
+        verify(eventPublisher, times(2)).publishUsersCreated(anyList(), eq(ADMIN_ID));
+        assertThat(meterRegistry.get("users.import.rows").tag("outcome", "created").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should report invalid rows and taken emails without hashing them")
+    void shouldReportInvalidAndDuplicateRows() throws IOException {
+        when(userRepository.findEmailsIn(anyCollection()))
+            .thenReturn(List.of("taken@example.com"))
+            .thenReturn(List.of());
+
+        var summary = importCsv("""
+            email,fullName,role,password
+            not-an-email,Ann Lee,,secret1
+            taken@example.com,Bo Kim,,secret2
+            dan@example.com,D4n,,secret3
+            eve@example.com,Eve Ng,OWNER,secret4
+            fay@example.com,Fay Wu,,
+            gil@example.com,Gil Ro,,secret6
+            """);
+
+        assertThat(summary).isEqualTo(new UserImportSummary(6, 1, 1, 4, false));
+        assertThat(results()).extracting(UserImportResult::outcome, UserImportResult::message)
+            .containsExactly(
+                tuple(Outcome.INVALID, "Invalid email format"),
+                tuple(Outcome.DUPLICATE, "User already exists with email: taken@example.com"),
+                tuple(Outcome.INVALID, "Full name must contain only letters"),
+                tuple(Outcome.INVALID, "Invalid role: OWNER"),
+                tuple(Outcome.INVALID, "Password is required"),
+                tuple(Outcome.CREATED, null)
+            );
+        verify(passwordHasher).encodeAll(List.of("secret6"));
+    }
+
+    @Test
+    @DisplayName("Should report a repeated email in the same batch as a duplicate")
+    void shouldRejectRepeatedEmailInBatch() throws IOException {
+        importCsv("""
+            email,fullName,password
+            ann@example.com,Ann Lee,secret1
+            ANN@example.com,Ann Lee,secret2
+            """);
+
+        assertThat(results()).extracting(UserImportResult::outcome)
+            .containsExactly(Outcome.CREATED, Outcome.DUPLICATE);
+    }
+
+    @Test
+    @DisplayName("Should insert row by row when the batch meets an email registered meanwhile")
+    void shouldFallBackToRowInsertsOnConflict() throws IOException {
+        lenient().doThrow(new DuplicateKeyException("idx_user_email")).when(userBatchRepository)
+            .insertAll(argThat(users -> users.size() == 2 || users.get(0).getEmail().equals("bo@example.com")));
+
+        var summary = importCsv("""
+            email,fullName,password
+            ann@example.com,Ann Lee,secret1
+            bo@example.com,Bo Kim,secret2
+            """);
+
+        assertThat(summary).isEqualTo(new UserImportSummary(2, 1, 1, 0, false));
+        assertThat(results()).extracting(UserImportResult::outcome)
+            .containsExactly(Outcome.CREATED, Outcome.DUPLICATE);
+        verify(eventPublisher).publishUsersCreated(argThat(users -> users.size() == 1), eq(ADMIN_ID));
+    }
+
+    @Test
+    @DisplayName("Should stop reading at the row limit and say so")
+    void shouldTruncateAtMaxRows() throws IOException {
+        importService = new UserImportService(
+            userRepository, userBatchRepository, new UserMapper(), passwordHasher, eventPublisher,
+            Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(),
+            new UserImportProperties(10, 1, 8192), meterRegistry
+        );
+
+        var summary = importService.importUsers(new StringReader("""
+            {"email":"ann@example.com","fullName":"Ann Lee","password":"secret1"}
+            {"email":"bo@example.com","fullName":"Bo Kim","password":"secret2"}
+            """), ImportFormat.NDJSON, ADMIN_ID, Role.MANAGER, batches::add);
+
+        assertThat(summary).isEqualTo(new UserImportSummary(1, 1, 0, 0, true));
+        verify(userBatchRepository).insertAll(argThat(users -> users.get(0).getStatus() == UserStatus.PENDING));
+    }
+
+    private UserImportSummary importCsv(String csv) throws IOException {
+        return importService.importUsers(new StringReader(csv), ImportFormat.CSV, ADMIN_ID, Role.ADMIN, batches::add);
+    }
+
+    private List<UserImportResult> results() {
+        return batches.stream().flatMap(List::stream).toList();
+    }
+}
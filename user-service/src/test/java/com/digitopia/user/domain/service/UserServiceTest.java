@@ -1,5 +1,6 @@
 package com.digitopia.user.domain.service;
 
+import com.digitopia.common.dto.MembershipDTO;
 import com.digitopia.common.dto.UserDTO;
 import com.digitopia.common.dto.request.CreateUserRequest;
 import com.digitopia.common.dto.request.UpdateUserStatusRequest;
@@ -48,14 +49,13 @@ class UserServiceTest {
         var request = new CreateUserRequest("test@example.com", "John Doe", Role.USER);
         var currentUserId = UUID.randomUUID();
 
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
+        when(userRepository.insert(any(User.class))).thenAnswer(i -> i.getArgument(0));
         when(userMapper.toDto(any(User.class))).thenReturn(createUserDTO(UserStatus.PENDING));
 
         var result = userService.createUser(request, currentUserId, Role.USER);
 
         assertThat(result.status()).isEqualTo(UserStatus.PENDING);
-        verify(userRepository).save(argThat(user -> user.getStatus() == UserStatus.PENDING));
+        verify(userRepository).insert(argThat(user -> user.getStatus() == UserStatus.PENDING));
         verify(eventPublisher).publishUserCreated(any(UserDTO.class), eq(currentUserId));
     }
 
@@ -65,14 +65,13 @@ class UserServiceTest {
         var request = new CreateUserRequest("admin@example.com", "Admin User", Role.ADMIN);
         var adminId = UUID.randomUUID();
 
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
+        when(userRepository.insert(any(User.class))).thenAnswer(i -> i.getArgument(0));
         when(userMapper.toDto(any(User.class))).thenReturn(createUserDTO(UserStatus.ACTIVE));
 
         var result = userService.createUser(request, adminId, Role.ADMIN);
 
         assertThat(result.status()).isEqualTo(UserStatus.ACTIVE);
-        verify(userRepository).save(argThat(user -> user.getStatus() == UserStatus.ACTIVE));
+        verify(userRepository).insert(argThat(user -> user.getStatus() == UserStatus.ACTIVE));
     }
 
     @Test
@@ -80,13 +79,14 @@ class UserServiceTest {
     void shouldThrowExceptionForDuplicateEmail() {
         var request = new CreateUserRequest("existing@example.com", "Jane Doe", Role.USER);
 
-        when(userRepository.existsByEmail("existing@example.com")).thenReturn(true);
+        when(userRepository.insert(any(User.class)))
+            .thenThrow(new DuplicateResourceException("User already exists with email: existing@example.com"));
 
         assertThatThrownBy(() -> userService.createUser(request, UUID.randomUUID(), Role.USER))
             .isInstanceOf(DuplicateResourceException.class)
             .hasMessageContaining("already exists");
 
-        verify(userRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
     }
 
 
@@ -163,6 +163,26 @@ class UserServiceTest {
         userService.deleteUser(userId, currentUserId);
 
         verify(userRepository).save(argThat(u -> u.getStatus() == UserStatus.DELETED));
+        verify(eventPublisher).publishUserDeleted(eq(userId), anyList(), eq(currentUserId));
+    }
+
+    @Test
+    @DisplayName("Should publish status changes so tokens of deactivated users stop working")
+    void shouldPublishStatusChange() {
+        var userId = UUID.randomUUID();
+        var user = createUser();
+        user.setStatus(UserStatus.ACTIVE);
+        var currentUserId = UUID.randomUUID();
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
+        when(userMapper.toDto(any(User.class))).thenReturn(createUserDTO(UserStatus.DEACTIVATED));
+
+        userService.updateStatus(userId, new UpdateUserStatusRequest(UserStatus.DEACTIVATED), currentUserId);
+        userService.updateStatus(userId, new UpdateUserStatusRequest(UserStatus.DEACTIVATED), currentUserId);
+
+        verify(eventPublisher, times(1))
+            .publishUserStatusChanged(userId, UserStatus.ACTIVE, UserStatus.DEACTIVATED, currentUserId);
     }
 
     @Test
@@ -180,6 +200,25 @@ class UserServiceTest {
         verify(userRepository).save(argThat(u -> u.getOrganizationIds().contains(orgId)));
     }
 
+    @Test
+    @DisplayName("Should page memberships from the start, then after the last one read")
+    void shouldPageMemberships() {
+        var userId = UUID.randomUUID();
+        var orgId = UUID.randomUUID();
+        var start = new UUID(0, 0);
+        UserRepository.Membership membership = mock(UserRepository.Membership.class);
+        when(membership.getUserId()).thenReturn(userId);
+        when(membership.getOrganizationId()).thenReturn(orgId);
+
+        when(userRepository.findMembershipsAfter(start, start, 2)).thenReturn(List.of(membership));
+
+        var first = userService.getMemberships(null, null, 2);
+        userService.getMemberships(userId, orgId, 2);
+
+        assertThat(first).containsExactly(new MembershipDTO(userId, orgId));
+        verify(userRepository).findMembershipsAfter(userId, orgId, 2);
+    }
+
     private User createUser() {
         var user = new User();
         user.setId(UUID.randomUUID());
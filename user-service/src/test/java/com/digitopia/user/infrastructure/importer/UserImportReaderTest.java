@@ -0,0 +1,83 @@
+package com.digitopia.user.infrastructure.importer;
+
+import com.digitopia.common.exception.ValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class UserImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should read NDJSON rows and report unreadable ones")
+    void shouldReadNdjson() throws IOException {
+        var rows = read(ImportFormat.NDJSON, 256, """
+            {"email":"a@example.com","fullName":"Ann Lee","role":"MANAGER","password":"secret1"}
+
+            not json
+            ["array"]
+            {"email":"b@example.com","fullName":"Bo Kim","password":"secret2"}
+            """);
+
+        assertThat(rows).containsExactly(
+            new UserImportRow(1, "a@example.com", "Ann Lee", "MANAGER", "secret1", null),
+            new UserImportRow(2, null, null, null, null, "Row is not valid JSON"),
+            new UserImportRow(3, null, null, null, null, "Row is not a JSON object"),
+            new UserImportRow(4, "b@example.com", "Bo Kim", null, "secret2", null)
+        );
+    }
+
+    @Test
+    @DisplayName("Should read CSV by header names, with quoted fields and CRLF line ends")
+    void shouldReadCsv() throws IOException {
+        var rows = read(ImportFormat.CSV, 256,
+            "\uFEFFpassword,Full_Name,EMAIL\r\n"
+                + "\"pa,ss\"\"word\",Ann Lee,a@example.com\r\n"
+                + "secret,Bo Kim\r\n"
+        );
+
+        assertThat(rows).containsExactly(
+            new UserImportRow(1, "a@example.com", "Ann Lee", null, "pa,ss\"word", null),
+            new UserImportRow(2, null, "Bo Kim", null, "secret", null)
+        );
+    }
+
+    @Test
+    @DisplayName("Should refuse a CSV header without a required column")
+    void shouldRejectIncompleteCsvHeader() {
+        assertThatThrownBy(() -> read(ImportFormat.CSV, 256, "email,password\na@example.com,secret\n"))
+            .isInstanceOf(ValidationException.class)
+            .hasMessageContaining("fullName");
+    }
+
+    @Test
+    @DisplayName("Should report over-long rows without keeping them and go on with the next row")
+    void shouldSkipLongRows() throws IOException {
+        var rows = read(ImportFormat.NDJSON, 64,
+            "{\"email\":\"" + "x".repeat(1000) + "@example.com\"}\n{\"email\":\"a@example.com\"}\n"
+        );
+
+        assertThat(rows).containsExactly(
+            new UserImportRow(1, null, null, null, null, "Row is longer than 64 characters"),
+            new UserImportRow(2, "a@example.com", null, null, null, null)
+        );
+    }
+
+    private List<UserImportRow> read(ImportFormat format, int maxLineLength, String input) throws IOException {
+        var reader = new UserImportReader(new StringReader(input), format, objectMapper, maxLineLength);
+        var rows = new ArrayList<UserImportRow>();
+        UserImportRow row;
+        while ((row = reader.next()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+}
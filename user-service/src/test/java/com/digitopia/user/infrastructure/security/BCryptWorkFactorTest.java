@@ -0,0 +1,39 @@
+package com.digitopia.user.infrastructure.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BCryptWorkFactorTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    @DisplayName("Should pick the highest cost whose estimated hash time stays within the target")
+    void shouldPickHighestCostWithinTarget() {
+        // 12ms at cost 10: 24ms at 11, 48ms at 12, 96ms at 13, 192ms at 14
+        assertThat(BCryptWorkFactor.costFor(12 * MILLIS, 10, 16, Duration.ofMillis(100))).isEqualTo(13);
+        assertThat(BCryptWorkFactor.costFor(12 * MILLIS, 10, 16, Duration.ofMillis(96))).isEqualTo(13);
+        assertThat(BCryptWorkFactor.costFor(12 * MILLIS, 10, 16, Duration.ofMillis(95))).isEqualTo(12);
+    }
+
+    @Test
+    @DisplayName("Should keep the cost between the minimum and maximum")
+    void shouldClampCost() {
+        assertThat(BCryptWorkFactor.costFor(300 * MILLIS, 10, 14, Duration.ofMillis(100))).isEqualTo(10);
+        assertThat(BCryptWorkFactor.costFor(MILLIS, 10, 14, Duration.ofMillis(100))).isEqualTo(14);
+    }
+
+    @Test
+    @DisplayName("Should use a configured cost without calibrating")
+    void shouldUseConfiguredCost() {
+        var workFactor = new BCryptWorkFactor(
+            new PasswordHashingProperties(0, 64, 12, Duration.ofMillis(100), 10, 14)
+        );
+
+        assertThat(workFactor.cost()).isEqualTo(12);
+    }
+}
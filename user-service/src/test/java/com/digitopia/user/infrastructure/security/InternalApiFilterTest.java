@@ -0,0 +1,49 @@
+package com.digitopia.user.infrastructure.security;
+
+import com.digitopia.common.security.InternalApiSecret;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.*;
+
+class InternalApiFilterTest {
+
+    private final InternalApiFilter filter = new InternalApiFilter("internal-secret");
+
+    @Test
+    @DisplayName("Should refuse internal endpoints without the shared secret")
+    void shouldRefuseWithoutSecret() throws Exception {
+        var response = new MockHttpServletResponse();
+        var chain = new MockFilterChain();
+
+        filter.doFilter(request("/internal/memberships", "wrong"), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should pass internal endpoints with the shared secret, and public endpoints without it")
+    void shouldPassWithSecret() throws Exception {
+        var internal = new MockFilterChain();
+        filter.doFilter(request("/internal/memberships", "internal-secret"), new MockHttpServletResponse(), internal);
+
+        var publicApi = new MockFilterChain();
+        filter.doFilter(request("/api/users/me", null), new MockHttpServletResponse(), publicApi);
+
+        assertThat(internal.getRequest()).isNotNull();
+        assertThat(publicApi.getRequest()).isNotNull();
+    }
+
+    private static MockHttpServletRequest request(String path, String secret) {
+        var request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        if (secret != null) {
+            request.addHeader(InternalApiSecret.HEADER, secret);
+        }
+        return request;
+    }
+}
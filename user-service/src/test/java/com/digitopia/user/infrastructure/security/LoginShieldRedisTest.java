@@ -0,0 +1,165 @@
+package com.digitopia.user.infrastructure.security;
+
+import com.digitopia.common.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.connection.BitFieldSubCommands.BitFieldType;
+import org.springframework.data.redis.connection.BitFieldSubCommands.Offset;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Drives {@link LoginShield} against a real Redis, so that the BITFIELD offsets, the parsing of the
+ * pipelined replies and the key expiry are checked along with the arithmetic.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LoginShieldRedisTest {
+
+    private static final long WINDOW = Duration.ofMinutes(15).toMillis();
+    /** Start of the window the tests run in. */
+    private static final long START = 2_000 * WINDOW;
+    private static final String EMAIL = "user@example.com";
+    private static final String IP = "203.0.113.7";
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private final LoginShieldProperties properties = new LoginShieldProperties(
+        true, Duration.ofMillis(WINDOW), 1024, 4, Duration.ofSeconds(1), Duration.ofMinutes(1), 3, 20, 20, 200
+    );
+    private final AtomicLong clock = new AtomicLong(START);
+    private final LoginShield shield = new LoginShield(redisTemplate, properties, new SimpleMeterRegistry(), clock::get);
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void flush() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+    }
+
+    @Test
+    @DisplayName("Should count failures in the cells of the key and stamp them with the time")
+    void shouldWriteCountersAndTimestamps() {
+        clock.set(START + 5_000);
+        shield.recordFailure(EMAIL, IP);
+        shield.recordFailure(EMAIL, IP);
+
+        var key = "auth:login-shield:email:" + START / WINDOW;
+        var timestamps = 16L * 1024 * 4;
+        for (var cell : shield.cells("email", EMAIL)) {
+            var values = redisTemplate.opsForValue().bitField(key, BitFieldSubCommands.create()
+                .get(BitFieldType.unsigned(16)).valueAt(Offset.offset(16L * cell))
+                .get(BitFieldType.unsigned(32)).valueAt(Offset.offset(timestamps + 32L * cell)));
+            assertThat(values).containsExactly(2L, (START + 5_000) / 1000);
+        }
+        assertThat(redisTemplate.opsForValue().size(key)).isLessThanOrEqualTo((16L + 32) * 1024 * 4 / 8);
+    }
+
+    @Test
+    @DisplayName("Should expire the sketches of a window after two windows")
+    void shouldExpireSketches() {
+        shield.recordFailure(EMAIL, IP);
+
+        for (var dimension : List.of("email", "ip")) {
+            var ttl = redisTemplate.getExpire("auth:login-shield:" + dimension + ":" + START / WINDOW, TimeUnit.MILLISECONDS);
+            assertThat(ttl).isBetween(WINDOW, 2 * WINDOW);
+        }
+    }
+
+    @Test
+    @DisplayName("Should delay the next attempt once an email reaches the threshold")
+    void shouldDelayAfterThreshold() {
+        shield.recordFailure(EMAIL, IP);
+        shield.recordFailure(EMAIL, IP);
+        shield.check(EMAIL, IP);
+        shield.recordFailure(EMAIL, IP);
+
+        assertThatThrownBy(() -> shield.check(EMAIL, IP))
+            .isInstanceOf(TooManyRequestsException.class)
+            .extracting(e -> ((TooManyRequestsException) e).getRetryAfterSeconds())
+            .isEqualTo(1L);
+        assertThatCode(() -> shield.check("other@example.com", IP)).doesNotThrowAnyException();
+
+        clock.addAndGet(1_000);
+        assertThatCode(() -> shield.check(EMAIL, IP)).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should weigh the previous window's failures down as the current window goes on")
+    void shouldWeighPreviousWindow() {
+        clock.set(START - 1_000);
+        for (int i = 0; i < 24; i++) {
+            shield.recordFailure(EMAIL, "198.51.100." + i);
+        }
+
+        // 24 * 0.9 = 21.6 failures, past the maximum of 20
+        clock.set(START + WINDOW / 10);
+        assertThatThrownBy(() -> shield.check(EMAIL, IP))
+            .isInstanceOf(TooManyRequestsException.class)
+            .extracting(e -> ((TooManyRequestsException) e).getRetryAfterSeconds())
+            .isEqualTo((WINDOW - WINDOW / 10) / 1000);
+
+        // 24 * 0.75 = 18 failures, below the maximum, and the 1 minute delay since the last one has passed
+        clock.set(START + WINDOW / 4);
+        assertThatCode(() -> shield.check(EMAIL, IP)).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should let logins through once Redis stops answering within the command timeout")
+    void shouldFailOpenOnTimeout() {
+        var clientConfiguration = LettuceClientConfiguration.builder().commandTimeout(Duration.ofMillis(250)).build();
+        var timingOut = new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)), clientConfiguration
+        );
+        timingOut.afterPropertiesSet();
+        var failOpen = new LoginShield(new StringRedisTemplate(timingOut), properties, new SimpleMeterRegistry(), clock::get);
+        for (int i = 0; i < 20; i++) {
+            failOpen.recordFailure(EMAIL, IP);
+        }
+
+        var docker = REDIS.getDockerClient();
+        docker.pauseContainerCmd(REDIS.getContainerId()).exec();
+        try {
+            var started = System.nanoTime();
+            assertThatCode(() -> failOpen.check(EMAIL, IP)).doesNotThrowAnyException();
+            assertThatCode(() -> failOpen.recordFailure(EMAIL, IP)).doesNotThrowAnyException();
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        } finally {
+            docker.unpauseContainerCmd(REDIS.getContainerId()).exec();
+            timingOut.destroy();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.digitopia.user.infrastructure.security;
+
+import com.digitopia.common.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.connection.BitFieldSubCommands.BitFieldSubCommand;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LoginShieldTest {
+
+    private static final long NOW = 1_800_000_000_000L;
+    private static final long WINDOW_LEFT = 600_000;
+
+    private final LoginShieldProperties properties = new LoginShieldProperties(
+        true, Duration.ofMinutes(15), 1024, 4, Duration.ofSeconds(1), Duration.ofMinutes(1), 3, 20, 20, 200
+    );
+    private final LoginShield shield = new LoginShield(null, properties, new SimpleMeterRegistry(), () -> NOW);
+
+    @Test
+    @DisplayName("Should let attempts through until the delay threshold")
+    void shouldAllowFirstFailures() {
+        assertThat(waitAfter(0, NOW)).isZero();
+        assertThat(waitAfter(2.9, NOW)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should double the required gap with every failure up to the maximum")
+    void shouldDelayProgressively() {
+        assertThat(waitAfter(3, NOW)).isEqualTo(1_000);
+        assertThat(waitAfter(4, NOW)).isEqualTo(2_000);
+        assertThat(waitAfter(6, NOW - 3_000)).isEqualTo(5_000);
+        assertThat(waitAfter(19, NOW)).isEqualTo(60_000);
+        assertThat(waitAfter(4, NOW - 2_000)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should refuse attempts for the rest of the window past the maximum")
+    void shouldBlockPastMaxFailures() {
+        assertThat(waitAfter(20, NOW - Duration.ofHours(1).toMillis())).isEqualTo(WINDOW_LEFT);
+    }
+
+    @Test
+    @DisplayName("Should pick one cell per row, the same for the same key")
+    void shouldSpreadKeysOverRows() {
+        var cells = shield.cells("email", "user@example.com");
+
+        assertThat(cells).hasSize(4).containsExactly(shield.cells("email", "user@example.com"));
+        assertThat(shield.cells("ip", "user@example.com")).isNotEqualTo(cells);
+        for (int row = 0; row < cells.length; row++) {
+            assertThat(cells[row]).isBetween(row * 1024, row * 1024 + 1023);
+        }
+    }
+
+    @Test
+    @DisplayName("Should read the pipelined sketches, weighing in the previous window")
+    void shouldCheckPipelinedReplies() {
+        var now = NOW + 300_000;
+        var timestamps = List.of(now / 1000, now / 1000, now / 1000, now / 1000);
+        var redis = pipelined(List.of(
+            concat(List.of(2L, 2L, 3L, 2L), timestamps),
+            concat(List.of(4L, 5L, 4L, 4L), List.of(0L, 0L, 0L, 0L)),
+            concat(List.of(0L, 0L, 0L, 0L), List.of(0L, 0L, 0L, 0L)),
+            concat(List.of(0L, 0L, 0L, 0L), List.of(0L, 0L, 0L, 0L))
+        ));
+        // A third into the window: 2 + 4 * 2/3 failures, so a 2 second gap after the last one
+        var shield = new LoginShield(redis.template(), properties, new SimpleMeterRegistry(), () -> now);
+
+        assertThatThrownBy(() -> shield.check("user@example.com", "203.0.113.7"))
+            .isInstanceOf(TooManyRequestsException.class)
+            .extracting(e -> ((TooManyRequestsException) e).getRetryAfterSeconds())
+            .isEqualTo(2L);
+
+        var reads = ArgumentCaptor.forClass(BitFieldSubCommands.class);
+        verify(redis.strings(), times(4)).bitField(any(byte[].class), reads.capture());
+        var cells = shield.cells("email", "user@example.com");
+        var offsets = reads.getAllValues().get(0).getSubCommands().stream().map(BitFieldSubCommand::getOffset).toList();
+        for (int row = 0; row < cells.length; row++) {
+            assertThat(offsets.get(row).getValue()).isEqualTo(cells[row]);
+            assertThat(offsets.get(row).isZeroBased()).isFalse();
+            assertThat(offsets.get(cells.length + row).getValue()).isEqualTo(16L * 1024 * 4 + 32L * cells[row]);
+        }
+    }
+
+    @Test
+    @DisplayName("Should expire both sketches of a failure after two windows")
+    void shouldExpireRecordedFailures() {
+        var redis = pipelined(List.of());
+        var shield = new LoginShield(redis.template(), properties, new SimpleMeterRegistry(), () -> NOW);
+
+        shield.recordFailure("user@example.com", "203.0.113.7");
+
+        var window = NOW / Duration.ofMinutes(15).toMillis();
+        verify(redis.keys()).pExpire(("auth:login-shield:email:" + window).getBytes(StandardCharsets.UTF_8),
+            Duration.ofMinutes(30).toMillis());
+        verify(redis.keys()).pExpire(("auth:login-shield:ip:" + window).getBytes(StandardCharsets.UTF_8),
+            Duration.ofMinutes(30).toMillis());
+    }
+
+    private long waitAfter(double failures, long lastFailureMillis) {
+        return shield.waitMillis(new LoginShield.Failures(failures, lastFailureMillis), 3, 20, NOW, WINDOW_LEFT);
+    }
+
+    /** A template that runs pipelines against mock commands and answers them with {@code replies}. */
+    @SuppressWarnings("unchecked")
+    private static PipelinedRedis pipelined(List<Object> replies) {
+        var template = mock(StringRedisTemplate.class);
+        var connection = mock(RedisConnection.class);
+        var strings = mock(RedisStringCommands.class);
+        var keys = mock(RedisKeyCommands.class);
+        when(connection.stringCommands()).thenReturn(strings);
+        when(connection.keyCommands()).thenReturn(keys);
+        when(template.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.<RedisCallback<Object>>getArgument(0).doInRedis(connection);
+            return replies;
+        });
+        return new PipelinedRedis(template, strings, keys);
+    }
+
+    private static List<Long> concat(List<Long> counters, List<Long> timestamps) {
+        var values = new ArrayList<>(counters);
+        values.addAll(timestamps);
+        return values;
+    }
+
+    private record PipelinedRedis(StringRedisTemplate template, RedisStringCommands strings, RedisKeyCommands keys) {
+    }
+}
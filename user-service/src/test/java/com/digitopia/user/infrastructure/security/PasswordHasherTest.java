@@ -0,0 +1,152 @@
+package com.digitopia.user.infrastructure.security;
+
+import com.digitopia.common.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordHasher hasher = new PasswordHasher(
+        new BlockingEncoder(release),
+        new PasswordHashingProperties(1, 1, 0, Duration.ofMillis(100), 10, 14),
+        meterRegistry
+    );
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        hasher.destroy();
+    }
+
+    @Test
+    @DisplayName("Should hash on the pool and turn calls away once the queue is full")
+    void shouldRejectWhenQueueIsFull() {
+        var running = CompletableFuture.supplyAsync(() -> hasher.encode("first"));
+        waitUntil(() -> meterRegistry.get("auth.password.hashing.active").gauge().value() == 1);
+        var queued = CompletableFuture.supplyAsync(() -> hasher.matches("second", "hash:second"));
+        waitUntil(() -> meterRegistry.get("auth.password.hashing.queue").gauge().value() == 1);
+
+        assertThatThrownBy(() -> hasher.encode("third"))
+            .isInstanceOf(ServiceUnavailableException.class);
+
+        release.countDown();
+        assertThat(running.join()).isEqualTo("hash:first");
+        assertThat(queued.join()).isTrue();
+        assertThat(meterRegistry.get("auth.password.hashing.rejected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.password.hashing").tag("operation", "encode").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should pass on exceptions of the encoder")
+    void shouldPropagateEncoderExceptions() {
+        release.countDown();
+
+        assertThatThrownBy(() -> hasher.matches("password", null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should hash in bulk in order, waiting for room instead of failing when the queue is full")
+    void shouldEncodeAllWaitingForRoom() {
+        var running = CompletableFuture.supplyAsync(() -> hasher.encode("first"));
+        waitUntil(() -> meterRegistry.get("auth.password.hashing.active").gauge().value() == 1);
+        var queued = CompletableFuture.supplyAsync(() -> hasher.encode("second"));
+        waitUntil(() -> meterRegistry.get("auth.password.hashing.queue").gauge().value() == 1);
+
+        var bulk = CompletableFuture.supplyAsync(() -> hasher.encodeAll(List.of("a", "b", "c")));
+        release.countDown();
+
+        assertThat(bulk.join()).containsExactly("hash:a", "hash:b", "hash:c");
+        assertThat(running.join()).isEqualTo("hash:first");
+        assertThat(queued.join()).isEqualTo("hash:second");
+        assertThat(meterRegistry.get("auth.password.hashing.rejected").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep the queue for logins while an import is hashing")
+    void shouldAdmitLoginsDuringImport() {
+        var running = CompletableFuture.supplyAsync(() -> hasher.encode("first"));
+        waitUntil(() -> meterRegistry.get("auth.password.hashing.active").gauge().value() == 1);
+        var bulk = CompletableFuture.supplyAsync(() -> hasher.encodeAll(List.of("a", "b", "c")));
+        waitUntil(() -> meterRegistry.get("auth.password.hashing.queue").gauge().value() == 1);
+
+        var login = CompletableFuture.supplyAsync(() -> hasher.matches("second", "hash:second"));
+        waitUntil(() -> meterRegistry.get("auth.password.hashing.queue").gauge().value() == 2);
+
+        release.countDown();
+        assertThat(login.join()).isTrue();
+        assertThat(bulk.join()).containsExactly("hash:a", "hash:b", "hash:c");
+        assertThat(running.join()).isEqualTo("hash:first");
+        assertThat(meterRegistry.get("auth.password.hashing.rejected").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should rehash in the background, but not while other hashing is queued")
+    void shouldRehashOnlyWhenIdle() {
+        var running = CompletableFuture.supplyAsync(() -> hasher.encode("first"));
+        waitUntil(() -> meterRegistry.get("auth.password.hashing.active").gauge().value() == 1);
+        var queued = CompletableFuture.supplyAsync(() -> hasher.encode("second"));
+        waitUntil(() -> meterRegistry.get("auth.password.hashing.queue").gauge().value() == 1);
+        var skipped = new AtomicReference<String>();
+
+        hasher.rehashInBackground("busy", skipped::set);
+
+        release.countDown();
+        running.join();
+        queued.join();
+        var rehashed = new AtomicReference<String>();
+        hasher.rehashInBackground("idle", rehashed::set);
+        waitUntil(() -> rehashed.get() != null);
+        assertThat(rehashed.get()).isEqualTo("hash:idle");
+        assertThat(skipped.get()).isNull();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        var deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition within 5s").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    /** Prefixes passwords with {@code hash:} once released. */
+    private record BlockingEncoder(CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            waitForRelease();
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            waitForRelease();
+            if (encodedPassword == null) {
+                throw new IllegalArgumentException("No encoded password");
+            }
+            return encodedPassword.equals("hash:" + rawPassword);
+        }
+
+        private void waitForRelease() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}